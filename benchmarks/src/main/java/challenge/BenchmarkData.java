@@ -0,0 +1,127 @@
+package challenge;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.CalculationsStrategy;
+import utils.StandInCalculationsStrategy;
+import utils.MongoKeys;
+import utils.NativeCalculationsStrategy;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic conjunctions and calculation strategies shared by the benchmarks
+ */
+public final class BenchmarkData {
+
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkData.class);
+
+    /**
+     * The seed of all generated data, so that every run measures the same conjunctions
+     */
+    static final long SEED = 42;
+
+    /**
+     * The number of conjunctions each benchmark invocation goes through
+     */
+    static final int CONJUNCTIONS = 256;
+
+    /**
+     * Name of the native CalculationsStrategy, loaded from the system property "calculations.library"
+     */
+    public static final String NATIVE = "native";
+
+    /**
+     * Name of the StandInCalculationsStrategy, whose formula is not derived from the native library
+     */
+    public static final String STAND_IN = "stand-in";
+
+    private static final String LIBRARY_PROPERTY = "calculations.library";
+    private static final double SECONDS_PER_WEEK = 7 * 24 * 3600;
+
+    private BenchmarkData() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @param trendLength  the number of risk trends of each conjunction
+     * @param invalidRatio the ratio of invalid risk trends, missing a field or holding a wrong value
+     * @return {@value CONJUNCTIONS} conjunctions, always the same for the same arguments
+     */
+    static List<Document> conjunctions(int trendLength, double invalidRatio) {
+        Random random = new Random(SEED);
+        List<Document> conjunctions = new ArrayList<>(CONJUNCTIONS);
+        for (int i = 0; i < CONJUNCTIONS; i++) {
+            conjunctions.add(conjunction(random, i, trendLength, invalidRatio));
+        }
+        return conjunctions;
+    }
+
+    private static Document conjunction(Random random, int id, int trendLength, double invalidRatio) {
+        List<Document> riskTrends = new ArrayList<>(trendLength);
+        double logCollisionProbability = -8 + random.nextDouble() * 4;
+        for (int i = 0; i < trendLength; i++) {
+            double timeToTca = SECONDS_PER_WEEK * (trendLength - i) / trendLength;
+            // A random walk with occasional jumps, so that some thetas are problematic
+            logCollisionProbability = Math.min(0, logCollisionProbability + random.nextGaussian()
+                    * (random.nextDouble() < 0.1 ? 2 : 0.2));
+            Document riskTrend = new Document(MongoKeys.TIME_TO_TCA, timeToTca)
+                    .append(MongoKeys.COLLISION_PROBABILITY, Math.pow(10, logCollisionProbability));
+            if (random.nextDouble() < invalidRatio) {
+                invalidate(random, riskTrend);
+            }
+            riskTrends.add(riskTrend);
+        }
+        double latestCollisionProbability = Math.pow(10, logCollisionProbability);
+        return new Document(MongoKeys.ID, id)
+                .append(MongoKeys.CONJUNCTION_ID, "conjunction" + id)
+                .append(MongoKeys.SAT1_NORAD_ID, random.nextInt(ChallengeClass.MAXIMUM_NORAD_ID))
+                .append(MongoKeys.SAT2_NORAD_ID, random.nextInt(ChallengeClass.MAXIMUM_NORAD_ID))
+                .append(MongoKeys.NEWEST_RISK_ESTIMATION, new Document(MongoKeys.SUGGESTED, true))
+                .append(MongoKeys.NEWEST_RISK_PREDICTION, new Document(MongoKeys.COLLISION_PROBABILITY,
+                        latestCollisionProbability).append(MongoKeys.RISK_TREND, riskTrends));
+    }
+
+    private static void invalidate(Random random, Document riskTrend) {
+        switch (random.nextInt(3)) {
+            case 0 -> riskTrend.remove(MongoKeys.COLLISION_PROBABILITY);
+            case 1 -> riskTrend.put(MongoKeys.COLLISION_PROBABILITY, Double.NaN);
+            default -> riskTrend.put(MongoKeys.TIME_TO_TCA, "invalid");
+        }
+    }
+
+    /**
+     * @return a conjunctions' collection for the benchmarks that never reach the DB, failing on any call
+     */
+    @SuppressWarnings("unchecked")
+    static MongoCollection<Document> unusedCollection() {
+        return (MongoCollection<Document>) Proxy.newProxyInstance(BenchmarkData.class.getClassLoader(),
+                new Class<?>[]{MongoCollection.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException("The benchmarks do not access the DB");
+                });
+    }
+
+    /**
+     * @param name {@value NATIVE} or {@value STAND_IN}
+     * @return the CalculationsStrategy with the given name. The StandInCalculationsStrategy stands in for the native
+     * one if the native library is not available
+     */
+    public static CalculationsStrategy calculationsStrategy(String name) {
+        if (NATIVE.equals(name)) {
+            String library = System.getProperty(LIBRARY_PROPERTY);
+            if (library != null) {
+                System.loadLibrary(library);
+            }
+            if (NativeCalculationsStrategy.isAvailable()) {
+                return new NativeCalculationsStrategy();
+            }
+            logger.error("The native Calculations library is not available, measuring the StandInCalculationsStrategy");
+        }
+        return new StandInCalculationsStrategy();
+    }
+}
@@ -0,0 +1,97 @@
+package challenge;
+
+import challenge.model.RiskTrend;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.Calculations;
+import utils.CalculationsStrategy;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the Calculations of the risk trends of a conjunction, either with one call per pair and per calculation or
+ * with a single batched call for the whole risk trend
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculationsBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int trendLength;
+
+    @Param({BenchmarkData.STAND_IN, BenchmarkData.NATIVE})
+    private String calculations;
+
+    private CalculationsStrategy calculationsStrategy;
+    private List<RiskTrend> riskTrends;
+    private double[] collisionProbability;
+    private double[] theta;
+    private boolean[] problematic;
+    private double[] adjustedValue;
+
+    @Setup
+    public void setUp() {
+        calculationsStrategy = BenchmarkData.calculationsStrategy(calculations);
+        ChallengeClass challengeClass = new ChallengeClass(BenchmarkData.unusedCollection(), SweepSettings.defaults(),
+                calculationsStrategy);
+        riskTrends = new ArrayList<>(BenchmarkData.CONJUNCTIONS);
+        for (Document conjunction : BenchmarkData.conjunctions(trendLength, 0)) {
+            riskTrends.add(challengeClass.toRiskTrend(conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class)
+                    .getList(MongoKeys.RISK_TREND, Document.class)));
+        }
+        collisionProbability = new double[trendLength];
+        theta = new double[trendLength];
+        problematic = new boolean[trendLength];
+        adjustedValue = new double[trendLength];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void perPairCalls(Blackhole blackhole) {
+        for (RiskTrend riskTrend : riskTrends) {
+            double[] timeToTca = riskTrend.timeToTcaArray();
+            double[] collisionProbability = riskTrend.collisionProbabilityArray();
+            for (int i = 1; i < riskTrend.size(); i++) {
+                double theta = calculationsStrategy.analyzeTheta(timeToTca[i - 1], collisionProbability[i - 1],
+                        timeToTca[i], collisionProbability[i]);
+                if (calculationsStrategy.checkTheta(theta)) {
+                    blackhole.consume(calculationsStrategy.adjustCollisionProbability(timeToTca[i - 1],
+                            collisionProbability[i - 1], timeToTca[i], collisionProbability[i]));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void batchedCall(Blackhole blackhole) {
+        int[] seriesBounds = {0, trendLength};
+        for (RiskTrend riskTrend : riskTrends) {
+            System.arraycopy(riskTrend.collisionProbabilityArray(), 0, collisionProbability, 0, trendLength);
+            Arrays.fill(adjustedValue, Calculations.NO_ADJUSTMENT);
+            calculationsStrategy.analyzeRiskTrendSeries(riskTrend.timeToTcaArray(), collisionProbability, seriesBounds,
+                    theta, problematic, adjustedValue);
+            blackhole.consume(adjustedValue);
+        }
+    }
+}
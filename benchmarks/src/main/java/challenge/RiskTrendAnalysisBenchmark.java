@@ -0,0 +1,80 @@
+package challenge;
+
+import challenge.model.RiskTrend;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the analysis of a single conjunction: the theta analysis of an already extracted RiskTrend, and the
+ * whole adjustment of a conjunction Document, from the extraction of its risk trend to the changes handed to the
+ * writer. The conjunctions are adjusted in place, so after the first pass the adjustment finds them already adjusted,
+ * like a sweep over an unchanged collection
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskTrendAnalysisBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int trendLength;
+
+    @Param({"0", "0.05", "0.25"})
+    private double invalidRatio;
+
+    @Param({BenchmarkData.STAND_IN, BenchmarkData.NATIVE})
+    private String calculations;
+
+    private List<Document> conjunctions;
+    private List<RiskTrend> riskTrends;
+    private ChallengeClass challengeClass;
+    private RiskTrendAnalyzer riskTrendAnalyzer;
+
+    @Setup
+    public void setUp() {
+        conjunctions = BenchmarkData.conjunctions(trendLength, invalidRatio);
+        challengeClass = new ChallengeClass(BenchmarkData.unusedCollection(), SweepSettings.defaults(),
+                BenchmarkData.calculationsStrategy(calculations));
+        riskTrendAnalyzer = new RiskTrendAnalyzer(BenchmarkData.calculationsStrategy(calculations));
+        riskTrends = new ArrayList<>(conjunctions.size());
+        for (Document conjunction : conjunctions) {
+            riskTrends.add(challengeClass.toRiskTrend(conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class)
+                    .getList(MongoKeys.RISK_TREND, Document.class)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void analyzeRiskTrend(Blackhole blackhole) {
+        for (RiskTrend riskTrend : riskTrends) {
+            blackhole.consume(riskTrendAnalyzer.analyze(riskTrend));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void adjustConjunction(Blackhole blackhole) {
+        for (Document conjunction : conjunctions) {
+            challengeClass.adjustConjunctionBasedOnTheta(conjunction, blackhole::consume);
+        }
+    }
+}
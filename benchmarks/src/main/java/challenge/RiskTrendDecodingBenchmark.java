@@ -0,0 +1,106 @@
+package challenge;
+
+import challenge.model.ConjunctionCodec;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.MongoKeys;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the extraction of risk trends from the BSON of conjunctions: the decoding into Documents, the
+ * extraction and validation of the risk trend of a decoded Document, and the direct decoding into Conjunctions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiskTrendDecodingBenchmark {
+
+    @Param({"4", "16", "64"})
+    private int trendLength;
+
+    @Param({"0", "0.05", "0.25"})
+    private double invalidRatio;
+
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final ConjunctionCodec conjunctionCodec = new ConjunctionCodec();
+    private final DecoderContext decoderContext = DecoderContext.builder().build();
+    private List<RawBsonDocument> rawConjunctions;
+    private List<List<Document>> riskTrends;
+    private ChallengeClass challengeClass;
+
+    @Setup
+    public void setUp() {
+        List<Document> conjunctions = BenchmarkData.conjunctions(trendLength, invalidRatio);
+        rawConjunctions = new ArrayList<>(conjunctions.size());
+        riskTrends = new ArrayList<>(conjunctions.size());
+        for (Document conjunction : conjunctions) {
+            rawConjunctions.add(new RawBsonDocument(conjunction, documentCodec));
+            riskTrends.add(conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class)
+                    .getList(MongoKeys.RISK_TREND, Document.class));
+        }
+        challengeClass = new ChallengeClass(BenchmarkData.unusedCollection(), SweepSettings.defaults(),
+                BenchmarkData.calculationsStrategy(BenchmarkData.STAND_IN));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void decodeDocument(Blackhole blackhole) {
+        for (RawBsonDocument rawConjunction : rawConjunctions) {
+            blackhole.consume(documentCodec.decode(reader(rawConjunction), decoderContext));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void decodeConjunction(Blackhole blackhole) {
+        for (RawBsonDocument rawConjunction : rawConjunctions) {
+            blackhole.consume(conjunctionCodec.decode(reader(rawConjunction), decoderContext));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void extractRiskTrend(Blackhole blackhole) {
+        for (List<Document> riskTrend : riskTrends) {
+            blackhole.consume(challengeClass.toRiskTrend(riskTrend));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkData.CONJUNCTIONS)
+    public void validateRiskTrend(Blackhole blackhole) {
+        for (List<Document> riskTrend : riskTrends) {
+            for (Document trend : riskTrend) {
+                blackhole.consume(challengeClass.isTrendValid(trend));
+            }
+        }
+    }
+
+    private static BsonBinaryReader reader(RawBsonDocument rawConjunction) {
+        ByteBuffer buffer = rawConjunction.getByteBuffer().asNIO();
+        return new BsonBinaryReader(buffer);
+    }
+}
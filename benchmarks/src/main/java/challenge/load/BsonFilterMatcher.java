@@ -0,0 +1,153 @@
+package challenge.load;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Evaluates the subset of the query language used by ChallengeClass on BSON documents: $and, $exists, $eq, $ne, $in,
+ * $lt, $lte, $gt, $gte and implicit equality on dotted paths. Numbers are compared by value, other values only with values
+ * of the same type
+ */
+final class BsonFilterMatcher {
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private BsonFilterMatcher() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @param filter   the filter
+     * @param document the document
+     * @return true if the document matches the filter
+     * @throws UnsupportedOperationException if the filter uses an unsupported operator
+     */
+    static boolean matches(BsonDocument filter, BsonDocument document) {
+        for (Map.Entry<String, BsonValue> condition : filter.entrySet()) {
+            String key = condition.getKey();
+            if (key.equals("$and")) {
+                for (BsonValue subFilter : condition.getValue().asArray()) {
+                    if (!matches(subFilter.asDocument(), document)) {
+                        return false;
+                    }
+                }
+            } else if (key.startsWith("$")) {
+                throw new UnsupportedOperationException("Unsupported operator " + key);
+            } else if (!matchesPath(condition.getValue(), get(document, key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesPath(BsonValue condition, BsonValue value) {
+        if (!condition.isDocument() || condition.asDocument().isEmpty()
+                || !condition.asDocument().getFirstKey().startsWith("$")) {
+            return value != null && compare(value, condition) == 0;
+        }
+        for (Map.Entry<String, BsonValue> operator : condition.asDocument().entrySet()) {
+            BsonValue operand = operator.getValue();
+            boolean matches = switch (operator.getKey()) {
+                case "$exists" -> (value != null) == operand.asBoolean().getValue();
+                case "$eq" -> value != null && compare(value, operand) == 0;
+                case "$ne" -> value == null || compare(value, operand) != 0;
+                case "$in" -> value != null && operand.asArray().stream().anyMatch(v -> compare(value, v) == 0);
+                case "$lt" -> inRange(value, operand, comparison -> comparison < 0);
+                case "$lte" -> inRange(value, operand, comparison -> comparison <= 0);
+                case "$gt" -> inRange(value, operand, comparison -> comparison > 0);
+                case "$gte" -> inRange(value, operand, comparison -> comparison >= 0);
+                default -> throw new UnsupportedOperationException("Unsupported operator " + operator.getKey());
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inRange(BsonValue value, BsonValue operand, IntPredicate range) {
+        if (value == null) {
+            return false;
+        }
+        int comparison = compare(value, operand);
+        return comparison != INCOMPARABLE && range.test(comparison);
+    }
+
+    /**
+     * @return the comparison of both values, or INCOMPARABLE if they cannot be compared
+     */
+    private static int compare(BsonValue value, BsonValue operand) {
+        if (value.isNumber() && operand.isNumber()) {
+            return Double.compare(value.asNumber().doubleValue(), operand.asNumber().doubleValue());
+        }
+        if (value.isString() && operand.isString()) {
+            return value.asString().getValue().compareTo(operand.asString().getValue());
+        }
+        if (value.isObjectId() && operand.isObjectId()) {
+            return value.asObjectId().getValue().compareTo(operand.asObjectId().getValue());
+        }
+        return value.equals(operand) ? 0 : INCOMPARABLE;
+    }
+
+    /**
+     * @param document the document
+     * @param path     the dotted path, whose numeric parts index arrays
+     * @return the value at the given path, null if missing
+     */
+    static BsonValue get(BsonDocument document, String path) {
+        BsonValue current = document;
+        for (String part : path.split("\\.")) {
+            if (current instanceof BsonDocument currentDocument) {
+                current = currentDocument.get(part);
+            } else if (current instanceof BsonArray array && isIndex(part) && Integer.parseInt(part) < array.size()) {
+                current = array.get(Integer.parseInt(part));
+            } else {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Sets the value at the given dotted path, creating the missing documents on the way
+     *
+     * @param document the document
+     * @param path     the dotted path, whose numeric parts index arrays
+     * @param value    the value
+     * @return true if the value differs from the previous one
+     */
+    static boolean set(BsonDocument document, String path, BsonValue value) {
+        String[] parts = path.split("\\.");
+        BsonValue current = document;
+        for (int i = 0; i < parts.length - 1; i++) {
+            BsonValue next;
+            if (current instanceof BsonArray array && isIndex(parts[i])) {
+                next = array.get(Integer.parseInt(parts[i]));
+            } else {
+                BsonDocument currentDocument = current.asDocument();
+                next = currentDocument.get(parts[i]);
+                if (next == null) {
+                    next = new BsonDocument();
+                    currentDocument.put(parts[i], next);
+                }
+            }
+            current = next;
+        }
+        String last = parts[parts.length - 1];
+        BsonValue previous;
+        if (current instanceof BsonArray array && isIndex(last)) {
+            previous = array.set(Integer.parseInt(last), value);
+        } else {
+            previous = current.asDocument().put(last, value);
+        }
+        return !value.equals(previous);
+    }
+
+    private static boolean isIndex(String part) {
+        return !part.isEmpty() && part.chars().allMatch(Character::isDigit);
+    }
+}
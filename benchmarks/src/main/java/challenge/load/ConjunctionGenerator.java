@@ -0,0 +1,198 @@
+package challenge.load;
+
+import challenge.ChallengeClass;
+import org.bson.Document;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of synthetic conjunctions with configurable risk trend lengths, norad ids and rates of invalid risk trends
+ * and problematic thetas. The same seed always generates the same conjunctions.
+ * <p>
+ * The risk trends are spaced by 10 to 60 minutes. Each pair is made problematic by a jump of the collision probability
+ * steeper than the maximum theta of the StandInCalculationsStrategy, and kept well under it otherwise
+ */
+public final class ConjunctionGenerator {
+
+    private static final double MIN_LOG_COLLISION_PROBABILITY = -10;
+    private static final double MAXIMUM_THETA_SLOPE = Math.tan(Math.PI / 4);
+
+    private final Random random;
+    private final int minTrendLength;
+    private final int maxTrendLength;
+    private final double highNoradIdRate;
+    private final double nanRate;
+    private final double missingFieldRate;
+    private final double problematicRate;
+    private int nextId;
+
+    private ConjunctionGenerator(Builder builder) {
+        this.random = new Random(builder.seed);
+        this.minTrendLength = builder.minTrendLength;
+        this.maxTrendLength = builder.maxTrendLength;
+        this.highNoradIdRate = builder.highNoradIdRate;
+        this.nanRate = builder.nanRate;
+        this.missingFieldRate = builder.missingFieldRate;
+        this.problematicRate = builder.problematicRate;
+    }
+
+    /**
+     * @return a new Builder initialized with the default values
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the next conjunction, with an _id one greater than the previous one
+     */
+    public Document next() {
+        int id = nextId++;
+        int trendLength = minTrendLength + random.nextInt(maxTrendLength - minTrendLength + 1);
+        List<Document> riskTrends = new ArrayList<>(trendLength);
+        double timeToTca = 0;
+        double[] timesToTca = new double[trendLength];
+        for (int i = trendLength - 1; i >= 0; i--) {
+            timeToTca += 600 + random.nextInt(3000);
+            timesToTca[i] = timeToTca;
+        }
+        double logCollisionProbability = -8 + random.nextDouble() * 4;
+        for (int i = 0; i < trendLength; i++) {
+            if (i > 0) {
+                logCollisionProbability = nextLogCollisionProbability(logCollisionProbability,
+                        (timesToTca[i - 1] - timesToTca[i]) / 3600);
+            }
+            Document riskTrend = new Document(MongoKeys.TIME_TO_TCA, timesToTca[i])
+                    .append(MongoKeys.COLLISION_PROBABILITY, Math.pow(10, logCollisionProbability));
+            if (random.nextDouble() < nanRate) {
+                riskTrend.put(MongoKeys.COLLISION_PROBABILITY, Double.NaN);
+            } else if (random.nextDouble() < missingFieldRate) {
+                riskTrend.remove(random.nextBoolean() ? MongoKeys.COLLISION_PROBABILITY : MongoKeys.TIME_TO_TCA);
+            }
+            riskTrends.add(riskTrend);
+        }
+        return new Document(MongoKeys.ID, id)
+                .append(MongoKeys.CONJUNCTION_ID, "conjunction" + id)
+                .append(MongoKeys.SAT1_NORAD_ID, nextNoradId())
+                .append(MongoKeys.SAT2_NORAD_ID, nextNoradId())
+                .append(MongoKeys.NEWEST_RISK_ESTIMATION, new Document(MongoKeys.SUGGESTED, true))
+                .append(MongoKeys.NEWEST_RISK_PREDICTION, new Document(MongoKeys.COLLISION_PROBABILITY,
+                        Math.pow(10, logCollisionProbability)).append(MongoKeys.RISK_TREND, riskTrends));
+    }
+
+    private double nextLogCollisionProbability(double logCollisionProbability, double hours) {
+        double maximumChange = MAXIMUM_THETA_SLOPE * hours;
+        double change;
+        if (random.nextDouble() < problematicRate) {
+            change = maximumChange * (1.2 + random.nextDouble());
+        } else {
+            change = maximumChange * 0.5 * random.nextDouble();
+        }
+        if (logCollisionProbability + change > 0) {
+            change = -change;
+        } else if (logCollisionProbability - change > MIN_LOG_COLLISION_PROBABILITY && random.nextBoolean()) {
+            change = -change;
+        }
+        return logCollisionProbability + change;
+    }
+
+    private int nextNoradId() {
+        if (random.nextDouble() < highNoradIdRate) {
+            return ChallengeClass.MAXIMUM_NORAD_ID + random.nextInt(60000);
+        }
+        return random.nextInt(ChallengeClass.MAXIMUM_NORAD_ID);
+    }
+
+    /**
+     * Builder for ConjunctionGenerator
+     */
+    public static final class Builder {
+
+        private long seed = 42;
+        private int minTrendLength = 4;
+        private int maxTrendLength = 32;
+        private double highNoradIdRate = 0.1;
+        private double nanRate = 0.01;
+        private double missingFieldRate = 0.01;
+        private double problematicRate = 0.05;
+
+        private Builder() {
+        }
+
+        /**
+         * @param seed the seed of the generated conjunctions
+         * @return this
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @param minTrendLength the minimum number of risk trends per conjunction, cannot be negative
+         * @param maxTrendLength the maximum number of risk trends per conjunction, cannot be less than the minimum
+         * @return this
+         */
+        public Builder trendLength(int minTrendLength, int maxTrendLength) {
+            if (minTrendLength < 0 || maxTrendLength < minTrendLength) {
+                throw new IllegalArgumentException("Invalid trend length range");
+            }
+            this.minTrendLength = minTrendLength;
+            this.maxTrendLength = maxTrendLength;
+            return this;
+        }
+
+        /**
+         * @param highNoradIdRate the ratio of norad ids over the maximum norad ID, whose conjunctions are not adjusted
+         * @return this
+         */
+        public Builder highNoradIdRate(double highNoradIdRate) {
+            this.highNoradIdRate = checkRate(highNoradIdRate);
+            return this;
+        }
+
+        /**
+         * @param nanRate the ratio of risk trends with a NaN collision probability
+         * @return this
+         */
+        public Builder nanRate(double nanRate) {
+            this.nanRate = checkRate(nanRate);
+            return this;
+        }
+
+        /**
+         * @param missingFieldRate the ratio of risk trends missing their time_to_tca or collision_probability
+         * @return this
+         */
+        public Builder missingFieldRate(double missingFieldRate) {
+            this.missingFieldRate = checkRate(missingFieldRate);
+            return this;
+        }
+
+        /**
+         * @param problematicRate the ratio of pairs of consecutive risk trends with a problematic theta
+         * @return this
+         */
+        public Builder problematicRate(double problematicRate) {
+            this.problematicRate = checkRate(problematicRate);
+            return this;
+        }
+
+        /**
+         * @return the ConjunctionGenerator
+         */
+        public ConjunctionGenerator build() {
+            return new ConjunctionGenerator(this);
+        }
+
+        private static double checkRate(double rate) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("A rate must be between 0 and 1");
+            }
+            return rate;
+        }
+    }
+}
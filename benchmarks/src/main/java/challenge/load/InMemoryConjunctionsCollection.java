@@ -0,0 +1,201 @@
+package challenge.load;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in of the conjunctions' collection, holding the conjunctions as BSON so that reads pay the decoding
+ * cost of a real cursor. Supports what a sequential sweep of ChallengeClass uses: find and countDocuments with the
+ * filters of {@link BsonFilterMatcher} (projections and batch sizes are ignored), and bulkWrites of $set UpdateOneModels
+ * on _id. Any other call throws UnsupportedOperationException, notably aggregate, which the parallel, prefiltered and
+ * prioritized sweeps need, and the $expr filter of the skipUnchanged sweep
+ */
+public final class InMemoryConjunctionsCollection {
+
+    private static final CodecRegistry CODEC_REGISTRY = MongoClientSettings.getDefaultCodecRegistry();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private final List<BsonValue> ids = Collections.synchronizedList(new ArrayList<>());
+    private final Map<BsonValue, RawBsonDocument> conjunctions = new ConcurrentHashMap<>();
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final BsonDocumentCodec bsonDocumentCodec = new BsonDocumentCodec();
+
+    /**
+     * @param conjunction the conjunction to add, with an _id
+     * @return the size of the conjunction in bytes
+     */
+    public int insert(Document conjunction) {
+        RawBsonDocument rawConjunction = new RawBsonDocument(conjunction, documentCodec);
+        BsonValue id = rawConjunction.get("_id");
+        if (conjunctions.put(id, rawConjunction) == null) {
+            ids.add(id);
+        }
+        return rawConjunction.getByteBuffer().remaining();
+    }
+
+    /**
+     * @return the number of conjunctions
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * @return a MongoCollection view of the conjunctions
+     */
+    @SuppressWarnings("unchecked")
+    public MongoCollection<Document> asCollection() {
+        return (MongoCollection<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoCollection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "find" -> find(args != null && args.length == 1 && args[0] instanceof Bson filter ?
+                            filter : new BsonDocument());
+                    case "bulkWrite" -> bulkWrite((List<? extends WriteModel<Document>>) args[0]);
+                    case "getCodecRegistry" -> CODEC_REGISTRY;
+                    case "getNamespace" -> new MongoNamespace("load", "conjunctions");
+                    case "countDocuments" -> countDocuments(args != null && args.length == 1
+                            && args[0] instanceof Bson filter ? filter : new BsonDocument());
+                    default -> objectMethod(proxy, method, args);
+                });
+    }
+
+    private long countDocuments(Bson filter) {
+        BsonDocument bsonFilter = filter.toBsonDocument(BsonDocument.class, CODEC_REGISTRY);
+        List<BsonValue> snapshot;
+        synchronized (ids) {
+            snapshot = new ArrayList<>(ids);
+        }
+        long count = 0;
+        for (BsonValue id : snapshot) {
+            if (BsonFilterMatcher.matches(bsonFilter, conjunctions.get(id))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FindIterable<Document> find(Bson filter) {
+        BsonDocument bsonFilter = filter.toBsonDocument(BsonDocument.class, CODEC_REGISTRY);
+        return (FindIterable<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FindIterable.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "projection", "batchSize" -> proxy;
+                    case "iterator", "cursor" -> cursor(bsonFilter);
+                    case "first" -> {
+                        MongoCursor<Document> cursor = cursor(bsonFilter);
+                        yield cursor.hasNext() ? cursor.next() : null;
+                    }
+                    default -> objectMethod(proxy, method, args);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoCursor<Document> cursor(BsonDocument filter) {
+        List<BsonValue> snapshot;
+        synchronized (ids) {
+            snapshot = new ArrayList<>(ids);
+        }
+        Iterator<BsonValue> idIterator = snapshot.iterator();
+        Document[] next = new Document[1];
+        return (MongoCursor<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoCursor.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "hasNext" -> {
+                        while (next[0] == null && idIterator.hasNext()) {
+                            RawBsonDocument conjunction = conjunctions.get(idIterator.next());
+                            if (BsonFilterMatcher.matches(filter, conjunction)) {
+                                next[0] = conjunction.decode(documentCodec);
+                            }
+                        }
+                        yield next[0] != null;
+                    }
+                    case "next" -> {
+                        if (!((MongoCursor<Document>) proxy).hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Document conjunction = next[0];
+                        next[0] = null;
+                        yield conjunction;
+                    }
+                    case "close" -> null;
+                    default -> objectMethod(proxy, method, args);
+                });
+    }
+
+    private BulkWriteResult bulkWrite(List<? extends WriteModel<Document>> writeModels) {
+        int matchedCount = 0;
+        int modifiedCount = 0;
+        for (WriteModel<Document> writeModel : writeModels) {
+            if (!(writeModel instanceof UpdateOneModel<Document> updateOneModel)) {
+                throw new UnsupportedOperationException("Only UpdateOneModels are supported");
+            }
+            BsonValue id = updateOneModel.getFilter().toBsonDocument(BsonDocument.class, CODEC_REGISTRY).get("_id");
+            BsonDocument update = updateOneModel.getUpdate().toBsonDocument(BsonDocument.class, CODEC_REGISTRY);
+            RawBsonDocument rawConjunction = id != null ? conjunctions.get(id) : null;
+            if (rawConjunction == null) {
+                continue;
+            }
+            matchedCount++;
+            BsonDocument conjunction = bsonDocumentCodec.decode(new BsonBinaryReader(
+                    rawConjunction.getByteBuffer().asNIO()), DECODER_CONTEXT);
+            boolean modified = false;
+            for (Map.Entry<String, BsonValue> set : update.getDocument("$set").entrySet()) {
+                modified |= BsonFilterMatcher.set(conjunction, set.getKey(), set.getValue());
+            }
+            for (String currentDate : update.getDocument("$currentDate", new BsonDocument()).keySet()) {
+                modified |= BsonFilterMatcher.set(conjunction, currentDate, new BsonDateTime(System.currentTimeMillis()));
+            }
+            if (modified) {
+                conjunctions.put(id, new RawBsonDocument(conjunction, bsonDocumentCodec));
+                modifiedCount++;
+            }
+        }
+        return BulkWriteResult.acknowledged(0, matchedCount, 0, modifiedCount, Collections.emptyList(),
+                Collections.emptyList());
+    }
+
+    /**
+     * Answers the methods of Object of a proxy
+     *
+     * @throws UnsupportedOperationException if the method is not a method of Object
+     */
+    static Object objectMethod(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "toString" -> proxy.getClass().getInterfaces()[0].getSimpleName() + "@"
+                    + Integer.toHexString(System.identityHashCode(proxy));
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw unsupported(method);
+        };
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException("The in-memory conjunctions' collection does not support "
+                + method.getName());
+    }
+}
@@ -0,0 +1,128 @@
+package challenge.load;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wrapper of a conjunctions' collection measuring the time spent on each conjunction read off its cursors, from the
+ * moment it is returned to the moment the next one is asked for, and the write models sent with bulkWrites
+ */
+final class InstrumentedCollection {
+
+    private final MongoCollection<Document> collection;
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder bulkWriteCount = new LongAdder();
+    private final LongAdder writeBytes = new LongAdder();
+    private final BsonDocumentCodec bsonDocumentCodec = new BsonDocumentCodec();
+
+    InstrumentedCollection(MongoCollection<Document> collection) {
+        this.collection = collection;
+    }
+
+    /**
+     * @return the instrumented view of the collection
+     */
+    @SuppressWarnings("unchecked")
+    MongoCollection<Document> asCollection() {
+        return (MongoCollection<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoCollection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("bulkWrite")) {
+                        recordWrites((List<? extends WriteModel<Document>>) args[0]);
+                    }
+                    Object result = invoke(collection, method, args);
+                    return result instanceof FindIterable<?> findIterable ? wrap((FindIterable<Document>) findIterable) :
+                            result;
+                });
+    }
+
+    LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    long getWriteCount() {
+        return writeCount.sum();
+    }
+
+    long getBulkWriteCount() {
+        return bulkWriteCount.sum();
+    }
+
+    long getWriteBytes() {
+        return writeBytes.sum();
+    }
+
+    private void recordWrites(List<? extends WriteModel<Document>> writeModels) {
+        bulkWriteCount.increment();
+        writeCount.add(writeModels.size());
+        for (WriteModel<Document> writeModel : writeModels) {
+            if (writeModel instanceof UpdateOneModel<Document> updateOneModel) {
+                writeBytes.add(size(updateOneModel.getFilter().toBsonDocument(BsonDocument.class,
+                        MongoClientSettings.getDefaultCodecRegistry())));
+                writeBytes.add(size(updateOneModel.getUpdate().toBsonDocument(BsonDocument.class,
+                        MongoClientSettings.getDefaultCodecRegistry())));
+            }
+        }
+    }
+
+    private int size(BsonDocument document) {
+        return new RawBsonDocument(document, bsonDocumentCodec).getByteBuffer().remaining();
+    }
+
+    @SuppressWarnings("unchecked")
+    private FindIterable<Document> wrap(FindIterable<Document> findIterable) {
+        return (FindIterable<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{FindIterable.class}, (proxy, method, args) -> {
+                    Object result = invoke(findIterable, method, args);
+                    if (result instanceof FindIterable<?>) {
+                        return wrap((FindIterable<Document>) result);
+                    }
+                    if (result instanceof MongoCursor<?> cursor) {
+                        return wrap((MongoCursor<Document>) cursor);
+                    }
+                    return result;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoCursor<Document> wrap(MongoCursor<Document> cursor) {
+        long[] returnedAt = new long[1];
+        return (MongoCursor<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MongoCursor.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("hasNext") || method.getName().equals("next")) {
+                        // The previous conjunction has been handled once the next one is asked for
+                        if (returnedAt[0] != 0) {
+                            latencies.record(System.nanoTime() - returnedAt[0]);
+                            returnedAt[0] = 0;
+                        }
+                    }
+                    Object result = invoke(cursor, method, args);
+                    if (method.getName().equals("next")) {
+                        returnedAt[0] = System.nanoTime();
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
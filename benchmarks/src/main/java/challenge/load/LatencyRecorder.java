@@ -0,0 +1,40 @@
+package challenge.load;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe recorder of latencies in nanoseconds, kept in full so that the percentiles are exact
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int size;
+
+    /**
+     * @param latencyNanos the latency to record, in nanoseconds
+     */
+    synchronized void record(long latencyNanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = latencyNanos;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency at the given percentile in nanoseconds, 0 if no latency was recorded
+     */
+    synchronized long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
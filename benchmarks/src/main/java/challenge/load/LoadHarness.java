@@ -0,0 +1,160 @@
+package challenge.load;
+
+import challenge.BenchmarkData;
+import challenge.ChallengeClass;
+import challenge.ConjunctionIndexes;
+import challenge.SweepReport;
+import challenge.SweepSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import utils.MongoCollectionNames;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end throughput harness: generates synthetic conjunctions, sweeps them with ChallengeClass and reports the
+ * throughput, the per-conjunction latency percentiles and the write amplification. The conjunctions are held by an
+ * in-memory stand-in of the collection, or by a local mongod if a mongoUri is given. Options are given as key=value
+ * arguments:
+ * <ul>
+ *     <li>conjunctions: the number of conjunctions, 100000 by default</li>
+ *     <li>minTrendLength, maxTrendLength: the range of risk trend lengths, 4 to 32 by default</li>
+ *     <li>highNoradIdRate, nanRate, missingFieldRate, problematicRate: see {@link ConjunctionGenerator}</li>
+ *     <li>seed: the seed of the generated conjunctions</li>
+ *     <li>calculations: "stand-in" or "native", "stand-in" by default</li>
+ *     <li>parallelism: the sweep parallelism, 1 by default</li>
+ *     <li>skipUnchanged, serverSidePrefilter, prioritizeByTimeToTca: the SweepSettings of the same names, false by
+ *     default</li>
+ *     <li>mongoUri: the URI of the mongod, whose database "loadHarness" is dropped and filled</li>
+ * </ul>
+ * The in-memory collection only runs the sequential sweep: a parallelism over 1 and the skipUnchanged,
+ * serverSidePrefilter and prioritizeByTimeToTca sweeps need aggregations or $expr filters, and are rejected without a
+ * mongoUri.
+ * <p>
+ * The write amplification is the number of bytes sent in updates divided by the size of the conjunctions they
+ * modified: 1 means that each modified conjunction cost as much as rewriting it whole
+ */
+public final class LoadHarness {
+
+    private static final String DATABASE = "loadHarness";
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    private LoadHarness() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = parse(args);
+        int conjunctions = Integer.parseInt(options.getOrDefault("conjunctions", "100000"));
+        ConjunctionGenerator generator = ConjunctionGenerator.builder()
+                .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .trendLength(Integer.parseInt(options.getOrDefault("minTrendLength", "4")),
+                        Integer.parseInt(options.getOrDefault("maxTrendLength", "32")))
+                .highNoradIdRate(Double.parseDouble(options.getOrDefault("highNoradIdRate", "0.1")))
+                .nanRate(Double.parseDouble(options.getOrDefault("nanRate", "0.01")))
+                .missingFieldRate(Double.parseDouble(options.getOrDefault("missingFieldRate", "0.01")))
+                .problematicRate(Double.parseDouble(options.getOrDefault("problematicRate", "0.05")))
+                .build();
+        SweepSettings settings = SweepSettings.builder()
+                .sweepParallelism(Integer.parseInt(options.getOrDefault("parallelism", "1")))
+                .skipUnchanged(Boolean.parseBoolean(options.getOrDefault("skipUnchanged", "false")))
+                .serverSidePrefilter(Boolean.parseBoolean(options.getOrDefault("serverSidePrefilter", "false")))
+                .prioritizeByTimeToTca(Boolean.parseBoolean(options.getOrDefault("prioritizeByTimeToTca", "false")))
+                .build();
+        String mongoUri = options.get("mongoUri");
+
+        if (mongoUri == null) {
+            checkInMemory(settings);
+            InMemoryConjunctionsCollection collection = new InMemoryConjunctionsCollection();
+            long bytes = 0;
+            for (int i = 0; i < conjunctions; i++) {
+                bytes += collection.insert(generator.next());
+            }
+            run(collection.asCollection(), settings, options, conjunctions, bytes);
+        } else {
+            try (MongoClient mongoClient = MongoClients.create(mongoUri)) {
+                MongoCollection<Document> collection = mongoClient.getDatabase(DATABASE)
+                        .getCollection(MongoCollectionNames.CONJUNCTIONS);
+                collection.drop();
+                new ConjunctionIndexes(collection).ensureIndexes();
+                run(collection, settings, options, conjunctions, insert(collection, generator, conjunctions));
+            }
+        }
+    }
+
+    /**
+     * @param settings the settings of the sweep
+     * @throws IllegalArgumentException if the sweep needs queries that the in-memory collection does not support
+     */
+    static void checkInMemory(SweepSettings settings) {
+        if (settings.getSweepParallelism() > 1 || settings.isSkipUnchanged() || settings.isServerSidePrefilter()
+                || settings.isPrioritizeByTimeToTca()) {
+            throw new IllegalArgumentException("parallelism, skipUnchanged, serverSidePrefilter and "
+                    + "prioritizeByTimeToTca need a mongoUri");
+        }
+    }
+
+    private static long insert(MongoCollection<Document> collection, ConjunctionGenerator generator, int conjunctions) {
+        DocumentCodec documentCodec = new DocumentCodec();
+        List<Document> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        long bytes = 0;
+        for (int i = 0; i < conjunctions; i++) {
+            Document conjunction = generator.next();
+            bytes += new RawBsonDocument(conjunction, documentCodec).getByteBuffer().remaining();
+            batch.add(conjunction);
+            if (batch.size() == INSERT_BATCH_SIZE || i == conjunctions - 1) {
+                collection.insertMany(batch);
+                batch.clear();
+            }
+        }
+        return bytes;
+    }
+
+    private static void run(MongoCollection<Document> collection, SweepSettings settings, Map<String, String> options,
+                            int conjunctions, long conjunctionBytes) {
+        InstrumentedCollection instrumentedCollection = new InstrumentedCollection(collection);
+        ChallengeClass challengeClass = new ChallengeClass(instrumentedCollection.asCollection(), settings,
+                BenchmarkData.calculationsStrategy(options.getOrDefault("calculations", BenchmarkData.STAND_IN)));
+
+        long start = System.nanoTime();
+        SweepReport report = challengeClass.adjustConjunctionsBasedOnTheta();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        LatencyRecorder latencies = instrumentedCollection.getLatencies();
+        double averageConjunctionBytes = (double) conjunctionBytes / conjunctions;
+        long modifiedCount = report.getWriteReport().getModifiedCount();
+        double writeAmplification = modifiedCount == 0 ? 0 :
+                instrumentedCollection.getWriteBytes() / (modifiedCount * averageConjunctionBytes);
+        System.out.printf("conjunctions: %d%n", conjunctions);
+        System.out.printf("scanned: %d%n", report.getScannedCount());
+        System.out.printf("seconds: %.3f%n", seconds);
+        System.out.printf("documents/sec: %.0f%n", report.getScannedCount() / seconds);
+        System.out.printf("latency p50 (us): %.1f%n", latencies.percentile(50) / 1e3);
+        System.out.printf("latency p99 (us): %.1f%n", latencies.percentile(99) / 1e3);
+        System.out.printf("bulk writes: %d%n", instrumentedCollection.getBulkWriteCount());
+        System.out.printf("writes: %d%n", instrumentedCollection.getWriteCount());
+        System.out.printf("modified: %d%n", modifiedCount);
+        System.out.printf("write bytes: %d%n", instrumentedCollection.getWriteBytes());
+        System.out.printf("average conjunction bytes: %.0f%n", averageConjunctionBytes);
+        System.out.printf("write amplification: %.4f%n", writeAmplification);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Options are given as key=value, not " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
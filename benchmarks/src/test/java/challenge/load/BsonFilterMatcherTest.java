@@ -0,0 +1,85 @@
+package challenge.load;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of BsonFilterMatcher
+ */
+public class BsonFilterMatcherTest {
+
+    private static final BsonDocument CONJUNCTION = BsonDocument.parse("""
+            {_id: 1, conjunction_id: "conjunction1", sat1_norad_id: 100,
+             newest_risk_prediction: {risk_trend: [{time_to_tca: 7200.0, collision_probability: 0.001},
+                                                   {time_to_tca: 3600.0}]}}""");
+
+    @Test
+    public void testImplicitEqualityAndEq() {
+        assertTrue(matches("{conjunction_id: 'conjunction1'}"));
+        assertTrue(matches("{sat1_norad_id: 100.0}"));
+        assertTrue(matches("{_id: {$eq: 1}}"));
+        assertFalse(matches("{conjunction_id: 'conjunction2'}"));
+        assertFalse(matches("{missing: 1}"));
+    }
+
+    @Test
+    public void testRangeOperators() {
+        assertTrue(matches("{_id: {$gte: 1, $lt: 2}}"));
+        assertFalse(matches("{_id: {$gt: 1}}"));
+        assertTrue(matches("{_id: {$lte: 1}}"));
+        assertFalse(matches("{conjunction_id: {$lt: 1}}"));
+        assertFalse(matches("{missing: {$lt: 1}}"));
+    }
+
+    @Test
+    public void testExistsNeAndIn() {
+        assertTrue(matches("{'newest_risk_prediction.risk_trend.1': {$exists: true}}"));
+        assertFalse(matches("{'newest_risk_prediction.risk_trend.2': {$exists: true}}"));
+        assertTrue(matches("{'newest_risk_prediction.risk_trend.1.collision_probability': {$exists: false}}"));
+        assertTrue(matches("{missing: {$ne: 1}}"));
+        assertFalse(matches("{_id: {$ne: 1}}"));
+        assertTrue(matches("{conjunction_id: {$in: ['conjunction0', 'conjunction1']}}"));
+        assertFalse(matches("{conjunction_id: {$in: []}}"));
+    }
+
+    @Test
+    public void testAnd() {
+        assertTrue(matches("{$and: [{_id: {$gte: 0}}, {sat1_norad_id: {$lt: 200}}]}"));
+        assertFalse(matches("{$and: [{_id: {$gte: 0}}, {sat1_norad_id: {$gt: 200}}]}"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testUnsupportedTopLevelOperator() {
+        matches("{$expr: {$eq: ['$_id', 1]}}");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testUnsupportedPathOperator() {
+        matches("{conjunction_id: {$regex: 'conjunction'}}");
+    }
+
+    @Test
+    public void testGetAndSet() {
+        BsonDocument conjunction = CONJUNCTION.clone();
+        String path = "newest_risk_prediction.risk_trend.0.collision_probability";
+        assertEquals(BsonFilterMatcher.get(conjunction, path), new BsonDouble(0.001));
+        assertNull(BsonFilterMatcher.get(conjunction, "newest_risk_prediction.risk_trend.5"));
+
+        assertTrue(BsonFilterMatcher.set(conjunction, path, new BsonDouble(0.5)));
+        assertFalse(BsonFilterMatcher.set(conjunction, path, new BsonDouble(0.5)));
+        assertEquals(BsonFilterMatcher.get(conjunction, path), new BsonDouble(0.5));
+        assertTrue(BsonFilterMatcher.set(conjunction, "newest_risk_estimation.suggested", new BsonInt32(1)));
+        assertEquals(BsonFilterMatcher.get(conjunction, "newest_risk_estimation.suggested"), new BsonInt32(1));
+    }
+
+    private static boolean matches(String filter) {
+        return BsonFilterMatcher.matches(BsonDocument.parse(filter), CONJUNCTION);
+    }
+}
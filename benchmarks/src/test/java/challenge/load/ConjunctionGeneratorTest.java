@@ -0,0 +1,80 @@
+package challenge.load;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import challenge.ChallengeClass;
+import org.bson.Document;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.util.List;
+
+/**
+ * Unit tests of ConjunctionGenerator
+ */
+public class ConjunctionGeneratorTest {
+
+    @Test
+    public void testSameSeedGeneratesSameConjunctions() {
+        ConjunctionGenerator first = ConjunctionGenerator.builder().seed(7).build();
+        ConjunctionGenerator second = ConjunctionGenerator.builder().seed(7).build();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.next().toJson(), second.next().toJson());
+        }
+    }
+
+    @Test
+    public void testConjunctionShape() {
+        ConjunctionGenerator generator = ConjunctionGenerator.builder().trendLength(3, 5).nanRate(0)
+                .missingFieldRate(0).build();
+        for (int id = 0; id < 100; id++) {
+            Document conjunction = generator.next();
+            assertEquals((int) conjunction.getInteger(MongoKeys.ID), id);
+            assertEquals(conjunction.getString(MongoKeys.CONJUNCTION_ID), "conjunction" + id);
+            List<Document> riskTrends = getRiskTrends(conjunction);
+            assertTrue(riskTrends.size() >= 3 && riskTrends.size() <= 5);
+            for (int i = 1; i < riskTrends.size(); i++) {
+                assertTrue(riskTrends.get(i).getDouble(MongoKeys.TIME_TO_TCA)
+                        < riskTrends.get(i - 1).getDouble(MongoKeys.TIME_TO_TCA));
+            }
+            for (Document riskTrend : riskTrends) {
+                double collisionProbability = riskTrend.getDouble(MongoKeys.COLLISION_PROBABILITY);
+                assertTrue(collisionProbability > 0 && collisionProbability <= 1);
+            }
+        }
+    }
+
+    @Test
+    public void testRates() {
+        ConjunctionGenerator generator = ConjunctionGenerator.builder().highNoradIdRate(1).nanRate(1).build();
+        Document conjunction = generator.next();
+        assertTrue(conjunction.getInteger(MongoKeys.SAT1_NORAD_ID) >= ChallengeClass.MAXIMUM_NORAD_ID);
+        assertTrue(conjunction.getInteger(MongoKeys.SAT2_NORAD_ID) >= ChallengeClass.MAXIMUM_NORAD_ID);
+        for (Document riskTrend : getRiskTrends(conjunction)) {
+            assertTrue(Double.isNaN(riskTrend.getDouble(MongoKeys.COLLISION_PROBABILITY)));
+        }
+
+        generator = ConjunctionGenerator.builder().highNoradIdRate(0).missingFieldRate(1).nanRate(0).build();
+        conjunction = generator.next();
+        assertTrue(conjunction.getInteger(MongoKeys.SAT1_NORAD_ID) < ChallengeClass.MAXIMUM_NORAD_ID);
+        for (Document riskTrend : getRiskTrends(conjunction)) {
+            assertEquals(riskTrend.size(), 1);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        ConjunctionGenerator.builder().problematicRate(1.5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidTrendLength() {
+        ConjunctionGenerator.builder().trendLength(5, 3);
+    }
+
+    private static List<Document> getRiskTrends(Document conjunction) {
+        return conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class)
+                .getList(MongoKeys.RISK_TREND, Document.class);
+    }
+}
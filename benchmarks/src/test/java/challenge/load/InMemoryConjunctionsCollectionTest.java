@@ -0,0 +1,53 @@
+package challenge.load;
+
+import static org.testng.Assert.assertEquals;
+
+import challenge.SweepSettings;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.util.List;
+
+/**
+ * Unit tests of InMemoryConjunctionsCollection and of the modes the LoadHarness runs on it
+ */
+public class InMemoryConjunctionsCollectionTest {
+
+    @Test
+    public void testCountDocumentsAppliesTheFilter() {
+        InMemoryConjunctionsCollection conjunctions = new InMemoryConjunctionsCollection();
+        ConjunctionGenerator generator = ConjunctionGenerator.builder().build();
+        for (int i = 0; i < 10; i++) {
+            conjunctions.insert(generator.next());
+        }
+        MongoCollection<Document> collection = conjunctions.asCollection();
+
+        assertEquals(collection.countDocuments(), 10);
+        assertEquals(collection.countDocuments(Filters.lt(MongoKeys.ID, 4)), 4);
+        assertEquals(collection.countDocuments(Filters.in(MongoKeys.CONJUNCTION_ID, "conjunction1", "conjunction8")),
+                2);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testAggregateIsUnsupported() {
+        new InMemoryConjunctionsCollection().asCollection().aggregate(List.of());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParallelSweepIsRejectedInMemory() {
+        LoadHarness.checkInMemory(SweepSettings.builder().sweepParallelism(2).build());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSkipUnchangedIsRejectedInMemory() {
+        LoadHarness.checkInMemory(SweepSettings.builder().skipUnchanged(true).build());
+    }
+
+    @Test
+    public void testSequentialSweepIsAcceptedInMemory() {
+        LoadHarness.checkInMemory(SweepSettings.builder().build());
+    }
+}
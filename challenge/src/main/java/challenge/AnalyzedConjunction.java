@@ -0,0 +1,87 @@
+package challenge;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A conjunction whose adjustment is done, capturing the write model of its changes instead of writing them, so that
+ * the outcome of each conjunction can be told from the outcome of the bulkWrite of a batch
+ */
+final class AnalyzedConjunction implements ConjunctionWriter {
+
+    /**
+     * The identifier the outcome of the conjunction is reported under
+     */
+    private final Object id;
+
+    /**
+     * The write model of the changes of the conjunction, null if unchanged
+     */
+    private WriteModel<Document> writeModel;
+
+    /**
+     * Constructor
+     *
+     * @param id the identifier the outcome of the conjunction is reported under
+     */
+    AnalyzedConjunction(Object id) {
+        this.id = id;
+    }
+
+    @Override
+    public void write(WriteModel<Document> writeModel) {
+        this.writeModel = writeModel;
+    }
+
+    /**
+     * @param batch the analyzed conjunctions
+     * @return the write models of the changed conjunctions of the batch, in order
+     */
+    static List<WriteModel<Document>> writeModels(List<AnalyzedConjunction> batch) {
+        List<WriteModel<Document>> writeModels = new ArrayList<>(batch.size());
+        for (AnalyzedConjunction analyzed : batch) {
+            if (analyzed.writeModel != null) {
+                writeModels.add(analyzed.writeModel);
+            }
+        }
+        return writeModels;
+    }
+
+    /**
+     * @param e          the exception of an unordered bulkWrite
+     * @param writeCount the number of write models of the bulkWrite
+     * @return whether each write model of the bulkWrite, in order, failed
+     */
+    static boolean[] failedWrites(MongoBulkWriteException e, int writeCount) {
+        boolean[] failed = new boolean[writeCount];
+        for (BulkWriteError error : e.getWriteErrors()) {
+            failed[error.getIndex()] = true;
+        }
+        return failed;
+    }
+
+    /**
+     * @param batch  the analyzed conjunctions
+     * @param failed whether the write of each write model of the batch, in order, failed
+     * @return the outcomes of the conjunctions
+     */
+    static List<ConjunctionOutcome> toOutcomes(List<AnalyzedConjunction> batch, boolean[] failed) {
+        List<ConjunctionOutcome> outcomes = new ArrayList<>(batch.size());
+        int writeIndex = 0;
+        for (AnalyzedConjunction analyzed : batch) {
+            ConjunctionOutcome.Status status;
+            if (analyzed.writeModel == null) {
+                status = ConjunctionOutcome.Status.UNCHANGED;
+            } else {
+                status = failed[writeIndex++] ? ConjunctionOutcome.Status.FAILED : ConjunctionOutcome.Status.UPDATED;
+            }
+            outcomes.add(new ConjunctionOutcome(analyzed.id, status));
+        }
+        return outcomes;
+    }
+}
@@ -0,0 +1,142 @@
+package challenge;
+
+import challenge.metrics.ChallengeMetrics;
+import challenge.metrics.TimerMetric;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ConjunctionWriter that collects the changes and flushes them with unordered bulkWrites, either when the batch size
+ * is reached or when the flush interval has elapsed since the last flush. The flush interval is checked whenever a
+ * change is written. Instances are not thread-safe.
+ */
+class BulkConjunctionWriter implements ConjunctionWriter, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkConjunctionWriter.class);
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    /**
+     * The conjunctions' collection
+     */
+    private final MongoCollection<Document> conjunctionsCollection;
+
+    /**
+     * The maximum number of write models sent in a single bulkWrite
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum time in nanoseconds pending write models are kept before being flushed
+     */
+    private final long flushIntervalNanos;
+
+    /**
+     * The metrics timing the bulkWrites
+     */
+    private final ChallengeMetrics metrics;
+
+    /**
+     * The pending write models
+     */
+    private List<WriteModel<Document>> pending;
+
+    /**
+     * The sum of the reports of all flushes so far
+     */
+    private BulkWriteReport totals = BulkWriteReport.EMPTY;
+
+    private long lastFlushNanos;
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings holding the batch size and the flush interval, cannot be null
+     */
+    BulkConjunctionWriter(MongoCollection<Document> conjunctionsCollection, SweepSettings settings) {
+        this(conjunctionsCollection, settings, ChallengeMetrics.NOOP);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings holding the batch size and the flush interval, cannot be null
+     * @param metrics                The metrics timing the bulkWrites, cannot be null
+     */
+    BulkConjunctionWriter(MongoCollection<Document> conjunctionsCollection, SweepSettings settings,
+                          ChallengeMetrics metrics) {
+        Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(settings);
+        Objects.requireNonNull(metrics);
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.metrics = metrics;
+        this.batchSize = settings.getBulkWriteBatchSize();
+        this.flushIntervalNanos = settings.getBulkWriteFlushInterval().toNanos();
+        this.pending = new ArrayList<>(batchSize);
+        this.lastFlushNanos = System.nanoTime();
+    }
+
+    @Override
+    public void write(WriteModel<Document> writeModel) {
+        pending.add(writeModel);
+        if (pending.size() >= batchSize || System.nanoTime() - lastFlushNanos >= flushIntervalNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends all pending write models in a single unordered bulkWrite
+     *
+     * @return the report of this flush
+     */
+    public BulkWriteReport flush() {
+        lastFlushNanos = System.nanoTime();
+        if (pending.isEmpty()) {
+            return BulkWriteReport.EMPTY;
+        }
+        BulkWriteReport report;
+        long start = System.nanoTime();
+        try {
+            BulkWriteResult result = conjunctionsCollection.bulkWrite(pending, UNORDERED);
+            report = new BulkWriteReport(result.getMatchedCount(), result.getModifiedCount(), 0);
+        } catch (MongoBulkWriteException e) {
+            BulkWriteResult result = e.getWriteResult();
+            report = new BulkWriteReport(result.getMatchedCount(), result.getModifiedCount(), e.getWriteErrors().size());
+            logger.error("{} of {} conjunction writes failed: {}", e.getWriteErrors().size(), pending.size(),
+                    e.getMessage());
+        } finally {
+            metrics.recordTime(TimerMetric.WRITE, System.nanoTime() - start);
+            pending = new ArrayList<>(batchSize);
+        }
+        totals = totals.plus(report);
+        logger.info("Flushed conjunction writes: {}", report);
+        return report;
+    }
+
+    /**
+     * @return the sum of the reports of all flushes so far
+     */
+    public BulkWriteReport getTotals() {
+        return totals;
+    }
+
+    /**
+     * Flushes the pending write models
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
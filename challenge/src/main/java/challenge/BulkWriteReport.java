@@ -0,0 +1,66 @@
+package challenge;
+
+/**
+ * Immutable report of the outcome of one or more bulk writes on the conjunctions' collection
+ */
+public final class BulkWriteReport {
+
+    /**
+     * A report without any write
+     */
+    public static final BulkWriteReport EMPTY = new BulkWriteReport(0, 0, 0);
+
+    /**
+     * The number of documents matched by the writes
+     */
+    private final int matchedCount;
+
+    /**
+     * The number of documents modified by the writes
+     */
+    private final int modifiedCount;
+
+    /**
+     * The number of writes that failed
+     */
+    private final int failedCount;
+
+    /**
+     * Constructor
+     *
+     * @param matchedCount  the number of documents matched by the writes
+     * @param modifiedCount the number of documents modified by the writes
+     * @param failedCount   the number of writes that failed
+     */
+    public BulkWriteReport(int matchedCount, int modifiedCount, int failedCount) {
+        this.matchedCount = matchedCount;
+        this.modifiedCount = modifiedCount;
+        this.failedCount = failedCount;
+    }
+
+    /**
+     * @param other the report to add to this one
+     * @return a new report holding the sum of both reports
+     */
+    public BulkWriteReport plus(BulkWriteReport other) {
+        return new BulkWriteReport(matchedCount + other.matchedCount, modifiedCount + other.modifiedCount,
+                failedCount + other.failedCount);
+    }
+
+    public int getMatchedCount() {
+        return matchedCount;
+    }
+
+    public int getModifiedCount() {
+        return modifiedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "matched=" + matchedCount + ", modified=" + modifiedCount + ", failed=" + failedCount;
+    }
+}
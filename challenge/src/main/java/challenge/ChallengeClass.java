@@ -1,24 +1,56 @@
 package challenge;
 
 import static com.mongodb.client.model.Filters.eq;
-import static com.mongodb.client.model.Filters.lt;
-import static com.mongodb.client.model.Filters.exists;
-import static com.mongodb.client.model.Filters.and;
 
+import challenge.metrics.ChallengeMetrics;
+import challenge.metrics.CounterMetric;
+import challenge.metrics.TimerMetric;
+import challenge.model.Conjunction;
+import challenge.model.ConjunctionCodec;
+import challenge.model.DataQualityIssue;
+import challenge.model.RiskTrend;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.CachingCalculationsStrategy;
 import utils.Calculations;
+import utils.CalculationsStrategy;
 import utils.MongoKeys;
+import utils.NativeCalculationsStrategy;
+import utils.ThetaCacheStats;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Adjusts the suggestions and collision probabilities of conjunctions based on the theta values of their risk trends.
+ * The class holds no state besides its configuration: each conjunction is analyzed in isolation, so all methods can be
+ * called concurrently
+ */
 public class ChallengeClass {
 
     private static final Logger logger = LoggerFactory.getLogger(ChallengeClass.class);
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
     /**
      * The maximum Norad_ID that the satellites should have for the adjustment of the suggestions to happen
      */
@@ -29,240 +61,783 @@ public class ChallengeClass {
      */
     private final MongoCollection<Document> conjunctionsCollection;
 
+    /**
+     * The settings used when sweeping the conjunctions' collection
+     */
+    private final SweepSettings settings;
+
+    /**
+     * The analyzer of the risk trends
+     */
+    private final RiskTrendAnalyzer riskTrendAnalyzer;
+
+    /**
+     * The cache of theta results, null if disabled
+     */
+    private final CachingCalculationsStrategy thetaCache;
+
+    /**
+     * The view of the conjunctions' collection decoding Conjunctions, null if typed reads are disabled
+     */
+    private final MongoCollection<Conjunction> typedConjunctionsCollection;
+
+    /**
+     * The writer used when adjusting a single conjunction, which writes each change immediately
+     */
+    private final ConjunctionWriter directWriter;
+
+    /**
+     * The metrics of the adjustments
+     */
+    private final ChallengeMetrics metrics;
+
+    /**
+     * The counters of the invalid risk trends found by the adjustments
+     */
+    private final DataQualityDiagnostics dataQuality = new DataQualityDiagnostics();
+
     /**
      * Constructor
      *
      * @param conjunctionsCollection The conjunctions' collection, cannot be null
      */
     public ChallengeClass(MongoCollection<Document> conjunctionsCollection) {
+        this(conjunctionsCollection, SweepSettings.defaults());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings used when sweeping the conjunctions' collection, cannot be null
+     */
+    public ChallengeClass(MongoCollection<Document> conjunctionsCollection, SweepSettings settings) {
+        this(conjunctionsCollection, settings, new NativeCalculationsStrategy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings used when sweeping the conjunctions' collection, cannot be null
+     * @param calculationsStrategy   The strategy performing the theta calculations, cannot be null
+     */
+    public ChallengeClass(MongoCollection<Document> conjunctionsCollection, SweepSettings settings,
+                          CalculationsStrategy calculationsStrategy) {
+        this(conjunctionsCollection, settings, calculationsStrategy, ChallengeMetrics.NOOP);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings used when sweeping the conjunctions' collection, cannot be null
+     * @param calculationsStrategy   The strategy performing the theta calculations, cannot be null
+     * @param metrics                The metrics of the adjustments, cannot be null
+     */
+    public ChallengeClass(MongoCollection<Document> conjunctionsCollection, SweepSettings settings,
+                          CalculationsStrategy calculationsStrategy, ChallengeMetrics metrics) {
         Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(settings);
+        Objects.requireNonNull(calculationsStrategy);
+        Objects.requireNonNull(metrics);
         this.conjunctionsCollection = conjunctionsCollection;
+        this.settings = settings;
+        this.metrics = metrics;
+        this.thetaCache = settings.getThetaCacheMaxBytes() > 0 ?
+                CachingCalculationsStrategy.withMemoryCap(calculationsStrategy, settings.getThetaCacheMaxBytes()) : null;
+        this.riskTrendAnalyzer = new RiskTrendAnalyzer(thetaCache != null ? thetaCache : calculationsStrategy, metrics);
+        this.typedConjunctionsCollection = settings.isTypedReads() ?
+                ConjunctionCodec.withConjunctionCodec(conjunctionsCollection) : null;
+        this.directWriter = writeModel -> {
+            long start = System.nanoTime();
+            try {
+                conjunctionsCollection.bulkWrite(List.of(writeModel));
+            } finally {
+                metrics.recordTime(TimerMetric.WRITE, System.nanoTime() - start);
+            }
+        };
     }
 
     /**
      * Adjusts the suggestions and collision probabilities of all conjunctions in the DB whose satellites' norad_id are
-     * both under the maximum norad ID and whose theta values are problematic
+     * both under the maximum norad ID and whose theta values are problematic. The changes are collected and flushed
+     * with unordered bulkWrites, as configured in the SweepSettings. If the sweep parallelism is greater than 1, the
+     * conjunctions are split into _id partitions swept in parallel. If typed reads are enabled, the conjunctions are
+     * decoded straight into Conjunctions by the ConjunctionCodec. If the theta cache is enabled, the pairs of risk
+     * trends already analyzed by a previous sweep are not calculated again. If unchanged conjunctions are skipped,
+     * only the conjunctions whose risk trend fingerprint changed since their last adjustment are read. If the
+     * server-side prefilter is enabled, the risk trends are checked by the server, which leaves out the conjunctions
+     * whose outcome cannot change. If the conjunctions are prioritized by time to TCA, the most imminent ones are
+     * adjusted first. If the sweep has a time budget, the conjunctions not read when it runs out are deferred to the
+     * next sweep
+     *
+     * @return the report of the sweep
+     */
+    public SweepReport adjustConjunctionsBasedOnTheta() {
+        Bson filter = getSweepFilter();
+        DataQualityReport dataQualityBefore = dataQuality.getReport();
+        SweepDeadline deadline = SweepDeadline.after(settings.getSweepTimeBudget());
+        SweepReport report;
+        if (settings.getSweepParallelism() > 1) {
+            report = new ParallelSweep(this, conjunctionsCollection, settings).run(filter, deadline);
+        } else {
+            report = sweep(filter, deadline);
+        }
+        logger.info("Conjunctions sweep completed: {}", report);
+        logDataQuality("Conjunctions sweep", dataQuality.getReport().minus(dataQualityBefore));
+        if (thetaCache != null) {
+            logger.info("Theta cache: {}", thetaCache.getStats());
+        }
+        return report;
+    }
+
+    /**
+     * @return the invalid risk trends found by all adjustments so far
      */
-    public synchronized void adjustConjunctionsBasedOnTheta() {
-        Bson filter = and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(MongoKeys.NEWEST_RISK_PREDICTION), lt(MongoKeys.SAT1_NORAD_ID,
-                MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
-        for (Document conjunction : conjunctionsCollection.find(filter)) {
-            adjustConjunctionBasedOnTheta(conjunction);
+    public DataQualityReport getDataQualityReport() {
+        return dataQuality.getReport();
+    }
+
+    /**
+     * Logs the summary of the invalid risk trends found by a sweep, if any
+     *
+     * @param sweepName the name of the sweep
+     * @param report    the invalid risk trends found by the sweep
+     */
+    static void logDataQuality(String sweepName, DataQualityReport report) {
+        if (!report.isEmpty()) {
+            logger.warn("{} found conjunctions with invalid risk trends: {}", sweepName, report);
         }
     }
 
+    /**
+     * @return the statistics of the theta cache, null if the cache is disabled
+     */
+    public ThetaCacheStats getThetaCacheStats() {
+        return thetaCache != null ? thetaCache.getStats() : null;
+    }
+
     /**
      * Adjusts the suggestion and collision probabilities of the conjunction with the given conjunctionId if its
      * satellites' norad_id are both under the maximum norad ID and whose theta value is not problematic
      *
      * @param conjunctionId The conjunctionId of the conjunction
      */
-    public synchronized void adjustConjunctionBasedOnTheta(String conjunctionId) {
-        Bson filter = and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(MongoKeys.NEWEST_RISK_PREDICTION), eq(MongoKeys.CONJUNCTION_ID,
-                conjunctionId), lt(MongoKeys.SAT1_NORAD_ID, MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
-        Document conjunction = conjunctionsCollection.find(filter).first();
-        if (conjunction != null) {
-            adjustConjunctionBasedOnTheta(conjunction);
+    public void adjustConjunctionBasedOnTheta(String conjunctionId) {
+        Bson filter = ConjunctionFilters.conjunctionIdFilter(conjunctionId);
+        boolean found;
+        if (typedConjunctionsCollection != null) {
+            Conjunction conjunction = first(find(typedConjunctionsCollection, filter));
+            found = conjunction != null;
+            if (found) {
+                adjustConjunctionBasedOnTheta(conjunction);
+            }
         } else {
+            Document conjunction = first(find(conjunctionsCollection, filter));
+            found = conjunction != null;
+            if (found) {
+                adjustConjunctionBasedOnTheta(conjunction);
+            }
+        }
+        if (!found) {
             logger.error("There is no conjunction with Id {}", conjunctionId);
         }
     }
 
+    /**
+     * @return the settings used when sweeping the conjunctions' collection
+     */
+    SweepSettings getSettings() {
+        return settings;
+    }
 
     /**
-     * Adjusts the suggestion and collision probabilities of the given conjunction, without checking first if its
-     * satellites' norad id are under the maximum allowed values and if all needed keys are present
+     * Adjusts the suggestion and collision probabilities of the conjunctions with the given conjunctionIds whose
+     * satellites' norad_id are both under the maximum norad ID. The conjunctions are read with $in queries of up to
+     * the SweepSettings bulkWrite batch size conjunctionIds each, and the changes of each query are written with a
+     * single unordered bulkWrite
      *
-     * @param conjunction The conjunction
+     * @param conjunctionIds The conjunctionIds of the conjunctions
+     * @return the outcome of each distinct conjunctionId, in the given order. If several conjunctions share a
+     * conjunctionId, a failure prevails over an update, which prevails over no change
      */
-    public synchronized void adjustConjunctionBasedOnTheta(Document conjunction) {
-        Document riskPrediction = conjunction.get("newest_risk_prediction", Document.class);
-        boolean shouldBeSuggested = handleRiskPrediction(riskPrediction);
-        if (!shouldBeSuggested) {
-            Document newestRiskEstimation = conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class);
-            newestRiskEstimation.put(MongoKeys.SUGGESTED, false);
-            updateConjunction(conjunction);
+    public Map<String, ConjunctionOutcome.Status> adjustConjunctionsBasedOnTheta(Collection<String> conjunctionIds) {
+        Map<String, ConjunctionOutcome.Status> outcomes = new LinkedHashMap<>();
+        for (String conjunctionId : conjunctionIds) {
+            outcomes.put(conjunctionId, ConjunctionOutcome.Status.NOT_FOUND);
         }
+        List<String> distinctIds = new ArrayList<>(outcomes.keySet());
+        int chunkSize = settings.getBulkWriteBatchSize();
+        for (int start = 0; start < distinctIds.size(); start += chunkSize) {
+            List<String> chunk = distinctIds.subList(start, Math.min(start + chunkSize, distinctIds.size()));
+            List<AnalyzedConjunction> analyzed = findAndAnalyze(ConjunctionFilters.conjunctionIdsFilter(chunk));
+            for (ConjunctionOutcome outcome : writeBack(analyzed)) {
+                outcomes.merge((String) outcome.getId(), outcome.getStatus(), (previous, status) ->
+                        previous == ConjunctionOutcome.Status.NOT_FOUND || status.compareTo(previous) > 0 ?
+                                status : previous);
+            }
+        }
+        return outcomes;
     }
 
     /**
-     * Handles the List of riskTrends: checks whether each of them is valid and if so, analyzes each 2 consecutive
-     * trends
+     * Adjusts all conjunctions matching the given filter, capturing their changes
      *
-     * @param riskTrends the List of risk trends
-     * @return a RiskTrendAnalysisResult object
-     */
-    private RiskTrendAnalysisResult handleRiskTrends(List<Document> riskTrends) {
-        RiskTrendAnalysisResult result = new RiskTrendAnalysisResult();
-        for (int i = 1; i < riskTrends.size(); i++) {
-            Document firstRiskTrend = riskTrends.get(i - 1);
-            Document secondRiskTrend = riskTrends.get(i);
-            boolean isThetaProblematic;
-            if (isTrendValid(firstRiskTrend) && isTrendValid(secondRiskTrend)) {
-                isThetaProblematic = handleConsecutiveRiskTrends(firstRiskTrend, secondRiskTrend);
-                if (result.isShouldBeSuggested() && isThetaProblematic) {
-                    result.setShouldBeSuggested(false);
+     * @param filter The filter of the conjunctions
+     * @return the analyzed conjunctions, identified by their conjunctionId
+     */
+    private List<AnalyzedConjunction> findAndAnalyze(Bson filter) {
+        List<AnalyzedConjunction> analyzed = new ArrayList<>();
+        if (typedConjunctionsCollection != null) {
+            try (MongoCursor<Conjunction> cursor = lookup(typedConjunctionsCollection, filter).iterator()) {
+                for (Conjunction conjunction = next(cursor); conjunction != null; conjunction = next(cursor)) {
+                    AnalyzedConjunction analyzedConjunction = new AnalyzedConjunction(conjunction.getConjunctionId());
+                    adjustConjunctionBasedOnTheta(conjunction, analyzedConjunction);
+                    analyzed.add(analyzedConjunction);
                 }
-                if (isThetaProblematic && i == riskTrends.size() - 1) {
-                    result.setLatestCollisionProbability(secondRiskTrend.getDouble(MongoKeys.COLLISION_PROBABILITY));
+            }
+        } else {
+            try (MongoCursor<Document> cursor = lookup(conjunctionsCollection, filter).iterator()) {
+                for (Document conjunction = next(cursor); conjunction != null; conjunction = next(cursor)) {
+                    AnalyzedConjunction analyzedConjunction = new AnalyzedConjunction(
+                            conjunction.getString(MongoKeys.CONJUNCTION_ID));
+                    adjustConjunctionBasedOnTheta(conjunction, analyzedConjunction);
+                    analyzed.add(analyzedConjunction);
                 }
+            }
+        }
+        metrics.increment(CounterMetric.CONJUNCTIONS_SCANNED, analyzed.size());
+        return analyzed;
+    }
+
+    /**
+     * Writes the changes of the given conjunctions with a single unordered bulkWrite
+     *
+     * @param analyzed The analyzed conjunctions
+     * @return the outcomes of the conjunctions
+     */
+    private List<ConjunctionOutcome> writeBack(List<AnalyzedConjunction> analyzed) {
+        List<WriteModel<Document>> writeModels = AnalyzedConjunction.writeModels(analyzed);
+        boolean[] failed = new boolean[writeModels.size()];
+        if (!writeModels.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                conjunctionsCollection.bulkWrite(writeModels, UNORDERED);
+            } catch (MongoBulkWriteException e) {
+                logger.error("{} of {} conjunction writes failed: {}", e.getWriteErrors().size(), writeModels.size(),
+                        e.getMessage());
+                failed = AnalyzedConjunction.failedWrites(e, writeModels.size());
+            } finally {
+                metrics.recordTime(TimerMetric.WRITE, System.nanoTime() - start);
+            }
+        }
+        return AnalyzedConjunction.toOutcomes(analyzed, failed);
+    }
+
+    /**
+     * Finds the conjunctions matching the given filter like {@link #find(MongoCollection, Bson)}, including their
+     * conjunctionId in the projection
+     *
+     * @param collection The conjunctions' collection to query
+     * @param filter     The filter of the conjunctions
+     * @param <T>        The class the conjunctions are decoded into
+     * @return the FindIterable of the conjunctions
+     */
+    private <T> FindIterable<T> lookup(MongoCollection<T> collection, Bson filter) {
+        FindIterable<T> conjunctions = find(collection, filter);
+        if (settings.isProjectedReads()) {
+            conjunctions = conjunctions.projection(ConjunctionProjections.withConjunctionId(getProjection()));
+        }
+        return conjunctions;
+    }
+
+    /**
+     * @return the filter of the conjunctions to adjust in a sweep, as configured in the SweepSettings
+     */
+    Bson getSweepFilter() {
+        return settings.isSkipUnchanged() ? ConjunctionFilters.changedSweepFilter() : ConjunctionFilters.sweepFilter();
+    }
+
+    /**
+     * Adjusts all conjunctions matching the given filter off a single cursor, flushing the changes with unordered
+     * bulkWrites
+     *
+     * @param filter The filter of the conjunctions to adjust
+     * @return the report of the sweep
+     */
+    SweepReport sweep(Bson filter) {
+        return sweep(filter, SweepDeadline.NONE);
+    }
+
+    /**
+     * Adjusts the conjunctions matching the given filter off a single cursor until the given deadline, flushing the
+     * changes with unordered bulkWrites. The conjunctions not read yet when the deadline expires are deferred
+     *
+     * @param filter   The filter of the conjunctions to adjust
+     * @param deadline The deadline of the sweep
+     * @return the report of the sweep
+     */
+    SweepReport sweep(Bson filter, SweepDeadline deadline) {
+        try (BulkConjunctionWriter writer = new BulkConjunctionWriter(conjunctionsCollection, settings, metrics)) {
+            SweepReport report;
+            if (typedConjunctionsCollection != null) {
+                report = sweep(filter, read(typedConjunctionsCollection, filter), this::adjustConjunctionBasedOnTheta,
+                        ConjunctionPriorities::latestTimeToTca, writer, deadline);
+            } else if (settings.isServerSidePrefilter()) {
+                report = sweep(filter, read(conjunctionsCollection, filter), this::adjustPrefilteredConjunction,
+                        ConjunctionPriorities::latestTimeToTca, writer, deadline);
+            } else {
+                report = sweep(filter, read(conjunctionsCollection, filter), this::adjustConjunctionBasedOnTheta,
+                        ConjunctionPriorities::latestTimeToTca, writer, deadline);
+            }
+            metrics.increment(CounterMetric.CONJUNCTIONS_SCANNED, report.getScannedCount());
+            if (report.getDeferredCount() > 0) {
+                metrics.increment(CounterMetric.CONJUNCTIONS_DEFERRED, report.getDeferredCount());
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Adjusts, in _id order, the first conjunctions matching the given filter off a single cursor, flushing the
+     * changes with unordered bulkWrites. The conjunctions are not prioritized by time to TCA, and the ones the
+     * server-side prefilter skips are read reduced to their class, so that the chunk always ends at its last
+     * conjunction matching the filter
+     *
+     * @param filter     The filter of the conjunctions to adjust
+     * @param chunkSize  The maximum number of conjunctions to read
+     * @param idConsumer Receives the _id of each conjunction read, in _id order
+     * @return the report of the chunk, whose scanned count is lower than chunkSize only if no conjunction matching the
+     * filter is left after the chunk
+     */
+    SweepReport sweepChunk(Bson filter, int chunkSize, Consumer<Object> idConsumer) {
+        try (BulkConjunctionWriter writer = new BulkConjunctionWriter(conjunctionsCollection, settings, metrics)) {
+            SweepReport report;
+            if (typedConjunctionsCollection != null) {
+                report = sweep(filter, find(typedConjunctionsCollection, filter).sort(Sorts.ascending(MongoKeys.ID))
+                                .limit(chunkSize), (Conjunction conjunction, ConjunctionWriter conjunctionWriter) -> {
+                            idConsumer.accept(conjunction.getId());
+                            adjustConjunctionBasedOnTheta(conjunction, conjunctionWriter);
+                        }, ConjunctionPriorities::latestTimeToTca, writer, SweepDeadline.NONE);
             } else {
-                result.setShouldBeSuggested(false);
+                MongoIterable<Document> conjunctions;
+                BiConsumer<Document, ConjunctionWriter> adjuster;
+                if (settings.isServerSidePrefilter()) {
+                    AggregateIterable<Document> prefiltered = conjunctionsCollection.aggregate(
+                            ConjunctionPrefilter.chunkPipeline(filter, settings.isSkipUnchanged(), chunkSize));
+                    conjunctions = settings.getCursorBatchSize() > 0 ?
+                            prefiltered.batchSize(settings.getCursorBatchSize()) : prefiltered;
+                    adjuster = this::adjustPrefilteredConjunction;
+                } else {
+                    conjunctions = find(conjunctionsCollection, filter).sort(Sorts.ascending(MongoKeys.ID))
+                            .limit(chunkSize);
+                    adjuster = this::adjustConjunctionBasedOnTheta;
+                }
+                report = sweep(filter, conjunctions, (Document conjunction, ConjunctionWriter conjunctionWriter) -> {
+                    idConsumer.accept(conjunction.get(MongoKeys.ID));
+                    adjuster.accept(conjunction, conjunctionWriter);
+                }, ConjunctionPriorities::latestTimeToTca, writer, SweepDeadline.NONE);
             }
+            metrics.increment(CounterMetric.CONJUNCTIONS_SCANNED, report.getScannedCount());
+            return report;
+        }
+    }
+
+    /**
+     * Adjusts the given conjunctions until the given deadline. If it expires, the conjunctions matching the filter
+     * that have not been read are counted as deferred, along with the latest time_to_tca of the first one. With a
+     * bounded deadline, the conjunctions matching the filter are counted before the cursor is opened, as the writes of
+     * the sweep may store fingerprints that stop them from matching the filter
+     *
+     * @param filter          The filter the conjunctions were read with
+     * @param conjunctions    The conjunctions to adjust
+     * @param adjuster        The adjustment of each conjunction
+     * @param latestTimeToTca The latest time_to_tca of a conjunction
+     * @param writer          The writer the changes are handed to, flushed once the conjunctions are adjusted
+     * @param deadline        The deadline of the sweep
+     * @param <T>             The class the conjunctions are decoded into
+     * @return the report of the sweep
+     */
+    private <T> SweepReport sweep(Bson filter, MongoIterable<T> conjunctions,
+                                  BiConsumer<T, ConjunctionWriter> adjuster, ToDoubleFunction<T> latestTimeToTca,
+                                  BulkConjunctionWriter writer, SweepDeadline deadline) {
+        long matchingCount = deadline.isBounded() ? conjunctionsCollection.countDocuments(filter) : 0;
+        long scannedCount = 0;
+        T deferred = null;
+        try (MongoCursor<T> cursor = conjunctions.iterator()) {
+            for (T conjunction = next(cursor); conjunction != null; conjunction = next(cursor)) {
+                if (deadline.isExpired()) {
+                    deferred = conjunction;
+                    break;
+                }
+                adjuster.accept(conjunction, writer);
+                scannedCount++;
+            }
+        }
+        writer.flush();
+        // An aborted sweep leaves the conjunctions not read yet unswept, without counting them as deferred
+        if (deferred == null || !deadline.isBounded()) {
+            return new SweepReport(scannedCount, writer.getTotals());
+        }
+        // Includes the conjunctions a server-side prefilter would have skipped
+        return new SweepReport(scannedCount, writer.getTotals(), matchingCount - scannedCount,
+                latestTimeToTca.applyAsDouble(deferred));
+    }
+
+
+    /**
+     * Finds the conjunctions matching the given filter, applying the projection and the cursor batch size of the
+     * SweepSettings
+     *
+     * @param collection The conjunctions' collection to query
+     * @param filter     The filter of the conjunctions
+     * @param <T>        The class the conjunctions are decoded into
+     * @return the FindIterable of the conjunctions
+     */
+    private <T> FindIterable<T> find(MongoCollection<T> collection, Bson filter) {
+        FindIterable<T> conjunctions = collection.find(filter);
+        if (settings.isProjectedReads()) {
+            conjunctions = conjunctions.projection(getProjection());
+        }
+        if (settings.getCursorBatchSize() > 0) {
+            conjunctions = conjunctions.batchSize(settings.getCursorBatchSize());
+        }
+        return conjunctions;
+    }
+
+    /**
+     * Reads the conjunctions matching the given filter, with an aggregation if the server-side prefilter is enabled
+     * or the conjunctions are prioritized by time to TCA, with a find otherwise
+     *
+     * @param collection The conjunctions' collection to query
+     * @param filter     The filter of the conjunctions
+     * @param <T>        The class the conjunctions are decoded into
+     * @return the MongoIterable of the conjunctions
+     */
+    private <T> MongoIterable<T> read(MongoCollection<T> collection, Bson filter) {
+        if (!settings.isServerSidePrefilter() && !settings.isPrioritizeByTimeToTca()) {
+            return find(collection, filter);
+        }
+        AggregateIterable<T> conjunctions = collection.aggregate(getReadPipeline(filter));
+        if (settings.isPrioritizeByTimeToTca()) {
+            conjunctions = conjunctions.allowDiskUse(true);
+        }
+        if (settings.getCursorBatchSize() > 0) {
+            conjunctions = conjunctions.batchSize(settings.getCursorBatchSize());
+        }
+        return conjunctions;
+    }
+
+    /**
+     * @param filter The filter of the conjunctions
+     * @return the aggregation pipeline reading the conjunctions matching the given filter, with the server-side
+     * prefilter, the priorities by time to TCA and the projection configured in the SweepSettings
+     */
+    List<Bson> getReadPipeline(Bson filter) {
+        if (settings.isServerSidePrefilter()) {
+            return ConjunctionPrefilter.pipeline(filter, settings.isSkipUnchanged(), settings.isPrioritizeByTimeToTca());
+        }
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.match(filter));
+        if (settings.isPrioritizeByTimeToTca()) {
+            pipeline.addAll(ConjunctionPriorities.stages());
+        }
+        if (settings.isProjectedReads()) {
+            pipeline.add(Aggregates.project(Projections.fields(getProjection(),
+                    Projections.include(MongoKeys.LATEST_TIME_TO_TCA))));
         }
-        return result;
+        return pipeline;
+    }
+
+    /**
+     * @return the projection of the fields read by the theta analysis, as configured in the SweepSettings
+     */
+    Bson getProjection() {
+        Bson projection = settings.isSkipUnchanged() ? ConjunctionProjections.fingerprintedAnalysisProjection() :
+                ConjunctionProjections.analysisProjection();
+        return settings.isIncrementalAnalysis() ? ConjunctionProjections.withAnalysisState(projection) : projection;
     }
 
     /**
-     * Handles two consecutive risk trends: it calculates theta and, if problematic, adjusts the collision
-     * probability of the second risk trend
+     * @param cursor the cursor of the conjunctions
+     * @param <T>    the class the conjunctions are decoded into
+     * @return the next conjunction of the cursor, null if there is none, timed as part of the query
+     */
+    private <T> T next(MongoCursor<T> cursor) {
+        long start = System.nanoTime();
+        T conjunction = cursor.hasNext() ? cursor.next() : null;
+        metrics.recordTime(TimerMetric.QUERY, System.nanoTime() - start);
+        return conjunction;
+    }
+
+    /**
+     * @param conjunctions the conjunctions
+     * @param <T>          the class the conjunctions are decoded into
+     * @return the first conjunction, null if there is none, timed as part of the query
+     */
+    private <T> T first(FindIterable<T> conjunctions) {
+        long start = System.nanoTime();
+        T conjunction = conjunctions.first();
+        metrics.recordTime(TimerMetric.QUERY, System.nanoTime() - start);
+        return conjunction;
+    }
+
+    /**
+     * Adjusts the suggestion and collision probabilities of the given conjunction, without checking first if its
+     * satellites' norad id are under the maximum allowed values and if all needed keys are present
+     *
+     * @param conjunction The conjunction
+     * @return true if the conjunction has been changed
+     */
+    public boolean adjustConjunctionBasedOnTheta(Document conjunction) {
+        return adjustConjunctionBasedOnTheta(conjunction, directWriter);
+    }
+
+    /**
+     * Adjusts the suggestion and collision probabilities of the given conjunction and hands the changed paths, if
+     * any, to the given writer. If unchanged conjunctions are skipped, the changed paths include the fingerprint of
+     * the adjusted conjunction
      *
-     * @param firstRiskTrend  the first risk trend
-     * @param secondRiskTrend the second risk trend
-     * @return true if the resulting theta is problematic
-     */
-    private boolean handleConsecutiveRiskTrends(Document firstRiskTrend, Document secondRiskTrend) {
-        double[] theta = new double[1];
-        double[] timeToTca0 = getTimeToTca(firstRiskTrend);
-        double[] timeToTca1 = getTimeToTca(firstRiskTrend);
-        double[] collisionProbability0 = getCollisionProbability(firstRiskTrend);
-        double[] collisionProbability1 = getCollisionProbability(secondRiskTrend);
-
-        Calculations.analyze_theta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1, theta);
-        boolean isThetaProblematic = Calculations.check_theta(theta);
-
-        if (isThetaProblematic) {
-            double[] resultAdjustedValue = new double[]{-1d};
-            Calculations.adjust_coll_prob(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1,
-                    resultAdjustedValue);
-            if (resultAdjustedValue[0] != -1d) {
-                adjustCollisionProbability(secondRiskTrend, resultAdjustedValue[0]);
+     * @param conjunction The conjunction
+     * @param writer      The writer the change is handed to
+     * @return true if the conjunction has been changed
+     */
+    boolean adjustConjunctionBasedOnTheta(Document conjunction, ConjunctionWriter writer) {
+        ConjunctionChanges changes = new ConjunctionChanges();
+        Document riskPrediction = conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class);
+        boolean shouldBeSuggested = handleRiskPrediction(conjunction.get(MongoKeys.ID), riskPrediction, changes);
+        if (!shouldBeSuggested) {
+            Document newestRiskEstimation = conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class);
+            if (changes.set(newestRiskEstimation, MongoKeys.SUGGESTED, MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false)) {
+                metrics.increment(CounterMetric.SUGGESTIONS_REVOKED, 1);
             }
         }
-        return isThetaProblematic;
+        if (settings.isSkipUnchanged()) {
+            changes.set(riskPrediction, MongoKeys.RISK_TREND_FINGERPRINT,
+                    MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT, ConjunctionFingerprints.of(conjunction));
+        }
+        if (changes.isEmpty()) {
+            return false;
+        }
+        updateConjunction(conjunction.get(MongoKeys.ID), changes, writer);
+        return true;
     }
 
+    /**
+     * Adjusts the given conjunction, returned by the ConjunctionPrefilter pipeline, and hands the changed paths to the
+     * given writer. The suggestion of a {@value ConjunctionPrefilter#REVOKE_ONLY} conjunction is revoked without
+     * analyzing its risk trend, which the pipeline leaves out, and its fingerprint is the one computed by the server
+     * with the revoked suggestion. A {@value ConjunctionPrefilter#SKIP} conjunction, only returned by the chunk
+     * pipeline, is left untouched
+     *
+     * @param conjunction The conjunction
+     * @param writer      The writer the change is handed to
+     */
+    void adjustPrefilteredConjunction(Document conjunction, ConjunctionWriter writer) {
+        if (ConjunctionPrefilter.SKIP.equals(conjunction.get(MongoKeys.ANALYSIS_CLASS))) {
+            return;
+        }
+        if (!ConjunctionPrefilter.REVOKE_ONLY.equals(conjunction.get(MongoKeys.ANALYSIS_CLASS))) {
+            adjustConjunctionBasedOnTheta(conjunction, writer);
+            return;
+        }
+        ConjunctionChanges changes = new ConjunctionChanges();
+        changes.set(MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false);
+        metrics.increment(CounterMetric.SUGGESTIONS_REVOKED, 1);
+        if (settings.isSkipUnchanged()) {
+            Document fingerprint = conjunction.get(MongoKeys.RISK_TREND_FINGERPRINT, Document.class);
+            changes.set(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT,
+                    fingerprint.append(MongoKeys.SUGGESTED, false));
+        }
+        updateConjunction(conjunction.get(MongoKeys.ID), changes, writer);
+    }
+
+    /**
+     * Adjusts the suggestion and collision probabilities of the given conjunction, decoded by the ConjunctionCodec,
+     * without checking first if its satellites' norad id are under the maximum allowed values and if all needed keys
+     * are present
+     *
+     * @param conjunction The conjunction
+     */
+    public void adjustConjunctionBasedOnTheta(Conjunction conjunction) {
+        adjustConjunctionBasedOnTheta(conjunction, directWriter);
+    }
 
     /**
-     * Handles all operations concerning the risk prediction
+     * Adjusts the suggestion and collision probabilities of the given conjunction, decoded by the ConjunctionCodec,
+     * and hands the changed paths, if any, to the given writer
      *
+     * @param conjunction The conjunction
+     * @param writer      The writer the change is handed to
+     */
+    void adjustConjunctionBasedOnTheta(Conjunction conjunction, ConjunctionWriter writer) {
+        ConjunctionChanges changes = new ConjunctionChanges();
+        RiskTrend riskTrend = conjunction.getRiskTrend() != null ? conjunction.getRiskTrend() : new RiskTrend(0);
+        dataQuality.record(conjunction.getId(), riskTrend);
+        RiskTrendAnalysisResult result = riskTrendAnalyzer.analyze(riskTrend);
+        double[] adjustedValues = result.getAdjustedValues();
+        for (int i = 1; adjustedValues != null && i < riskTrend.size(); i++) {
+            if (adjustedValues[i] != Calculations.NO_ADJUSTMENT && adjustedValues[i] != riskTrend.getCollisionProbability(i)) {
+                riskTrend.setCollisionProbability(i, adjustedValues[i]);
+                changes.set(MongoKeys.riskTrendCollisionProbabilityPath(i), adjustedValues[i]);
+            }
+        }
+        double latestCollisionProbability = result.getLatestCollisionProbability();
+        if (result.hasLatestCollisionProbability() && (conjunction.getCollisionProbability() == null
+                || Double.compare(latestCollisionProbability, conjunction.getCollisionProbability()) != 0)) {
+            conjunction.setCollisionProbability(latestCollisionProbability);
+            changes.set(MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY, latestCollisionProbability);
+        }
+        if (!result.isShouldBeSuggested() && !Boolean.FALSE.equals(conjunction.getSuggested())) {
+            conjunction.setSuggested(false);
+            changes.set(MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false);
+            metrics.increment(CounterMetric.SUGGESTIONS_REVOKED, 1);
+        }
+        if (!changes.isEmpty()) {
+            updateConjunction(conjunction.getId(), changes, writer);
+        }
+    }
+
+    /**
+     * Handles all operations concerning the risk prediction. With incremental analysis, only the pairs of the risk
+     * trend entries appended since the stored RiskTrendAnalysisState are analyzed, unless the entries it covers
+     * changed, and the state after the analysis is stored along with the risk trend
+     *
+     * @param conjunctionId  the _id of the conjunction
      * @param riskPrediction the riskPrediction document
+     * @param changes        the changes of the conjunction
      * @return false if the risk estimation should not be suggested
      */
-    private boolean handleRiskPrediction(Document riskPrediction) {
-        RiskTrendAnalysisResult result = new RiskTrendAnalysisResult();
-        List<Document> riskTrend = riskPrediction.get(MongoKeys.RISK_TREND, List.class);
-        if (areTrendsValid(riskTrend)) {
-            result = handleRiskTrends(riskTrend);
-            if (areTrendsValid(riskTrend) && result.getLatestCollisionProbability() != null) {
-                adjustCollisionProbability(riskPrediction, result.getLatestCollisionProbability());
+    private boolean handleRiskPrediction(Object conjunctionId, Document riskPrediction, ConjunctionChanges changes) {
+        List<Document> riskTrends = riskPrediction.get(MongoKeys.RISK_TREND, List.class);
+        if (riskTrends == null) {
+            riskTrends = List.of();
+        }
+        long start = System.nanoTime();
+        RiskTrend riskTrend = toRiskTrend(riskTrends);
+        metrics.recordTime(TimerMetric.DECODE, System.nanoTime() - start);
+        dataQuality.record(conjunctionId, riskTrend);
+        RiskTrendAnalysisState state = settings.isIncrementalAnalysis() ? RiskTrendAnalysisState.of(riskPrediction)
+                : null;
+        if (state != null && !state.isPrefixOf(riskTrend)) {
+            state = null;
+        }
+        RiskTrendAnalysisResult result = state != null ? riskTrendAnalyzer.analyze(riskTrend, state.getNextIndex())
+                : riskTrendAnalyzer.analyze(riskTrend);
+        boolean shouldBeSuggested = result.isShouldBeSuggested() && (state == null || state.isShouldBeSuggested());
+        double[] adjustedValues = result.getAdjustedValues();
+        for (int i = 1; adjustedValues != null && i < riskTrends.size(); i++) {
+            if (adjustedValues[i] != Calculations.NO_ADJUSTMENT) {
+                adjustCollisionProbability(riskTrends.get(i), MongoKeys.riskTrendCollisionProbabilityPath(i),
+                        adjustedValues[i], changes);
             }
+        }
+        if (result.hasLatestCollisionProbability()) {
+            adjustCollisionProbability(riskPrediction, MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY,
+                    result.getLatestCollisionProbability(), changes);
+        }
+        if (settings.isIncrementalAnalysis()) {
+            changes.set(riskPrediction, MongoKeys.RISK_TREND_ANALYSIS,
+                    MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_ANALYSIS,
+                    RiskTrendAnalysisState.after(riskTrend, adjustedValues, shouldBeSuggested).toDocument());
+        }
+        return shouldBeSuggested;
+    }
 
+    /**
+     * Converts the List of riskTrends into a RiskTrend, checking whether each of them is valid and counting the
+     * issues of the invalid ones
+     *
+     * @param riskTrends the List of risk trends
+     * @return the RiskTrend
+     */
+    RiskTrend toRiskTrend(List<Document> riskTrends) {
+        RiskTrend riskTrend = new RiskTrend(riskTrends.size());
+        for (Document trend : riskTrends) {
+            if (checkTrend(trend, riskTrend)) {
+                riskTrend.add(getTimeToTca(trend), getCollisionProbability(trend), true);
+            } else {
+                riskTrend.addInvalid();
+            }
         }
-        return result.isShouldBeSuggested();
+        return riskTrend;
     }
 
     /**
      * Adjusts the collision probability based on the given value
      *
      * @param document            the document that has a key named "collision_probability"
+     * @param path                the dotted path of the collision probability inside the conjunction
      * @param resultAdjustedValue the collision probability adjusted value
+     * @param changes             the changes of the conjunction
      */
-    private void adjustCollisionProbability(Document document, double resultAdjustedValue) {
-        document.put(MongoKeys.COLLISION_PROBABILITY, resultAdjustedValue);
+    private void adjustCollisionProbability(Document document, String path, double resultAdjustedValue,
+                                            ConjunctionChanges changes) {
+        changes.set(document, MongoKeys.COLLISION_PROBABILITY, path, resultAdjustedValue);
     }
 
-    private double[] getTimeToTca(Document trend) {
-        return new double[]{((Number) trend.get(MongoKeys.TIME_TO_TCA)).doubleValue()};
+    private double getTimeToTca(Document trend) {
+        return ((Number) trend.get(MongoKeys.TIME_TO_TCA)).doubleValue();
     }
 
-    private double[] getCollisionProbability(Document trend) {
-        return new double[]{((Number) trend.get(MongoKeys.COLLISION_PROBABILITY)).doubleValue()};
+    private double getCollisionProbability(Document trend) {
+        return ((Number) trend.get(MongoKeys.COLLISION_PROBABILITY)).doubleValue();
     }
 
     /**
-     * Updates the DB with the given conjunction
+     * Updates the changed paths of the conjunction with the given _id in the DB through the given writer
      *
-     * @param conjunction the conjunction to update
+     * @param id      the _id of the conjunction to update
+     * @param changes the changes of the conjunction
+     * @param writer  the writer the update is handed to
      */
-    private void updateConjunction(Document conjunction) {
-        conjunctionsCollection.replaceOne(eq(MongoKeys.ID, conjunction.get(MongoKeys.ID)), conjunction);
+    private void updateConjunction(Object id, ConjunctionChanges changes, ConjunctionWriter writer) {
+        writer.write(new UpdateOneModel<>(eq(MongoKeys.ID, id), changes.toUpdate()));
     }
 
     /**
-     * Verifies whether the given riskTrend List is valid
+     * Verifies whether the given riskTrend document has valid values
      *
-     * @param riskTrends the riskTrend List
+     * @param riskTrend the riskTrend document
      * @return true if valid
      */
-    private boolean areTrendsValid(List<Document> riskTrends) {
-        boolean valid = true;
-        if (riskTrends.size() < 2) {
-            valid = false;
-            logger.warn("There are not enough risk trends to analyze theta!");
-        }
-
-        return valid;
+    boolean isTrendValid(Document riskTrend) {
+        return checkTrend(riskTrend, null);
     }
 
     /**
-     * Verifies whether the given riskTrend document has valid values
+     * Verifies whether the given riskTrend document has valid values, counting its issues in the given RiskTrend
      *
      * @param riskTrend the riskTrend document
+     * @param issues    the RiskTrend the issues are counted in, null to not count them
      * @return true if valid
      */
-    private boolean isTrendValid(Document riskTrend) {
+    private boolean checkTrend(Document riskTrend, RiskTrend issues) {
         boolean valid = true;
         if (riskTrend.containsKey(MongoKeys.TIME_TO_TCA) && riskTrend.containsKey(MongoKeys.COLLISION_PROBABILITY)) {
             Object timeToTca = riskTrend.get(MongoKeys.TIME_TO_TCA);
             Object collisionProbability = riskTrend.get(MongoKeys.COLLISION_PROBABILITY);
 
-            if (Objects.isNull(timeToTca)) {
-                logger.warn("time_to_tca for a risk trend is invalid");
+            if (!(timeToTca instanceof Number)) {
+                addIssue(issues, DataQualityIssue.INVALID_TIME_TO_TCA);
                 valid = false;
             }
-            if (Objects.isNull(collisionProbability) || ((Double) collisionProbability).isNaN()) {
-                logger.warn("collision_probability for a risk trend is invalid");
+            if (!(collisionProbability instanceof Number number) || Double.isNaN(number.doubleValue())) {
+                addIssue(issues, DataQualityIssue.INVALID_COLLISION_PROBABILITY);
                 valid = false;
             }
         } else {
-            logger.warn("A risk trend is invalid");
+            addIssue(issues, DataQualityIssue.MALFORMED_TREND);
             valid = false;
         }
 
         return valid;
     }
 
-
-    /**
-     * Class used as a result for handleRiskTrends
-     */
-    private static class RiskTrendAnalysisResult {
-
-        /**
-         * Whether the newest_risk_estimation should be suggested
-         */
-        private boolean shouldBeSuggested = true;
-
-        /**
-         * The value to be replaced as the collision_probability of newest_risk_prediction
-         */
-        private Double latestCollisionProbability;
-
-        public boolean isShouldBeSuggested() {
-            return shouldBeSuggested;
-        }
-
-        public void setShouldBeSuggested(boolean shouldBeSuggested) {
-            this.shouldBeSuggested = shouldBeSuggested;
-        }
-
-        public Double getLatestCollisionProbability() {
-            return latestCollisionProbability;
-        }
-
-        public void setLatestCollisionProbability(Double latestCollisionProbability) {
-            this.latestCollisionProbability = latestCollisionProbability;
+    private static void addIssue(RiskTrend issues, DataQualityIssue issue) {
+        if (issues != null) {
+            issues.addIssue(issue);
         }
     }
 
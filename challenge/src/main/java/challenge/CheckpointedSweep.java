@@ -0,0 +1,123 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Sweep of the conjunctions' collection in _id ordered chunks, each read once off its own short-lived cursor sorted by
+ * _id and limited to the chunk size, starting after the last _id of the previous chunk. After each chunk a checkpoint
+ * holding the last _id processed and the counters so far is saved in a state collection, so that an interrupted sweep
+ * with the same name resumes after its last completed chunk instead of starting over. A chunk interrupted midway is
+ * swept again, which is harmless as the adjustment is idempotent
+ */
+public class CheckpointedSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointedSweep.class);
+
+    private static final String STATE_ID_PREFIX = "sweep:";
+
+    private final ChallengeClass challengeClass;
+    private final MongoCollection<Document> stateCollection;
+
+    /**
+     * The _id of the state document holding the checkpoint
+     */
+    private final String stateId;
+
+    /**
+     * The number of conjunctions per chunk
+     */
+    private final int chunkSize;
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass  The ChallengeClass adjusting the conjunctions, cannot be null
+     * @param stateCollection The collection the checkpoint is saved to, cannot be null
+     * @param name            The name of the sweep, identifying its checkpoint, cannot be null
+     * @param chunkSize       The number of conjunctions per chunk, must be positive
+     */
+    public CheckpointedSweep(ChallengeClass challengeClass, MongoCollection<Document> stateCollection, String name,
+                             int chunkSize) {
+        Objects.requireNonNull(challengeClass);
+        Objects.requireNonNull(stateCollection);
+        Objects.requireNonNull(name);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.challengeClass = challengeClass;
+        this.stateCollection = stateCollection;
+        this.stateId = STATE_ID_PREFIX + name;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sweeps the conjunctions chunk by chunk, resuming after the last completed chunk of an interrupted sweep with
+     * the same name
+     *
+     * @return the report of the whole sweep, including the chunks completed before an interruption
+     */
+    public SweepReport run() {
+        Bson filter = challengeClass.getSweepFilter();
+        DataQualityReport dataQualityBefore = challengeClass.getDataQualityReport();
+        Document checkpoint = stateCollection.find(eq(MongoKeys.ID, stateId)).first();
+        Object[] lastId = new Object[1];
+        SweepReport report = SweepReport.EMPTY;
+        if (checkpoint != null && !checkpoint.getBoolean(MongoKeys.COMPLETED, false)) {
+            lastId[0] = checkpoint.get(MongoKeys.LAST_ID);
+            report = toReport(checkpoint);
+            logger.info("Resuming {} after _id {} ({})", stateId, lastId[0], report);
+        }
+        boolean completed = false;
+        while (!completed) {
+            SweepReport chunkReport = challengeClass.sweepChunk(chunkFilter(filter, lastId[0]), chunkSize,
+                    id -> lastId[0] = id);
+            report = report.plus(chunkReport);
+            completed = chunkReport.getScannedCount() < chunkSize;
+            saveCheckpoint(lastId[0], report, completed);
+        }
+        logger.info("{} completed: {}", stateId, report);
+        ChallengeClass.logDataQuality(stateId, challengeClass.getDataQualityReport().minus(dataQualityBefore));
+        return report;
+    }
+
+    /**
+     * @param filter the filter of the conjunctions to sweep
+     * @param lastId the last _id processed, null before the first chunk
+     * @return the filter of the conjunctions after the given _id
+     */
+    static Bson chunkFilter(Bson filter, Object lastId) {
+        return lastId != null ? and(filter, gt(MongoKeys.ID, lastId)) : filter;
+    }
+
+    private void saveCheckpoint(Object lastId, SweepReport report, boolean completed) {
+        BulkWriteReport writeReport = report.getWriteReport();
+        stateCollection.replaceOne(eq(MongoKeys.ID, stateId), new Document(MongoKeys.ID, stateId)
+                        .append(MongoKeys.LAST_ID, lastId)
+                        .append(MongoKeys.SCANNED_COUNT, report.getScannedCount())
+                        .append(MongoKeys.MATCHED_COUNT, writeReport.getMatchedCount())
+                        .append(MongoKeys.MODIFIED_COUNT, writeReport.getModifiedCount())
+                        .append(MongoKeys.FAILED_COUNT, writeReport.getFailedCount())
+                        .append(MongoKeys.COMPLETED, completed)
+                        .append(MongoKeys.UPDATED_AT, new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private static SweepReport toReport(Document checkpoint) {
+        return new SweepReport(checkpoint.get(MongoKeys.SCANNED_COUNT, Number.class).longValue(), new BulkWriteReport(
+                checkpoint.getInteger(MongoKeys.MATCHED_COUNT), checkpoint.getInteger(MongoKeys.MODIFIED_COUNT),
+                checkpoint.getInteger(MongoKeys.FAILED_COUNT)));
+    }
+}
@@ -0,0 +1,193 @@
+package challenge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent service adjusting conjunctions by conjunction_id, e.g. as new CDMs arrive. The adjustments run on a
+ * bounded pool of long-lived workers, virtual threads when the runtime supports them or else platform threads, so that
+ * the per-thread scratch of the risk trend analysis and of the calculations is allocated once per worker rather than
+ * once per adjustment, and the concurrency is capped like the driver's connection pool. The conjunction_ids
+ * are hashed to stripes, and the adjustments of each stripe are chained in submission order: adjustments of the same
+ * conjunction_id run one after the other in the order they were requested, while adjustments of unrelated
+ * conjunctions only wait for each other when their ids share a stripe
+ */
+public class ConjunctionAdjustmentService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConjunctionAdjustmentService.class);
+
+    /**
+     * The default number of lock stripes
+     */
+    public static final int DEFAULT_STRIPE_COUNT = 256;
+
+    /**
+     * The default number of workers, matching the default maximum size of the driver's connection pool
+     */
+    public static final int DEFAULT_WORKER_COUNT = 100;
+
+    /**
+     * The ChallengeClass adjusting each conjunction
+     */
+    private final ChallengeClass challengeClass;
+
+    /**
+     * The locks guarding the tail of each stripe
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * The last adjustment requested on each stripe, guarded by the lock of the stripe
+     */
+    private final CompletableFuture<?>[] tails;
+
+    /**
+     * The executor running each adjustment
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Constructor with {@value DEFAULT_STRIPE_COUNT} lock stripes and {@value DEFAULT_WORKER_COUNT} workers
+     *
+     * @param challengeClass The ChallengeClass adjusting each conjunction, cannot be null
+     */
+    public ConjunctionAdjustmentService(ChallengeClass challengeClass) {
+        this(challengeClass, DEFAULT_STRIPE_COUNT, DEFAULT_WORKER_COUNT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass The ChallengeClass adjusting each conjunction, cannot be null
+     * @param stripeCount    The number of lock stripes, must be positive
+     * @param workerCount    The number of workers running the adjustments, must be positive
+     */
+    public ConjunctionAdjustmentService(ChallengeClass challengeClass, int stripeCount, int workerCount) {
+        Objects.requireNonNull(challengeClass);
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("stripeCount must be positive");
+        }
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive");
+        }
+        this.challengeClass = challengeClass;
+        this.stripes = new ReentrantLock[stripeCount];
+        this.tails = new CompletableFuture<?>[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+            tails[i] = CompletableFuture.completedFuture(null);
+        }
+        ThreadFactory virtualThreadFactory = newVirtualThreadFactory();
+        this.executor = Executors.newFixedThreadPool(workerCount,
+                virtualThreadFactory != null ? virtualThreadFactory : newThreadFactory());
+    }
+
+    /**
+     * Adjusts the conjunction with the given conjunction_id asynchronously, once the adjustments previously requested
+     * on its stripe, which include any pending adjustment of the same conjunction_id, are complete
+     *
+     * @param conjunctionId The conjunction_id of the conjunction, cannot be null
+     * @return the future completed once the conjunction is adjusted
+     */
+    public CompletableFuture<Void> adjustConjunctionBasedOnTheta(String conjunctionId) {
+        Objects.requireNonNull(conjunctionId);
+        int stripe = stripeOf(conjunctionId);
+        ReentrantLock lock = stripes[stripe];
+        lock.lock();
+        try {
+            // A failed adjustment does not prevent the next ones of its stripe
+            CompletableFuture<Void> adjustment = tails[stripe].exceptionally(e -> null)
+                    .thenRunAsync(() -> challengeClass.adjustConjunctionBasedOnTheta(conjunctionId), executor);
+            tails[stripe] = adjustment;
+            return adjustment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adjusts the conjunctions with the given conjunction_ids concurrently
+     *
+     * @param conjunctionIds The conjunction_ids of the conjunctions, cannot be null
+     * @return the future completed once all conjunctions are adjusted, exceptionally if any adjustment failed
+     */
+    public CompletableFuture<Void> adjustConjunctionsBasedOnTheta(Collection<String> conjunctionIds) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[conjunctionIds.size()];
+        int i = 0;
+        for (String conjunctionId : conjunctionIds) {
+            futures[i++] = adjustConjunctionBasedOnTheta(conjunctionId);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * Waits for the pending adjustments to complete and stops accepting adjustments
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < stripes.length; i++) {
+            CompletableFuture<?> tail;
+            stripes[i].lock();
+            try {
+                tail = tails[i];
+            } finally {
+                stripes[i].unlock();
+            }
+            // The chained adjustments are only submitted to the executor once their predecessors complete
+            tail.exceptionally(e -> null).join();
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for the pending conjunction adjustments to complete");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param conjunctionId The conjunction_id of a conjunction
+     * @return the index of the stripe the conjunction_id is hashed to
+     */
+    int stripeOf(String conjunctionId) {
+        int hash = conjunctionId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    /**
+     * @return a factory of the virtual threads of the workers, null if the runtime does not support virtual threads
+     */
+    private static ThreadFactory newVirtualThreadFactory() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder,
+                    "conjunction-adjustment-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            logger.info("Virtual threads are not available, falling back to platform threads");
+            return null;
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "conjunction-adjustment-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,231 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.eq;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-running re-evaluation of the conjunctions whose risk trend is inserted or updated, driven by a change stream on
+ * the conjunctions' collection. The resume token of the last handled event is saved in a state collection, so that a
+ * restarted watcher with the same name resumes where the previous one stopped. Events may be handled again after a
+ * restart, which is harmless as the adjustment is idempotent.
+ * <p>
+ * Only updates of the risk prediction, of the risk trend or of single risk trends and their time_to_tca and
+ * collision_probability are re-evaluated. The adjustments of ChallengeClass update collision_probability values as
+ * well, but they also set {@value MongoKeys#ADJUSTED_AT}, so the pipeline drops their events before they reach the
+ * watcher
+ */
+public class ConjunctionChangeStreamWatcher implements Runnable, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConjunctionChangeStreamWatcher.class);
+
+    /**
+     * The paths whose update triggers a re-evaluation
+     */
+    static final String RISK_TREND_PATH_REGEX = "^" + MongoKeys.NEWEST_RISK_PREDICTION + "(\\." + MongoKeys.RISK_TREND
+            + "(\\.\\d+(\\.(" + MongoKeys.TIME_TO_TCA + "|" + MongoKeys.COLLISION_PROBABILITY + "))?)?)?$";
+
+    /**
+     * The maximum time the watcher waits for an event before checking whether it has been closed
+     */
+    private static final long MAX_AWAIT_TIME_MILLIS = 1000;
+
+    /**
+     * The number of handled events after which the resume token is saved
+     */
+    private static final int RESUME_TOKEN_SAVE_INTERVAL = 100;
+
+    /**
+     * Error code of a resume token that is no longer in the oplog
+     */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final String STATE_ID_PREFIX = "change_stream:";
+
+    private final ChallengeClass challengeClass;
+    private final MongoCollection<Document> conjunctionsCollection;
+    private final MongoCollection<Document> stateCollection;
+
+    /**
+     * The _id of the state document holding the resume token
+     */
+    private final String stateId;
+
+    private volatile boolean running = true;
+
+    /**
+     * The number of handled events, read by other threads
+     */
+    private final AtomicLong handledCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass         The ChallengeClass adjusting the conjunctions, cannot be null
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param stateCollection        The collection the resume token is saved to, cannot be null
+     * @param name                   The name of the watcher, identifying its resume token, cannot be null
+     */
+    public ConjunctionChangeStreamWatcher(ChallengeClass challengeClass, MongoCollection<Document> conjunctionsCollection,
+                                          MongoCollection<Document> stateCollection, String name) {
+        Objects.requireNonNull(challengeClass);
+        Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(stateCollection);
+        Objects.requireNonNull(name);
+        this.challengeClass = challengeClass;
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.stateCollection = stateCollection;
+        this.stateId = STATE_ID_PREFIX + name;
+    }
+
+    /**
+     * Watches the conjunctions' collection and adjusts the changed conjunctions until the watcher is closed
+     */
+    @Override
+    public void run() {
+        BsonDocument resumeToken = loadResumeToken();
+        while (running) {
+            try {
+                resumeToken = watch(resumeToken);
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() != CHANGE_STREAM_HISTORY_LOST) {
+                    throw e;
+                }
+                logger.error("The resume token of {} is no longer in the oplog, changes have been missed: a full sweep " +
+                        "is needed", stateId);
+                resumeToken = null;
+            }
+        }
+        logger.info("{} stopped after handling {} events", stateId, handledCount.get());
+    }
+
+    /**
+     * Stops the watcher, at the latest after the maximum await time
+     */
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    /**
+     * @return the number of events handled so far
+     */
+    public long getHandledCount() {
+        return handledCount.get();
+    }
+
+    /**
+     * Watches the conjunctions' collection until the watcher is closed
+     *
+     * @param resumeToken the resume token to resume after, null to start from now
+     * @return the last resume token
+     */
+    private BsonDocument watch(BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> changeStream = conjunctionsCollection.watch(getPipeline())
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(MAX_AWAIT_TIME_MILLIS, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+        BsonDocument savedResumeToken = resumeToken;
+        int unsavedCount = 0;
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event != null) {
+                    handle(event);
+                    unsavedCount++;
+                }
+                BsonDocument currentResumeToken = cursor.getResumeToken();
+                if (currentResumeToken != null && !currentResumeToken.equals(savedResumeToken)
+                        && (event == null || unsavedCount >= RESUME_TOKEN_SAVE_INTERVAL)) {
+                    saveResumeToken(currentResumeToken);
+                    savedResumeToken = currentResumeToken;
+                    unsavedCount = 0;
+                }
+            }
+            BsonDocument currentResumeToken = cursor.getResumeToken();
+            if (currentResumeToken != null && !currentResumeToken.equals(savedResumeToken)) {
+                saveResumeToken(currentResumeToken);
+                savedResumeToken = currentResumeToken;
+            }
+        }
+        return savedResumeToken;
+    }
+
+    /**
+     * Adjusts the conjunction of the given event
+     *
+     * @param event the change stream event
+     */
+    private void handle(ChangeStreamDocument<Document> event) {
+        Document conjunction = event.getFullDocument();
+        if (conjunction == null) {
+            // The conjunction has been deleted since the event
+            return;
+        }
+        try {
+            challengeClass.adjustConjunctionBasedOnTheta(conjunction);
+            handledCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.error("Could not adjust conjunction {}", conjunction.get(MongoKeys.ID), e);
+        }
+    }
+
+    /**
+     * @return the pipeline matching the inserted, replaced and risk trend updated conjunctions that pass the sweep
+     * filter, leaving out the updates made by the adjustments, which set {@value MongoKeys#ADJUSTED_AT}
+     */
+    static List<Bson> getPipeline() {
+        Document changedPaths = new Document("$concatArrays", List.of(
+                new Document("$map", new Document("input", new Document("$objectToArray",
+                        new Document("$ifNull", List.of("$updateDescription.updatedFields", new Document()))))
+                        .append("in", "$$this.k")),
+                new Document("$ifNull", List.of("$updateDescription.removedFields", List.of())),
+                new Document("$map", new Document("input",
+                        new Document("$ifNull", List.of("$updateDescription.truncatedArrays", List.of())))
+                        .append("in", "$$this.field"))));
+        Document riskTrendChanged = new Document("$anyElementTrue", List.of(new Document("$map",
+                new Document("input", changedPaths).append("in", new Document("$regexMatch",
+                        new Document("input", "$$this").append("regex", RISK_TREND_PATH_REGEX))))));
+        Bson operationFilter = Filters.or(Filters.in("operationType", "insert", "replace"),
+                Filters.and(Filters.eq("operationType", "update"), Filters.expr(riskTrendChanged),
+                        Filters.exists("updateDescription.updatedFields." + MongoKeys.ADJUSTED_AT, false)));
+        return List.of(Aggregates.match(Filters.and(operationFilter, ConjunctionFilters.sweepFilter("fullDocument."))));
+    }
+
+    private BsonDocument loadResumeToken() {
+        Document state = stateCollection.find(eq(MongoKeys.ID, stateId)).first();
+        if (state == null || state.get(MongoKeys.RESUME_TOKEN) == null) {
+            logger.info("No resume token for {}, watching from now", stateId);
+            return null;
+        }
+        return state.get(MongoKeys.RESUME_TOKEN, Document.class).toBsonDocument();
+    }
+
+    private void saveResumeToken(BsonDocument resumeToken) {
+        stateCollection.replaceOne(eq(MongoKeys.ID, stateId), new Document(MongoKeys.ID, stateId)
+                .append(MongoKeys.RESUME_TOKEN, resumeToken).append(MongoKeys.UPDATED_AT, new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+}
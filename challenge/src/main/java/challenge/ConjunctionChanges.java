@@ -0,0 +1,61 @@
+package challenge;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+/**
+ * Tracks the paths of a conjunction changed while adjusting it, so that only those paths are written back
+ */
+class ConjunctionChanges {
+
+    /**
+     * The changed paths and their new values, in the order they were changed
+     */
+    private final Document setFields = new Document();
+
+    /**
+     * Sets the given key of the given document to the given value, tracking the change under the given path if the
+     * value differs from the current one
+     *
+     * @param document the document holding the key
+     * @param key      the key inside the document
+     * @param path     the dotted path of the key inside the conjunction
+     * @param value    the new value
+     * @return true if the value differs from the current one
+     */
+    boolean set(Document document, String key, String path, Object value) {
+        if (!value.equals(document.get(key))) {
+            document.put(key, value);
+            setFields.put(path, value);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tracks the change of the given path to the given value
+     *
+     * @param path  the dotted path inside the conjunction
+     * @param value the new value
+     */
+    void set(String path, Object value) {
+        setFields.put(path, value);
+    }
+
+    /**
+     * @return true if no path has been changed
+     */
+    boolean isEmpty() {
+        return setFields.isEmpty();
+    }
+
+    /**
+     * @return the $set update holding all changed paths, also setting {@value MongoKeys#ADJUSTED_AT} to the current
+     * date so that the ConjunctionChangeStreamWatcher can tell the adjustments from the upstream updates
+     */
+    Bson toUpdate() {
+        return new Document("$set", setFields)
+                .append("$currentDate", new Document(MongoKeys.ADJUSTED_AT, true));
+    }
+}
@@ -0,0 +1,68 @@
+package challenge;
+
+import static challenge.ChallengeClass.MAXIMUM_NORAD_ID;
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
+
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+import java.util.Collection;
+
+/**
+ * Class that builds the filters used to query the conjunctions to adjust
+ */
+final class ConjunctionFilters {
+
+    private ConjunctionFilters() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the filter matching all conjunctions whose satellites' norad_id are both under the maximum norad ID and
+     * that have both a risk estimation and a risk prediction
+     */
+    static Bson sweepFilter() {
+        return and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(MongoKeys.NEWEST_RISK_PREDICTION), lt(MongoKeys.SAT1_NORAD_ID,
+                MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
+    }
+
+    /**
+     * @return the same filter as {@link #sweepFilter()}, restricted to the conjunctions whose risk trend fingerprint is
+     * missing or changed since their last adjustment
+     */
+    static Bson changedSweepFilter() {
+        return and(sweepFilter(), ConjunctionFingerprints.changedFilter());
+    }
+
+    /**
+     * @param prefix the prefix of the conjunction's fields, e.g. "fullDocument." for change stream events
+     * @return the same filter as {@link #sweepFilter()}, applied to the fields under the given prefix
+     */
+    static Bson sweepFilter(String prefix) {
+        return and(exists(prefix + MongoKeys.NEWEST_RISK_ESTIMATION), exists(prefix + MongoKeys.NEWEST_RISK_PREDICTION),
+                lt(prefix + MongoKeys.SAT1_NORAD_ID, MAXIMUM_NORAD_ID), lt(prefix + MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
+    }
+
+    /**
+     * @param conjunctionId the conjunctionId of the conjunction
+     * @return the filter matching the conjunction with the given conjunctionId if its satellites' norad_id are both
+     * under the maximum norad ID and it has both a risk estimation and a risk prediction
+     */
+    static Bson conjunctionIdFilter(String conjunctionId) {
+        return and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(MongoKeys.NEWEST_RISK_PREDICTION), eq(MongoKeys.CONJUNCTION_ID,
+                conjunctionId), lt(MongoKeys.SAT1_NORAD_ID, MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
+    }
+
+    /**
+     * @param conjunctionIds the conjunctionIds of the conjunctions
+     * @return the same filter as {@link #conjunctionIdFilter(String)}, matching any of the given conjunctionIds
+     */
+    static Bson conjunctionIdsFilter(Collection<String> conjunctionIds) {
+        return and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(MongoKeys.NEWEST_RISK_PREDICTION), in(MongoKeys.CONJUNCTION_ID,
+                conjunctionIds), lt(MongoKeys.SAT1_NORAD_ID, MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID));
+    }
+}
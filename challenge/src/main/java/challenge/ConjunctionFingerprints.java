@@ -0,0 +1,98 @@
+package challenge;
+
+import com.mongodb.client.model.Filters;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+import java.util.List;
+
+/**
+ * Class that builds the fingerprints of the analyzed state of conjunctions. A fingerprint is a handful of scalars:
+ * the risk_trend_version of the risk prediction, the size of the risk trend, the time_to_tca and
+ * collision_probability of its last entry, the latest collision probability and the suggestion, as left by the
+ * adjustment. The same fingerprint is computed by the server with {@link #expression()}, so that the conjunctions left
+ * unchanged since their last adjustment are filtered out by the query itself.
+ * <p>
+ * Appending an entry to the risk trend changes its size and last entry. Upstream writers that change the entries of
+ * a risk trend in place are expected to increment {@value MongoKeys#RISK_TREND_VERSION}: without it, such changes
+ * are only seen by the next sweep that does not skip unchanged conjunctions
+ */
+final class ConjunctionFingerprints {
+
+    private static final String SIZE = "size";
+    private static final String LAST_TIME_TO_TCA = "last_time_to_tca";
+    private static final String LAST_COLLISION_PROBABILITY = "last_collision_probability";
+    private static final String LATEST_COLLISION_PROBABILITY = "latest_collision_probability";
+
+    private ConjunctionFingerprints() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @param conjunction the conjunction, as left by the adjustment
+     * @return the fingerprint of the conjunction
+     */
+    static Document of(Document conjunction) {
+        Document riskPrediction = conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class);
+        Document riskEstimation = conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class);
+        Document fingerprint = new Document();
+        // Missing fields are left out, like the server does for missing fields of an expression
+        if (riskPrediction.containsKey(MongoKeys.RISK_TREND_VERSION)) {
+            fingerprint.append(MongoKeys.RISK_TREND_VERSION, riskPrediction.get(MongoKeys.RISK_TREND_VERSION));
+        }
+        List<?> riskTrends = riskPrediction.get(MongoKeys.RISK_TREND) instanceof List<?> list ? list : List.of();
+        fingerprint.append(SIZE, riskTrends.size());
+        if (!riskTrends.isEmpty() && riskTrends.get(riskTrends.size() - 1) instanceof Document last) {
+            if (last.containsKey(MongoKeys.TIME_TO_TCA)) {
+                fingerprint.append(LAST_TIME_TO_TCA, last.get(MongoKeys.TIME_TO_TCA));
+            }
+            if (last.containsKey(MongoKeys.COLLISION_PROBABILITY)) {
+                fingerprint.append(LAST_COLLISION_PROBABILITY, last.get(MongoKeys.COLLISION_PROBABILITY));
+            }
+        }
+        if (riskPrediction.containsKey(MongoKeys.COLLISION_PROBABILITY)) {
+            fingerprint.append(LATEST_COLLISION_PROBABILITY, riskPrediction.get(MongoKeys.COLLISION_PROBABILITY));
+        }
+        if (riskEstimation != null && riskEstimation.containsKey(MongoKeys.SUGGESTED)) {
+            fingerprint.append(MongoKeys.SUGGESTED, riskEstimation.get(MongoKeys.SUGGESTED));
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return the aggregation expression computing the fingerprint of a conjunction on the server
+     */
+    static Document expression() {
+        String riskTrend = "$" + MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND;
+        Document riskTrendArray = new Document("$cond", List.of(new Document("$isArray", riskTrend), riskTrend,
+                List.of()));
+        return new Document(MongoKeys.RISK_TREND_VERSION, "$" + MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_VERSION)
+                .append(SIZE, new Document("$size", riskTrendArray))
+                .append(LAST_TIME_TO_TCA, lastEntryValue(riskTrendArray, MongoKeys.TIME_TO_TCA))
+                .append(LAST_COLLISION_PROBABILITY, lastEntryValue(riskTrendArray, MongoKeys.COLLISION_PROBABILITY))
+                .append(LATEST_COLLISION_PROBABILITY, "$" + MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY)
+                .append(MongoKeys.SUGGESTED, "$" + MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED);
+    }
+
+    /**
+     * @return the filter matching the conjunctions whose stored fingerprint is missing or differs from their current
+     * one
+     */
+    static Bson changedFilter() {
+        return Filters.expr(new Document("$ne", List.of("$" + MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT,
+                expression())));
+    }
+
+    /**
+     * @param riskTrendArray the expression of the risk trend, empty if it is not an array
+     * @param key            the key of the value in the last entry of the risk trend
+     * @return the aggregation expression of the value of the given key of the last entry of the risk trend, missing if
+     * the risk trend is empty or its last entry has no such key
+     */
+    private static Document lastEntryValue(Document riskTrendArray, String key) {
+        return new Document("$let", new Document("vars", new Document("last",
+                new Document("$arrayElemAt", List.of(riskTrendArray, -1))))
+                .append("in", "$$last." + key));
+    }
+}
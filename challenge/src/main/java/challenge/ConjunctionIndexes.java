@@ -0,0 +1,240 @@
+package challenge;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Indexes;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Declares and creates the indexes supporting the queries issued by {@link ChallengeClass} and the sweeps built on
+ * it, and verifies through explain that none of their query shapes, finds and aggregations alike, falls back to a
+ * collection scan. Meant to be run once at startup. Given the lease collection of the {@link DistributedSweep}, does
+ * the same for the queries of the leases.
+ * <p>
+ * Both conjunctions' indexes are partial on the sweep filter, so they only hold the conjunctions that can be adjusted
+ */
+public class ConjunctionIndexes {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConjunctionIndexes.class);
+
+    static final String SWEEP_INDEX_NAME = "sweep_norad_ids";
+    static final String CONJUNCTION_ID_INDEX_NAME = "sweep_conjunction_id";
+
+    private static final String COLLECTION_SCAN_STAGE = "COLLSCAN";
+    private static final String WINNING_PLAN = "winningPlan";
+
+    /**
+     * The _id, conjunction_id and sweep name standing for the actual values in the explained query shapes
+     */
+    private static final String SAMPLE_VALUE = "";
+
+    /**
+     * The conjunctions' collection
+     */
+    private final MongoCollection<Document> conjunctionsCollection;
+
+    /**
+     * The lease collection of the DistributedSweep, null if not used
+     */
+    private final MongoCollection<Document> leaseCollection;
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     */
+    public ConjunctionIndexes(MongoCollection<Document> conjunctionsCollection) {
+        Objects.requireNonNull(conjunctionsCollection);
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.leaseCollection = null;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param leaseCollection        The lease collection of the DistributedSweep, cannot be null
+     */
+    public ConjunctionIndexes(MongoCollection<Document> conjunctionsCollection,
+                              MongoCollection<Document> leaseCollection) {
+        Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(leaseCollection);
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.leaseCollection = leaseCollection;
+    }
+
+    /**
+     * Creates the indexes and verifies the query plans of all query shapes
+     *
+     * @param failFast whether a query shape falling back to a collection scan throws instead of being logged
+     * @throws IllegalStateException if failFast is true and a query shape falls back to a collection scan
+     */
+    public void prepare(boolean failFast) {
+        ensureIndexes();
+        List<String> collectionScans = verifyQueryPlans();
+        if (failFast && !collectionScans.isEmpty()) {
+            throw new IllegalStateException("Query shapes falling back to a collection scan: " + collectionScans);
+        }
+    }
+
+    /**
+     * @return the indexes supporting the query shapes of ChallengeClass
+     */
+    static List<IndexModel> getIndexModels() {
+        Bson partialFilter = ConjunctionFilters.sweepFilter();
+        return List.of(
+                new IndexModel(Indexes.ascending(MongoKeys.SAT1_NORAD_ID, MongoKeys.SAT2_NORAD_ID),
+                        new IndexOptions().name(SWEEP_INDEX_NAME).partialFilterExpression(partialFilter)),
+                new IndexModel(Indexes.ascending(MongoKeys.CONJUNCTION_ID),
+                        new IndexOptions().name(CONJUNCTION_ID_INDEX_NAME).partialFilterExpression(partialFilter)));
+    }
+
+    /**
+     * Creates the indexes if they do not exist yet
+     */
+    public void ensureIndexes() {
+        List<String> names = conjunctionsCollection.createIndexes(getIndexModels());
+        logger.info("Ensured the conjunctions' indexes {}", names);
+        if (leaseCollection != null) {
+            List<String> leaseIndexNames = leaseCollection.createIndexes(List.of(DistributedSweep.getLeaseIndexModel()));
+            logger.info("Ensured the sweep leases' indexes {}", leaseIndexNames);
+        }
+    }
+
+    /**
+     * Explains every query shape and logs a warning for each one whose winning plan is a collection scan
+     *
+     * @return the names of the query shapes falling back to a collection scan
+     */
+    public List<String> verifyQueryPlans() {
+        List<String> collectionScans = new ArrayList<>();
+        verifyQueryPlans(conjunctionsCollection, getQueryShapes(), collectionScans);
+        if (leaseCollection != null) {
+            verifyQueryPlans(leaseCollection, getLeaseQueryShapes(), collectionScans);
+        }
+        return collectionScans;
+    }
+
+    /**
+     * @param collection      the collection the query shapes are issued to
+     * @param queryShapes     the query shapes, by name
+     * @param collectionScans the names of the query shapes falling back to a collection scan, added to
+     */
+    private static void verifyQueryPlans(MongoCollection<Document> collection, Map<String, QueryShape> queryShapes,
+                                         List<String> collectionScans) {
+        for (Map.Entry<String, QueryShape> queryShape : queryShapes.entrySet()) {
+            if (containsCollectionScan(queryShape.getValue().explain(collection))) {
+                logger.warn("The {} query falls back to a collection scan", queryShape.getKey());
+                collectionScans.add(queryShape.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return the query shapes issued to the conjunctions' collection by ChallengeClass, its sweeps and its
+     * aggregations, by name
+     */
+    static Map<String, QueryShape> getQueryShapes() {
+        Bson sweepFilter = ConjunctionFilters.sweepFilter();
+        Map<String, QueryShape> queryShapes = new LinkedHashMap<>();
+        queryShapes.put("sweep", find(sweepFilter));
+        queryShapes.put("changed sweep", find(ConjunctionFilters.changedSweepFilter()));
+        queryShapes.put("conjunction id", find(ConjunctionFilters.conjunctionIdFilter(SAMPLE_VALUE)));
+        queryShapes.put("conjunction ids", find(ConjunctionFilters.conjunctionIdsFilter(List.of(SAMPLE_VALUE))));
+        queryShapes.put("partition split", aggregate(IdRangePartition.getSplitPipeline(sweepFilter, 2)));
+        queryShapes.put("partition", find(new IdRangePartition(SAMPLE_VALUE, SAMPLE_VALUE).restrict(sweepFilter)));
+        queryShapes.put("checkpoint chunk", collection -> collection.find(CheckpointedSweep.chunkFilter(sweepFilter,
+                SAMPLE_VALUE)).sort(Sorts.ascending(MongoKeys.ID)).limit(1).explain());
+        queryShapes.put("prefilter chunk", aggregate(ConjunctionPrefilter.chunkPipeline(
+                CheckpointedSweep.chunkFilter(sweepFilter, SAMPLE_VALUE), false, 1)));
+        List<Bson> prioritizedSweep = new ArrayList<>();
+        prioritizedSweep.add(Aggregates.match(sweepFilter));
+        prioritizedSweep.addAll(ConjunctionPriorities.stages());
+        queryShapes.put("prioritized sweep", aggregate(prioritizedSweep));
+        queryShapes.put("prefilter", aggregate(ConjunctionPrefilter.pipeline(sweepFilter, false, false)));
+        queryShapes.put("changed prioritized prefilter", aggregate(ConjunctionPrefilter.pipeline(
+                ConjunctionFilters.changedSweepFilter(), true, true)));
+        return queryShapes;
+    }
+
+    /**
+     * @return the query shapes issued to the lease collection by the DistributedSweep, by name
+     */
+    static Map<String, QueryShape> getLeaseQueryShapes() {
+        Map<String, QueryShape> queryShapes = new LinkedHashMap<>();
+        queryShapes.put("sweep leases", find(DistributedSweep.leasesFilter(SAMPLE_VALUE)));
+        queryShapes.put("claimable leases", find(DistributedSweep.claimableFilter(SAMPLE_VALUE)));
+        queryShapes.put("completed leases", find(DistributedSweep.completedFilter(SAMPLE_VALUE)));
+        queryShapes.put("owned lease", find(DistributedSweep.ownedLeaseFilter(SAMPLE_VALUE, SAMPLE_VALUE)));
+        return queryShapes;
+    }
+
+    private static QueryShape find(Bson filter) {
+        return collection -> collection.find(filter).explain();
+    }
+
+    private static QueryShape aggregate(List<Bson> pipeline) {
+        return collection -> collection.aggregate(pipeline).explain();
+    }
+
+    /**
+     * @param explain the output of explain, of a find or of an aggregation
+     * @return true if any winning plan of the explain output holds a collection scan
+     */
+    private static boolean containsCollectionScan(Object explain) {
+        if (explain instanceof Document document) {
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                if (WINNING_PLAN.equals(entry.getKey()) ? containsStage(entry.getValue(), COLLECTION_SCAN_STAGE)
+                        : containsCollectionScan(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (explain instanceof List<?> list) {
+            return list.stream().anyMatch(ConjunctionIndexes::containsCollectionScan);
+        }
+        return false;
+    }
+
+    /**
+     * @param plan  the plan, or any part of it
+     * @param stage the stage to look for
+     * @return true if the plan or any of its input stages is the given stage
+     */
+    private static boolean containsStage(Object plan, String stage) {
+        if (plan instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(value -> containsStage(value, stage));
+        }
+        if (plan instanceof List<?> list) {
+            return list.stream().anyMatch(value -> containsStage(value, stage));
+        }
+        return false;
+    }
+
+    /**
+     * A query issued to a collection, explained without being run
+     */
+    interface QueryShape {
+
+        /**
+         * @param collection the collection the query is issued to
+         * @return the output of explain for the query
+         */
+        Document explain(MongoCollection<Document> collection);
+    }
+}
@@ -0,0 +1,67 @@
+package challenge;
+
+/**
+ * Immutable outcome of the adjustment of a single conjunction
+ */
+public final class ConjunctionOutcome {
+
+    /**
+     * The result of the adjustment of a conjunction
+     */
+    public enum Status {
+
+        /**
+         * The conjunction did not need any change
+         */
+        UNCHANGED,
+
+        /**
+         * The changes of the conjunction were written
+         */
+        UPDATED,
+
+        /**
+         * The write of the changes of the conjunction failed
+         */
+        FAILED,
+
+        /**
+         * No conjunction to adjust was found
+         */
+        NOT_FOUND
+    }
+
+    /**
+     * The _id of the conjunction
+     */
+    private final Object id;
+
+    /**
+     * The result of the adjustment
+     */
+    private final Status status;
+
+    /**
+     * Constructor
+     *
+     * @param id     the _id of the conjunction
+     * @param status the result of the adjustment
+     */
+    public ConjunctionOutcome(Object id, Status status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return id + ": " + status;
+    }
+}
@@ -0,0 +1,160 @@
+package challenge;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that builds the aggregation pipeline classifying the conjunctions of a sweep on the server, with the same
+ * validity rules as the client, so that the conjunctions whose outcome cannot change never cross the wire:
+ * <ul>
+ *     <li>{@value #ANALYZE}: the risk trend holds at least one pair of consecutive valid entries, so the conjunction
+ *     is read with the fields the theta analysis needs</li>
+ *     <li>{@value #REVOKE_ONLY}: the risk trend holds at least 2 entries but no pair of consecutive valid entries
+ *     and the conjunction is not already unsuggested, so only its suggestion has to be revoked and the risk trend is
+ *     left out</li>
+ *     <li>{@value #SKIP}: the risk trend holds fewer than 2 entries, or no pair of consecutive valid entries while the
+ *     conjunction is already unsuggested, so the conjunction is filtered out, or returned without its risk trend by the
+ *     chunk pipeline</li>
+ * </ul>
+ * The class is returned in the {@value MongoKeys#ANALYSIS_CLASS} field. The conjunctions filtered out on the server
+ * are not counted by the DataQualityDiagnostics. $isNumber needs MongoDB 4.4 or later
+ */
+final class ConjunctionPrefilter {
+
+    static final String ANALYZE = "analyze";
+    static final String REVOKE_ONLY = "revoke_only";
+    static final String SKIP = "skip";
+
+    private static final String RISK_TREND = "$" + MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND;
+
+    private ConjunctionPrefilter() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @param filter        the filter of the conjunctions of the sweep
+     * @param skipUnchanged whether the stored fingerprint is read along with the conjunctions, and the fingerprint of
+     *                      the conjunctions to revoke is computed by the server
+     * @param prioritized   whether the conjunctions that are not skipped are sorted by ConjunctionPriorities
+     * @return the pipeline returning the conjunctions matching the filter that are not skipped, with their class
+     */
+    static List<Bson> pipeline(Bson filter, boolean skipUnchanged, boolean prioritized) {
+        Document projection = projection(skipUnchanged);
+        List<Bson> pipeline = new ArrayList<>(List.of(new Document("$match", filter),
+                new Document("$addFields", new Document(MongoKeys.ANALYSIS_CLASS, classification())),
+                new Document("$match", new Document(MongoKeys.ANALYSIS_CLASS, new Document("$ne", SKIP)))));
+        if (prioritized) {
+            pipeline.addAll(ConjunctionPriorities.stages());
+            projection.append(MongoKeys.LATEST_TIME_TO_TCA, 1);
+        }
+        pipeline.add(new Document("$project", projection));
+        return pipeline;
+    }
+
+    /**
+     * @param filter        the filter of the conjunctions of the chunk
+     * @param skipUnchanged whether the stored fingerprint is read along with the conjunctions, and the fingerprint of
+     *                      the conjunctions to revoke is computed by the server
+     * @param chunkSize     the maximum number of conjunctions of the chunk
+     * @return the pipeline returning, in _id order, the first chunkSize conjunctions matching the filter with their
+     * class, including the skipped ones without their risk trend, so that the chunk ends at its last conjunction
+     */
+    static List<Bson> chunkPipeline(Bson filter, boolean skipUnchanged, int chunkSize) {
+        return List.of(new Document("$match", filter),
+                new Document("$sort", new Document(MongoKeys.ID, 1)),
+                new Document("$limit", chunkSize),
+                new Document("$addFields", new Document(MongoKeys.ANALYSIS_CLASS, classification())),
+                new Document("$project", projection(skipUnchanged)));
+    }
+
+    /**
+     * @param skipUnchanged whether the stored fingerprint is projected, along with the fingerprint computed by the
+     *                      server for the conjunctions to revoke
+     * @return the projection of the classified conjunctions, leaving out the risk trend unless it is analyzed
+     */
+    private static Document projection(boolean skipUnchanged) {
+        Document projection = new Document(MongoKeys.ID, 1)
+                .append(MongoKeys.SAT1_NORAD_ID, 1)
+                .append(MongoKeys.SAT2_NORAD_ID, 1)
+                .append(MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, 1)
+                .append(MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY, 1)
+                .append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND,
+                        cond(isAnalyzed(), projectedRiskTrend(), "$$REMOVE"))
+                .append(MongoKeys.ANALYSIS_CLASS, 1);
+        if (skipUnchanged) {
+            projection.append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT, 1)
+                    .append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_VERSION, 1)
+                    .append(MongoKeys.RISK_TREND_FINGERPRINT, cond(isRevokeOnly(), ConjunctionFingerprints.expression(),
+                            "$$REMOVE"));
+        }
+        return projection;
+    }
+
+    /**
+     * @return the expression of the class of a conjunction
+     */
+    static Document classification() {
+        Document validity = new Document("$map", new Document("input", cond(new Document("$isArray", RISK_TREND),
+                RISK_TREND, List.of())).append("as", "trend").append("in", isTrendValid("$$trend")));
+        Document hasValidPair = new Document("$anyElementTrue", List.of(new Document("$map", new Document("input",
+                new Document("$range", List.of(1, new Document("$size", "$$validity"))))
+                .append("as", "i")
+                .append("in", new Document("$and", List.of(
+                        new Document("$arrayElemAt", List.of("$$validity", new Document("$subtract", List.of("$$i", 1)))),
+                        new Document("$arrayElemAt", List.of("$$validity", "$$i"))))))));
+        Document unsuggested = new Document("$eq", List.of("$" + MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false));
+        return new Document("$let", new Document("vars", new Document("validity", validity))
+                .append("in", new Document("$switch", new Document("branches", List.of(
+                        branch(new Document("$lt", List.of(new Document("$size", "$$validity"), 2)), SKIP),
+                        branch(hasValidPair, ANALYZE),
+                        branch(unsuggested, SKIP)))
+                        .append("default", REVOKE_ONLY))));
+    }
+
+    /**
+     * @param trend the expression of a risk trend entry
+     * @return the expression checking the entry like ChallengeClass.isTrendValid
+     */
+    private static Document isTrendValid(String trend) {
+        String collisionProbability = trend + "." + MongoKeys.COLLISION_PROBABILITY;
+        return new Document("$and", List.of(
+                new Document("$eq", List.of(new Document("$type", trend), "object")),
+                new Document("$isNumber", trend + "." + MongoKeys.TIME_TO_TCA),
+                new Document("$isNumber", collisionProbability),
+                // NaN equals NaN in aggregation comparisons
+                new Document("$ne", List.of(collisionProbability, Double.NaN))));
+    }
+
+    /**
+     * @return the expression of the risk trend entries reduced to their time_to_tca and collision_probability, like
+     * the analysis projection, replacing the entries that are not documents with empty ones so that the indexes of
+     * the others are kept
+     */
+    private static Document projectedRiskTrend() {
+        return new Document("$map", new Document("input", RISK_TREND).append("as", "trend").append("in",
+                cond(new Document("$eq", List.of(new Document("$type", "$$trend"), "object")),
+                        new Document(MongoKeys.TIME_TO_TCA, "$$trend." + MongoKeys.TIME_TO_TCA)
+                                .append(MongoKeys.COLLISION_PROBABILITY, "$$trend." + MongoKeys.COLLISION_PROBABILITY),
+                        new Document("$literal", new Document()))));
+    }
+
+    private static Document isAnalyzed() {
+        return new Document("$eq", List.of("$" + MongoKeys.ANALYSIS_CLASS, ANALYZE));
+    }
+
+    private static Document isRevokeOnly() {
+        return new Document("$eq", List.of("$" + MongoKeys.ANALYSIS_CLASS, REVOKE_ONLY));
+    }
+
+    private static Document branch(Object condition, String analysisClass) {
+        return new Document("case", condition).append("then", analysisClass);
+    }
+
+    private static Document cond(Object condition, Object then, Object otherwise) {
+        return new Document("$cond", List.of(condition, then, otherwise));
+    }
+}
@@ -0,0 +1,76 @@
+package challenge;
+
+import challenge.model.Conjunction;
+import challenge.model.RiskTrend;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+import java.util.List;
+
+/**
+ * Class that orders the conjunctions of a sweep by urgency: the latest time_to_tca of their risk trend, which is the
+ * one of its last entry, in ascending order. Conjunctions without a numeric latest time_to_tca come last, with
+ * {@link SweepReport#UNKNOWN_TIME_TO_TCA} as their latest time_to_tca
+ */
+final class ConjunctionPriorities {
+
+    private static final String RISK_TREND = "$" + MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND;
+
+    private ConjunctionPriorities() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the aggregation stages adding the {@value MongoKeys#LATEST_TIME_TO_TCA} of each conjunction and sorting
+     * the conjunctions by it, then by _id. The sort cannot use an index, so the aggregation must allow disk use
+     */
+    static List<Bson> stages() {
+        return List.of(Aggregates.addFields(new Field<>(MongoKeys.LATEST_TIME_TO_TCA,
+                        expression())),
+                Aggregates.sort(Sorts.ascending(MongoKeys.LATEST_TIME_TO_TCA, MongoKeys.ID)));
+    }
+
+    /**
+     * @return the aggregation expression computing the latest time_to_tca of a conjunction on the server
+     */
+    static Document expression() {
+        Document lastTrend = new Document("$arrayElemAt", List.of(new Document("$cond", List.of(
+                new Document("$isArray", RISK_TREND), RISK_TREND, List.of())), -1));
+        String timeToTca = "$$last." + MongoKeys.TIME_TO_TCA;
+        return new Document("$let", new Document("vars", new Document("last", lastTrend))
+                .append("in", new Document("$cond", List.of(new Document("$isNumber", timeToTca),
+                        timeToTca, SweepReport.UNKNOWN_TIME_TO_TCA))));
+    }
+
+    /**
+     * @param conjunction the conjunction, read with or without its {@value MongoKeys#LATEST_TIME_TO_TCA}
+     * @return the latest time_to_tca of the conjunction
+     */
+    static double latestTimeToTca(Document conjunction) {
+        Object latestTimeToTca = conjunction.get(MongoKeys.LATEST_TIME_TO_TCA);
+        if (latestTimeToTca == null) {
+            Document riskPrediction = conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class);
+            Object riskTrends = riskPrediction != null ? riskPrediction.get(MongoKeys.RISK_TREND) : null;
+            if (riskTrends instanceof List<?> list && !list.isEmpty() && list.get(list.size() - 1) instanceof Document last) {
+                latestTimeToTca = last.get(MongoKeys.TIME_TO_TCA);
+            }
+        }
+        return latestTimeToTca instanceof Number number ? number.doubleValue() : SweepReport.UNKNOWN_TIME_TO_TCA;
+    }
+
+    /**
+     * @param conjunction the conjunction, decoded by the ConjunctionCodec
+     * @return the latest time_to_tca of the conjunction, if its last risk trend entry is valid
+     */
+    static double latestTimeToTca(Conjunction conjunction) {
+        RiskTrend riskTrend = conjunction.getRiskTrend();
+        if (riskTrend == null || riskTrend.size() == 0 || !riskTrend.isValid(riskTrend.size() - 1)) {
+            return SweepReport.UNKNOWN_TIME_TO_TCA;
+        }
+        return riskTrend.getTimeToTca(riskTrend.size() - 1);
+    }
+}
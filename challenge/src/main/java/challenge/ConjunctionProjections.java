@@ -0,0 +1,52 @@
+package challenge;
+
+import static com.mongodb.client.model.Projections.fields;
+import static com.mongodb.client.model.Projections.include;
+
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+/**
+ * Class that builds the projections used to read only what the theta analysis needs
+ */
+final class ConjunctionProjections {
+
+    private ConjunctionProjections() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the projection of the fields read or written by the theta analysis
+     */
+    static Bson analysisProjection() {
+        return include(MongoKeys.ID, MongoKeys.SAT1_NORAD_ID, MongoKeys.SAT2_NORAD_ID,
+                MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY,
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND + "." + MongoKeys.TIME_TO_TCA,
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND + "." + MongoKeys.COLLISION_PROBABILITY);
+    }
+
+    /**
+     * @return the projection of the fields read or written by the theta analysis, including the risk trend fingerprint
+     * and the risk trend version it holds
+     */
+    static Bson fingerprintedAnalysisProjection() {
+        return fields(analysisProjection(), include(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT,
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_VERSION));
+    }
+
+    /**
+     * @param projection a projection of the fields read by the theta analysis
+     * @return the given projection, including the stored state of the risk trend analysis
+     */
+    static Bson withAnalysisState(Bson projection) {
+        return fields(projection, include(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_ANALYSIS));
+    }
+
+    /**
+     * @param projection a projection of the fields read by the theta analysis
+     * @return the given projection, including the conjunction_id
+     */
+    static Bson withConjunctionId(Bson projection) {
+        return fields(projection, include(MongoKeys.CONJUNCTION_ID));
+    }
+}
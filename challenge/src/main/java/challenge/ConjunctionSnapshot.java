@@ -0,0 +1,220 @@
+package challenge;
+
+import challenge.model.Conjunction;
+import challenge.model.ConjunctionCodec;
+import challenge.model.RiskTrend;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped columnar snapshot of the conjunctions to adjust, for analyses that must not load the
+ * conjunctions' collection. The file holds a header followed by one column per field:
+ * <pre>
+ * int magic, int version, int conjunction count, int risk trend entry count, long offset of each column
+ * ID_OFFSETS                    int[conjunctions + 1], end offset of each _id in IDS
+ * IDS                           byte[], the _id of each conjunction as a BSON document
+ * SAT1_NORAD_IDS                int[conjunctions], {@value NORAD_ID_MISSING} if missing
+ * SAT2_NORAD_IDS                int[conjunctions], {@value NORAD_ID_MISSING} if missing
+ * SUGGESTED                     byte[conjunctions], 0 or 1, {@value SUGGESTED_MISSING} if missing
+ * COLLISION_PROBABILITIES       double[conjunctions], the newest risk prediction's, NaN if missing
+ * TREND_OFFSETS                 int[conjunctions + 1], end offset of each risk trend in the entry columns
+ * TREND_VALIDITY                byte[entries], 1 if the entry is valid
+ * TREND_TIME_TO_TCA             double[entries]
+ * TREND_COLLISION_PROBABILITIES double[entries]
+ * </pre>
+ * All values are big-endian. Each column is mapped on its own, so a snapshot holds at most
+ * {@value MAXIMUM_ENTRY_COUNT} risk trend entries
+ */
+public final class ConjunctionSnapshot implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConjunctionSnapshot.class);
+
+    /**
+     * The columns of a snapshot, in the order of the file
+     */
+    enum Column {
+        ID_OFFSETS, IDS, SAT1_NORAD_IDS, SAT2_NORAD_IDS, SUGGESTED, COLLISION_PROBABILITIES, TREND_OFFSETS,
+        TREND_VALIDITY, TREND_TIME_TO_TCA, TREND_COLLISION_PROBABILITIES
+    }
+
+    /**
+     * "CJSN"
+     */
+    static final int MAGIC = 0x434A534E;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + Column.values().length * Long.BYTES;
+
+    /**
+     * The maximum number of risk trend entries of a snapshot, so that a column of doubles can be mapped at once
+     */
+    public static final int MAXIMUM_ENTRY_COUNT = Integer.MAX_VALUE / Double.BYTES;
+
+    /**
+     * The value of a missing norad_id
+     */
+    public static final int NORAD_ID_MISSING = -1;
+
+    /**
+     * The value of a missing suggested flag
+     */
+    public static final byte SUGGESTED_MISSING = 2;
+
+    private static final DocumentCodec ID_CODEC = new DocumentCodec();
+
+    private final FileChannel channel;
+    private final ByteBuffer[] columns = new ByteBuffer[Column.values().length];
+    private final int size;
+    private final int entryCount;
+
+    private ConjunctionSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a conjunction snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported conjunction snapshot version " + version);
+        }
+        this.size = header.getInt();
+        this.entryCount = header.getInt();
+        long[] offsets = new long[columns.length + 1];
+        for (int i = 0; i < columns.length; i++) {
+            offsets[i] = header.getLong();
+        }
+        offsets[columns.length] = channel.size();
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = channel.map(FileChannel.MapMode.READ_ONLY, offsets[i], offsets[i + 1] - offsets[i]);
+        }
+    }
+
+    /**
+     * Exports all conjunctions matching the sweep filter into a snapshot file, reading only the fields the theta
+     * analysis needs
+     *
+     * @param conjunctionsCollection The conjunctions' collection
+     * @param file                   The snapshot file, replaced if it exists
+     * @return the number of exported conjunctions
+     * @throws IOException if the snapshot file cannot be written
+     */
+    public static int export(MongoCollection<Document> conjunctionsCollection, Path file) throws IOException {
+        int count;
+        try (ConjunctionSnapshotWriter writer = new ConjunctionSnapshotWriter(file);
+             MongoCursor<Conjunction> cursor = ConjunctionCodec.withConjunctionCodec(conjunctionsCollection)
+                     .find(ConjunctionFilters.sweepFilter()).projection(ConjunctionProjections.analysisProjection())
+                     .iterator()) {
+            while (cursor.hasNext()) {
+                writer.add(cursor.next());
+            }
+            count = writer.finish();
+        }
+        logger.info("Exported {} conjunctions into {}", count, file);
+        return count;
+    }
+
+    /**
+     * Maps the given snapshot file
+     *
+     * @param file The snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be mapped or is not a snapshot
+     */
+    public static ConjunctionSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ConjunctionSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of conjunctions of the snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of risk trend entries of all conjunctions of the snapshot
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Reads the conjunction at the given index, as decoded by the ConjunctionCodec from the fields the theta analysis
+     * needs
+     *
+     * @param index the index of the conjunction, from 0 to size() - 1
+     * @return the conjunction
+     */
+    public Conjunction getConjunction(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Conjunction conjunction = new Conjunction();
+        conjunction.setId(readId(index));
+        conjunction.setSat1NoradId(orNull(column(Column.SAT1_NORAD_IDS).getInt(index * Integer.BYTES)));
+        conjunction.setSat2NoradId(orNull(column(Column.SAT2_NORAD_IDS).getInt(index * Integer.BYTES)));
+        byte suggested = column(Column.SUGGESTED).get(index);
+        conjunction.setRiskEstimationPresent(true);
+        conjunction.setSuggested(suggested == SUGGESTED_MISSING ? null : suggested == 1);
+        double collisionProbability = column(Column.COLLISION_PROBABILITIES).getDouble(index * Double.BYTES);
+        conjunction.setRiskPredictionPresent(true);
+        conjunction.setCollisionProbability(Double.isNaN(collisionProbability) ? null : collisionProbability);
+
+        ByteBuffer trendOffsets = column(Column.TREND_OFFSETS);
+        int start = trendOffsets.getInt(index * Integer.BYTES);
+        int end = trendOffsets.getInt((index + 1) * Integer.BYTES);
+        RiskTrend riskTrend = new RiskTrend(end - start);
+        ByteBuffer validity = column(Column.TREND_VALIDITY);
+        ByteBuffer timeToTca = column(Column.TREND_TIME_TO_TCA);
+        ByteBuffer trendCollisionProbability = column(Column.TREND_COLLISION_PROBABILITIES);
+        for (int i = start; i < end; i++) {
+            riskTrend.add(timeToTca.getDouble(i * Double.BYTES), trendCollisionProbability.getDouble(i * Double.BYTES),
+                    validity.get(i) == 1);
+        }
+        conjunction.setRiskTrend(riskTrend);
+        return conjunction;
+    }
+
+    /**
+     * Closes the file. The columns stay mapped until they are garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Object readId(int index) {
+        ByteBuffer idOffsets = column(Column.ID_OFFSETS);
+        int start = idOffsets.getInt(index * Integer.BYTES);
+        int end = idOffsets.getInt((index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        column(Column.IDS).get(start, bytes);
+        return new RawBsonDocument(bytes).decode(ID_CODEC).get(MongoKeys.ID);
+    }
+
+    private ByteBuffer column(Column column) {
+        return columns[column.ordinal()];
+    }
+
+    private static Integer orNull(int noradId) {
+        return noradId != NORAD_ID_MISSING ? noradId : null;
+    }
+}
@@ -0,0 +1,161 @@
+package challenge;
+
+import challenge.model.Conjunction;
+import challenge.model.RiskTrend;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import utils.MongoKeys;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes conjunctions into a {@link ConjunctionSnapshot} file. Each column is streamed into its own temporary file,
+ * since the number of conjunctions is unknown until the end, and the columns are concatenated behind the header by
+ * {@link #finish()}
+ */
+final class ConjunctionSnapshotWriter implements Closeable {
+
+    private static final DocumentCodec ID_CODEC = new DocumentCodec();
+
+    /**
+     * The snapshot file
+     */
+    private final Path file;
+
+    /**
+     * The temporary file of each column, by ordinal
+     */
+    private final Path[] columnFiles = new Path[ConjunctionSnapshot.Column.values().length];
+
+    /**
+     * The stream of each column, by ordinal
+     */
+    private final DataOutputStream[] columns = new DataOutputStream[columnFiles.length];
+
+    /**
+     * The buffer the _id of each conjunction is encoded in, as a BSON document
+     */
+    private final BasicOutputBuffer idBuffer = new BasicOutputBuffer();
+
+    private int conjunctionCount;
+    private int entryCount;
+    private int idBytes;
+
+    /**
+     * Constructor
+     *
+     * @param file The snapshot file, replaced if it exists
+     * @throws IOException if the temporary column files cannot be created
+     */
+    ConjunctionSnapshotWriter(Path file) throws IOException {
+        this.file = file;
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            for (ConjunctionSnapshot.Column column : ConjunctionSnapshot.Column.values()) {
+                Path columnFile = Files.createTempFile(directory, file.getFileName() + ".", ".column");
+                columnFiles[column.ordinal()] = columnFile;
+                columns[column.ordinal()] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFile)));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        column(ConjunctionSnapshot.Column.ID_OFFSETS).writeInt(0);
+        column(ConjunctionSnapshot.Column.TREND_OFFSETS).writeInt(0);
+    }
+
+    /**
+     * Adds a conjunction decoded by the ConjunctionCodec at the end of the snapshot
+     *
+     * @param conjunction The conjunction
+     * @throws IOException if the conjunction cannot be written
+     */
+    void add(Conjunction conjunction) throws IOException {
+        idBuffer.truncateToPosition(0);
+        ID_CODEC.encode(new BsonBinaryWriter(idBuffer), new Document(MongoKeys.ID, conjunction.getId()),
+                EncoderContext.builder().build());
+        idBytes += idBuffer.getSize();
+        column(ConjunctionSnapshot.Column.IDS).write(idBuffer.getInternalBuffer(), 0, idBuffer.getSize());
+        column(ConjunctionSnapshot.Column.ID_OFFSETS).writeInt(idBytes);
+        column(ConjunctionSnapshot.Column.SAT1_NORAD_IDS).writeInt(orMissing(conjunction.getSat1NoradId()));
+        column(ConjunctionSnapshot.Column.SAT2_NORAD_IDS).writeInt(orMissing(conjunction.getSat2NoradId()));
+        column(ConjunctionSnapshot.Column.SUGGESTED).writeByte(conjunction.getSuggested() == null ?
+                ConjunctionSnapshot.SUGGESTED_MISSING : conjunction.getSuggested() ? 1 : 0);
+        column(ConjunctionSnapshot.Column.COLLISION_PROBABILITIES).writeDouble(
+                conjunction.getCollisionProbability() != null ? conjunction.getCollisionProbability() : Double.NaN);
+
+        RiskTrend riskTrend = conjunction.getRiskTrend();
+        int size = riskTrend != null ? riskTrend.size() : 0;
+        if (size > ConjunctionSnapshot.MAXIMUM_ENTRY_COUNT - entryCount) {
+            throw new IllegalStateException("A snapshot cannot hold more than " + ConjunctionSnapshot.MAXIMUM_ENTRY_COUNT
+                    + " risk trend entries");
+        }
+        for (int i = 0; i < size; i++) {
+            column(ConjunctionSnapshot.Column.TREND_VALIDITY).writeByte(riskTrend.isValid(i) ? 1 : 0);
+            column(ConjunctionSnapshot.Column.TREND_TIME_TO_TCA).writeDouble(riskTrend.getTimeToTca(i));
+            column(ConjunctionSnapshot.Column.TREND_COLLISION_PROBABILITIES).writeDouble(
+                    riskTrend.getCollisionProbability(i));
+        }
+        entryCount += size;
+        column(ConjunctionSnapshot.Column.TREND_OFFSETS).writeInt(entryCount);
+        conjunctionCount++;
+    }
+
+    /**
+     * Writes the snapshot file from the header and the columns
+     *
+     * @return the number of conjunctions of the snapshot
+     * @throws IOException if the snapshot file cannot be written
+     */
+    int finish() throws IOException {
+        for (DataOutputStream column : columns) {
+            column.close();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(ConjunctionSnapshot.MAGIC);
+            out.writeInt(ConjunctionSnapshot.VERSION);
+            out.writeInt(conjunctionCount);
+            out.writeInt(entryCount);
+            long offset = ConjunctionSnapshot.HEADER_BYTES;
+            for (Path columnFile : columnFiles) {
+                out.writeLong(offset);
+                offset += Files.size(columnFile);
+            }
+            for (Path columnFile : columnFiles) {
+                Files.copy(columnFile, out);
+            }
+        }
+        return conjunctionCount;
+    }
+
+    /**
+     * Deletes the temporary column files
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < columnFiles.length; i++) {
+            if (columns[i] != null) {
+                columns[i].close();
+            }
+            if (columnFiles[i] != null) {
+                Files.deleteIfExists(columnFiles[i]);
+            }
+        }
+    }
+
+    private DataOutputStream column(ConjunctionSnapshot.Column column) {
+        return columns[column.ordinal()];
+    }
+
+    private static int orMissing(Integer noradId) {
+        return noradId != null ? noradId : ConjunctionSnapshot.NORAD_ID_MISSING;
+    }
+}
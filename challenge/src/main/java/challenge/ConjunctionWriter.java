@@ -0,0 +1,17 @@
+package challenge;
+
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+
+/**
+ * Sink for the changes made to conjunctions while adjusting them
+ */
+interface ConjunctionWriter {
+
+    /**
+     * Writes, or schedules the write of, the given change
+     *
+     * @param writeModel the change to apply to the conjunctions' collection
+     */
+    void write(WriteModel<Document> writeModel);
+}
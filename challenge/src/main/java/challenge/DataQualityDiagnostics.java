@@ -0,0 +1,143 @@
+package challenge;
+
+import challenge.model.DataQualityIssue;
+import challenge.model.RiskTrend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe counters of the invalid risk trends found while adjusting conjunctions. Instead of a log line per
+ * invalid entry, the issues are aggregated and only a rate-limited sample of the affected conjunctions' _id is logged
+ */
+public final class DataQualityDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataQualityDiagnostics.class);
+
+    /**
+     * The default maximum number of affected conjunctions logged per sample interval
+     */
+    public static final int DEFAULT_SAMPLE_LIMIT = 10;
+
+    /**
+     * The default interval over which the logged sample is limited
+     */
+    public static final Duration DEFAULT_SAMPLE_INTERVAL = Duration.ofMinutes(1);
+
+    private final LongAdder affectedCount = new LongAdder();
+    private final LongAdder[] issueCounts = new LongAdder[DataQualityIssue.values().length];
+
+    private final int sampleLimit;
+    private final long sampleIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * The start of the current sample interval, guarded by this
+     */
+    private long intervalStart;
+
+    /**
+     * The number of affected conjunctions logged in the current sample interval, guarded by this
+     */
+    private int sampledCount;
+
+    /**
+     * The number of affected conjunctions not logged in the current sample interval, guarded by this
+     */
+    private long suppressedCount;
+
+    /**
+     * Constructor logging at most {@value DEFAULT_SAMPLE_LIMIT} affected conjunctions per minute
+     */
+    public DataQualityDiagnostics() {
+        this(DEFAULT_SAMPLE_LIMIT, DEFAULT_SAMPLE_INTERVAL, System::nanoTime);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sampleLimit    the maximum number of affected conjunctions logged per sample interval, 0 to log none
+     * @param sampleInterval the interval over which the logged sample is limited, cannot be null
+     * @param nanoClock      the source of the current time in nanoseconds, cannot be null
+     */
+    DataQualityDiagnostics(int sampleLimit, Duration sampleInterval, LongSupplier nanoClock) {
+        Objects.requireNonNull(sampleInterval);
+        Objects.requireNonNull(nanoClock);
+        if (sampleLimit < 0) {
+            throw new IllegalArgumentException("sampleLimit cannot be negative");
+        }
+        this.sampleLimit = sampleLimit;
+        this.sampleIntervalNanos = sampleInterval.toNanos();
+        this.nanoClock = nanoClock;
+        this.intervalStart = nanoClock.getAsLong();
+        for (int i = 0; i < issueCounts.length; i++) {
+            issueCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the issues found while decoding the risk trend of the given conjunction, if any
+     *
+     * @param conjunctionId the _id of the conjunction
+     * @param riskTrend     the risk trend of the conjunction
+     */
+    public void record(Object conjunctionId, RiskTrend riskTrend) {
+        boolean tooFewTrends = riskTrend.size() < 2;
+        if (!tooFewTrends && !riskTrend.hasIssues()) {
+            return;
+        }
+        affectedCount.increment();
+        for (DataQualityIssue issue : DataQualityIssue.values()) {
+            int count = issue == DataQualityIssue.TOO_FEW_TRENDS ? (tooFewTrends ? 1 : 0) : riskTrend.getIssueCount(issue);
+            if (count > 0) {
+                issueCounts[issue.ordinal()].add(count);
+            }
+        }
+        sample(conjunctionId);
+    }
+
+    /**
+     * @return a snapshot of the issues found so far
+     */
+    public DataQualityReport getReport() {
+        long[] counts = new long[issueCounts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = issueCounts[i].sum();
+        }
+        return new DataQualityReport(affectedCount.sum(), counts);
+    }
+
+    /**
+     * @return the number of affected conjunctions not logged in the current sample interval
+     */
+    synchronized long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    /**
+     * Logs the _id of the given affected conjunction, unless the sample limit of the current interval is reached
+     *
+     * @param conjunctionId the _id of the conjunction
+     */
+    private synchronized void sample(Object conjunctionId) {
+        long now = nanoClock.getAsLong();
+        if (now - intervalStart >= sampleIntervalNanos) {
+            if (suppressedCount > 0) {
+                logger.warn("{} more conjunctions with invalid risk trends were not logged", suppressedCount);
+            }
+            intervalStart = now;
+            sampledCount = 0;
+            suppressedCount = 0;
+        }
+        if (sampledCount < sampleLimit) {
+            sampledCount++;
+            logger.warn("Conjunction {} has invalid risk trends", conjunctionId);
+        } else {
+            suppressedCount++;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package challenge;
+
+import challenge.model.DataQualityIssue;
+
+import java.util.Arrays;
+
+/**
+ * Immutable report of the invalid risk trends found while adjusting conjunctions
+ */
+public final class DataQualityReport {
+
+    /**
+     * A report without any invalid risk trend
+     */
+    public static final DataQualityReport EMPTY = new DataQualityReport(0, new long[DataQualityIssue.values().length]);
+
+    /**
+     * The number of conjunctions with at least one issue
+     */
+    private final long affectedCount;
+
+    /**
+     * The number of occurrences of each DataQualityIssue, by ordinal
+     */
+    private final long[] issueCounts;
+
+    /**
+     * Constructor
+     *
+     * @param affectedCount the number of conjunctions with at least one issue
+     * @param issueCounts   the number of occurrences of each DataQualityIssue, by ordinal
+     */
+    DataQualityReport(long affectedCount, long[] issueCounts) {
+        this.affectedCount = affectedCount;
+        this.issueCounts = issueCounts;
+    }
+
+    /**
+     * @param other an earlier report of the same diagnostics
+     * @return a new report holding the issues found since the other report
+     */
+    public DataQualityReport minus(DataQualityReport other) {
+        long[] counts = new long[issueCounts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = issueCounts[i] - other.issueCounts[i];
+        }
+        return new DataQualityReport(affectedCount - other.affectedCount, counts);
+    }
+
+    public long getAffectedCount() {
+        return affectedCount;
+    }
+
+    /**
+     * @param issue the issue
+     * @return the number of occurrences of the given issue
+     */
+    public long getIssueCount(DataQualityIssue issue) {
+        return issueCounts[issue.ordinal()];
+    }
+
+    /**
+     * @return true if no issue was found
+     */
+    public boolean isEmpty() {
+        return affectedCount == 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("affected=").append(affectedCount);
+        for (DataQualityIssue issue : DataQualityIssue.values()) {
+            builder.append(", ").append(issue.name().toLowerCase()).append('=').append(issueCounts[issue.ordinal()]);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DataQualityReport other && affectedCount == other.affectedCount &&
+                Arrays.equals(issueCounts, other.issueCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(affectedCount) + Arrays.hashCode(issueCounts);
+    }
+}
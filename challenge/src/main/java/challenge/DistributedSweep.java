@@ -0,0 +1,371 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.expr;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweep of the conjunctions' collection shared by several instances of the service. The first instance to run a
+ * sweep with a given name splits the conjunctions into _id partitions and saves the plan and a lease document per
+ * partition in a lease collection; every instance running the sweep with the same name then claims the partitions
+ * one at a time through their lease, sweeps them and marks them completed, until all partitions are completed.
+ * Leases expire unless their owner renews them with a heartbeat while sweeping, so the partitions of a crashed
+ * instance are claimed again by the others. Lease expiries are computed with the server's clock. An instance whose
+ * renewal finds the lease owned by another instance, or that could not renew it for a whole lease duration, aborts
+ * the sweep of the partition before its next conjunction and leaves its report out. A partition whose lease is lost
+ * midway can still be partly swept twice, which is harmless as the adjustment is idempotent. A sweep name is swept
+ * once: each round of sweeps needs its own name
+ */
+public class DistributedSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedSweep.class);
+
+    private static final String STATE_ID_PREFIX = "sweep:";
+
+    static final String LEASE_INDEX_NAME = "sweep_completed";
+
+    private final ChallengeClass challengeClass;
+    private final MongoCollection<Document> conjunctionsCollection;
+    private final MongoCollection<Document> leaseCollection;
+
+    /**
+     * The _id of the document holding the plan of the sweep, which prefixes the _id of its leases
+     */
+    private final String planId;
+
+    /**
+     * The unique name of this instance, owner of the leases it claims
+     */
+    private final String owner;
+
+    /**
+     * The time a lease is held without being renewed
+     */
+    private final Duration leaseDuration;
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass         The ChallengeClass adjusting the conjunctions, whose SweepSettings give the number
+     *                               of partitions, cannot be null
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param leaseCollection        The collection holding the plan and the leases of the sweep, cannot be null
+     * @param name                   The name of the sweep, shared by all instances running it, cannot be null
+     * @param owner                  The unique name of this instance, cannot be null
+     * @param leaseDuration          The time a lease is held without being renewed, renewed every third of it. Must
+     *                               be positive
+     */
+    public DistributedSweep(ChallengeClass challengeClass, MongoCollection<Document> conjunctionsCollection,
+                            MongoCollection<Document> leaseCollection, String name, String owner,
+                            Duration leaseDuration) {
+        Objects.requireNonNull(challengeClass);
+        Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(leaseCollection);
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(owner);
+        Objects.requireNonNull(leaseDuration);
+        if (leaseDuration.isNegative() || leaseDuration.toMillis() == 0) {
+            throw new IllegalArgumentException("leaseDuration must be positive");
+        }
+        this.challengeClass = challengeClass;
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.leaseCollection = leaseCollection;
+        this.planId = STATE_ID_PREFIX + name;
+        this.owner = owner;
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Claims and sweeps the partitions of the sweep until all of them are completed, by this instance or by others.
+     * While the partitions left are leased by other instances, waits for them to be completed or for their leases to
+     * expire
+     *
+     * @return the report of the partitions swept by this instance
+     */
+    public SweepReport run() {
+        Bson filter = challengeClass.getSweepFilter();
+        DataQualityReport dataQualityBefore = challengeClass.getDataQualityReport();
+        int partitionCount = preparePlan(filter);
+        SweepReport report = SweepReport.EMPTY;
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sweep-lease-heartbeat-" + owner);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (true) {
+                Document lease = claim();
+                if (lease != null) {
+                    report = report.plus(sweep(lease, filter, heartbeat));
+                } else if (countCompleted() >= partitionCount) {
+                    break;
+                } else {
+                    sleep(getRenewalPeriod());
+                }
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+        logger.info("{} completed by {}: {}", planId, owner, report);
+        ChallengeClass.logDataQuality(planId, challengeClass.getDataQualityReport().minus(dataQualityBefore));
+        return report;
+    }
+
+    /**
+     * Loads the plan of the sweep, saving a new one if there is none yet, and saves the lease documents of its
+     * partitions that are missing. Of the instances saving a plan at the same time, only the first one succeeds and
+     * the others load it
+     *
+     * @param filter the filter of the conjunctions to sweep
+     * @return the number of partitions of the sweep
+     */
+    private int preparePlan(Bson filter) {
+        Document plan = leaseCollection.find(eq(MongoKeys.ID, planId)).first();
+        if (plan == null) {
+            List<Document> bounds = new ArrayList<>();
+            for (IdRangePartition partition : IdRangePartition.split(conjunctionsCollection, filter,
+                    challengeClass.getSettings().getSweepPartitionCount())) {
+                bounds.add(new Document(MongoKeys.LOWER_BOUND, partition.getLowerBound())
+                        .append(MongoKeys.UPPER_BOUND, partition.getUpperBound()));
+            }
+            plan = new Document(MongoKeys.ID, planId).append(MongoKeys.PARTITIONS, bounds)
+                    .append(MongoKeys.UPDATED_AT, new Date());
+            try {
+                leaseCollection.insertOne(plan);
+                logger.info("{} planned by {} with {} partitions", planId, owner, bounds.size());
+            } catch (MongoServerException e) {
+                if (!isDuplicateKey(e)) {
+                    throw e;
+                }
+                plan = leaseCollection.find(eq(MongoKeys.ID, planId)).first();
+            }
+        }
+        List<Document> bounds = plan.getList(MongoKeys.PARTITIONS, Document.class);
+        // The instance that saved the plan may have crashed before saving all the lease documents
+        if (leaseCollection.countDocuments(leasesFilter(planId)) < bounds.size()) {
+            List<Document> leases = new ArrayList<>(bounds.size());
+            for (int i = 0; i < bounds.size(); i++) {
+                leases.add(new Document(MongoKeys.ID, planId + ":" + i).append(MongoKeys.SWEEP, planId)
+                        .append(MongoKeys.LOWER_BOUND, bounds.get(i).get(MongoKeys.LOWER_BOUND))
+                        .append(MongoKeys.UPPER_BOUND, bounds.get(i).get(MongoKeys.UPPER_BOUND))
+                        .append(MongoKeys.COMPLETED, false));
+            }
+            try {
+                leaseCollection.insertMany(leases, new InsertManyOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                if (!e.getWriteErrors().stream().allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) ==
+                        ErrorCategory.DUPLICATE_KEY)) {
+                    throw e;
+                }
+            }
+        }
+        return bounds.size();
+    }
+
+    /**
+     * Claims the lease of a partition that is neither completed nor leased. A lease that has expired counts as not
+     * leased
+     *
+     * @return the claimed lease, null if none could be claimed
+     */
+    private Document claim() {
+        Bson claimable = claimableFilter(planId);
+        List<Bson> lease = List.of(new Document("$set", new Document(MongoKeys.OWNER, owner)
+                .append(MongoKeys.LEASE_EXPIRES_AT, getLeaseExpiry())));
+        return leaseCollection.findOneAndUpdate(claimable, lease,
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    /**
+     * Sweeps the partition of a claimed lease, renewing the lease until the partition is completed. The sweep is
+     * aborted once the lease is lost
+     *
+     * @param lease     the claimed lease
+     * @param filter    the filter of the conjunctions to sweep
+     * @param heartbeat the executor renewing the lease
+     * @return the report of the partition, empty if the lease was lost before it was completed
+     */
+    private SweepReport sweep(Document lease, Bson filter, ScheduledExecutorService heartbeat) {
+        String leaseId = lease.getString(MongoKeys.ID);
+        IdRangePartition partition = new IdRangePartition(lease.get(MongoKeys.LOWER_BOUND),
+                lease.get(MongoKeys.UPPER_BOUND));
+        long renewalPeriod = getRenewalPeriod();
+        LeaseState leaseState = new LeaseState();
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> renew(leaseId, leaseState), renewalPeriod,
+                renewalPeriod, TimeUnit.MILLISECONDS);
+        SweepDeadline deadline = SweepDeadline.until(() -> leaseState.isLost(leaseDuration));
+        SweepReport report;
+        try {
+            report = challengeClass.sweep(partition.restrict(filter), deadline);
+        } finally {
+            renewal.cancel(false);
+        }
+        if (deadline.isExpired()) {
+            logger.warn("{} lost the lease {} of partition {} while sweeping it, leaving out its report {}", owner,
+                    leaseId, partition, report);
+            return SweepReport.EMPTY;
+        }
+        BulkWriteReport writeReport = report.getWriteReport();
+        UpdateResult result = leaseCollection.updateOne(ownedLeaseFilter(leaseId, owner),
+                Updates.combine(Updates.set(MongoKeys.COMPLETED, true),
+                        Updates.set(MongoKeys.SCANNED_COUNT, report.getScannedCount()),
+                        Updates.set(MongoKeys.MATCHED_COUNT, writeReport.getMatchedCount()),
+                        Updates.set(MongoKeys.MODIFIED_COUNT, writeReport.getModifiedCount()),
+                        Updates.set(MongoKeys.FAILED_COUNT, writeReport.getFailedCount()),
+                        Updates.set(MongoKeys.UPDATED_AT, new Date())));
+        if (result.getMatchedCount() == 0) {
+            logger.warn("{} lost the lease {} of partition {} before completing it, leaving out its report {}", owner,
+                    leaseId, partition, report);
+            return SweepReport.EMPTY;
+        }
+        return report;
+    }
+
+    /**
+     * Renews the lease of a partition, if still owned
+     *
+     * @param leaseId    the _id of the lease
+     * @param leaseState the state of the lease, updated with the outcome of the renewal
+     */
+    private void renew(String leaseId, LeaseState leaseState) {
+        try {
+            UpdateResult result = leaseCollection.updateOne(ownedLeaseFilter(leaseId, owner),
+                    List.of(new Document("$set", new Document(MongoKeys.LEASE_EXPIRES_AT, getLeaseExpiry()))));
+            if (result.getMatchedCount() == 0) {
+                logger.warn("{} lost the lease {}", owner, leaseId);
+                leaseState.lost = true;
+            } else {
+                leaseState.renewedNanos = System.nanoTime();
+            }
+        } catch (RuntimeException e) {
+            // The next renewal may succeed before the lease expires
+            logger.warn("{} could not renew the lease {}", owner, leaseId, e);
+        }
+    }
+
+    /**
+     * @return the number of completed partitions of the sweep
+     */
+    private long countCompleted() {
+        return leaseCollection.countDocuments(completedFilter(planId));
+    }
+
+    /**
+     * @return the index supporting the queries of the leases by sweep, to be created on the lease collection
+     */
+    static IndexModel getLeaseIndexModel() {
+        return new IndexModel(Indexes.ascending(MongoKeys.SWEEP, MongoKeys.COMPLETED),
+                new IndexOptions().name(LEASE_INDEX_NAME));
+    }
+
+    /**
+     * @param planId the _id of the plan of a sweep
+     * @return the filter matching the leases of the sweep
+     */
+    static Bson leasesFilter(String planId) {
+        return eq(MongoKeys.SWEEP, planId);
+    }
+
+    /**
+     * @param planId the _id of the plan of a sweep
+     * @return the filter matching the leases of the sweep that are neither completed nor leased
+     */
+    static Bson claimableFilter(String planId) {
+        return and(eq(MongoKeys.SWEEP, planId), eq(MongoKeys.COMPLETED, false),
+                // A lease never claimed has no expiry, which is older than $$NOW as null sorts before dates
+                expr(new Document("$lt", List.of("$" + MongoKeys.LEASE_EXPIRES_AT, "$$NOW"))));
+    }
+
+    /**
+     * @param planId the _id of the plan of a sweep
+     * @return the filter matching the completed leases of the sweep
+     */
+    static Bson completedFilter(String planId) {
+        return and(eq(MongoKeys.SWEEP, planId), eq(MongoKeys.COMPLETED, true));
+    }
+
+    /**
+     * @param leaseId the _id of a lease
+     * @param owner   the owner of the lease
+     * @return the filter matching the lease if it is still owned by the given owner
+     */
+    static Bson ownedLeaseFilter(String leaseId, String owner) {
+        return and(eq(MongoKeys.ID, leaseId), eq(MongoKeys.OWNER, owner));
+    }
+
+    /**
+     * @return the aggregation expression of the expiry of a lease claimed or renewed now
+     */
+    private Document getLeaseExpiry() {
+        return new Document("$add", List.of("$$NOW", leaseDuration.toMillis()));
+    }
+
+    private long getRenewalPeriod() {
+        return Math.max(leaseDuration.toMillis() / 3, 1);
+    }
+
+    private static boolean isDuplicateKey(MongoServerException e) {
+        return ErrorCategory.fromErrorCode(e.getCode()) == ErrorCategory.DUPLICATE_KEY;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The distributed sweep has been interrupted", e);
+        }
+    }
+
+    /**
+     * The state of a lease held while sweeping its partition, written by the heartbeat and read by the sweep
+     */
+    private static final class LeaseState {
+
+        /**
+         * The time the lease was claimed or last renewed, as seen by this instance
+         */
+        private volatile long renewedNanos = System.nanoTime();
+
+        /**
+         * Whether a renewal found the lease owned by another instance
+         */
+        private volatile boolean lost;
+
+        /**
+         * @param leaseDuration the time a lease is held without being renewed
+         * @return true if the lease is owned by another instance or may have expired since its last renewal
+         */
+        boolean isLost(Duration leaseDuration) {
+            return lost || System.nanoTime() - renewedNanos >= leaseDuration.toNanos();
+        }
+    }
+}
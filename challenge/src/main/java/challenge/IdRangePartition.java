@@ -0,0 +1,112 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.lt;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of conjunction _ids, with an inclusive lower bound and an exclusive upper bound. A null bound means the
+ * range is unbounded on that side
+ */
+final class IdRangePartition {
+
+    private static final String BUCKET_MIN = "min";
+
+    /**
+     * The inclusive lower bound, null if unbounded
+     */
+    private final Object lowerBound;
+
+    /**
+     * The exclusive upper bound, null if unbounded
+     */
+    private final Object upperBound;
+
+    /**
+     * Constructor
+     *
+     * @param lowerBound the inclusive lower bound, null if unbounded
+     * @param upperBound the exclusive upper bound, null if unbounded
+     */
+    IdRangePartition(Object lowerBound, Object upperBound) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    Object getLowerBound() {
+        return lowerBound;
+    }
+
+    Object getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @param filter the filter to restrict to this range
+     * @return the given filter restricted to the _ids of this range
+     */
+    Bson restrict(Bson filter) {
+        if (lowerBound != null && upperBound != null) {
+            return and(filter, gte(MongoKeys.ID, lowerBound), lt(MongoKeys.ID, upperBound));
+        } else if (lowerBound != null) {
+            return and(filter, gte(MongoKeys.ID, lowerBound));
+        } else if (upperBound != null) {
+            return and(filter, lt(MongoKeys.ID, upperBound));
+        }
+        return filter;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (lowerBound == null ? "-inf" : lowerBound) + ", " + (upperBound == null ? "+inf" : upperBound) + ")";
+    }
+
+    /**
+     * Splits the conjunctions matching the given filter into _id ranges of about the same size. The boundaries are
+     * computed server-side with $bucketAuto; the first and last ranges are unbounded so that no conjunction is missed
+     *
+     * @param conjunctionsCollection the conjunctions' collection
+     * @param filter                 the filter of the conjunctions to split
+     * @param partitionCount         the wanted number of ranges
+     * @return the ranges, at most partitionCount and at least one
+     */
+    static List<IdRangePartition> split(MongoCollection<Document> conjunctionsCollection, Bson filter, int partitionCount) {
+        List<Object> lowerBounds = new ArrayList<>();
+        if (partitionCount > 1) {
+            for (Document bucket : conjunctionsCollection.aggregate(getSplitPipeline(filter, partitionCount))
+                    .allowDiskUse(true)) {
+                lowerBounds.add(bucket.get(MongoKeys.ID, Document.class).get(BUCKET_MIN));
+            }
+        }
+        if (lowerBounds.size() <= 1) {
+            return List.of(new IdRangePartition(null, null));
+        }
+        List<IdRangePartition> partitions = new ArrayList<>(lowerBounds.size());
+        for (int i = 0; i < lowerBounds.size(); i++) {
+            Object lowerBound = i == 0 ? null : lowerBounds.get(i);
+            Object upperBound = i == lowerBounds.size() - 1 ? null : lowerBounds.get(i + 1);
+            partitions.add(new IdRangePartition(lowerBound, upperBound));
+        }
+        return partitions;
+    }
+
+    /**
+     * @param filter         the filter of the conjunctions to split
+     * @param partitionCount the wanted number of ranges
+     * @return the pipeline computing the boundaries of the ranges
+     */
+    static List<Bson> getSplitPipeline(Bson filter, int partitionCount) {
+        return List.of(Aggregates.match(filter), Aggregates.project(Projections.include(MongoKeys.ID)),
+                Aggregates.bucketAuto("$" + MongoKeys.ID, partitionCount));
+    }
+}
@@ -0,0 +1,99 @@
+package challenge;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sweeps the conjunctions split into _id partitions on a pool of workers. Each worker sweeps one partition at a time
+ * with its own cursor and its own BulkConjunctionWriter, so conjunctions are only ever handled by one worker
+ */
+final class ParallelSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelSweep.class);
+
+    private final ChallengeClass challengeClass;
+    private final MongoCollection<Document> conjunctionsCollection;
+    private final SweepSettings settings;
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass         The ChallengeClass adjusting each conjunction, cannot be null
+     * @param conjunctionsCollection The conjunctions' collection, cannot be null
+     * @param settings               The settings holding the parallelism and the partition count, cannot be null
+     */
+    ParallelSweep(ChallengeClass challengeClass, MongoCollection<Document> conjunctionsCollection, SweepSettings settings) {
+        Objects.requireNonNull(challengeClass);
+        Objects.requireNonNull(conjunctionsCollection);
+        Objects.requireNonNull(settings);
+        this.challengeClass = challengeClass;
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.settings = settings;
+    }
+
+    /**
+     * Sweeps all conjunctions matching the given filter until the given deadline, after which the workers defer the
+     * conjunctions left in their partitions
+     *
+     * @param filter   the filter of the conjunctions to sweep
+     * @param deadline the deadline of the sweep
+     * @return the sum of the reports of all partitions
+     */
+    SweepReport run(Bson filter, SweepDeadline deadline) {
+        List<IdRangePartition> partitions = IdRangePartition.split(conjunctionsCollection, filter,
+                settings.getSweepPartitionCount());
+        logger.info("Sweeping {} partitions with {} workers", partitions.size(), settings.getSweepParallelism());
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getSweepParallelism(), newThreadFactory());
+        try {
+            List<Future<SweepReport>> futures = new ArrayList<>(partitions.size());
+            for (IdRangePartition partition : partitions) {
+                futures.add(executor.submit(() -> challengeClass.sweep(partition.restrict(filter), deadline)));
+            }
+            SweepReport report = SweepReport.EMPTY;
+            for (Future<SweepReport> future : futures) {
+                report = report.plus(await(future));
+            }
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the sweep of a partition to complete
+     *
+     * @param future the future of the sweep of a partition
+     * @return the report of the partition
+     */
+    private static SweepReport await(Future<SweepReport> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The conjunctions sweep has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("A partition of the conjunctions sweep failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> new Thread(runnable, "conjunctions-sweep-" + counter.incrementAndGet());
+    }
+}
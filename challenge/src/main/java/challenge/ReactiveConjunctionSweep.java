@@ -0,0 +1,203 @@
+package challenge;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.AggregatePublisher;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import utils.MongoKeys;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sweeps the conjunctions on the Reactive Streams driver, as a backpressured pipeline overlapping the cursor's
+ * fetches, the theta analysis and the write-back. Conjunctions are handed off the driver's I/O threads to a single
+ * thread of the sweep, at most a bulkWrite batch ahead, analyzed there and grouped by the bulkWrite batch size and
+ * flush interval of the SweepSettings; at most the configured number of bulkWrites are in flight, which bounds the
+ * conjunctions read ahead of their write-back. The report and the data quality summary of the sweep are logged once
+ * it completes
+ */
+public class ReactiveConjunctionSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveConjunctionSweep.class);
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    /**
+     * The ChallengeClass analyzing each conjunction and providing the SweepSettings
+     */
+    private final ChallengeClass challengeClass;
+
+    /**
+     * The conjunctions' collection of the Reactive Streams driver
+     */
+    private final MongoCollection<Document> conjunctionsCollection;
+
+    /**
+     * The settings of the sweep
+     */
+    private final SweepSettings settings;
+
+    /**
+     * Constructor
+     *
+     * @param challengeClass         The ChallengeClass analyzing each conjunction and providing the SweepSettings,
+     *                               which cannot enable typed reads, cannot be null
+     * @param conjunctionsCollection The conjunctions' collection of the Reactive Streams driver, cannot be null
+     */
+    public ReactiveConjunctionSweep(ChallengeClass challengeClass, MongoCollection<Document> conjunctionsCollection) {
+        Objects.requireNonNull(challengeClass);
+        Objects.requireNonNull(conjunctionsCollection);
+        if (challengeClass.getSettings().isTypedReads()) {
+            throw new IllegalArgumentException("A reactive sweep cannot use typed reads");
+        }
+        this.challengeClass = challengeClass;
+        this.conjunctionsCollection = conjunctionsCollection;
+        this.settings = challengeClass.getSettings();
+    }
+
+    /**
+     * Adjusts the suggestions and collision probabilities of all conjunctions matching the sweep filter of the
+     * ChallengeClass. Nothing is read before the returned Publisher is subscribed to, and the sweep proceeds as fast
+     * as its outcomes are requested
+     *
+     * @return the Publisher of the outcome of each conjunction, which fails if the query or a bulkWrite fails for a
+     * reason other than write errors
+     */
+    public Publisher<ConjunctionOutcome> adjustConjunctionsBasedOnTheta() {
+        return Flux.using(() -> Schedulers.newSingle("reactive-sweep", true), this::sweep, Scheduler::dispose);
+    }
+
+    /**
+     * @param scheduler the scheduler the conjunctions are analyzed and the batches are timed on
+     * @return the Flux of the outcome of each conjunction, logging the report of the sweep once it completes
+     */
+    private Flux<ConjunctionOutcome> sweep(Scheduler scheduler) {
+        int batchSize = settings.getBulkWriteBatchSize();
+        Duration flushInterval = settings.getBulkWriteFlushInterval();
+        Bson filter = challengeClass.getSweepFilter();
+        boolean aggregate = settings.isServerSidePrefilter() || settings.isPrioritizeByTimeToTca();
+        DataQualityReport dataQualityBefore = challengeClass.getDataQualityReport();
+        OutcomeCounts counts = new OutcomeCounts();
+        Flux<AnalyzedConjunction> analyzed = Flux.from(aggregate ? aggregate(filter) : find(filter))
+                .publishOn(scheduler, batchSize)
+                .map(this::analyze);
+        // A zero flush interval flushes each write, like the BulkConjunctionWriter
+        Flux<List<AnalyzedConjunction>> batches = flushInterval.isZero() ? analyzed.buffer(1)
+                : analyzed.bufferTimeout(batchSize, flushInterval, scheduler);
+        return batches.flatMap(this::write, settings.getMaxInFlightWrites(), batchSize)
+                .doOnNext(counts::add)
+                .doOnComplete(() -> {
+                    logger.info("Reactive conjunctions sweep completed: {}", counts.toReport());
+                    ChallengeClass.logDataQuality("Reactive conjunctions sweep",
+                            challengeClass.getDataQualityReport().minus(dataQualityBefore));
+                });
+    }
+
+    /**
+     * @param filter The filter of the conjunctions
+     * @return the FindPublisher of the conjunctions, with the projection and the cursor batch size of the
+     * SweepSettings
+     */
+    private FindPublisher<Document> find(Bson filter) {
+        FindPublisher<Document> conjunctions = conjunctionsCollection.find(filter);
+        if (settings.isProjectedReads()) {
+            conjunctions = conjunctions.projection(challengeClass.getProjection());
+        }
+        if (settings.getCursorBatchSize() > 0) {
+            conjunctions = conjunctions.batchSize(settings.getCursorBatchSize());
+        }
+        return conjunctions;
+    }
+
+    /**
+     * @param filter The filter of the conjunctions
+     * @return the AggregatePublisher of the conjunctions read by the pipeline of the ChallengeClass, with the cursor
+     * batch size of the SweepSettings
+     */
+    private AggregatePublisher<Document> aggregate(Bson filter) {
+        AggregatePublisher<Document> conjunctions = conjunctionsCollection.aggregate(
+                challengeClass.getReadPipeline(filter));
+        if (settings.isPrioritizeByTimeToTca()) {
+            conjunctions = conjunctions.allowDiskUse(true);
+        }
+        if (settings.getCursorBatchSize() > 0) {
+            conjunctions = conjunctions.batchSize(settings.getCursorBatchSize());
+        }
+        return conjunctions;
+    }
+
+    /**
+     * @param conjunction the conjunction
+     * @return the analyzed conjunction, holding the write model of its changes if any
+     */
+    private AnalyzedConjunction analyze(Document conjunction) {
+        AnalyzedConjunction analyzed = new AnalyzedConjunction(conjunction.get(MongoKeys.ID));
+        if (settings.isServerSidePrefilter()) {
+            challengeClass.adjustPrefilteredConjunction(conjunction, analyzed);
+        } else {
+            challengeClass.adjustConjunctionBasedOnTheta(conjunction, analyzed);
+        }
+        return analyzed;
+    }
+
+    /**
+     * Writes the changes of the given conjunctions in a single unordered bulkWrite
+     *
+     * @param batch the analyzed conjunctions
+     * @return the Publisher of the outcomes of the conjunctions, emitted once the bulkWrite completes
+     */
+    private Publisher<ConjunctionOutcome> write(List<AnalyzedConjunction> batch) {
+        List<WriteModel<Document>> writeModels = AnalyzedConjunction.writeModels(batch);
+        if (writeModels.isEmpty()) {
+            return Flux.fromIterable(AnalyzedConjunction.toOutcomes(batch, new boolean[0]));
+        }
+        return Mono.from(conjunctionsCollection.bulkWrite(writeModels, UNORDERED))
+                .map(result -> AnalyzedConjunction.toOutcomes(batch, new boolean[writeModels.size()]))
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    logger.error("{} of {} conjunction writes failed: {}", e.getWriteErrors().size(),
+                            writeModels.size(), e.getMessage());
+                    return Mono.just(AnalyzedConjunction.toOutcomes(batch,
+                            AnalyzedConjunction.failedWrites(e, writeModels.size())));
+                })
+                .flatMapIterable(outcomes -> outcomes);
+    }
+
+    /**
+     * The counts of the outcomes of a sweep, only updated by the serialized emissions of its Flux
+     */
+    private static final class OutcomeCounts {
+
+        private long scannedCount;
+        private int modifiedCount;
+        private int failedCount;
+
+        void add(ConjunctionOutcome outcome) {
+            scannedCount++;
+            if (outcome.getStatus() == ConjunctionOutcome.Status.UPDATED) {
+                modifiedCount++;
+            } else if (outcome.getStatus() == ConjunctionOutcome.Status.FAILED) {
+                failedCount++;
+            }
+        }
+
+        /**
+         * @return the report of the outcomes, each updated conjunction counting as matched and modified
+         */
+        SweepReport toReport() {
+            return new SweepReport(scannedCount, new BulkWriteReport(modifiedCount, modifiedCount, failedCount));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package challenge;
+
+/**
+ * Class used as a result for the analysis of a risk trend. The RiskTrendAnalyzer reuses one instance per thread, so a
+ * result is only valid until the next analysis on the same thread
+ */
+class RiskTrendAnalysisResult {
+
+    /**
+     * Whether the newest_risk_estimation should be suggested
+     */
+    private boolean shouldBeSuggested = true;
+
+    /**
+     * Whether the collision_probability of newest_risk_prediction should be replaced
+     */
+    private boolean latestCollisionProbabilityPresent;
+
+    /**
+     * The value to be replaced as the collision_probability of newest_risk_prediction, if present
+     */
+    private double latestCollisionProbability;
+
+    /**
+     * The adjusted collision probability of each risk trend, Calculations.NO_ADJUSTMENT if not adjusted, whose length
+     * can be greater than the size of the risk trend. Null if no pair has been analyzed
+     */
+    private double[] adjustedValues;
+
+    /**
+     * Resets the result to the one of a risk trend without any pair to analyze
+     */
+    void reset() {
+        shouldBeSuggested = true;
+        latestCollisionProbabilityPresent = false;
+        latestCollisionProbability = 0;
+        adjustedValues = null;
+    }
+
+    public boolean isShouldBeSuggested() {
+        return shouldBeSuggested;
+    }
+
+    public void setShouldBeSuggested(boolean shouldBeSuggested) {
+        this.shouldBeSuggested = shouldBeSuggested;
+    }
+
+    public boolean hasLatestCollisionProbability() {
+        return latestCollisionProbabilityPresent;
+    }
+
+    public double getLatestCollisionProbability() {
+        return latestCollisionProbability;
+    }
+
+    public void setLatestCollisionProbability(double latestCollisionProbability) {
+        this.latestCollisionProbabilityPresent = true;
+        this.latestCollisionProbability = latestCollisionProbability;
+    }
+
+    public double[] getAdjustedValues() {
+        return adjustedValues;
+    }
+
+    public void setAdjustedValues(double[] adjustedValues) {
+        this.adjustedValues = adjustedValues;
+    }
+}
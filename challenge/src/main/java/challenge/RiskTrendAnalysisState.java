@@ -0,0 +1,120 @@
+package challenge;
+
+import challenge.model.RiskTrend;
+import org.bson.Document;
+import utils.Calculations;
+import utils.MongoKeys;
+
+/**
+ * The state of the analysis of a risk trend, stored along with it so that the next analysis only covers the entries
+ * appended since: the number of entries analyzed, whether the risk estimation should still be suggested after them
+ * and a checksum of their validity and values, as left by the adjustment
+ */
+final class RiskTrendAnalysisState {
+
+    private static final long CHECKSUM_SEED = 1125899906842597L;
+    private static final long INVALID_ENTRY = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The number of entries analyzed
+     */
+    private final int analyzedCount;
+
+    /**
+     * Whether the risk estimation should be suggested after the analyzed entries
+     */
+    private final boolean shouldBeSuggested;
+
+    /**
+     * The checksum of the analyzed entries
+     */
+    private final long checksum;
+
+    /**
+     * Constructor
+     *
+     * @param analyzedCount     the number of entries analyzed
+     * @param shouldBeSuggested whether the risk estimation should be suggested after the analyzed entries
+     * @param checksum          the checksum of the analyzed entries
+     */
+    RiskTrendAnalysisState(int analyzedCount, boolean shouldBeSuggested, long checksum) {
+        this.analyzedCount = analyzedCount;
+        this.shouldBeSuggested = shouldBeSuggested;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @param riskPrediction the newest_risk_prediction of a conjunction
+     * @return the state stored in the given risk prediction, null if there is none or it is malformed
+     */
+    static RiskTrendAnalysisState of(Document riskPrediction) {
+        Object state = riskPrediction.get(MongoKeys.RISK_TREND_ANALYSIS);
+        if (state instanceof Document document && document.get(MongoKeys.ANALYZED_COUNT) instanceof Integer count
+                && document.get(MongoKeys.SUGGESTED) instanceof Boolean suggested
+                && document.get(MongoKeys.CHECKSUM) instanceof Long stateChecksum) {
+            return new RiskTrendAnalysisState(count, suggested, stateChecksum);
+        }
+        return null;
+    }
+
+    /**
+     * @param riskTrend         the analyzed risk trend
+     * @param adjustedValues    the adjusted collision probability of each entry, Calculations.NO_ADJUSTMENT if not
+     *                          adjusted, null if none has been
+     * @param shouldBeSuggested whether the risk estimation should be suggested after the analysis
+     * @return the state after the analysis of the whole risk trend
+     */
+    static RiskTrendAnalysisState after(RiskTrend riskTrend, double[] adjustedValues, boolean shouldBeSuggested) {
+        return new RiskTrendAnalysisState(riskTrend.size(), shouldBeSuggested,
+                checksum(riskTrend, adjustedValues, riskTrend.size()));
+    }
+
+    /**
+     * @param riskTrend the risk trend, as read
+     * @return true if the analyzed entries are still the first entries of the given risk trend, unchanged
+     */
+    boolean isPrefixOf(RiskTrend riskTrend) {
+        return analyzedCount <= riskTrend.size() && checksum(riskTrend, null, analyzedCount) == checksum;
+    }
+
+    /**
+     * @return the index of the first entry that has not been analyzed, at least 1
+     */
+    int getNextIndex() {
+        return Math.max(analyzedCount, 1);
+    }
+
+    boolean isShouldBeSuggested() {
+        return shouldBeSuggested;
+    }
+
+    /**
+     * @return the document of the state, stored in the newest_risk_prediction
+     */
+    Document toDocument() {
+        return new Document(MongoKeys.ANALYZED_COUNT, analyzedCount)
+                .append(MongoKeys.SUGGESTED, shouldBeSuggested)
+                .append(MongoKeys.CHECKSUM, checksum);
+    }
+
+    /**
+     * @param riskTrend      the risk trend
+     * @param adjustedValues the adjusted collision probabilities replacing the ones of the risk trend, null if none
+     * @param count          the number of entries to include
+     * @return the checksum of the validity and the values of the first entries of the risk trend
+     */
+    private static long checksum(RiskTrend riskTrend, double[] adjustedValues, int count) {
+        long checksum = CHECKSUM_SEED;
+        for (int i = 0; i < count; i++) {
+            long entry = INVALID_ENTRY;
+            if (riskTrend.isValid(i)) {
+                double collisionProbability = adjustedValues != null && adjustedValues[i] != Calculations.NO_ADJUSTMENT
+                        ? adjustedValues[i] : riskTrend.getCollisionProbability(i);
+                entry = Double.doubleToLongBits(riskTrend.getTimeToTca(i)) * 31
+                        + Double.doubleToLongBits(collisionProbability);
+            }
+            checksum = checksum * 31 + entry;
+        }
+        return checksum;
+    }
+}
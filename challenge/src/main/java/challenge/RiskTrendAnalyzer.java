@@ -0,0 +1,222 @@
+package challenge;
+
+import challenge.metrics.ChallengeMetrics;
+import challenge.metrics.CounterMetric;
+import challenge.metrics.TimerMetric;
+import challenge.model.RiskTrend;
+import utils.Calculations;
+import utils.CalculationsStrategy;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Analyzes the theta values of each 2 consecutive valid entries of a RiskTrend. All runs of consecutive valid entries
+ * are analyzed with a single call to the CalculationsStrategy. The working arrays and the result are reused per
+ * thread, so that once they have grown to the longest risk trend seen, the analysis allocates nothing
+ */
+class RiskTrendAnalyzer {
+
+    /**
+     * The strategy performing the theta calculations
+     */
+    private final CalculationsStrategy calculationsStrategy;
+
+    /**
+     * The metrics of the analysis
+     */
+    private final ChallengeMetrics metrics;
+
+    /**
+     * The working arrays and the result of the analyses of each thread, only reused by long-lived threads: the
+     * ConjunctionAdjustmentService runs its adjustments on a pool of workers rather than a thread per adjustment
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Constructor
+     *
+     * @param calculationsStrategy The strategy performing the theta calculations, cannot be null
+     */
+    RiskTrendAnalyzer(CalculationsStrategy calculationsStrategy) {
+        this(calculationsStrategy, ChallengeMetrics.NOOP);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param calculationsStrategy The strategy performing the theta calculations, cannot be null
+     * @param metrics              The metrics of the analysis, cannot be null
+     */
+    RiskTrendAnalyzer(CalculationsStrategy calculationsStrategy, ChallengeMetrics metrics) {
+        Objects.requireNonNull(calculationsStrategy);
+        Objects.requireNonNull(metrics);
+        this.calculationsStrategy = calculationsStrategy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Analyzes the given risk trend, without modifying it
+     *
+     * @param riskTrend the risk trend
+     * @return the RiskTrendAnalysisResult of the current thread, valid until its next analysis
+     */
+    RiskTrendAnalysisResult analyze(RiskTrend riskTrend) {
+        return analyze(riskTrend, 1);
+    }
+
+    /**
+     * Analyzes the pairs of the given risk trend ending at the given index or after it, without modifying it. The
+     * entries before the given index are only read as the first entry of the pair ending at it
+     *
+     * @param riskTrend the risk trend
+     * @param fromIndex the index of the first entry whose pair with the previous one is analyzed
+     * @return the RiskTrendAnalysisResult of the current thread, valid until its next analysis, whose verdict only
+     * covers the analyzed pairs
+     */
+    RiskTrendAnalysisResult analyze(RiskTrend riskTrend, int fromIndex) {
+        long start = System.nanoTime();
+        RiskTrendAnalysisResult result = analyzeSeries(riskTrend, Math.max(fromIndex, 1));
+        metrics.recordTime(TimerMetric.ANALYSIS, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Analyzes all series of consecutive valid entries of the given risk trend from the entry before the given index
+     *
+     * @param riskTrend the risk trend
+     * @param fromIndex the index of the first entry whose pair with the previous one is analyzed, at least 1
+     * @return the RiskTrendAnalysisResult of the current thread
+     */
+    private RiskTrendAnalysisResult analyzeSeries(RiskTrend riskTrend, int fromIndex) {
+        Scratch scratch = this.scratch.get();
+        RiskTrendAnalysisResult result = scratch.result;
+        result.reset();
+        int size = riskTrend.size();
+        if (size < 2 || fromIndex >= size) {
+            // There are not enough risk trends to analyze theta, reported by the DataQualityDiagnostics, or no new one
+            return result;
+        }
+
+        scratch.ensureCapacity(size);
+        int[] seriesBounds = scratch.seriesBounds;
+        int boundsLength = 0;
+        int firstIndex = fromIndex - 1;
+        int seriesStart = firstIndex;
+        int invalidCount = 0;
+        for (int i = firstIndex; i < size; i++) {
+            if (!riskTrend.isValid(i)) {
+                if (i >= fromIndex) {
+                    invalidCount++;
+                }
+                // Every trend belongs to at least one pair, which cannot be analyzed
+                result.setShouldBeSuggested(false);
+                boundsLength = addSeriesBounds(seriesBounds, boundsLength, seriesStart, i);
+                seriesStart = i + 1;
+            }
+        }
+        boundsLength = addSeriesBounds(seriesBounds, boundsLength, seriesStart, size);
+        if (invalidCount > 0) {
+            metrics.increment(CounterMetric.TRENDS_INVALID, invalidCount);
+        }
+        if (boundsLength == 0) {
+            return result;
+        }
+
+        // The bounds left over from longer risk trends are turned into empty series, which hold no pair
+        if (boundsLength < scratch.usedBoundsLength) {
+            Arrays.fill(seriesBounds, boundsLength, scratch.usedBoundsLength, 0);
+        }
+        scratch.usedBoundsLength = boundsLength;
+        double[] collisionProbability = scratch.collisionProbability;
+        System.arraycopy(riskTrend.collisionProbabilityArray(), firstIndex, collisionProbability, firstIndex,
+                size - firstIndex);
+        boolean[] problematic = scratch.problematic;
+        Arrays.fill(problematic, 0, size, false);
+        double[] adjustedValues = scratch.adjustedValues;
+        Arrays.fill(adjustedValues, 0, size, Calculations.NO_ADJUSTMENT);
+        long start = System.nanoTime();
+        calculationsStrategy.analyzeRiskTrendSeries(riskTrend.timeToTcaArray(), collisionProbability, seriesBounds,
+                scratch.theta, problematic, adjustedValues);
+        metrics.recordTime(TimerMetric.CALCULATIONS, System.nanoTime() - start);
+
+        int problematicCount = 0;
+        int adjustedCount = 0;
+        for (int i = fromIndex; i < size; i++) {
+            if (adjustedValues[i] != Calculations.NO_ADJUSTMENT) {
+                adjustedCount++;
+            }
+            if (problematic[i]) {
+                problematicCount++;
+                result.setShouldBeSuggested(false);
+                if (i == size - 1) {
+                    result.setLatestCollisionProbability(collisionProbability[i]);
+                }
+            }
+        }
+        metrics.increment(CounterMetric.THETAS_PROBLEMATIC, problematicCount);
+        metrics.increment(CounterMetric.PROBABILITIES_ADJUSTED, adjustedCount);
+        result.setAdjustedValues(adjustedValues);
+        return result;
+    }
+
+    /**
+     * Adds the bounds of the series of consecutive valid trends from start (inclusive) to end (exclusive), if it
+     * holds at least one pair
+     *
+     * @param seriesBounds the bounds of the series found so far
+     * @param boundsLength the number of bounds found so far
+     * @param start        the index of the first trend of the series
+     * @param end          the index after the last trend of the series
+     * @return the new number of bounds
+     */
+    private int addSeriesBounds(int[] seriesBounds, int boundsLength, int start, int end) {
+        if (end - start < 2) {
+            return boundsLength;
+        }
+        seriesBounds[boundsLength] = start;
+        seriesBounds[boundsLength + 1] = end;
+        return boundsLength + 2;
+    }
+
+    /**
+     * The working arrays and the result of the analyses of a thread. The arrays grow to the longest risk trend
+     * analyzed and are never shrunk
+     */
+    private static final class Scratch {
+
+        private final RiskTrendAnalysisResult result = new RiskTrendAnalysisResult();
+
+        /**
+         * The bounds of the series, whose length is even as the strategy analyzes every pair of bounds
+         */
+        private int[] seriesBounds = new int[0];
+
+        /**
+         * The number of bounds of the last analysis, the ones after it being 0
+         */
+        private int usedBoundsLength;
+
+        private double[] collisionProbability = new double[0];
+        private double[] theta = new double[0];
+        private boolean[] problematic = new boolean[0];
+        private double[] adjustedValues = new double[0];
+
+        /**
+         * Grows the arrays to hold a risk trend of the given size
+         *
+         * @param size the size of the risk trend
+         */
+        private void ensureCapacity(int size) {
+            if (collisionProbability.length < size) {
+                int capacity = Math.max(size, collisionProbability.length * 2);
+                // A risk trend of n entries holds at most (n + 1) / 3 series of at least 2 entries, so n bounds
+                seriesBounds = Arrays.copyOf(seriesBounds, capacity & ~1);
+                collisionProbability = new double[capacity];
+                theta = new double[capacity];
+                problematic = new boolean[capacity];
+                adjustedValues = new double[capacity];
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package challenge;
+
+import challenge.model.Conjunction;
+import challenge.model.RiskTrend;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.MongoKeys;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class that adjusts the conjunctions of a {@link ConjunctionSnapshot} offline and applies the resulting adjustments
+ * to the conjunctions' collection later. The adjustments file is a sequence of BSON documents holding the filter
+ * ("q") and the update ("u") of each changed conjunction. Besides the _id, each filter holds the risk trend size and
+ * the values of the snapshot the adjustment was computed from, so that the adjustments of conjunctions changed since
+ * the snapshot match nothing and are skipped rather than overwriting the newer values
+ */
+public final class SnapshotAdjustments {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotAdjustments.class);
+
+    private static final String FILTER = "q";
+    private static final String UPDATE = "u";
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private SnapshotAdjustments() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Adjusts all conjunctions of the given snapshot with the theta analysis of the given ChallengeClass, which does
+     * not access its conjunctions' collection, and writes the changes into the given adjustments file
+     *
+     * @param challengeClass  The ChallengeClass analyzing each conjunction
+     * @param snapshot        The snapshot of the conjunctions
+     * @param adjustmentsFile The adjustments file, replaced if it exists
+     * @return the number of adjusted conjunctions
+     * @throws IOException if the adjustments file cannot be written
+     */
+    public static int analyze(ChallengeClass challengeClass, ConjunctionSnapshot snapshot, Path adjustmentsFile)
+            throws IOException {
+        int adjustedCount;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(adjustmentsFile))) {
+            AdjustmentsWriter writer = new AdjustmentsWriter(out);
+            for (int i = 0; i < snapshot.size(); i++) {
+                Conjunction conjunction = snapshot.getConjunction(i);
+                // The adjusted conjunction is modified in place, the guard needs the values of the snapshot
+                writer.capture(conjunction);
+                challengeClass.adjustConjunctionBasedOnTheta(conjunction, writer);
+            }
+            adjustedCount = writer.count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("Adjusted {} of {} snapshot conjunctions into {}", adjustedCount, snapshot.size(), adjustmentsFile);
+        return adjustedCount;
+    }
+
+    /**
+     * Applies the adjustments of the given file to the conjunctions' collection with unordered bulkWrites, as
+     * configured in the SweepSettings. The adjustments of conjunctions changed since the snapshot match nothing, and
+     * their number is logged
+     *
+     * @param adjustmentsFile        The adjustments file
+     * @param conjunctionsCollection The conjunctions' collection
+     * @param settings               The settings holding the bulkWrite batch size
+     * @return the sum of the reports of all bulkWrites
+     * @throws IOException if the adjustments file cannot be read
+     */
+    public static BulkWriteReport apply(Path adjustmentsFile, MongoCollection<Document> conjunctionsCollection,
+                                        SweepSettings settings) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(adjustmentsFile));
+             BulkConjunctionWriter writer = new BulkConjunctionWriter(conjunctionsCollection, settings)) {
+            int adjustmentCount = 0;
+            for (BsonDocument adjustment = read(in); adjustment != null; adjustment = read(in)) {
+                writer.write(new UpdateOneModel<>(adjustment.getDocument(FILTER), adjustment.getDocument(UPDATE)));
+                adjustmentCount++;
+            }
+            writer.flush();
+            BulkWriteReport totals = writer.getTotals();
+            int skippedCount = adjustmentCount - totals.getMatchedCount() - totals.getFailedCount();
+            if (skippedCount > 0) {
+                logger.warn("Skipped {} of {} adjustments whose conjunction was changed or removed since the snapshot",
+                        skippedCount, adjustmentCount);
+            }
+            return totals;
+        }
+    }
+
+    /**
+     * Restricts the filter of an adjustment to the conjunction as it was in the snapshot: same risk trend size, same
+     * time_to_tca and collision_probability of each valid risk trend entry, and same newest collision probability and
+     * suggestion when present. Invalid entries are not guarded, as the snapshot does not tell a missing value from NaN
+     *
+     * @param filter               the filter of the adjustment, on the _id of the conjunction
+     * @param riskTrend            the risk trend of the conjunction as read from the snapshot, null if missing
+     * @param collisionProbability the newest collision probability of the conjunction as read from the snapshot,
+     *                             null if missing
+     * @param suggested            the suggestion of the conjunction as read from the snapshot, null if missing
+     * @return the guarded filter
+     */
+    static BsonDocument guard(BsonDocument filter, RiskTrend riskTrend, Double collisionProbability,
+                              Boolean suggested) {
+        Document guard = new Document();
+        int size = riskTrend != null ? riskTrend.size() : 0;
+        guard.append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND + "." + size, new Document("$exists", false));
+        if (size > 0) {
+            guard.append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND + "." + (size - 1),
+                    new Document("$exists", true));
+        }
+        for (int i = 0; i < size; i++) {
+            if (riskTrend.isValid(i)) {
+                String entryPath = MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND + "." + i + ".";
+                guard.append(entryPath + MongoKeys.TIME_TO_TCA, riskTrend.getTimeToTca(i))
+                        .append(entryPath + MongoKeys.COLLISION_PROBABILITY, riskTrend.getCollisionProbability(i));
+            }
+        }
+        if (collisionProbability != null) {
+            guard.append(MongoKeys.NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY, collisionProbability);
+        }
+        if (suggested != null) {
+            guard.append(MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, suggested);
+        }
+        BsonDocument guarded = filter.clone();
+        guarded.putAll(guard.toBsonDocument());
+        return guarded;
+    }
+
+    /**
+     * @param in the stream of the adjustments file
+     * @return the next adjustment, null at the end of the file
+     */
+    private static BsonDocument read(InputStream in) throws IOException {
+        byte[] length = in.readNBytes(Integer.BYTES);
+        if (length.length == 0) {
+            return null;
+        }
+        if (length.length < Integer.BYTES) {
+            throw new EOFException("Truncated adjustments file");
+        }
+        // BSON lengths are little-endian and include themselves
+        int size = (length[0] & 0xFF) | (length[1] & 0xFF) << 8 | (length[2] & 0xFF) << 16 | (length[3] & 0xFF) << 24;
+        byte[] bytes = new byte[size];
+        System.arraycopy(length, 0, bytes, 0, Integer.BYTES);
+        if (in.readNBytes(bytes, Integer.BYTES, size - Integer.BYTES) < size - Integer.BYTES) {
+            throw new EOFException("Truncated adjustments file");
+        }
+        return new RawBsonDocument(bytes);
+    }
+
+    /**
+     * ConjunctionWriter appending the update of each changed conjunction to the adjustments file
+     */
+    private static final class AdjustmentsWriter implements ConjunctionWriter {
+
+        private final OutputStream out;
+        private final BasicOutputBuffer buffer = new BasicOutputBuffer();
+        private int count;
+
+        /**
+         * Copy of the risk trend of the snapshot conjunction being adjusted, reused across conjunctions, null if it
+         * has none
+         */
+        private final RiskTrend originalRiskTrendCopy = new RiskTrend();
+        private RiskTrend originalRiskTrend;
+        private Double originalCollisionProbability;
+        private Boolean originalSuggested;
+
+        private AdjustmentsWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Captures the values of the given conjunction the guard of its adjustment needs, before it is adjusted
+         *
+         * @param conjunction the snapshot conjunction about to be adjusted
+         */
+        private void capture(Conjunction conjunction) {
+            RiskTrend riskTrend = conjunction.getRiskTrend();
+            if (riskTrend != null) {
+                originalRiskTrendCopy.copyEntriesFrom(riskTrend);
+                originalRiskTrend = originalRiskTrendCopy;
+            } else {
+                originalRiskTrend = null;
+            }
+            // Boxed values are immutable, the adjustment replaces them rather than changing them
+            originalCollisionProbability = conjunction.getCollisionProbability();
+            originalSuggested = conjunction.getSuggested();
+        }
+
+        @Override
+        public void write(WriteModel<Document> writeModel) {
+            UpdateOneModel<Document> updateModel = (UpdateOneModel<Document>) writeModel;
+            BsonDocument filter = guard(updateModel.getFilter().toBsonDocument(), originalRiskTrend,
+                    originalCollisionProbability, originalSuggested);
+            BsonDocument adjustment = new BsonDocument(FILTER, filter)
+                    .append(UPDATE, updateModel.getUpdate().toBsonDocument());
+            buffer.truncateToPosition(0);
+            CODEC.encode(new BsonBinaryWriter(buffer), adjustment, EncoderContext.builder().build());
+            try {
+                out.write(buffer.getInternalBuffer(), 0, buffer.getSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            count++;
+        }
+    }
+}
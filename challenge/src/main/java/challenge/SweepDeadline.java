@@ -0,0 +1,62 @@
+package challenge;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The wall-clock deadline of a sweep, after which the conjunctions left are deferred to the next sweep, or the
+ * condition aborting a sweep, after which the conjunctions left are not swept
+ */
+final class SweepDeadline {
+
+    /**
+     * A deadline that never expires
+     */
+    static final SweepDeadline NONE = new SweepDeadline(0, false, () -> false);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    /**
+     * Whether the sweep has been aborted, checked before each conjunction
+     */
+    private final BooleanSupplier aborted;
+
+    private SweepDeadline(long deadlineNanos, boolean bounded, BooleanSupplier aborted) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+        this.aborted = aborted;
+    }
+
+    /**
+     * @param budget the time budget of the sweep, zero for no deadline
+     * @return the deadline of a sweep starting now with the given time budget
+     */
+    static SweepDeadline after(Duration budget) {
+        return budget.isZero() ? NONE : new SweepDeadline(System.nanoTime() + budget.toNanos(), true, () -> false);
+    }
+
+    /**
+     * @param aborted whether the sweep has been aborted, checked before each conjunction, cannot be null
+     * @return a deadline without time budget that expires once the sweep is aborted
+     */
+    static SweepDeadline until(BooleanSupplier aborted) {
+        Objects.requireNonNull(aborted);
+        return new SweepDeadline(0, false, aborted);
+    }
+
+    /**
+     * @return true if the deadline has a time budget
+     */
+    boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return true if the deadline has passed or the sweep has been aborted
+     */
+    boolean isExpired() {
+        return (bounded && System.nanoTime() - deadlineNanos >= 0) || aborted.getAsBoolean();
+    }
+}
@@ -0,0 +1,105 @@
+package challenge;
+
+/**
+ * Immutable report of a sweep over the conjunctions' collection
+ */
+public final class SweepReport {
+
+    /**
+     * A report of a sweep that did not read any conjunction
+     */
+    public static final SweepReport EMPTY = new SweepReport(0, BulkWriteReport.EMPTY);
+
+    /**
+     * The latest time_to_tca of a conjunction without a numeric one, which is less urgent than all others
+     */
+    public static final double UNKNOWN_TIME_TO_TCA = Double.POSITIVE_INFINITY;
+
+    /**
+     * The number of conjunctions read and analyzed
+     */
+    private final long scannedCount;
+
+    /**
+     * The sum of the reports of all bulk writes of the sweep
+     */
+    private final BulkWriteReport writeReport;
+
+    /**
+     * The number of conjunctions matching the sweep filter that were deferred to the next sweep because the time
+     * budget ran out
+     */
+    private final long deferredCount;
+
+    /**
+     * The latest time_to_tca of the first conjunction deferred by each cursor of the sweep, the lowest one if there
+     * are several
+     */
+    private final double firstDeferredTimeToTca;
+
+    /**
+     * Constructor of the report of a sweep that did not defer any conjunction
+     *
+     * @param scannedCount the number of conjunctions read and analyzed
+     * @param writeReport  the sum of the reports of all bulk writes of the sweep
+     */
+    public SweepReport(long scannedCount, BulkWriteReport writeReport) {
+        this(scannedCount, writeReport, 0, UNKNOWN_TIME_TO_TCA);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param scannedCount           the number of conjunctions read and analyzed
+     * @param writeReport            the sum of the reports of all bulk writes of the sweep
+     * @param deferredCount          the number of conjunctions deferred to the next sweep
+     * @param firstDeferredTimeToTca the latest time_to_tca of the first deferred conjunction,
+     *                               {@link #UNKNOWN_TIME_TO_TCA} if there is none
+     */
+    public SweepReport(long scannedCount, BulkWriteReport writeReport, long deferredCount,
+                       double firstDeferredTimeToTca) {
+        this.scannedCount = scannedCount;
+        this.writeReport = writeReport;
+        this.deferredCount = deferredCount;
+        this.firstDeferredTimeToTca = firstDeferredTimeToTca;
+    }
+
+    /**
+     * @param other the report to add to this one
+     * @return a new report holding the sum of both reports
+     */
+    public SweepReport plus(SweepReport other) {
+        return new SweepReport(scannedCount + other.scannedCount, writeReport.plus(other.writeReport),
+                deferredCount + other.deferredCount, Math.min(firstDeferredTimeToTca, other.firstDeferredTimeToTca));
+    }
+
+    public long getScannedCount() {
+        return scannedCount;
+    }
+
+    public BulkWriteReport getWriteReport() {
+        return writeReport;
+    }
+
+    public long getDeferredCount() {
+        return deferredCount;
+    }
+
+    /**
+     * @return the latest time_to_tca of the first conjunction deferred by each cursor of the sweep, the lowest one if
+     * there are several. If the conjunctions are prioritized by time to TCA, no conjunction more urgent than this one
+     * has been deferred
+     */
+    public double getFirstDeferredTimeToTca() {
+        return firstDeferredTimeToTca;
+    }
+
+    @Override
+    public String toString() {
+        String report = "scanned=" + scannedCount + ", " + writeReport;
+        if (deferredCount > 0) {
+            report += ", deferred=" + deferredCount + " from time_to_tca=" + firstDeferredTimeToTca;
+        }
+        return report;
+    }
+}
@@ -0,0 +1,413 @@
+package challenge;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable settings used by {@link ChallengeClass} when sweeping the conjunctions' collection
+ */
+public final class SweepSettings {
+
+    /**
+     * The default maximum number of write models sent in a single bulkWrite
+     */
+    public static final int DEFAULT_BULK_WRITE_BATCH_SIZE = 500;
+
+    /**
+     * The default maximum time pending write models are kept before being flushed
+     */
+    public static final Duration DEFAULT_BULK_WRITE_FLUSH_INTERVAL = Duration.ofSeconds(5);
+
+    /**
+     * The default number of _id partitions per sweep worker
+     */
+    public static final int DEFAULT_PARTITIONS_PER_WORKER = 4;
+
+    /**
+     * The default maximum number of bulkWrites in flight in a reactive sweep
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_WRITES = 2;
+
+    private static final SweepSettings DEFAULTS = builder().build();
+
+    /**
+     * The maximum number of write models sent in a single bulkWrite
+     */
+    private final int bulkWriteBatchSize;
+
+    /**
+     * The maximum time pending write models are kept before being flushed
+     */
+    private final Duration bulkWriteFlushInterval;
+
+    /**
+     * The number of workers sweeping partitions in parallel, 1 for a sequential sweep
+     */
+    private final int sweepParallelism;
+
+    /**
+     * The number of _id partitions the conjunctions are split into for a parallel sweep
+     */
+    private final int sweepPartitionCount;
+
+    /**
+     * Whether conjunctions are read with a projection of only the fields the theta analysis needs
+     */
+    private final boolean projectedReads;
+
+    /**
+     * The number of conjunctions per cursor batch, 0 to use the server's default
+     */
+    private final int cursorBatchSize;
+
+    /**
+     * Whether conjunctions are decoded straight into Conjunctions instead of Documents
+     */
+    private final boolean typedReads;
+
+    /**
+     * The approximate maximum heap size of the cache of theta results, 0 to disable the cache
+     */
+    private final long thetaCacheMaxBytes;
+
+    /**
+     * Whether the adjustment stores a fingerprint of each conjunction and sweeps skip the unchanged ones
+     */
+    private final boolean skipUnchanged;
+
+    /**
+     * The maximum number of bulkWrites in flight in a reactive sweep
+     */
+    private final int maxInFlightWrites;
+
+    /**
+     * Whether the sweeps classify the conjunctions on the server and read only the ones whose outcome can change
+     */
+    private final boolean serverSidePrefilter;
+
+    /**
+     * Whether the sweeps adjust the conjunctions in ascending order of the latest time_to_tca of their risk trend
+     */
+    private final boolean prioritizeByTimeToTca;
+
+    /**
+     * The wall-clock time budget of a sweep, zero for no budget
+     */
+    private final Duration sweepTimeBudget;
+
+    /**
+     * Whether the adjustment stores the state of the analysis of each conjunction and only analyzes the risk trend
+     * entries appended since
+     */
+    private final boolean incrementalAnalysis;
+
+    private SweepSettings(Builder builder) {
+        this.bulkWriteBatchSize = builder.bulkWriteBatchSize;
+        this.bulkWriteFlushInterval = builder.bulkWriteFlushInterval;
+        this.sweepParallelism = builder.sweepParallelism;
+        this.sweepPartitionCount = builder.sweepPartitionCount != null ? builder.sweepPartitionCount :
+                builder.sweepParallelism * DEFAULT_PARTITIONS_PER_WORKER;
+        this.projectedReads = builder.projectedReads;
+        this.cursorBatchSize = builder.cursorBatchSize;
+        this.typedReads = builder.typedReads;
+        this.thetaCacheMaxBytes = builder.thetaCacheMaxBytes;
+        this.skipUnchanged = builder.skipUnchanged;
+        this.maxInFlightWrites = builder.maxInFlightWrites;
+        this.serverSidePrefilter = builder.serverSidePrefilter;
+        this.prioritizeByTimeToTca = builder.prioritizeByTimeToTca;
+        this.sweepTimeBudget = builder.sweepTimeBudget;
+        this.incrementalAnalysis = builder.incrementalAnalysis;
+    }
+
+    /**
+     * @return the default settings
+     */
+    public static SweepSettings defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * @return a new Builder initialized with the default values
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getBulkWriteBatchSize() {
+        return bulkWriteBatchSize;
+    }
+
+    public Duration getBulkWriteFlushInterval() {
+        return bulkWriteFlushInterval;
+    }
+
+    public int getSweepParallelism() {
+        return sweepParallelism;
+    }
+
+    public int getSweepPartitionCount() {
+        return sweepPartitionCount;
+    }
+
+    public boolean isProjectedReads() {
+        return projectedReads;
+    }
+
+    public int getCursorBatchSize() {
+        return cursorBatchSize;
+    }
+
+    public boolean isTypedReads() {
+        return typedReads;
+    }
+
+    public long getThetaCacheMaxBytes() {
+        return thetaCacheMaxBytes;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    public int getMaxInFlightWrites() {
+        return maxInFlightWrites;
+    }
+
+    public boolean isServerSidePrefilter() {
+        return serverSidePrefilter;
+    }
+
+    public boolean isPrioritizeByTimeToTca() {
+        return prioritizeByTimeToTca;
+    }
+
+    public Duration getSweepTimeBudget() {
+        return sweepTimeBudget;
+    }
+
+    public boolean isIncrementalAnalysis() {
+        return incrementalAnalysis;
+    }
+
+    /**
+     * Builder for SweepSettings
+     */
+    public static final class Builder {
+
+        private int bulkWriteBatchSize = DEFAULT_BULK_WRITE_BATCH_SIZE;
+        private Duration bulkWriteFlushInterval = DEFAULT_BULK_WRITE_FLUSH_INTERVAL;
+        private int sweepParallelism = 1;
+        private Integer sweepPartitionCount;
+        private boolean projectedReads;
+        private int cursorBatchSize;
+        private boolean typedReads;
+        private long thetaCacheMaxBytes;
+        private boolean skipUnchanged;
+        private int maxInFlightWrites = DEFAULT_MAX_IN_FLIGHT_WRITES;
+        private boolean serverSidePrefilter;
+        private boolean prioritizeByTimeToTca;
+        private Duration sweepTimeBudget = Duration.ZERO;
+        private boolean incrementalAnalysis;
+
+        private Builder() {
+        }
+
+        /**
+         * @param bulkWriteBatchSize the maximum number of write models sent in a single bulkWrite, must be positive
+         * @return this
+         */
+        public Builder bulkWriteBatchSize(int bulkWriteBatchSize) {
+            if (bulkWriteBatchSize <= 0) {
+                throw new IllegalArgumentException("bulkWriteBatchSize must be positive");
+            }
+            this.bulkWriteBatchSize = bulkWriteBatchSize;
+            return this;
+        }
+
+        /**
+         * @param bulkWriteFlushInterval the maximum time pending write models are kept before being flushed, cannot
+         *                               be null or negative
+         * @return this
+         */
+        public Builder bulkWriteFlushInterval(Duration bulkWriteFlushInterval) {
+            Objects.requireNonNull(bulkWriteFlushInterval);
+            if (bulkWriteFlushInterval.isNegative()) {
+                throw new IllegalArgumentException("bulkWriteFlushInterval cannot be negative");
+            }
+            this.bulkWriteFlushInterval = bulkWriteFlushInterval;
+            return this;
+        }
+
+        /**
+         * @param sweepParallelism the number of workers sweeping partitions in parallel, 1 for a sequential sweep
+         * @return this
+         */
+        public Builder sweepParallelism(int sweepParallelism) {
+            if (sweepParallelism <= 0) {
+                throw new IllegalArgumentException("sweepParallelism must be positive");
+            }
+            this.sweepParallelism = sweepParallelism;
+            return this;
+        }
+
+        /**
+         * @param sweepPartitionCount the number of _id partitions the conjunctions are split into for a parallel
+         *                            sweep, by default {@value DEFAULT_PARTITIONS_PER_WORKER} per worker
+         * @return this
+         */
+        public Builder sweepPartitionCount(int sweepPartitionCount) {
+            if (sweepPartitionCount <= 0) {
+                throw new IllegalArgumentException("sweepPartitionCount must be positive");
+            }
+            this.sweepPartitionCount = sweepPartitionCount;
+            return this;
+        }
+
+        /**
+         * @param projectedReads whether conjunctions are read with a projection of only the fields the theta analysis
+         *                       needs. The write-back is always a partial update, so it does not need the rest of the
+         *                       document
+         * @return this
+         */
+        public Builder projectedReads(boolean projectedReads) {
+            this.projectedReads = projectedReads;
+            return this;
+        }
+
+        /**
+         * @param cursorBatchSize the number of conjunctions per cursor batch, 0 to use the server's default
+         * @return this
+         */
+        public Builder cursorBatchSize(int cursorBatchSize) {
+            if (cursorBatchSize < 0) {
+                throw new IllegalArgumentException("cursorBatchSize cannot be negative");
+            }
+            this.cursorBatchSize = cursorBatchSize;
+            return this;
+        }
+
+        /**
+         * @param typedReads whether conjunctions are decoded straight into Conjunctions, with their risk trends held in
+         *                   primitive arrays, instead of Documents
+         * @return this
+         */
+        public Builder typedReads(boolean typedReads) {
+            this.typedReads = typedReads;
+            return this;
+        }
+
+        /**
+         * @param thetaCacheMaxBytes the approximate maximum heap size of the cache of theta results, keyed on the
+         *                           input values of each pair of risk trends, 0 to disable the cache
+         * @return this
+         */
+        public Builder thetaCacheMaxBytes(long thetaCacheMaxBytes) {
+            if (thetaCacheMaxBytes < 0) {
+                throw new IllegalArgumentException("thetaCacheMaxBytes cannot be negative");
+            }
+            this.thetaCacheMaxBytes = thetaCacheMaxBytes;
+            return this;
+        }
+
+        /**
+         * @param skipUnchanged whether the adjustment stores a fingerprint of the risk trend of each conjunction and
+         *                      sweeps skip, in the query itself, the conjunctions whose fingerprint is unchanged. In-place
+         *                      changes of earlier risk trend entries are only seen if their writer increments the
+         *                      risk_trend_version, see ConjunctionFingerprints. Cannot be combined with typed reads
+         * @return this
+         */
+        public Builder skipUnchanged(boolean skipUnchanged) {
+            this.skipUnchanged = skipUnchanged;
+            return this;
+        }
+
+        /**
+         * @param maxInFlightWrites the maximum number of bulkWrites in flight in a reactive sweep, which bounds the
+         *                          conjunctions read ahead of their write-back, must be positive
+         * @return this
+         */
+        public Builder maxInFlightWrites(int maxInFlightWrites) {
+            if (maxInFlightWrites <= 0) {
+                throw new IllegalArgumentException("maxInFlightWrites must be positive");
+            }
+            this.maxInFlightWrites = maxInFlightWrites;
+            return this;
+        }
+
+        /**
+         * @param serverSidePrefilter whether the sweeps check the risk trends on the server with an aggregation
+         *                            pipeline, skipping the conjunctions whose outcome cannot change and reading
+         *                            without their risk trend the ones whose suggestion only has to be revoked. The
+         *                            conjunctions are read with the fields the theta analysis needs, whether projected
+         *                            reads are enabled or not. Needs MongoDB 4.4 or later and cannot be combined with
+         *                            typed reads
+         * @return this
+         */
+        public Builder serverSidePrefilter(boolean serverSidePrefilter) {
+            this.serverSidePrefilter = serverSidePrefilter;
+            return this;
+        }
+
+        /**
+         * @param prioritizeByTimeToTca whether the sweeps adjust the conjunctions in ascending order of the latest
+         *                              time_to_tca of their risk trend, so that the most imminent ones are adjusted
+         *                              first. The order is computed by an aggregation whose sort cannot use an index.
+         *                              Needs MongoDB 4.4 or later and cannot be combined with a parallel sweep, whose
+         *                              partitions would each have their own order
+         * @return this
+         */
+        public Builder prioritizeByTimeToTca(boolean prioritizeByTimeToTca) {
+            this.prioritizeByTimeToTca = prioritizeByTimeToTca;
+            return this;
+        }
+
+        /**
+         * @param sweepTimeBudget the wall-clock time budget of a sweep, after which the conjunctions not read yet are
+         *                        deferred to the next sweep and counted in its report, zero for no budget. It applies
+         *                        to the sweeps of ChallengeClass, not to the checkpointed and reactive ones. Cannot be
+         *                        null or negative
+         * @return this
+         */
+        public Builder sweepTimeBudget(Duration sweepTimeBudget) {
+            Objects.requireNonNull(sweepTimeBudget);
+            if (sweepTimeBudget.isNegative()) {
+                throw new IllegalArgumentException("sweepTimeBudget cannot be negative");
+            }
+            this.sweepTimeBudget = sweepTimeBudget;
+            return this;
+        }
+
+        /**
+         * @param incrementalAnalysis whether the adjustment stores, along with the risk trend of each conjunction, the
+         *                            number of entries analyzed, the suggestion verdict and a checksum of the entries,
+         *                            so that the next adjustment only analyzes the pairs of the entries appended since.
+         *                            The whole risk trend is analyzed again if its analyzed entries changed. Cannot be
+         *                            combined with typed reads or the server-side prefilter
+         * @return this
+         */
+        public Builder incrementalAnalysis(boolean incrementalAnalysis) {
+            this.incrementalAnalysis = incrementalAnalysis;
+            return this;
+        }
+
+        /**
+         * @return the SweepSettings
+         */
+        public SweepSettings build() {
+            if (skipUnchanged && typedReads) {
+                throw new IllegalArgumentException("skipUnchanged cannot be combined with typedReads");
+            }
+            if (serverSidePrefilter && typedReads) {
+                throw new IllegalArgumentException("serverSidePrefilter cannot be combined with typedReads");
+            }
+            if (incrementalAnalysis && (typedReads || serverSidePrefilter)) {
+                throw new IllegalArgumentException(
+                        "incrementalAnalysis cannot be combined with typedReads or serverSidePrefilter");
+            }
+            if (prioritizeByTimeToTca && sweepParallelism > 1) {
+                throw new IllegalArgumentException("prioritizeByTimeToTca cannot be combined with a parallel sweep");
+            }
+            return new SweepSettings(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package challenge.metrics;
+
+/**
+ * Registry of the timers and counters of the adjustment of conjunctions. Implementations must be thread-safe and
+ * cheap, as they are called for every conjunction
+ */
+public interface ChallengeMetrics {
+
+    /**
+     * Metrics discarding everything
+     */
+    ChallengeMetrics NOOP = new ChallengeMetrics() {
+        @Override
+        public void recordTime(TimerMetric timer, long nanos) {
+        }
+
+        @Override
+        public void increment(CounterMetric counter, long amount) {
+        }
+    };
+
+    /**
+     * @param timer the timer
+     * @param nanos the time spent, in nanoseconds
+     */
+    void recordTime(TimerMetric timer, long nanos);
+
+    /**
+     * @param counter the counter
+     * @param amount  the amount to add
+     */
+    void increment(CounterMetric counter, long amount);
+}
@@ -0,0 +1,29 @@
+package challenge.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link JmxChallengeMetrics}
+ */
+public interface ChallengeMetricsMXBean {
+
+    /**
+     * @return the value of each counter, by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return the number of times each timer was recorded, by name
+     */
+    Map<String, Long> getTimerCounts();
+
+    /**
+     * @return the total time recorded by each timer in milliseconds, by name
+     */
+    Map<String, Double> getTimerTotalMillis();
+
+    /**
+     * Resets all timers and counters
+     */
+    void reset();
+}
@@ -0,0 +1,37 @@
+package challenge.metrics;
+
+/**
+ * The counted events of the adjustment of conjunctions
+ */
+public enum CounterMetric {
+
+    /**
+     * Conjunctions read and analyzed
+     */
+    CONJUNCTIONS_SCANNED,
+
+    /**
+     * Invalid entries of risk trends
+     */
+    TRENDS_INVALID,
+
+    /**
+     * Pairs of consecutive risk trends with a problematic theta
+     */
+    THETAS_PROBLEMATIC,
+
+    /**
+     * Collision probabilities adjusted by the calculations
+     */
+    PROBABILITIES_ADJUSTED,
+
+    /**
+     * Suggestions revoked
+     */
+    SUGGESTIONS_REVOKED,
+
+    /**
+     * Conjunctions deferred to the next sweep because the time budget of the sweep ran out
+     */
+    CONJUNCTIONS_DEFERRED
+}
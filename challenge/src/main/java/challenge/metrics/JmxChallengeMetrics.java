@@ -0,0 +1,138 @@
+package challenge.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ChallengeMetrics accumulated in LongAdders and exposed as an MXBean
+ */
+public class JmxChallengeMetrics implements ChallengeMetrics, ChallengeMetricsMXBean {
+
+    private final LongAdder[] counters = newAdders(CounterMetric.values().length);
+    private final LongAdder[] timerCounts = newAdders(TimerMetric.values().length);
+    private final LongAdder[] timerNanos = newAdders(TimerMetric.values().length);
+
+    @Override
+    public void recordTime(TimerMetric timer, long nanos) {
+        timerCounts[timer.ordinal()].increment();
+        timerNanos[timer.ordinal()].add(nanos);
+    }
+
+    @Override
+    public void increment(CounterMetric counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @param counter the counter
+     * @return the value of the counter
+     */
+    public long get(CounterMetric counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param timer the timer
+     * @return the total time recorded by the timer, in nanoseconds
+     */
+    public long getTotalNanos(TimerMetric timer) {
+        return timerNanos[timer.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (CounterMetric counter : CounterMetric.values()) {
+            values.put(counter.name(), get(counter));
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getTimerCounts() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (TimerMetric timer : TimerMetric.values()) {
+            values.put(timer.name(), timerCounts[timer.ordinal()].sum());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getTimerTotalMillis() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (TimerMetric timer : TimerMetric.values()) {
+            values.put(timer.name(), getTotalNanos(timer) / 1e6);
+        }
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder[] adders : new LongAdder[][]{counters, timerCounts, timerNanos}) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+    }
+
+    /**
+     * Registers these metrics in the platform MBeanServer, replacing any metrics registered with the same name
+     *
+     * @param name the name of the metrics, e.g. the name of the conjunctions' collection
+     * @return the ObjectName the metrics are registered with
+     * @throws IllegalStateException if the metrics cannot be registered
+     */
+    public ObjectName register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = getObjectName(name);
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters the metrics with the given name from the platform MBeanServer, if registered
+     *
+     * @param name the name of the metrics
+     */
+    public static void unregister(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName(name));
+        } catch (InstanceNotFoundException e) {
+            // Not registered
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the metrics " + name, e);
+        }
+    }
+
+    /**
+     * @param name the name of the metrics
+     * @return the ObjectName of the metrics with the given name
+     */
+    public static ObjectName getObjectName(String name) throws JMException {
+        return new ObjectName("challenge:type=ChallengeMetrics,name=" + ObjectName.quote(name));
+    }
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,32 @@
+package challenge.metrics;
+
+/**
+ * The timed phases of the adjustment of conjunctions
+ */
+public enum TimerMetric {
+
+    /**
+     * Waiting for the next conjunction of a query, including the fetching and the decoding by the driver
+     */
+    QUERY,
+
+    /**
+     * Extracting the risk trend of a conjunction decoded into a Document
+     */
+    DECODE,
+
+    /**
+     * Analyzing the risk trend of a conjunction, including the calculations
+     */
+    ANALYSIS,
+
+    /**
+     * The theta calculations of a risk trend, native or not
+     */
+    CALCULATIONS,
+
+    /**
+     * Writing the changes of conjunctions
+     */
+    WRITE
+}
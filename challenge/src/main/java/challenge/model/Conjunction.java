@@ -0,0 +1,123 @@
+package challenge.model;
+
+/**
+ * Conjunction holding only the fields needed by the theta analysis, decoded by the {@link ConjunctionCodec}
+ */
+public final class Conjunction {
+
+    private Object id;
+    private String conjunctionId;
+    private Integer sat1NoradId;
+    private Integer sat2NoradId;
+
+    /**
+     * Whether the conjunction has a newest_risk_estimation
+     */
+    private boolean riskEstimationPresent;
+
+    /**
+     * The suggested value of the newest_risk_estimation, null if absent
+     */
+    private Boolean suggested;
+
+    /**
+     * Whether the conjunction has a newest_risk_prediction
+     */
+    private boolean riskPredictionPresent;
+
+    /**
+     * The collision_probability of the newest_risk_prediction, null if absent
+     */
+    private Double collisionProbability;
+
+    /**
+     * The risk_trend of the newest_risk_prediction, null if absent
+     */
+    private RiskTrend riskTrend;
+
+    /**
+     * @return true if the conjunction has a risk estimation and a risk prediction with a risk trend
+     */
+    public boolean isValid() {
+        return riskEstimationPresent && riskPredictionPresent && riskTrend != null;
+    }
+
+    /**
+     * @return true if the risk trend holds at least one pair of risk trends theta can be calculated for
+     */
+    public boolean canThetaBeCalculated() {
+        return riskTrend != null && riskTrend.size() >= 2;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    public void setId(Object id) {
+        this.id = id;
+    }
+
+    public String getConjunctionId() {
+        return conjunctionId;
+    }
+
+    public void setConjunctionId(String conjunctionId) {
+        this.conjunctionId = conjunctionId;
+    }
+
+    public Integer getSat1NoradId() {
+        return sat1NoradId;
+    }
+
+    public void setSat1NoradId(Integer sat1NoradId) {
+        this.sat1NoradId = sat1NoradId;
+    }
+
+    public Integer getSat2NoradId() {
+        return sat2NoradId;
+    }
+
+    public void setSat2NoradId(Integer sat2NoradId) {
+        this.sat2NoradId = sat2NoradId;
+    }
+
+    public boolean isRiskEstimationPresent() {
+        return riskEstimationPresent;
+    }
+
+    public void setRiskEstimationPresent(boolean riskEstimationPresent) {
+        this.riskEstimationPresent = riskEstimationPresent;
+    }
+
+    public Boolean getSuggested() {
+        return suggested;
+    }
+
+    public void setSuggested(Boolean suggested) {
+        this.suggested = suggested;
+    }
+
+    public boolean isRiskPredictionPresent() {
+        return riskPredictionPresent;
+    }
+
+    public void setRiskPredictionPresent(boolean riskPredictionPresent) {
+        this.riskPredictionPresent = riskPredictionPresent;
+    }
+
+    public Double getCollisionProbability() {
+        return collisionProbability;
+    }
+
+    public void setCollisionProbability(Double collisionProbability) {
+        this.collisionProbability = collisionProbability;
+    }
+
+    public RiskTrend getRiskTrend() {
+        return riskTrend;
+    }
+
+    public void setRiskTrend(RiskTrend riskTrend) {
+        this.riskTrend = riskTrend;
+    }
+}
@@ -0,0 +1,196 @@
+package challenge.model;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.BsonValueCodec;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import utils.MongoKeys;
+
+/**
+ * Codec decoding a conjunction document straight into a {@link Conjunction}: the risk_trend is decoded into the
+ * primitive arrays of a {@link RiskTrend} and all fields not needed by the theta analysis are skipped without being
+ * decoded. Invalid entries are counted by DataQualityIssue in the RiskTrend rather than logged. Conjunctions are
+ * written back with partial updates, so encoding is not supported
+ */
+public class ConjunctionCodec implements Codec<Conjunction> {
+
+    private final BsonValueCodec bsonValueCodec = new BsonValueCodec();
+
+    /**
+     * @param conjunctionsCollection the conjunctions' collection
+     * @return a view of the conjunctions' collection decoding its documents into Conjunctions
+     */
+    public static MongoCollection<Conjunction> withConjunctionCodec(MongoCollection<Document> conjunctionsCollection) {
+        return conjunctionsCollection.withDocumentClass(Conjunction.class).withCodecRegistry(
+                CodecRegistries.fromRegistries(CodecRegistries.fromCodecs(new ConjunctionCodec()),
+                        conjunctionsCollection.getCodecRegistry()));
+    }
+
+    @Override
+    public Conjunction decode(BsonReader reader, DecoderContext decoderContext) {
+        Conjunction conjunction = new Conjunction();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case MongoKeys.ID -> conjunction.setId(readId(reader, decoderContext));
+                case MongoKeys.CONJUNCTION_ID -> conjunction.setConjunctionId(
+                        reader.getCurrentBsonType() == BsonType.STRING ? reader.readString() : skip(reader));
+                case MongoKeys.SAT1_NORAD_ID -> conjunction.setSat1NoradId(readInteger(reader));
+                case MongoKeys.SAT2_NORAD_ID -> conjunction.setSat2NoradId(readInteger(reader));
+                case MongoKeys.NEWEST_RISK_ESTIMATION -> {
+                    conjunction.setRiskEstimationPresent(true);
+                    decodeRiskEstimation(reader, conjunction);
+                }
+                case MongoKeys.NEWEST_RISK_PREDICTION -> {
+                    conjunction.setRiskPredictionPresent(true);
+                    decodeRiskPrediction(reader, conjunction);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return conjunction;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Conjunction value, EncoderContext encoderContext) {
+        throw new UnsupportedOperationException("Conjunctions are written back with partial updates");
+    }
+
+    @Override
+    public Class<Conjunction> getEncoderClass() {
+        return Conjunction.class;
+    }
+
+    private void decodeRiskEstimation(BsonReader reader, Conjunction conjunction) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            reader.skipValue();
+            return;
+        }
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (MongoKeys.SUGGESTED.equals(reader.readName()) && reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+                conjunction.setSuggested(reader.readBoolean());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+    }
+
+    private void decodeRiskPrediction(BsonReader reader, Conjunction conjunction) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            reader.skipValue();
+            return;
+        }
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (MongoKeys.COLLISION_PROBABILITY.equals(name) && isNumber(reader.getCurrentBsonType())) {
+                conjunction.setCollisionProbability(readDouble(reader));
+            } else if (MongoKeys.RISK_TREND.equals(name) && reader.getCurrentBsonType() == BsonType.ARRAY) {
+                conjunction.setRiskTrend(decodeRiskTrend(reader));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+    }
+
+    private RiskTrend decodeRiskTrend(BsonReader reader) {
+        RiskTrend riskTrend = new RiskTrend();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                decodeRiskTrendEntry(reader, riskTrend);
+            } else {
+                reader.skipValue();
+                riskTrend.addIssue(DataQualityIssue.MALFORMED_TREND);
+                riskTrend.addInvalid();
+            }
+        }
+        reader.readEndArray();
+        return riskTrend;
+    }
+
+    private void decodeRiskTrendEntry(BsonReader reader, RiskTrend riskTrend) {
+        BsonType timeToTcaType = null;
+        BsonType collisionProbabilityType = null;
+        double timeToTca = Double.NaN;
+        double collisionProbability = Double.NaN;
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if (MongoKeys.TIME_TO_TCA.equals(name)) {
+                timeToTcaType = reader.getCurrentBsonType();
+                timeToTca = isNumber(timeToTcaType) ? readDouble(reader) : skipNaN(reader);
+            } else if (MongoKeys.COLLISION_PROBABILITY.equals(name)) {
+                collisionProbabilityType = reader.getCurrentBsonType();
+                collisionProbability = isNumber(collisionProbabilityType) ? readDouble(reader) : skipNaN(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        boolean valid = true;
+        if (timeToTcaType != null && collisionProbabilityType != null) {
+            if (!isNumber(timeToTcaType)) {
+                riskTrend.addIssue(DataQualityIssue.INVALID_TIME_TO_TCA);
+                valid = false;
+            }
+            if (!isNumber(collisionProbabilityType) || Double.isNaN(collisionProbability)) {
+                riskTrend.addIssue(DataQualityIssue.INVALID_COLLISION_PROBABILITY);
+                valid = false;
+            }
+        } else {
+            riskTrend.addIssue(DataQualityIssue.MALFORMED_TREND);
+            valid = false;
+        }
+        riskTrend.add(timeToTca, collisionProbability, valid);
+    }
+
+    private Object readId(BsonReader reader, DecoderContext decoderContext) {
+        return switch (reader.getCurrentBsonType()) {
+            case OBJECT_ID -> reader.readObjectId();
+            case STRING -> reader.readString();
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            default -> bsonValueCodec.decode(reader, decoderContext);
+        };
+    }
+
+    private Integer readInteger(BsonReader reader) {
+        return isNumber(reader.getCurrentBsonType()) ? (int) readDouble(reader) : skip(reader);
+    }
+
+    private static double readDouble(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOUBLE -> reader.readDouble();
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DECIMAL128 -> reader.readDecimal128().doubleValue();
+            default -> throw new IllegalStateException("Not a number: " + reader.getCurrentBsonType());
+        };
+    }
+
+    private static boolean isNumber(BsonType type) {
+        return type == BsonType.DOUBLE || type == BsonType.INT32 || type == BsonType.INT64 || type == BsonType.DECIMAL128;
+    }
+
+    private static <T> T skip(BsonReader reader) {
+        reader.skipValue();
+        return null;
+    }
+
+    private static double skipNaN(BsonReader reader) {
+        reader.skipValue();
+        return Double.NaN;
+    }
+}
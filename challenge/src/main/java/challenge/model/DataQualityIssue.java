@@ -0,0 +1,27 @@
+package challenge.model;
+
+/**
+ * The kinds of invalid data that prevent the risk trend of a conjunction from being fully analyzed
+ */
+public enum DataQualityIssue {
+
+    /**
+     * A risk trend entry that is not a document or lacks time_to_tca or collision_probability
+     */
+    MALFORMED_TREND,
+
+    /**
+     * A risk trend entry whose time_to_tca is not a number
+     */
+    INVALID_TIME_TO_TCA,
+
+    /**
+     * A risk trend entry whose collision_probability is not a number or is NaN
+     */
+    INVALID_COLLISION_PROBABILITY,
+
+    /**
+     * A risk trend with fewer than 2 entries, so without any theta to analyze
+     */
+    TOO_FEW_TRENDS
+}
@@ -0,0 +1,161 @@
+package challenge.model;
+
+import java.util.Arrays;
+
+/**
+ * The risk trend of a conjunction's newest risk prediction, held as parallel primitive arrays of time_to_tca and
+ * collision_probability values plus a bitmap of the valid entries. Values of invalid entries are undefined. The
+ * DataQualityIssues found while decoding the entries are counted along with them
+ */
+public final class RiskTrend {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double[] timeToTca;
+    private double[] collisionProbability;
+
+    /**
+     * Bitmap of the valid entries: bit i of word i / 64 is set if entry i is valid
+     */
+    private long[] validity;
+
+    private int size;
+
+    /**
+     * The number of occurrences of each DataQualityIssue, by ordinal, null while there is none
+     */
+    private int[] issueCounts;
+
+    /**
+     * Constructor of an empty RiskTrend
+     */
+    public RiskTrend() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor of an empty RiskTrend
+     *
+     * @param capacity the number of entries that can be added before the arrays grow
+     */
+    public RiskTrend(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        this.timeToTca = new double[initialCapacity];
+        this.collisionProbability = new double[initialCapacity];
+        this.validity = new long[wordCount(initialCapacity)];
+    }
+
+    /**
+     * Adds an entry at the end of the risk trend
+     *
+     * @param timeToTca            the time_to_tca of the entry
+     * @param collisionProbability the collision_probability of the entry
+     * @param valid                whether the entry is valid
+     */
+    public void add(double timeToTca, double collisionProbability, boolean valid) {
+        if (size == this.timeToTca.length) {
+            int capacity = size * 2;
+            this.timeToTca = Arrays.copyOf(this.timeToTca, capacity);
+            this.collisionProbability = Arrays.copyOf(this.collisionProbability, capacity);
+            this.validity = Arrays.copyOf(this.validity, wordCount(capacity));
+        }
+        this.timeToTca[size] = timeToTca;
+        this.collisionProbability[size] = collisionProbability;
+        if (valid) {
+            this.validity[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    /**
+     * Replaces the entries of this risk trend with a copy of the entries of the given one, reusing the arrays of this
+     * risk trend when they are large enough. The issues are not copied
+     *
+     * @param other the risk trend to copy
+     */
+    public void copyEntriesFrom(RiskTrend other) {
+        if (timeToTca.length < other.size) {
+            timeToTca = new double[other.size];
+            collisionProbability = new double[other.size];
+            validity = new long[wordCount(other.size)];
+        }
+        System.arraycopy(other.timeToTca, 0, timeToTca, 0, other.size);
+        System.arraycopy(other.collisionProbability, 0, collisionProbability, 0, other.size);
+        int words = wordCount(other.size);
+        System.arraycopy(other.validity, 0, validity, 0, words);
+        Arrays.fill(validity, words, validity.length, 0);
+        size = other.size;
+    }
+
+    /**
+     * Adds an invalid entry at the end of the risk trend
+     */
+    public void addInvalid() {
+        add(Double.NaN, Double.NaN, false);
+    }
+
+    /**
+     * Records an occurrence of the given issue, found while decoding an entry of the risk trend
+     *
+     * @param issue the issue
+     */
+    public void addIssue(DataQualityIssue issue) {
+        if (issueCounts == null) {
+            issueCounts = new int[DataQualityIssue.values().length];
+        }
+        issueCounts[issue.ordinal()]++;
+    }
+
+    /**
+     * @param issue the issue
+     * @return the number of occurrences of the given issue found while decoding the entries
+     */
+    public int getIssueCount(DataQualityIssue issue) {
+        return issueCounts != null ? issueCounts[issue.ordinal()] : 0;
+    }
+
+    /**
+     * @return true if any issue was found while decoding the entries
+     */
+    public boolean hasIssues() {
+        return issueCounts != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isValid(int index) {
+        return (validity[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public double getTimeToTca(int index) {
+        return timeToTca[index];
+    }
+
+    public double getCollisionProbability(int index) {
+        return collisionProbability[index];
+    }
+
+    public void setCollisionProbability(int index, double collisionProbability) {
+        this.collisionProbability[index] = collisionProbability;
+    }
+
+    /**
+     * @return the backing array of the time_to_tca values, whose length can be greater than the size
+     */
+    public double[] timeToTcaArray() {
+        return timeToTca;
+    }
+
+    /**
+     * @return the backing array of the collision_probability values, whose length can be greater than the size
+     */
+    public double[] collisionProbabilityArray() {
+        return collisionProbability;
+    }
+
+    private static int wordCount(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+}
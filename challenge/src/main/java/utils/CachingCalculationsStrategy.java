@@ -0,0 +1,344 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CalculationsStrategy remembering the results of the pairs of consecutive risk trends analyzed by
+ * {@link #analyzeRiskTrendSeries}, keyed on the four input values of each pair. The results are kept in a bounded
+ * least recently used cache, and only the pairs missing from it are handed to the delegate, in a single batched call.
+ * The single pair methods are not cached and go straight to the delegate. The cache is split into segments chosen by
+ * the hash of the key, each with its own lock and its own share of the maximum size, so that concurrent sweeps do not
+ * contend on a single lock; the least recently used order is kept within each segment
+ */
+public class CachingCalculationsStrategy implements CalculationsStrategy {
+
+    /**
+     * The estimated heap size of a cached result, including its key and its entry in the cache
+     */
+    public static final int ESTIMATED_ENTRY_BYTES = 160;
+
+    /**
+     * The maximum number of segments, a power of two
+     */
+    static final int MAXIMUM_SEGMENTS = 16;
+
+    /**
+     * The minimum number of results per segment, below which a cache has fewer segments
+     */
+    static final int MINIMUM_SEGMENT_SIZE = 64;
+
+    /**
+     * The buffers of the current thread, reused across calls so that a call only allocates the entries it caches
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CalculationsStrategy delegate;
+
+    /**
+     * The segments of the cache, whose number is a power of two
+     */
+    private final Segment[] segments;
+
+    /**
+     * Constructor
+     *
+     * @param delegate    The strategy calculating the results missing from the cache, cannot be null
+     * @param maximumSize The maximum number of cached results, must be positive
+     */
+    public CachingCalculationsStrategy(CalculationsStrategy delegate, int maximumSize) {
+        Objects.requireNonNull(delegate);
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.delegate = delegate;
+        int segmentCount = Integer.highestOneBit(Math.max(1,
+                Math.min(MAXIMUM_SEGMENTS, maximumSize / MINIMUM_SEGMENT_SIZE)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // The remainder is spread over the first segments so that the sizes add up to the maximum size
+            segments[i] = new Segment(maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * @param delegate       The strategy calculating the results missing from the cache, cannot be null
+     * @param maximumBytes   The approximate maximum heap size of the cache, must hold at least one result
+     * @return a CachingCalculationsStrategy whose size is bounded by the given heap size
+     */
+    public static CachingCalculationsStrategy withMemoryCap(CalculationsStrategy delegate, long maximumBytes) {
+        long maximumSize = maximumBytes / ESTIMATED_ENTRY_BYTES;
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumBytes must hold at least one result");
+        }
+        return new CachingCalculationsStrategy(delegate, (int) Math.min(maximumSize, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                               double collisionProbability1) {
+        return delegate.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+    }
+
+    @Override
+    public boolean checkTheta(double theta) {
+        return delegate.checkTheta(theta);
+    }
+
+    @Override
+    public double adjustCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                             double collisionProbability1) {
+        return delegate.adjustCollisionProbability(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+    }
+
+    /**
+     * Applies the cached results of each series up to its first missing pair, then hands the rest of all series to
+     * the delegate in a single call and caches its results. A series cannot be resumed after a missing pair, as the
+     * adjusted collision probability of a pair is the input of the next one
+     */
+    @Override
+    public void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                       double[] resultTheta, boolean[] resultProblematic, double[] resultAdjustedValue) {
+        Scratch scratch = SCRATCH.get();
+        int[] missingBounds = scratch.missingBounds(seriesBounds.length);
+        int missingBoundsLength = 0;
+        PairKey probe = scratch.probe;
+        for (int s = 0; s < seriesBounds.length; s += 2) {
+            int end = seriesBounds[s + 1];
+            int i = seriesBounds[s] + 1;
+            for (; i < end; i++) {
+                probe.set(timeToTca[i - 1], collisionProbability[i - 1], timeToTca[i], collisionProbability[i]);
+                PairResult result = segmentOf(probe).get(probe);
+                if (result == null) {
+                    break;
+                }
+                result.apply(i, collisionProbability, resultTheta, resultProblematic, resultAdjustedValue);
+            }
+            if (i < end) {
+                missingBounds[missingBoundsLength++] = i - 1;
+                missingBounds[missingBoundsLength++] = end;
+            }
+        }
+        if (missingBoundsLength > 0) {
+            // The rest of the reused bounds is padded with empty (0, 0) series
+            Arrays.fill(missingBounds, missingBoundsLength, missingBounds.length, 0);
+            analyzeMissing(scratch, timeToTca, collisionProbability, missingBoundsLength, resultTheta,
+                    resultProblematic, resultAdjustedValue);
+        }
+    }
+
+    /**
+     * Hands the missing series held by the given scratch to the delegate and caches the result of each of their
+     * pairs
+     */
+    private void analyzeMissing(Scratch scratch, double[] timeToTca, double[] collisionProbability,
+                                int missingBoundsLength, double[] resultTheta, boolean[] resultProblematic,
+                                double[] resultAdjustedValue) {
+        int[] missingBounds = scratch.missingBounds;
+        // The arrays may be longer than the series, only the indices they cover are copied
+        int length = 0;
+        for (int s = 1; s < missingBoundsLength; s += 2) {
+            length = Math.max(length, missingBounds[s]);
+        }
+        double[] inputCollisionProbability = scratch.inputCollisionProbability(length);
+        double[] previousAdjustedValue = scratch.previousAdjustedValue(length);
+        System.arraycopy(collisionProbability, 0, inputCollisionProbability, 0, length);
+        System.arraycopy(resultAdjustedValue, 0, previousAdjustedValue, 0, length);
+        for (int s = 0; s < missingBoundsLength; s += 2) {
+            Arrays.fill(resultAdjustedValue, missingBounds[s] + 1, missingBounds[s + 1], Calculations.NO_ADJUSTMENT);
+        }
+        delegate.analyzeRiskTrendSeries(timeToTca, collisionProbability, missingBounds, resultTheta, resultProblematic,
+                resultAdjustedValue);
+        for (int s = 0; s < missingBoundsLength; s += 2) {
+            for (int i = missingBounds[s] + 1; i < missingBounds[s + 1]; i++) {
+                // The first value of a pair is the one left by the previous pair, the second one its input
+                PairKey key = new PairKey();
+                key.set(timeToTca[i - 1], collisionProbability[i - 1], timeToTca[i], inputCollisionProbability[i]);
+                segmentOf(key).put(key, new PairResult(resultTheta[i], resultProblematic[i], resultAdjustedValue[i]));
+                if (resultAdjustedValue[i] == Calculations.NO_ADJUSTMENT) {
+                    resultAdjustedValue[i] = previousAdjustedValue[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @param key the key of a pair
+     * @return the segment holding the given key, chosen by the high bits of its mixed hash, as the entries of a
+     * segment share the bits used to choose it and its own table is indexed by the low ones
+     */
+    private Segment segmentOf(PairKey key) {
+        return segments[(key.hashCode() * 0x9E3779B9 >>> 16) & (segments.length - 1)];
+    }
+
+    /**
+     * @return the current statistics of the cache, summed over its segments
+     */
+    public ThetaCacheStats getStats() {
+        long hitCount = 0;
+        long missCount = 0;
+        long evictionCount = 0;
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hitCount += segment.hitCount;
+                missCount += segment.missCount;
+                evictionCount += segment.evictionCount;
+                size += segment.cache.size();
+            }
+        }
+        return new ThetaCacheStats(hitCount, missCount, evictionCount, size);
+    }
+
+    /**
+     * A segment of the cache with its statistics. Guarded by itself
+     */
+    private static final class Segment {
+
+        private final int maximumSize;
+
+        /**
+         * The cached results of the segment, in access order
+         */
+        private final LinkedHashMap<PairKey, PairResult> cache;
+
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+
+        Segment(int maximumSize) {
+            this.maximumSize = maximumSize;
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PairKey, PairResult> eldest) {
+                    if (size() > Segment.this.maximumSize) {
+                        evictionCount++;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * @param key the key of a pair, which is not retained
+         * @return the cached results of the pair, or null if they are missing
+         */
+        synchronized PairResult get(PairKey key) {
+            PairResult result = cache.get(key);
+            if (result != null) {
+                hitCount++;
+            }
+            return result;
+        }
+
+        /**
+         * Caches the calculated results of a pair
+         */
+        synchronized void put(PairKey key, PairResult result) {
+            cache.put(key, result);
+            missCount++;
+        }
+    }
+
+    /**
+     * The buffers of a thread
+     */
+    private static final class Scratch {
+
+        /**
+         * The key the cache is probed with, never stored in the cache
+         */
+        private final PairKey probe = new PairKey();
+
+        private int[] missingBounds = new int[0];
+        private double[] inputCollisionProbability = new double[0];
+        private double[] previousAdjustedValue = new double[0];
+
+        int[] missingBounds(int length) {
+            if (missingBounds.length < length) {
+                missingBounds = new int[length];
+            }
+            return missingBounds;
+        }
+
+        double[] inputCollisionProbability(int length) {
+            if (inputCollisionProbability.length < length) {
+                inputCollisionProbability = new double[length];
+            }
+            return inputCollisionProbability;
+        }
+
+        double[] previousAdjustedValue(int length) {
+            if (previousAdjustedValue.length < length) {
+                previousAdjustedValue = new double[length];
+            }
+            return previousAdjustedValue;
+        }
+    }
+
+    /**
+     * The four input values of a pair of consecutive risk trends. The keys stored in the cache are never changed
+     * after being set, only the probe of a Scratch is set again for each lookup
+     */
+    private static final class PairKey {
+
+        private double timeToTca0;
+        private double collisionProbability0;
+        private double timeToTca1;
+        private double collisionProbability1;
+        private int hash;
+
+        void set(double timeToTca0, double collisionProbability0, double timeToTca1, double collisionProbability1) {
+            this.timeToTca0 = timeToTca0;
+            this.collisionProbability0 = collisionProbability0;
+            this.timeToTca1 = timeToTca1;
+            this.collisionProbability1 = collisionProbability1;
+            this.hash = ((Double.hashCode(timeToTca0) * 31 + Double.hashCode(collisionProbability0)) * 31
+                    + Double.hashCode(timeToTca1)) * 31 + Double.hashCode(collisionProbability1);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PairKey other)) {
+                return false;
+            }
+            // Same semantics as Double.equals, so that NaN keys match
+            return Double.compare(timeToTca0, other.timeToTca0) == 0
+                    && Double.compare(collisionProbability0, other.collisionProbability0) == 0
+                    && Double.compare(timeToTca1, other.timeToTca1) == 0
+                    && Double.compare(collisionProbability1, other.collisionProbability1) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The results of a pair of consecutive risk trends
+     *
+     * @param theta         the theta of the pair
+     * @param problematic   whether theta is problematic
+     * @param adjustedValue the adjusted collision probability of the second risk trend, or
+     *                      {@link Calculations#NO_ADJUSTMENT} if it was not adjusted
+     */
+    private record PairResult(double theta, boolean problematic, double adjustedValue) {
+
+        void apply(int index, double[] collisionProbability, double[] resultTheta, boolean[] resultProblematic,
+                   double[] resultAdjustedValue) {
+            resultTheta[index] = theta;
+            resultProblematic[index] = problematic;
+            if (adjustedValue != Calculations.NO_ADJUSTMENT) {
+                resultAdjustedValue[index] = adjustedValue;
+                collisionProbability[index] = adjustedValue;
+            }
+        }
+    }
+}
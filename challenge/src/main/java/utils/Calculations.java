@@ -2,6 +2,11 @@ package utils;
 
 public class Calculations {
 
+    /**
+     * Value of result_adjusted_value when the collision probability has not been adjusted
+     */
+    public static final double NO_ADJUSTMENT = -1d;
+
     private Calculations() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
@@ -25,4 +30,33 @@ public class Calculations {
             );
 
     public static native boolean check_theta(double[] theta);
+
+    /**
+     * Analyzes any number of series of consecutive risk trends in a single call, which is equivalent to calling
+     * analyze_theta, check_theta and, for problematic thetas, adjust_coll_prob on each pair of consecutive risk trends
+     * of each series, in order.
+     * <p>
+     * The risk trends of all series are stored in time_to_tca_array and coll_prob_array. Series i spans the indices
+     * from series_bounds_array[2 * i] (inclusive) to series_bounds_array[2 * i + 1] (exclusive); indices not covered
+     * by any series are ignored, and the arrays may be longer than the series need. A series of fewer than 2 risk
+     * trends, such as the (0, 0) bounds callers pad series_bounds_array with, holds no pair and is skipped. The
+     * results of the pair ending at index j are stored at index j of the result arrays, the results at the first
+     * index of each series are left untouched. When a collision probability is adjusted, coll_prob_array[j] is updated
+     * as well before the next pair is analyzed, like the sequential calls would see it. Entries of
+     * result_adjusted_value_array are left untouched when no adjustment is made.
+     * <p>
+     * This method has no native implementation in this repository: the native library only provides analyze_theta,
+     * adjust_coll_prob and check_theta, so every call throws an UnsatisfiedLinkError and
+     * {@link NativeCalculationsStrategy} falls back to analyzing the series with the per-pair methods. Production
+     * behavior is therefore unchanged until a native library implementing it is deployed.
+     */
+    public static native void analyze_risk_trend_series
+            (
+                    double[] time_to_tca_array,
+                    double[] coll_prob_array,
+                    int[] series_bounds_array,
+                    double[] result_theta_array,
+                    boolean[] result_problematic_array,
+                    double[] result_adjusted_value_array
+            );
 }
@@ -0,0 +1,70 @@
+package utils;
+
+/**
+ * Strategy performing the theta calculations on risk trends
+ */
+public interface CalculationsStrategy {
+
+    /**
+     * Calculates theta for two consecutive risk trends
+     *
+     * @param timeToTca0            the time_to_tca of the first risk trend
+     * @param collisionProbability0 the collision_probability of the first risk trend
+     * @param timeToTca1            the time_to_tca of the second risk trend
+     * @param collisionProbability1 the collision_probability of the second risk trend
+     * @return theta
+     */
+    double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1, double collisionProbability1);
+
+    /**
+     * @param theta the theta of two consecutive risk trends
+     * @return true if theta is problematic
+     */
+    boolean checkTheta(double theta);
+
+    /**
+     * Calculates the adjusted collision probability of the second of two consecutive risk trends
+     *
+     * @param timeToTca0            the time_to_tca of the first risk trend
+     * @param collisionProbability0 the collision_probability of the first risk trend
+     * @param timeToTca1            the time_to_tca of the second risk trend
+     * @param collisionProbability1 the collision_probability of the second risk trend
+     * @return the adjusted collision probability, or {@link Calculations#NO_ADJUSTMENT} if it cannot be adjusted
+     */
+    double adjustCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                      double collisionProbability1);
+
+    /**
+     * Analyzes any number of series of consecutive risk trends, with the same contract as
+     * {@link Calculations#analyze_risk_trend_series}. The default implementation analyzes each pair in order
+     *
+     * @param timeToTca            the time_to_tca of the risk trends of all series
+     * @param collisionProbability the collision_probability of the risk trends of all series, updated with the
+     *                             adjusted values
+     * @param seriesBounds         the inclusive start and exclusive end index of each series, possibly padded with
+     *                             empty (0, 0) series
+     * @param resultTheta          the theta of the pair ending at each index
+     * @param resultProblematic    whether the theta of the pair ending at each index is problematic
+     * @param resultAdjustedValue  the adjusted collision probability of each index, left untouched if not adjusted
+     */
+    default void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                        double[] resultTheta, boolean[] resultProblematic, double[] resultAdjustedValue) {
+        for (int s = 0; s < seriesBounds.length; s += 2) {
+            for (int i = seriesBounds[s] + 1; i < seriesBounds[s + 1]; i++) {
+                double theta = analyzeTheta(timeToTca[i - 1], collisionProbability[i - 1], timeToTca[i],
+                        collisionProbability[i]);
+                boolean problematic = checkTheta(theta);
+                resultTheta[i] = theta;
+                resultProblematic[i] = problematic;
+                if (problematic) {
+                    double adjustedValue = adjustCollisionProbability(timeToTca[i - 1], collisionProbability[i - 1],
+                            timeToTca[i], collisionProbability[i]);
+                    if (adjustedValue != Calculations.NO_ADJUSTMENT) {
+                        resultAdjustedValue[i] = adjustedValue;
+                        collisionProbability[i] = adjustedValue;
+                    }
+                }
+            }
+        }
+    }
+}
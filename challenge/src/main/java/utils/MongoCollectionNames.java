@@ -5,6 +5,8 @@ package utils;
  */
 public class MongoCollectionNames {
     public static final String CONJUNCTIONS = "conjunctions";
+    public static final String CHALLENGE_STATE = "challenge_state";
+    public static final String SWEEP_LEASES = "sweep_leases";
 
     private MongoCollectionNames() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
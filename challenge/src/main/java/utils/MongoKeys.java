@@ -14,6 +14,42 @@ public final class MongoKeys {
     public static final String RISK_TREND = "risk_trend";
     public static final String COLLISION_PROBABILITY = "collision_probability";
     public static final String TIME_TO_TCA = "time_to_tca";
+    public static final String RISK_TREND_FINGERPRINT = "risk_trend_fingerprint";
+    public static final String RISK_TREND_VERSION = "risk_trend_version";
+    public static final String RESUME_TOKEN = "resume_token";
+    public static final String UPDATED_AT = "updated_at";
+    public static final String ADJUSTED_AT = "adjusted_at";
+    public static final String LAST_ID = "last_id";
+    public static final String SCANNED_COUNT = "scanned_count";
+    public static final String MATCHED_COUNT = "matched_count";
+    public static final String MODIFIED_COUNT = "modified_count";
+    public static final String FAILED_COUNT = "failed_count";
+    public static final String COMPLETED = "completed";
+    public static final String ANALYSIS_CLASS = "analysis_class";
+    public static final String LATEST_TIME_TO_TCA = "latest_time_to_tca";
+    public static final String SWEEP = "sweep";
+    public static final String PARTITIONS = "partitions";
+    public static final String LOWER_BOUND = "lower_bound";
+    public static final String UPPER_BOUND = "upper_bound";
+    public static final String OWNER = "owner";
+    public static final String LEASE_EXPIRES_AT = "lease_expires_at";
+    public static final String RISK_TREND_ANALYSIS = "risk_trend_analysis";
+    public static final String ANALYZED_COUNT = "analyzed_count";
+    public static final String CHECKSUM = "checksum";
+    public static final String NEWEST_RISK_ESTIMATION_SUGGESTED = NEWEST_RISK_ESTIMATION + "." + SUGGESTED;
+    public static final String NEWEST_RISK_PREDICTION_COLLISION_PROBABILITY = NEWEST_RISK_PREDICTION + "." + COLLISION_PROBABILITY;
+    public static final String NEWEST_RISK_PREDICTION_RISK_TREND = NEWEST_RISK_PREDICTION + "." + RISK_TREND;
+    public static final String NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT = NEWEST_RISK_PREDICTION + "." + RISK_TREND_FINGERPRINT;
+    public static final String NEWEST_RISK_PREDICTION_RISK_TREND_VERSION = NEWEST_RISK_PREDICTION + "." + RISK_TREND_VERSION;
+    public static final String NEWEST_RISK_PREDICTION_RISK_TREND_ANALYSIS = NEWEST_RISK_PREDICTION + "." + RISK_TREND_ANALYSIS;
+
+    /**
+     * @param index the index of the risk trend inside newest_risk_prediction.risk_trend
+     * @return the dotted path of the collision probability of the risk trend
+     */
+    public static String riskTrendCollisionProbabilityPath(int index) {
+        return NEWEST_RISK_PREDICTION_RISK_TREND + "." + index + "." + COLLISION_PROBABILITY;
+    }
 
     private MongoKeys() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
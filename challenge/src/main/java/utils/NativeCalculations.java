@@ -0,0 +1,64 @@
+package utils;
+
+/**
+ * The native methods of {@link Calculations}, with the same arguments, so that the JNI calling convention of
+ * NativeCalculationsStrategy can be exercised without the native library
+ */
+interface NativeCalculations {
+
+    /**
+     * The native methods of the loaded native library
+     */
+    NativeCalculations LIBRARY = new NativeCalculations() {
+        @Override
+        public void analyzeTheta(double[] timeToTca0, double[] collisionProbability0, double[] timeToTca1,
+                                 double[] collisionProbability1, double[] resultTheta) {
+            Calculations.analyze_theta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1,
+                    resultTheta);
+        }
+
+        @Override
+        public void adjustCollisionProbability(double[] timeToTca0, double[] collisionProbability0,
+                                               double[] timeToTca1, double[] collisionProbability1,
+                                               double[] resultAdjustedValue) {
+            Calculations.adjust_coll_prob(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1,
+                    resultAdjustedValue);
+        }
+
+        @Override
+        public boolean checkTheta(double[] theta) {
+            return Calculations.check_theta(theta);
+        }
+
+        @Override
+        public void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                           double[] resultTheta, boolean[] resultProblematic,
+                                           double[] resultAdjustedValue) {
+            Calculations.analyze_risk_trend_series(timeToTca, collisionProbability, seriesBounds, resultTheta,
+                    resultProblematic, resultAdjustedValue);
+        }
+    };
+
+    /**
+     * @see Calculations#analyze_theta
+     */
+    void analyzeTheta(double[] timeToTca0, double[] collisionProbability0, double[] timeToTca1,
+                      double[] collisionProbability1, double[] resultTheta);
+
+    /**
+     * @see Calculations#adjust_coll_prob
+     */
+    void adjustCollisionProbability(double[] timeToTca0, double[] collisionProbability0, double[] timeToTca1,
+                                    double[] collisionProbability1, double[] resultAdjustedValue);
+
+    /**
+     * @see Calculations#check_theta
+     */
+    boolean checkTheta(double[] theta);
+
+    /**
+     * @see Calculations#analyze_risk_trend_series
+     */
+    void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                double[] resultTheta, boolean[] resultProblematic, double[] resultAdjustedValue);
+}
@@ -0,0 +1,154 @@
+package utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * CalculationsStrategy delegating to the native methods of {@link Calculations}. The native library has to be loaded
+ * by the application. No native library in this repository implements
+ * {@link Calculations#analyze_risk_trend_series}, so the series are analyzed pair by pair after its first call fails to
+ * link, as before it was added. The one-element arrays the per-pair methods take are reused by each thread, so that
+ * analyzing a pair does not allocate
+ */
+public class NativeCalculationsStrategy implements CalculationsStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(NativeCalculationsStrategy.class);
+
+    /**
+     * The one-element arrays of the current thread
+     */
+    private static final ThreadLocal<PairArrays> PAIR_ARRAYS = ThreadLocal.withInitial(PairArrays::new);
+
+    /**
+     * The native methods called
+     */
+    private final NativeCalculations calculations;
+
+    /**
+     * Whether the native methods implement analyze_risk_trend_series, true until a call fails to link
+     */
+    private volatile boolean seriesAnalysisAvailable = true;
+
+    /**
+     * Constructor calling the native methods of the loaded native library
+     */
+    public NativeCalculationsStrategy() {
+        this(NativeCalculations.LIBRARY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param calculations The native methods called, cannot be null
+     */
+    NativeCalculationsStrategy(NativeCalculations calculations) {
+        Objects.requireNonNull(calculations);
+        this.calculations = calculations;
+    }
+
+    @Override
+    public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                               double collisionProbability1) {
+        PairArrays arrays = PAIR_ARRAYS.get().set(timeToTca0, collisionProbability0, timeToTca1,
+                collisionProbability1);
+        return arrays.analyzeTheta(calculations);
+    }
+
+    @Override
+    public boolean checkTheta(double theta) {
+        PairArrays arrays = PAIR_ARRAYS.get();
+        arrays.result[0] = theta;
+        return calculations.checkTheta(arrays.result);
+    }
+
+    @Override
+    public double adjustCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                             double collisionProbability1) {
+        PairArrays arrays = PAIR_ARRAYS.get().set(timeToTca0, collisionProbability0, timeToTca1,
+                collisionProbability1);
+        return arrays.adjustCollisionProbability(calculations);
+    }
+
+    @Override
+    public void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                       double[] resultTheta, boolean[] resultProblematic, double[] resultAdjustedValue) {
+        if (seriesAnalysisAvailable) {
+            try {
+                calculations.analyzeRiskTrendSeries(timeToTca, collisionProbability, seriesBounds, resultTheta,
+                        resultProblematic, resultAdjustedValue);
+                return;
+            } catch (UnsatisfiedLinkError e) {
+                // Thrown when linking the method, before any of the arrays is touched
+                seriesAnalysisAvailable = false;
+                logger.warn("The native library does not implement analyze_risk_trend_series, the risk trend series "
+                        + "are analyzed pair by pair");
+            }
+        }
+        PairArrays arrays = PAIR_ARRAYS.get();
+        for (int s = 0; s < seriesBounds.length; s += 2) {
+            for (int i = seriesBounds[s] + 1; i < seriesBounds[s + 1]; i++) {
+                arrays.set(timeToTca[i - 1], collisionProbability[i - 1], timeToTca[i], collisionProbability[i]);
+                // The result array holds theta, the input of check_theta
+                double theta = arrays.analyzeTheta(calculations);
+                boolean problematic = calculations.checkTheta(arrays.result);
+                resultTheta[i] = theta;
+                resultProblematic[i] = problematic;
+                if (problematic) {
+                    double adjustedValue = arrays.adjustCollisionProbability(calculations);
+                    if (adjustedValue != Calculations.NO_ADJUSTMENT) {
+                        resultAdjustedValue[i] = adjustedValue;
+                        collisionProbability[i] = adjustedValue;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the native library implementing {@link Calculations} has been loaded. The library does not
+     * need to implement {@link Calculations#analyze_risk_trend_series}, which is checked on its first call
+     */
+    public static boolean isAvailable() {
+        try {
+            Calculations.check_theta(new double[]{0d});
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+
+    /**
+     * The one-element input and output arrays of the per-pair native methods
+     */
+    private static final class PairArrays {
+
+        private final double[] timeToTca0 = new double[1];
+        private final double[] collisionProbability0 = new double[1];
+        private final double[] timeToTca1 = new double[1];
+        private final double[] collisionProbability1 = new double[1];
+        private final double[] result = new double[1];
+
+        private PairArrays set(double timeToTca0, double collisionProbability0, double timeToTca1,
+                               double collisionProbability1) {
+            this.timeToTca0[0] = timeToTca0;
+            this.collisionProbability0[0] = collisionProbability0;
+            this.timeToTca1[0] = timeToTca1;
+            this.collisionProbability1[0] = collisionProbability1;
+            return this;
+        }
+
+        private double analyzeTheta(NativeCalculations calculations) {
+            calculations.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1, result);
+            return result[0];
+        }
+
+        private double adjustCollisionProbability(NativeCalculations calculations) {
+            result[0] = Calculations.NO_ADJUSTMENT;
+            calculations.adjustCollisionProbability(timeToTca0, collisionProbability0, timeToTca1,
+                    collisionProbability1, result);
+            return result[0];
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package utils;
+
+/**
+ * Immutable snapshot of the statistics of a {@link CachingCalculationsStrategy}
+ */
+public final class ThetaCacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final int size;
+
+    /**
+     * Constructor
+     *
+     * @param hitCount      the number of pairs whose results were found in the cache
+     * @param missCount     the number of pairs whose results were calculated
+     * @param evictionCount the number of results evicted to respect the cache's capacity
+     * @param size          the number of results in the cache
+     */
+    public ThetaCacheStats(long hitCount, long missCount, long evictionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the ratio of pairs whose results were found in the cache, 0 if no pair was analyzed
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + ", size=" + size;
+    }
+}
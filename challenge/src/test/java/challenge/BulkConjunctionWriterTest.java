@@ -0,0 +1,90 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static com.mongodb.client.model.Filters.eq;
+
+public class BulkConjunctionWriterTest {
+
+    @Test
+    public void testFlushesInUnorderedBatches() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(
+                i -> BulkWriteResult.acknowledged(0, ((List<?>) i.getArgument(0)).size(),
+                        0, ((List<?>) i.getArgument(0)).size(), Collections.emptyList(), Collections.emptyList()));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(2).bulkWriteFlushInterval(Duration.ofHours(1)).build();
+
+        BulkConjunctionWriter writer = new BulkConjunctionWriter(collection, settings);
+        writer.write(getWriteModel(1));
+        verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        writer.write(getWriteModel(2));
+        writer.write(getWriteModel(3));
+        writer.close();
+
+        ArgumentCaptor<List<WriteModel<Document>>> batches = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<BulkWriteOptions> options = ArgumentCaptor.forClass(BulkWriteOptions.class);
+        verify(collection, times(2)).bulkWrite(batches.capture(), options.capture());
+        assertEquals(batches.getAllValues().get(0).size(), 2);
+        assertEquals(batches.getAllValues().get(1).size(), 1);
+        options.getAllValues().forEach(o -> assertEquals(o.isOrdered(), false));
+        assertEquals(writer.getTotals().getMatchedCount(), 3);
+        assertEquals(writer.getTotals().getModifiedCount(), 3);
+        assertEquals(writer.getTotals().getFailedCount(), 0);
+    }
+
+    @Test
+    public void testFlushesWhenIntervalElapsed() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(100).bulkWriteFlushInterval(Duration.ZERO).build();
+
+        BulkConjunctionWriter writer = new BulkConjunctionWriter(collection, settings);
+        writer.write(getWriteModel(1));
+
+        verify(collection, times(1)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    public void testReportsFailedWrites() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        BulkWriteError error = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()),
+                List.of(error), null, new ServerAddress(), Collections.emptySet()));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(2).build();
+
+        BulkConjunctionWriter writer = new BulkConjunctionWriter(collection, settings);
+        writer.write(getWriteModel(1));
+        writer.write(getWriteModel(2));
+
+        assertEquals(writer.getTotals().getMatchedCount(), 1);
+        assertEquals(writer.getTotals().getModifiedCount(), 1);
+        assertEquals(writer.getTotals().getFailedCount(), 1);
+    }
+
+    private WriteModel<Document> getWriteModel(int id) {
+        return new UpdateOneModel<>(eq("_id", id), Updates.set("newest_risk_estimation.suggested", false));
+    }
+}
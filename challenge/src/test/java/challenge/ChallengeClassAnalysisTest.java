@@ -0,0 +1,188 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.mockito.ArgumentCaptor;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.Test;
+import utils.Calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Unit tests of the theta analysis of a single conjunction, which do not need a MongoDB instance
+ */
+@PrepareForTest(Calculations.class)
+public class ChallengeClassAnalysisTest extends PowerMockTestCase {
+
+    private static final double ADJUSTED_VALUE = 0.5;
+
+    private final List<int[]> usedSeriesBounds = new ArrayList<>();
+
+    @Test
+    public void testProblematicThetasAreAdjusted() throws Exception {
+        mockCalculations(true, false, true);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+
+        new ChallengeClass(collection).adjustConjunctionBasedOnTheta(getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009},
+                {"time_to_tca": 1800, "collision_probability": 0.000008},
+                {"time_to_tca": 900, "collision_probability": 0.000007}"""));
+
+        // The bounds are padded with empty series up to the capacity of the analyzer's buffers
+        assertEquals(usedSeriesBounds.get(0), new int[]{0, 4, 0, 0});
+        assertEquals(getUpdate(collection), Document.parse("""
+                {"$set": {
+                  "newest_risk_prediction.risk_trend.1.collision_probability": 0.5,
+                  "newest_risk_prediction.risk_trend.3.collision_probability": 0.5,
+                  "newest_risk_prediction.collision_probability": 0.5,
+                  "newest_risk_estimation.suggested": false
+                }, "$currentDate": {"adjusted_at": true}}"""));
+    }
+
+    @Test
+    public void testInvalidTrendSplitsSeriesAndRevokesSuggestion() throws Exception {
+        mockCalculations(false, false, false);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+
+        new ChallengeClass(collection).adjustConjunctionBasedOnTheta(getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009},
+                {"time_to_tca": 1800},
+                {"time_to_tca": 900, "collision_probability": 0.000007},
+                {"time_to_tca": 450, "collision_probability": 0.000006}"""));
+
+        assertEquals(usedSeriesBounds.get(0), new int[]{0, 2, 3, 5});
+        assertEquals(getUpdate(collection), Document.parse("""
+                {"$set": {"newest_risk_estimation.suggested": false}, "$currentDate": {"adjusted_at": true}}"""));
+    }
+
+    @Test
+    public void testGoodThetasAreNotWritten() throws Exception {
+        mockCalculations(false, false);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+
+        new ChallengeClass(collection).adjustConjunctionBasedOnTheta(getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009},
+                {"time_to_tca": 1800, "collision_probability": 0.000008}"""));
+
+        verify(collection, never()).bulkWrite(anyList());
+    }
+
+    @Test
+    public void testIncrementalAnalysisOnlyAnalyzesAppendedPairs() throws Exception {
+        mockCalculations(false, false, true);
+        SweepSettings settings = SweepSettings.builder().incrementalAnalysis(true).build();
+        Document conjunction = getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009},
+                {"time_to_tca": 1800, "collision_probability": 0.000008}""");
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        new ChallengeClass(collection, settings).adjustConjunctionBasedOnTheta(conjunction);
+        Document state = getUpdate(collection).get("$set", Document.class)
+                .get("newest_risk_prediction.risk_trend_analysis", Document.class);
+        assertEquals(state.get("analyzed_count"), 3);
+        assertEquals(state.get("suggested"), true);
+
+        getRiskTrends(conjunction).add(Document.parse("""
+                {"time_to_tca": 900, "collision_probability": 0.000007}"""));
+        MongoCollection<Document> nextCollection = mock(MongoCollection.class);
+        new ChallengeClass(nextCollection, settings).adjustConjunctionBasedOnTheta(conjunction);
+
+        assertEquals(Arrays.copyOf(usedSeriesBounds.get(1), 2), new int[]{2, 4});
+        Document update = getUpdate(nextCollection).get("$set", Document.class);
+        assertEquals(update.get("newest_risk_prediction.risk_trend.3.collision_probability"), ADJUSTED_VALUE);
+        assertEquals(update.get("newest_risk_prediction.collision_probability"), ADJUSTED_VALUE);
+        assertEquals(update.get("newest_risk_estimation.suggested"), false);
+        state = update.get("newest_risk_prediction.risk_trend_analysis", Document.class);
+        assertEquals(state.get("analyzed_count"), 4);
+        assertEquals(state.get("suggested"), false);
+    }
+
+    @Test
+    public void testIncrementalAnalysisReanalyzesChangedTrends() throws Exception {
+        mockCalculations(false, false, false, false, false);
+        SweepSettings settings = SweepSettings.builder().incrementalAnalysis(true).build();
+        Document conjunction = getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009},
+                {"time_to_tca": 1800, "collision_probability": 0.000008}""");
+        new ChallengeClass(mock(MongoCollection.class), settings).adjustConjunctionBasedOnTheta(conjunction);
+
+        List<Document> riskTrends = getRiskTrends(conjunction);
+        riskTrends.get(1).put("collision_probability", 0.0000095);
+        riskTrends.add(Document.parse("""
+                {"time_to_tca": 900, "collision_probability": 0.000007}"""));
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        new ChallengeClass(collection, settings).adjustConjunctionBasedOnTheta(conjunction);
+
+        assertEquals(Arrays.copyOf(usedSeriesBounds.get(1), 2), new int[]{0, 4});
+        Document state = getUpdate(collection).get("$set", Document.class)
+                .get("newest_risk_prediction.risk_trend_analysis", Document.class);
+        assertEquals(state.get("analyzed_count"), 4);
+        assertEquals(state.get("suggested"), true);
+    }
+
+    private static List<Document> getRiskTrends(Document conjunction) {
+        return conjunction.get("newest_risk_prediction", Document.class).getList("risk_trend", Document.class);
+    }
+
+    private void mockCalculations(Boolean... problematicFlags) throws Exception {
+        usedSeriesBounds.clear();
+        Iterator<Boolean> flags = List.of(problematicFlags).iterator();
+        PowerMockito.mockStatic(Calculations.class);
+        PowerMockito.doAnswer(i -> {
+            double[] collisionProbabilities = i.getArgument(1);
+            int[] seriesBounds = i.getArgument(2);
+            boolean[] problematic = i.getArgument(4);
+            double[] adjustedValues = i.getArgument(5);
+            usedSeriesBounds.add(seriesBounds.clone());
+            for (int s = 0; s < seriesBounds.length; s += 2) {
+                for (int j = seriesBounds[s] + 1; j < seriesBounds[s + 1]; j++) {
+                    problematic[j] = flags.next();
+                    if (problematic[j]) {
+                        adjustedValues[j] = ADJUSTED_VALUE;
+                        collisionProbabilities[j] = ADJUSTED_VALUE;
+                    }
+                }
+            }
+            return null;
+        }).when(Calculations.class, "analyze_risk_trend_series", any(), any(), any(), any(), any(), any());
+    }
+
+    private Document getUpdate(MongoCollection<Document> collection) {
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture());
+        UpdateOneModel<Document> model = (UpdateOneModel<Document>) captor.getValue().get(0);
+        return Document.parse(model.getUpdate().toBsonDocument().toJson());
+    }
+
+    static Document getConjunction(String riskTrends) {
+        return Document.parse("""
+                {
+                  "_id": 1,
+                  "conjunction_id": "conjunction",
+                  "sat1_norad_id": 0,
+                  "sat2_norad_id": 0,
+                  "newest_risk_estimation": {"suggested": true},
+                  "newest_risk_prediction": {
+                    "collision_probability": 0.00001,
+                    "risk_trend": [%s]
+                  }
+                }""".formatted(riskTrends));
+    }
+}
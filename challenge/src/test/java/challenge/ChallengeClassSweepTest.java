@@ -0,0 +1,384 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static com.mongodb.client.model.Filters.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import challenge.metrics.CounterMetric;
+import challenge.metrics.JmxChallengeMetrics;
+import challenge.metrics.TimerMetric;
+import challenge.model.Conjunction;
+import challenge.model.RiskTrend;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.testng.annotations.Test;
+import utils.StandInCalculationsStrategy;
+import utils.MongoKeys;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests of the sweep modes of ChallengeClass, which do not need a MongoDB instance
+ */
+public class ChallengeClassSweepTest {
+
+    @Test
+    public void testProjectedReads() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindIterable<Document> findIterable = mockFindIterable(collection);
+        SweepSettings settings = SweepSettings.builder().projectedReads(true).cursorBatchSize(250).build();
+
+        SweepReport report = new ChallengeClass(collection, settings).adjustConjunctionsBasedOnTheta();
+
+        ArgumentCaptor<Bson> projection = ArgumentCaptor.forClass(Bson.class);
+        verify(findIterable).projection(projection.capture());
+        verify(findIterable).batchSize(250);
+        assertEquals(projection.getValue().toBsonDocument(), Document.parse("""
+                {
+                  "_id": 1,
+                  "sat1_norad_id": 1,
+                  "sat2_norad_id": 1,
+                  "newest_risk_estimation.suggested": 1,
+                  "newest_risk_prediction.collision_probability": 1,
+                  "newest_risk_prediction.risk_trend.time_to_tca": 1,
+                  "newest_risk_prediction.risk_trend.collision_probability": 1
+                }""").toBsonDocument());
+        assertEquals(report.getScannedCount(), 0);
+    }
+
+    @Test
+    public void testDefaultReadsAreNotProjected() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindIterable<Document> findIterable = mockFindIterable(collection);
+
+        new ChallengeClass(collection).adjustConjunctionsBasedOnTheta();
+
+        verify(findIterable, never()).projection(any());
+        verify(findIterable, never()).batchSize(anyInt());
+    }
+
+    @Test
+    public void testTypedReads() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        MongoCollection<Conjunction> typedCollection = mock(MongoCollection.class);
+        when(collection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(collection.withDocumentClass(Conjunction.class)).thenReturn(typedCollection);
+        when(typedCollection.withCodecRegistry(any())).thenReturn(typedCollection);
+        FindIterable<Conjunction> findIterable = mock(FindIterable.class);
+        when(typedCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.iterator()).thenAnswer(i -> mockCursor(List.of(getConjunction()).iterator()));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        SweepSettings settings = SweepSettings.builder().typedReads(true).build();
+
+        SweepReport report = new ChallengeClass(collection, settings, new StandInCalculationsStrategy())
+                .adjustConjunctionsBasedOnTheta();
+
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> model = (UpdateOneModel<Document>) captor.getValue().get(0);
+        assertEquals(model.getFilter().toBsonDocument(), eq(MongoKeys.ID, 7).toBsonDocument());
+        double adjustedValue = new StandInCalculationsStrategy().adjustCollisionProbability(7200, 1e-6, 3600, 1e-3);
+        assertEquals(model.getUpdate().toBsonDocument(), new Document("$set", new Document()
+                .append("newest_risk_prediction.risk_trend.1.collision_probability", adjustedValue)
+                .append("newest_risk_prediction.collision_probability", adjustedValue)
+                .append("newest_risk_estimation.suggested", false))
+                .append("$currentDate", new Document(MongoKeys.ADJUSTED_AT, true)).toBsonDocument());
+        assertEquals(report.getScannedCount(), 1);
+        assertEquals(report.getWriteReport().getModifiedCount(), 1);
+    }
+
+    @Test
+    public void testMetrics() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockFindIterable(collection,
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 7200, "collision_probability": 0.000001},
+                        {"time_to_tca": 3600, "collision_probability": 0.001}"""),
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 7200, "collision_probability": 0.00001},
+                        {"time_to_tca": "3600", "collision_probability": 0.000009}"""));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        JmxChallengeMetrics metrics = new JmxChallengeMetrics();
+
+        new ChallengeClass(collection, SweepSettings.defaults(), new StandInCalculationsStrategy(), metrics)
+                .adjustConjunctionsBasedOnTheta();
+
+        assertEquals(metrics.get(CounterMetric.CONJUNCTIONS_SCANNED), 2);
+        assertEquals(metrics.get(CounterMetric.TRENDS_INVALID), 1);
+        assertEquals(metrics.get(CounterMetric.THETAS_PROBLEMATIC), 1);
+        assertEquals(metrics.get(CounterMetric.PROBABILITIES_ADJUSTED), 1);
+        assertEquals(metrics.get(CounterMetric.SUGGESTIONS_REVOKED), 2);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.QUERY.name()), 3);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.DECODE.name()), 2);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.ANALYSIS.name()), 2);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.CALCULATIONS.name()), 1);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.WRITE.name()), 1);
+    }
+
+    @Test
+    public void testSkipUnchangedStoresFingerprints() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009}""");
+        FindIterable<Document> findIterable = mockFindIterable(collection, conjunction);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        SweepSettings settings = SweepSettings.builder().skipUnchanged(true).projectedReads(true).build();
+
+        new ChallengeClass(collection, settings, new StandInCalculationsStrategy()).adjustConjunctionsBasedOnTheta();
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).find(filter.capture());
+        assertEquals(filter.getValue().toBsonDocument(), ConjunctionFilters.changedSweepFilter().toBsonDocument());
+        ArgumentCaptor<Bson> projection = ArgumentCaptor.forClass(Bson.class);
+        verify(findIterable).projection(projection.capture());
+        assertEquals(projection.getValue().toBsonDocument().getInt32(
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT).getValue(), 1);
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> model = (UpdateOneModel<Document>) captor.getValue().get(0);
+        assertEquals(model.getUpdate().toBsonDocument().getDocument("$set").getDocument(
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT), ConjunctionFingerprints.of(conjunction)
+                .toBsonDocument());
+    }
+
+    @Test
+    public void testBatchLookup() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockFindIterable(collection,
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 7200, "collision_probability": 0.000001},
+                        {"time_to_tca": 3600, "collision_probability": 0.001}""").append(MongoKeys.CONJUNCTION_ID, "a"),
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 7200, "collision_probability": 0.00001},
+                        {"time_to_tca": 3600, "collision_probability": 0.000009}""").append(MongoKeys.CONJUNCTION_ID, "b"));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+
+        Map<String, ConjunctionOutcome.Status> outcomes = new ChallengeClass(collection, SweepSettings.defaults(),
+                new StandInCalculationsStrategy()).adjustConjunctionsBasedOnTheta(List.of("a", "b", "c", "a"));
+
+        assertEquals(outcomes, Map.of("a", ConjunctionOutcome.Status.UPDATED, "b", ConjunctionOutcome.Status.UNCHANGED,
+                "c", ConjunctionOutcome.Status.NOT_FOUND));
+        assertEquals(new ArrayList<>(outcomes.keySet()), List.of("a", "b", "c"));
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).find(filter.capture());
+        assertEquals(filter.getValue().toBsonDocument(), ConjunctionFilters.conjunctionIdsFilter(List.of("a", "b", "c"))
+                .toBsonDocument());
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        assertEquals(captor.getValue().size(), 1);
+    }
+
+    @Test
+    public void testBatchLookupIsChunked() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockFindIterable(collection);
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(2).build();
+
+        Map<String, ConjunctionOutcome.Status> outcomes = new ChallengeClass(collection, settings)
+                .adjustConjunctionsBasedOnTheta(List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(outcomes.size(), 5);
+        assertTrue(outcomes.values().stream().allMatch(status -> status == ConjunctionOutcome.Status.NOT_FOUND));
+        verify(collection, times(3)).find(any(Bson.class));
+        verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSkipUnchangedCannotBeCombinedWithTypedReads() {
+        SweepSettings.builder().skipUnchanged(true).typedReads(true).build();
+    }
+
+    @Test
+    public void testServerSidePrefilter() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        Document fingerprint = new Document("size", 2).append(MongoKeys.SUGGESTED, true);
+        Document revokeOnly = new Document(MongoKeys.ID, 2)
+                .append(MongoKeys.ANALYSIS_CLASS, ConjunctionPrefilter.REVOKE_ONLY)
+                .append(MongoKeys.RISK_TREND_FINGERPRINT, fingerprint);
+        Document analyze = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.000001},
+                {"time_to_tca": 3600, "collision_probability": 0.001}""")
+                .append(MongoKeys.ANALYSIS_CLASS, ConjunctionPrefilter.ANALYZE);
+        mockAggregateIterable(collection, revokeOnly, analyze);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.emptyList(), Collections.emptyList()));
+        SweepSettings settings = SweepSettings.builder().serverSidePrefilter(true).skipUnchanged(true).build();
+
+        SweepReport report = new ChallengeClass(collection, settings, new StandInCalculationsStrategy())
+                .adjustConjunctionsBasedOnTheta();
+
+        ArgumentCaptor<List<Bson>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(collection).aggregate(pipeline.capture());
+        verify(collection, never()).find(any(Bson.class));
+        assertEquals(pipeline.getValue().get(0).toBsonDocument(), new Document("$match",
+                ConjunctionFilters.changedSweepFilter()).toBsonDocument());
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> model = (UpdateOneModel<Document>) captor.getValue().get(0);
+        assertEquals(model.getFilter().toBsonDocument(), eq(MongoKeys.ID, 2).toBsonDocument());
+        assertEquals(model.getUpdate().toBsonDocument(), new Document("$set", new Document()
+                .append(MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false)
+                .append(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_FINGERPRINT, new Document("size", 2)
+                        .append(MongoKeys.SUGGESTED, false)))
+                .append("$currentDate", new Document(MongoKeys.ADJUSTED_AT, true)).toBsonDocument());
+        assertEquals(captor.getValue().size(), 2);
+        assertEquals(report.getScannedCount(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testServerSidePrefilterCannotBeCombinedWithTypedReads() {
+        SweepSettings.builder().serverSidePrefilter(true).typedReads(true).build();
+    }
+
+    @Test
+    public void testPrioritizeByTimeToTca() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        AggregateIterable<Document> aggregateIterable = mockAggregateIterable(collection);
+        SweepSettings settings = SweepSettings.builder().prioritizeByTimeToTca(true).projectedReads(true).build();
+
+        new ChallengeClass(collection, settings).adjustConjunctionsBasedOnTheta();
+
+        ArgumentCaptor<List<Bson>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(collection).aggregate(pipeline.capture());
+        verify(aggregateIterable).allowDiskUse(true);
+        assertEquals(pipeline.getValue().size(), 4);
+        assertEquals(pipeline.getValue().get(0).toBsonDocument(), new Document("$match",
+                ConjunctionFilters.sweepFilter()).toBsonDocument());
+        assertEquals(pipeline.getValue().get(1).toBsonDocument(), new Document("$addFields",
+                new Document(MongoKeys.LATEST_TIME_TO_TCA, ConjunctionPriorities.expression())).toBsonDocument());
+        assertEquals(pipeline.getValue().get(2).toBsonDocument(), Document.parse(
+                "{\"$sort\": {\"latest_time_to_tca\": 1, \"_id\": 1}}").toBsonDocument());
+        assertEquals(pipeline.getValue().get(3).toBsonDocument().getDocument("$project").getInt32(
+                MongoKeys.LATEST_TIME_TO_TCA).getValue(), 1);
+    }
+
+    @Test
+    public void testSweepTimeBudgetDefersConjunctions() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockFindIterable(collection,
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 7200, "collision_probability": 0.000001},
+                        {"time_to_tca": 3600, "collision_probability": 0.001}"""),
+                ChallengeClassAnalysisTest.getConjunction("""
+                        {"time_to_tca": 600, "collision_probability": 0.001}"""));
+        when(collection.countDocuments(any(Bson.class))).thenReturn(5L);
+        JmxChallengeMetrics metrics = new JmxChallengeMetrics();
+        SweepSettings settings = SweepSettings.builder().sweepTimeBudget(Duration.ofNanos(1)).build();
+
+        SweepReport report = new ChallengeClass(collection, settings, new StandInCalculationsStrategy(), metrics)
+                .adjustConjunctionsBasedOnTheta();
+
+        assertEquals(report.getScannedCount(), 0);
+        assertEquals(report.getDeferredCount(), 5);
+        assertEquals(report.getFirstDeferredTimeToTca(), 3600.0);
+        assertEquals(metrics.get(CounterMetric.CONJUNCTIONS_DEFERRED), 5);
+        verify(collection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    public void testDeferredConjunctionsAreCountedWithThePartitionFilterBeforeTheSweep() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindIterable<Document> findIterable = mockFindIterable(collection, ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 600, "collision_probability": 0.001}"""));
+        when(collection.countDocuments(any(Bson.class))).thenReturn(3L);
+        SweepSettings settings = SweepSettings.builder().skipUnchanged(true).build();
+        Bson partitionFilter = new IdRangePartition(10, 20).restrict(ConjunctionFilters.changedSweepFilter());
+
+        SweepReport report = new ChallengeClass(collection, settings, new StandInCalculationsStrategy())
+                .sweep(partitionFilter, SweepDeadline.after(Duration.ofNanos(1)));
+
+        assertEquals(report.getDeferredCount(), 3);
+        // Counted before the cursor is opened, with the filter the conjunctions are read with
+        InOrder inOrder = inOrder(collection, findIterable);
+        inOrder.verify(collection).countDocuments(partitionFilter);
+        inOrder.verify(findIterable).iterator();
+        verify(collection).find(partitionFilter);
+    }
+
+    @Test
+    public void testConjunctionsAreNotCountedWithoutTimeBudget() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockFindIterable(collection);
+
+        new ChallengeClass(collection, SweepSettings.defaults(), new StandInCalculationsStrategy())
+                .adjustConjunctionsBasedOnTheta();
+
+        verify(collection, never()).countDocuments(any(Bson.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIncrementalAnalysisCannotBeCombinedWithServerSidePrefilter() {
+        SweepSettings.builder().incrementalAnalysis(true).serverSidePrefilter(true).build();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPrioritizeByTimeToTcaCannotBeCombinedWithParallelSweep() {
+        SweepSettings.builder().prioritizeByTimeToTca(true).sweepParallelism(2).build();
+    }
+
+    private static Conjunction getConjunction() {
+        Conjunction conjunction = new Conjunction();
+        conjunction.setId(7);
+        conjunction.setRiskEstimationPresent(true);
+        conjunction.setSuggested(true);
+        conjunction.setRiskPredictionPresent(true);
+        conjunction.setCollisionProbability(1e-3);
+        RiskTrend riskTrend = new RiskTrend();
+        riskTrend.add(7200, 1e-6, true);
+        riskTrend.add(3600, 1e-3, true);
+        conjunction.setRiskTrend(riskTrend);
+        return conjunction;
+    }
+
+    static FindIterable<Document> mockFindIterable(MongoCollection<Document> collection, Document... conjunctions) {
+        FindIterable<Document> findIterable = mock(FindIterable.class);
+        when(collection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any())).thenReturn(findIterable);
+        when(findIterable.batchSize(anyInt())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenAnswer(i -> mockCursor(List.of(conjunctions).iterator()));
+        when(findIterable.first()).thenReturn(conjunctions.length > 0 ? conjunctions[0] : null);
+        return findIterable;
+    }
+
+    static AggregateIterable<Document> mockAggregateIterable(MongoCollection<Document> collection,
+                                                             Document... conjunctions) {
+        AggregateIterable<Document> aggregateIterable = mock(AggregateIterable.class);
+        when(collection.aggregate(anyList())).thenReturn(aggregateIterable);
+        when(aggregateIterable.allowDiskUse(any())).thenReturn(aggregateIterable);
+        when(aggregateIterable.batchSize(anyInt())).thenReturn(aggregateIterable);
+        when(aggregateIterable.iterator()).thenAnswer(i -> mockCursor(List.of(conjunctions).iterator()));
+        return aggregateIterable;
+    }
+
+    static <T> MongoCursor<T> mockCursor(Iterator<T> iterator) {
+        MongoCursor<T> cursor = mock(MongoCursor.class);
+        when(cursor.hasNext()).thenAnswer(i -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(i -> iterator.next());
+        return cursor;
+    }
+}
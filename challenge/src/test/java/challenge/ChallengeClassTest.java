@@ -5,27 +5,30 @@ import static com.mongodb.client.model.Filters.lt;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
 import static org.powermock.api.mockito.PowerMockito.*;
 import static challenge.ChallengeClass.MAXIMUM_NORAD_ID;
 
 import challenge.ChallengeClass;
 import challenge.utils.MongoIntegrationUtils;
 import com.mongodb.client.*;
+import com.mongodb.client.model.Updates;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.mockito.ArgumentCaptor;
-import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
 import org.testng.annotations.*;
 import utils.Calculations;
+import utils.StandInCalculationsStrategy;
 import utils.MongoCollectionNames;
 import utils.MongoKeys;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.testng.Assert.*;
 
@@ -89,18 +92,22 @@ public class ChallengeClassTest extends PowerMockTestCase {
         // Check that the native methods have been invocated the right number of times
         // There are 4 risk trends per conjunction, which are mocked in the following way:
         // For the first conjunction:
-        // 1st couple does not have a problematic theta
-        // 2nd couple does have problematic theta
-        // 3rd couple does not have problematic theta
+        // 1st couple does have a problematic theta
+        // 2nd couple does not have problematic theta
+        // 3rd couple does have problematic theta
         // For the second conjunction no couple has problematic thetas
+        // Each conjunction is analyzed with a single batched native call
 
-        PowerMockito.verifyStatic(Calculations.class, times(6));
+        PowerMockito.verifyStatic(Calculations.class, times(2));
+        Calculations.analyze_risk_trend_series(any(), any(), any(), any(), any(), any());
+
+        PowerMockito.verifyStatic(Calculations.class, never());
         Calculations.check_theta(any());
 
-        PowerMockito.verifyStatic(Calculations.class, times(6));
+        PowerMockito.verifyStatic(Calculations.class, never());
         Calculations.analyze_theta(any(), any(), any(), any(), any());
 
-        PowerMockito.verifyStatic(Calculations.class, times(2));
+        PowerMockito.verifyStatic(Calculations.class, never());
         Calculations.adjust_coll_prob(any(), any(), any(), any(), any());
 
         // The first conjunction should have had its status changed, as it had problematic theta values
@@ -140,10 +147,10 @@ public class ChallengeClassTest extends PowerMockTestCase {
         // Spy the ChallengeClass
         ChallengeClass challengeClass = spyChallengeClass(captor);
 
-        // Call adjustConjunctionsBasedOnTheta() and verify that adjustConjunctionBasedOnTheta(Document conjunction)
-        // has been called the right number of times
+        // Call adjustConjunctionsBasedOnTheta() and verify that adjustConjunctionBasedOnTheta(Document conjunction,
+        // ConjunctionWriter writer) has been called the right number of times
         challengeClass.adjustConjunctionsBasedOnTheta();
-        verify(challengeClass, times(2)).adjustConjunctionBasedOnTheta(any(Document.class));
+        verify(challengeClass, times(2)).adjustConjunctionBasedOnTheta(any(Document.class), any(ConjunctionWriter.class));
 
         // Verify that the filter used by the MongoCollection is as expected
         assertEquals(captor.getValue().toBsonDocument(), and(exists(MongoKeys.NEWEST_RISK_ESTIMATION), exists(
@@ -151,6 +158,80 @@ public class ChallengeClassTest extends PowerMockTestCase {
                 MAXIMUM_NORAD_ID), lt(MongoKeys.SAT2_NORAD_ID, MAXIMUM_NORAD_ID)).toBsonDocument());
     }
 
+    @Test
+    public void testSkipUnchangedConjunctions() {
+        addRandomConjunctions(2);
+        SweepSettings settings = SweepSettings.builder().skipUnchanged(true).build();
+        ChallengeClass challengeClass = new ChallengeClass(conjunctionsCollection, settings, new StandInCalculationsStrategy());
+
+        // The first sweep fingerprints every conjunction, the second one finds them all unchanged
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 2);
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 0);
+
+        // A new risk trend changes the fingerprint of its conjunction
+        conjunctionsCollection.updateOne(eq(MongoKeys.ID, conjunctions.get(0).get(MongoKeys.ID)), Updates.push(
+                MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND, new Document(MongoKeys.TIME_TO_TCA, 60)
+                        .append(MongoKeys.COLLISION_PROBABILITY, 0.0001)));
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 1);
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 0);
+
+        // So does an in-place change of an earlier entry along with an incremented risk trend version
+        conjunctionsCollection.updateOne(eq(MongoKeys.ID, conjunctions.get(1).get(MongoKeys.ID)), Updates.combine(
+                Updates.set(MongoKeys.riskTrendCollisionProbabilityPath(0), 0.5),
+                Updates.inc(MongoKeys.NEWEST_RISK_PREDICTION_RISK_TREND_VERSION, 1)));
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 1);
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 0);
+    }
+
+    @Test
+    public void testServerSidePrefilter() {
+        addConjunction("analyze", true, """
+                {"time_to_tca": 7200, "collision_probability": 0.000001},
+                {"time_to_tca": 3600, "collision_probability": 0.001}""");
+        addConjunction("revoke_only", true, """
+                {"time_to_tca": "7200", "collision_probability": 0.000001},
+                {"time_to_tca": 3600, "collision_probability": 0.001},
+                {"collision_probability": 0.001}""");
+        addConjunction("skip_single_trend", true, """
+                {"time_to_tca": 3600, "collision_probability": 0.001}""");
+        addConjunction("skip_unsuggested", false, """
+                {"time_to_tca": 7200, "collision_probability": NaN},
+                {"time_to_tca": 3600, "collision_probability": 0.001}""");
+        SweepSettings settings = SweepSettings.builder().serverSidePrefilter(true).skipUnchanged(true).build();
+        ChallengeClass challengeClass = new ChallengeClass(conjunctionsCollection, settings, new StandInCalculationsStrategy());
+
+        // Only the conjunctions whose outcome can change cross the wire, and the fingerprints written for them match
+        // the ones computed by the server
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 2);
+        assertEquals(challengeClass.adjustConjunctionsBasedOnTheta().getScannedCount(), 0);
+
+        // The outcome is the one of a sweep reading the whole conjunctions
+        Map<String, Boolean> suggested = new HashMap<>();
+        for (Document conjunction : conjunctionsCollection.find(in(MongoKeys.CONJUNCTION_ID,
+                List.of("analyze", "revoke_only", "skip_single_trend", "skip_unsuggested")))) {
+            suggested.put(conjunction.getString(MongoKeys.CONJUNCTION_ID), conjunction.get(
+                    MongoKeys.NEWEST_RISK_ESTIMATION, Document.class).getBoolean(MongoKeys.SUGGESTED));
+        }
+        new ChallengeClass(conjunctionsCollection, SweepSettings.defaults(), new StandInCalculationsStrategy())
+                .adjustConjunctionsBasedOnTheta();
+        for (Document conjunction : conjunctionsCollection.find(in(MongoKeys.CONJUNCTION_ID, suggested.keySet()))) {
+            assertEquals(conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class).getBoolean(
+                    MongoKeys.SUGGESTED), suggested.get(conjunction.getString(MongoKeys.CONJUNCTION_ID)));
+        }
+        assertFalse(suggested.get("analyze"));
+        assertFalse(suggested.get("revoke_only"));
+        assertTrue(suggested.get("skip_single_trend"));
+    }
+
+    @Test
+    public void testQueryShapesAreSupportedByIndexes() {
+        addRandomConjunctions(2);
+
+        // Throws if any query shape of ChallengeClass, its sweeps or the sweep leases falls back to a collection scan
+        new ConjunctionIndexes(conjunctionsCollection, mongoIntegrationUtils.getMongoDatabase(mongoClient)
+                .getCollection(MongoCollectionNames.SWEEP_LEASES)).prepare(true);
+    }
+
     private void addRandomConjunctions(int conjunctionsNumber) {
         Document randomConjunction;
         for (int i = 1; i <= conjunctionsNumber; i++) {
@@ -160,16 +241,37 @@ public class ChallengeClassTest extends PowerMockTestCase {
         }
     }
 
+    private void addConjunction(String conjunctionId, boolean suggested, String riskTrends) {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction(riskTrends);
+        conjunction.remove(MongoKeys.ID);
+        conjunction.append(MongoKeys.CONJUNCTION_ID, conjunctionId);
+        conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class).put(MongoKeys.SUGGESTED, suggested);
+        this.conjunctions.add(conjunction);
+        conjunctionsCollection.insertOne(conjunction);
+    }
+
     private void mockCalculations(Boolean t, Boolean... ts) throws Exception {
         PowerMockito.mockStatic(Calculations.class);
-        when(Calculations.check_theta(ArgumentMatchers.eq(new double[]{mockThetaValue}))).thenReturn(t, ts);
-        PowerMockito.doAnswer(i -> ((double[]) i.getArguments()[4])[0] = mockThetaValue).when(Calculations.class,
-                "analyze_theta", any(), any(), any(),
-                any(), any());
-        PowerMockito.doAnswer(i -> ((double[]) i.getArguments()[4])[0] = mockCollisionProbabilityValue).when(Calculations.class,
-                "adjust_coll_prob", any(), any(), any(), any(), any());
-
-
+        // Each pair of consecutive risk trends gets the next problematic flag, in order of analysis
+        Iterator<Boolean> problematicFlags = Stream.concat(Stream.of(t), Arrays.stream(ts)).iterator();
+        PowerMockito.doAnswer(i -> {
+            double[] collisionProbabilities = i.getArgument(1);
+            int[] seriesBounds = i.getArgument(2);
+            double[] theta = i.getArgument(3);
+            boolean[] problematic = i.getArgument(4);
+            double[] adjustedValues = i.getArgument(5);
+            for (int s = 0; s < seriesBounds.length; s += 2) {
+                for (int j = seriesBounds[s] + 1; j < seriesBounds[s + 1]; j++) {
+                    theta[j] = mockThetaValue;
+                    problematic[j] = problematicFlags.next();
+                    if (problematic[j]) {
+                        adjustedValues[j] = mockCollisionProbabilityValue;
+                        collisionProbabilities[j] = mockCollisionProbabilityValue;
+                    }
+                }
+            }
+            return null;
+        }).when(Calculations.class, "analyze_risk_trend_series", any(), any(), any(), any(), any(), any());
     }
 
     private ChallengeClass spyChallengeClass(ArgumentCaptor<Bson> captor) {
@@ -188,7 +290,7 @@ public class ChallengeClassTest extends PowerMockTestCase {
         Mockito.when(mongoCollectionMock.find(captor.capture())).thenReturn(findIterableMock);
         ChallengeClass challengeClass = new ChallengeClass(mongoCollectionMock);
         ChallengeClass challengeClassSpy = spy(challengeClass);
-        doNothing().when(challengeClassSpy).adjustConjunctionBasedOnTheta(any(Document.class));
+        doNothing().when(challengeClassSpy).adjustConjunctionBasedOnTheta(any(Document.class), any(ConjunctionWriter.class));
         return challengeClassSpy;
     }
 
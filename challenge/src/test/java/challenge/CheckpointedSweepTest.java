@@ -0,0 +1,127 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.gt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CheckpointedSweepTest {
+
+    @Test
+    public void testSweepsInChunksAndSavesCheckpoints() {
+        MongoCollection<Document> state = mockState(null);
+        ChallengeClass challengeClass = mockChallengeClass(List.of(1, 2, 4), List.of(5, 7));
+
+        SweepReport report = new CheckpointedSweep(challengeClass, state, "test", 3).run();
+
+        Bson filter = ConjunctionFilters.sweepFilter();
+        assertEquals(getSweptFilters(challengeClass), List.of(filter.toBsonDocument(),
+                and(filter, gt(MongoKeys.ID, 4)).toBsonDocument()));
+        assertEquals(report.getScannedCount(), 5);
+        List<Document> checkpoints = getCheckpoints(state);
+        assertEquals(checkpoints.get(0).get(MongoKeys.LAST_ID), 4);
+        assertFalse(checkpoints.get(0).getBoolean(MongoKeys.COMPLETED));
+        assertEquals(checkpoints.get(0).get(MongoKeys.SCANNED_COUNT), 3L);
+        assertEquals(checkpoints.get(1).get(MongoKeys.LAST_ID), 7);
+        assertTrue(checkpoints.get(1).getBoolean(MongoKeys.COMPLETED));
+        assertEquals(checkpoints.get(1).get(MongoKeys.SCANNED_COUNT), 5L);
+    }
+
+    @Test
+    public void testFullLastChunkIsFollowedByAnEmptyOne() {
+        MongoCollection<Document> state = mockState(null);
+        ChallengeClass challengeClass = mockChallengeClass(List.of(1, 2, 4), List.of());
+
+        SweepReport report = new CheckpointedSweep(challengeClass, state, "test", 3).run();
+
+        assertEquals(getSweptFilters(challengeClass).size(), 2);
+        assertEquals(report.getScannedCount(), 3);
+        List<Document> checkpoints = getCheckpoints(state);
+        assertEquals(checkpoints.get(1).get(MongoKeys.LAST_ID), 4);
+        assertTrue(checkpoints.get(1).getBoolean(MongoKeys.COMPLETED));
+    }
+
+    @Test
+    public void testInterruptedSweepIsResumed() {
+        MongoCollection<Document> state = mockState(new Document(MongoKeys.ID, "sweep:test").append(MongoKeys.LAST_ID, 4)
+                .append(MongoKeys.SCANNED_COUNT, 3L).append(MongoKeys.MATCHED_COUNT, 1)
+                .append(MongoKeys.MODIFIED_COUNT, 1).append(MongoKeys.FAILED_COUNT, 0)
+                .append(MongoKeys.COMPLETED, false));
+        ChallengeClass challengeClass = mockChallengeClass(List.of(5, 7));
+
+        SweepReport report = new CheckpointedSweep(challengeClass, state, "test", 3).run();
+
+        assertEquals(getSweptFilters(challengeClass), List.of(
+                and(ConjunctionFilters.sweepFilter(), gt(MongoKeys.ID, 4)).toBsonDocument()));
+        assertEquals(report.getScannedCount(), 5);
+        assertEquals(report.getWriteReport().getModifiedCount(), 2);
+    }
+
+    @Test
+    public void testCompletedSweepStartsOver() {
+        MongoCollection<Document> state = mockState(new Document(MongoKeys.ID, "sweep:test").append(MongoKeys.LAST_ID, 7)
+                .append(MongoKeys.COMPLETED, true));
+        ChallengeClass challengeClass = mockChallengeClass(List.of(1));
+
+        SweepReport report = new CheckpointedSweep(challengeClass, state, "test", 3).run();
+
+        assertEquals(getSweptFilters(challengeClass), List.of(ConjunctionFilters.sweepFilter().toBsonDocument()));
+        assertEquals(report.getScannedCount(), 1);
+    }
+
+    /**
+     * @param chunks the _ids read by each chunk, each chunk modifying one conjunction
+     * @return the mocked ChallengeClass
+     */
+    @SafeVarargs
+    private ChallengeClass mockChallengeClass(List<?>... chunks) {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        when(challengeClass.getSweepFilter()).thenReturn(ConjunctionFilters.sweepFilter());
+        when(challengeClass.getDataQualityReport()).thenReturn(DataQualityReport.EMPTY);
+        Iterator<List<?>> chunkIds = Arrays.asList(chunks).iterator();
+        when(challengeClass.sweepChunk(any(), eq(3), any())).thenAnswer(invocation -> {
+            List<?> ids = chunkIds.next();
+            Consumer<Object> idConsumer = invocation.getArgument(2);
+            ids.forEach(idConsumer);
+            return new SweepReport(ids.size(), new BulkWriteReport(1, 1, 0));
+        });
+        return challengeClass;
+    }
+
+    private MongoCollection<Document> mockState(Document checkpoint) {
+        MongoCollection<Document> state = mock(MongoCollection.class);
+        FindIterable<Document> findIterable = mock(FindIterable.class);
+        when(state.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.first()).thenReturn(checkpoint);
+        return state;
+    }
+
+    private List<Object> getSweptFilters(ChallengeClass challengeClass) {
+        ArgumentCaptor<Bson> captor = ArgumentCaptor.forClass(Bson.class);
+        verify(challengeClass, atLeastOnce()).sweepChunk(captor.capture(), anyInt(), any());
+        return captor.getAllValues().stream().map(filter -> (Object) filter.toBsonDocument()).toList();
+    }
+
+    private List<Document> getCheckpoints(MongoCollection<Document> state) {
+        ArgumentCaptor<Document> captor = ArgumentCaptor.forClass(Document.class);
+        verify(state, atLeastOnce()).replaceOne(any(Bson.class), captor.capture(), any(ReplaceOptions.class));
+        return captor.getAllValues();
+    }
+}
@@ -0,0 +1,133 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConjunctionAdjustmentServiceTest {
+
+    @Test
+    public void testUnrelatedConjunctionsAreAdjustedConcurrently() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(i -> {
+            bothStarted.countDown();
+            // Only returns if the other conjunction is adjusted at the same time
+            assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(challengeClass).adjustConjunctionBasedOnTheta(anyString());
+
+        try (ConjunctionAdjustmentService service = new ConjunctionAdjustmentService(challengeClass, 2, 4)) {
+            String first = "a";
+            String second = findIdOnOtherStripe(service, first);
+            service.adjustConjunctionsBasedOnTheta(List.of(first, second)).join();
+        }
+    }
+
+    @Test
+    public void testSameConjunctionIsSerialized() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        doAnswer(i -> {
+            AtomicInteger count = running.computeIfAbsent(i.getArgument(0), id -> new AtomicInteger());
+            if (count.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            Thread.sleep(2);
+            count.decrementAndGet();
+            return null;
+        }).when(challengeClass).adjustConjunctionBasedOnTheta(anyString());
+
+        try (ConjunctionAdjustmentService service = new ConjunctionAdjustmentService(challengeClass)) {
+            service.adjustConjunctionsBasedOnTheta(Collections.nCopies(20, "conjunction")).join();
+        }
+
+        assertEquals(overlaps.get(), 0);
+        verify(challengeClass, times(20)).adjustConjunctionBasedOnTheta("conjunction");
+    }
+
+    @Test
+    public void testAdjustmentsOfAStripeRunInRequestOrder() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        List<String> adjusted = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(i -> {
+            adjusted.add(i.getArgument(0));
+            return null;
+        }).when(challengeClass).adjustConjunctionBasedOnTheta(anyString());
+        doThrow(new IllegalStateException("failure")).when(challengeClass).adjustConjunctionBasedOnTheta("failing");
+
+        List<String> requested = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requested.add(i == 10 ? "failing" : "conjunction-" + i);
+        }
+        try (ConjunctionAdjustmentService service = new ConjunctionAdjustmentService(challengeClass, 1, 4)) {
+            expectThrows(CompletionException.class, () -> service.adjustConjunctionsBasedOnTheta(requested).join());
+        }
+
+        // The failed adjustment does not prevent the next ones
+        requested.remove("failing");
+        assertEquals(adjusted, requested);
+    }
+
+    @Test
+    public void testAdjustmentsReuseABoundedNumberOfWorkers() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        doAnswer(i -> workers.add(Thread.currentThread())).when(challengeClass)
+                .adjustConjunctionBasedOnTheta(anyString());
+
+        try (ConjunctionAdjustmentService service = new ConjunctionAdjustmentService(challengeClass, 16, 2)) {
+            List<String> conjunctionIds = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                conjunctionIds.add("C" + i);
+            }
+            service.adjustConjunctionsBasedOnTheta(conjunctionIds).join();
+        }
+
+        assertTrue(workers.size() <= 2, workers.toString());
+    }
+
+    @Test
+    public void testFailuresArePropagated() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        IllegalStateException failure = new IllegalStateException("failure");
+        doThrow(failure).when(challengeClass).adjustConjunctionBasedOnTheta("failing");
+
+        try (ConjunctionAdjustmentService service = new ConjunctionAdjustmentService(challengeClass)) {
+            CompletionException e = expectThrows(CompletionException.class,
+                    () -> service.adjustConjunctionsBasedOnTheta(List.of("ok", "failing")).join());
+            assertSame(e.getCause(), failure);
+        }
+        verify(challengeClass).adjustConjunctionBasedOnTheta("ok");
+    }
+
+    private static String findIdOnOtherStripe(ConjunctionAdjustmentService service, String id) {
+        for (int i = 0; ; i++) {
+            String candidate = "conjunction-" + i;
+            if (service.stripeOf(candidate) != service.stripeOf(id)) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package challenge;
+
+import static org.testng.Assert.*;
+
+import org.bson.BsonDocument;
+import org.testng.annotations.Test;
+
+import java.util.regex.Pattern;
+
+/**
+ * Unit tests of the selection of the change stream events re-evaluated by ConjunctionChangeStreamWatcher, which do
+ * not need a MongoDB instance
+ */
+public class ConjunctionChangeStreamWatcherFilterTest {
+
+    @Test
+    public void testRiskTrendPathRegex() {
+        Pattern pattern = Pattern.compile(ConjunctionChangeStreamWatcher.RISK_TREND_PATH_REGEX);
+        assertTrue(pattern.matcher("newest_risk_prediction").matches());
+        assertTrue(pattern.matcher("newest_risk_prediction.risk_trend").matches());
+        assertTrue(pattern.matcher("newest_risk_prediction.risk_trend.12").matches());
+        assertTrue(pattern.matcher("newest_risk_prediction.risk_trend.12.time_to_tca").matches());
+        assertTrue(pattern.matcher("newest_risk_prediction.risk_trend.12.collision_probability").matches());
+        assertFalse(pattern.matcher("newest_risk_prediction.risk_trend.12.collision_probability_source").matches());
+        assertFalse(pattern.matcher("newest_risk_prediction.collision_probability").matches());
+        assertFalse(pattern.matcher("newest_risk_prediction.risk_trend_fingerprint").matches());
+        assertFalse(pattern.matcher("newest_risk_prediction.risk_trend_analysis").matches());
+        assertFalse(pattern.matcher("newest_risk_estimation.suggested").matches());
+    }
+
+    @Test
+    public void testAdjustmentUpdatesAreLeftOut() {
+        BsonDocument match = ConjunctionChangeStreamWatcher.getPipeline().get(0).toBsonDocument().getDocument("$match");
+
+        assertTrue(match.toJson().contains(
+                "{\"updateDescription.updatedFields.adjusted_at\": {\"$exists\": false}}"), match.toJson());
+    }
+}
@@ -0,0 +1,173 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.eq;
+import static org.testng.Assert.*;
+
+import challenge.utils.MongoIntegrationUtils;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.CalculationsStrategy;
+import utils.MongoCollectionNames;
+import utils.MongoKeys;
+
+
+/**
+ * Integration tests of ConjunctionChangeStreamWatcher, run against the single-node replica set of the Mongo container
+ */
+public class ConjunctionChangeStreamWatcherTest {
+
+    private static final double ADJUSTED_VALUE = 0.5;
+    private static final long TIMEOUT_MILLIS = 20_000;
+
+    private final MongoIntegrationUtils mongoIntegrationUtils = new MongoIntegrationUtils();
+    private MongoClient mongoClient;
+    private MongoCollection<Document> conjunctionsCollection;
+    private MongoCollection<Document> stateCollection;
+    private ChallengeClass challengeClass;
+
+    @BeforeClass
+    public void setUp() {
+        mongoIntegrationUtils.startMongoContainer();
+        mongoClient = mongoIntegrationUtils.createMongoClient();
+        conjunctionsCollection = mongoIntegrationUtils.getMongoDatabase(mongoClient).getCollection(MongoCollectionNames.CONJUNCTIONS);
+        stateCollection = mongoIntegrationUtils.getMongoDatabase(mongoClient).getCollection(MongoCollectionNames.CHALLENGE_STATE);
+        challengeClass = new ChallengeClass(conjunctionsCollection, SweepSettings.defaults(), new ProblematicStrategy());
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        conjunctionsCollection.deleteMany(new Document());
+        stateCollection.deleteMany(new Document());
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+        mongoIntegrationUtils.mongoContainer.stop();
+    }
+
+    @Test
+    public void testInsertedAndUpdatedConjunctionsAreAdjusted() throws Exception {
+        ConjunctionChangeStreamWatcher watcher = new ConjunctionChangeStreamWatcher(challengeClass,
+                conjunctionsCollection, stateCollection, "test");
+        Thread thread = startWatcher(watcher);
+
+        conjunctionsCollection.insertOne(getConjunction(1));
+        awaitSuggested(1, false);
+
+        // The updates made by the adjustment itself are not counted as handled
+        conjunctionsCollection.updateOne(eq(MongoKeys.ID, 1), Updates.set("newest_risk_estimation.suggested", true));
+        conjunctionsCollection.updateOne(eq(MongoKeys.ID, 1), Updates.push("newest_risk_prediction.risk_trend",
+                new Document(MongoKeys.TIME_TO_TCA, 900).append(MongoKeys.COLLISION_PROBABILITY, 0.00001)));
+        awaitSuggested(1, false);
+
+        watcher.close();
+        thread.join(TIMEOUT_MILLIS);
+        assertEquals(watcher.getHandledCount(), 2);
+    }
+
+    @Test
+    public void testUpstreamCollisionProbabilityUpdatesAreAdjusted() throws Exception {
+        ConjunctionChangeStreamWatcher watcher = new ConjunctionChangeStreamWatcher(challengeClass,
+                conjunctionsCollection, stateCollection, "collision_probability");
+        Thread thread = startWatcher(watcher);
+
+        conjunctionsCollection.insertOne(getConjunction(1));
+        awaitSuggested(1, false);
+        conjunctionsCollection.updateOne(eq(MongoKeys.ID, 1), Updates.combine(
+                Updates.set("newest_risk_estimation.suggested", true),
+                Updates.set("newest_risk_prediction.risk_trend.1.collision_probability", 0.3)));
+        awaitSuggested(1, false);
+
+        watcher.close();
+        thread.join(TIMEOUT_MILLIS);
+        assertEquals(watcher.getHandledCount(), 2);
+        Document riskTrend = conjunctionsCollection.find(eq(MongoKeys.ID, 1)).first()
+                .get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class).getList(MongoKeys.RISK_TREND, Document.class).get(1);
+        assertEquals(riskTrend.getDouble(MongoKeys.COLLISION_PROBABILITY), ADJUSTED_VALUE);
+    }
+
+    @Test
+    public void testRestartedWatcherResumesAfterSavedToken() throws Exception {
+        ConjunctionChangeStreamWatcher watcher = new ConjunctionChangeStreamWatcher(challengeClass,
+                conjunctionsCollection, stateCollection, "resume");
+        Thread thread = startWatcher(watcher);
+        conjunctionsCollection.insertOne(getConjunction(1));
+        awaitSuggested(1, false);
+        watcher.close();
+        thread.join(TIMEOUT_MILLIS);
+        assertNotNull(stateCollection.find(eq(MongoKeys.ID, "change_stream:resume")).first());
+
+        // Inserted while no watcher is running
+        conjunctionsCollection.insertOne(getConjunction(2));
+
+        ConjunctionChangeStreamWatcher restartedWatcher = new ConjunctionChangeStreamWatcher(challengeClass,
+                conjunctionsCollection, stateCollection, "resume");
+        Thread restartedThread = startWatcher(restartedWatcher);
+        awaitSuggested(2, false);
+        restartedWatcher.close();
+        restartedThread.join(TIMEOUT_MILLIS);
+        assertEquals(restartedWatcher.getHandledCount(), 1);
+    }
+
+    private Thread startWatcher(ConjunctionChangeStreamWatcher watcher) throws InterruptedException {
+        Thread thread = new Thread(watcher, "conjunctions-watcher");
+        thread.start();
+        // Give the watcher the time to open its change stream
+        Thread.sleep(2000);
+        return thread;
+    }
+
+    private void awaitSuggested(int id, boolean suggested) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Document conjunction = conjunctionsCollection.find(eq(MongoKeys.ID, id)).first();
+            if (conjunction != null && conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class)
+                    .getBoolean(MongoKeys.SUGGESTED) == suggested) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Conjunction " + id + " has not been adjusted");
+    }
+
+    private static Document getConjunction(int id) {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009}""");
+        conjunction.put(MongoKeys.ID, id);
+        conjunction.put(MongoKeys.CONJUNCTION_ID, "conjunction" + id);
+        return conjunction;
+    }
+
+    /**
+     * Strategy with every theta problematic
+     */
+    private static class ProblematicStrategy implements CalculationsStrategy {
+
+        @Override
+        public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                   double collisionProbability1) {
+            return 1;
+        }
+
+        @Override
+        public boolean checkTheta(double theta) {
+            return true;
+        }
+
+        @Override
+        public double adjustCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                                 double collisionProbability1) {
+            return ADJUSTED_VALUE;
+        }
+    }
+}
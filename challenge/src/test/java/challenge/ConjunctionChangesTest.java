@@ -0,0 +1,32 @@
+package challenge;
+
+import static org.testng.Assert.*;
+
+import org.bson.Document;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+public class ConjunctionChangesTest {
+
+    @Test
+    public void testOnlyChangedPathsAreSet() {
+        Document riskTrend = new Document(MongoKeys.COLLISION_PROBABILITY, 0.5);
+        Document riskEstimation = new Document(MongoKeys.SUGGESTED, true);
+        ConjunctionChanges changes = new ConjunctionChanges();
+
+        changes.set(riskTrend, MongoKeys.COLLISION_PROBABILITY, MongoKeys.riskTrendCollisionProbabilityPath(3), 0.5);
+        assertTrue(changes.isEmpty());
+
+        changes.set(riskTrend, MongoKeys.COLLISION_PROBABILITY, MongoKeys.riskTrendCollisionProbabilityPath(3), 0.25);
+        changes.set(riskEstimation, MongoKeys.SUGGESTED, MongoKeys.NEWEST_RISK_ESTIMATION_SUGGESTED, false);
+
+        assertFalse(changes.isEmpty());
+        assertEquals(riskTrend.getDouble(MongoKeys.COLLISION_PROBABILITY), 0.25);
+        assertFalse(riskEstimation.getBoolean(MongoKeys.SUGGESTED));
+        assertEquals(changes.toUpdate().toBsonDocument(), Document.parse("""
+                {"$set": {
+                  "newest_risk_prediction.risk_trend.3.collision_probability": 0.25,
+                  "newest_risk_estimation.suggested": false
+                }, "$currentDate": {"adjusted_at": true}}""").toBsonDocument());
+    }
+}
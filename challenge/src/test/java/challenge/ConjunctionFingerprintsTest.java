@@ -0,0 +1,77 @@
+package challenge;
+
+import static org.testng.Assert.*;
+
+import org.bson.Document;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+public class ConjunctionFingerprintsTest {
+
+    @Test
+    public void testFingerprint() {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.25},
+                {"time_to_tca": 3600, "collision_probability": 0.5},
+                "invalid",
+                {"time_to_tca": 900, "collision_probability": "invalid"}""");
+        conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class).append(MongoKeys.RISK_TREND_VERSION, 3);
+
+        assertEquals(ConjunctionFingerprints.of(conjunction), Document.parse("""
+                {
+                  "risk_trend_version": 3,
+                  "size": 4,
+                  "last_time_to_tca": 900,
+                  "last_collision_probability": "invalid",
+                  "latest_collision_probability": 0.00001,
+                  "suggested": true
+                }"""));
+    }
+
+    @Test
+    public void testFingerprintChangesWithTheRiskTrend() {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001}""");
+        Document appended = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.00001}""");
+        Document changed = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00002}""");
+
+        assertNotEquals(ConjunctionFingerprints.of(appended), ConjunctionFingerprints.of(conjunction));
+        assertNotEquals(ConjunctionFingerprints.of(changed), ConjunctionFingerprints.of(conjunction));
+    }
+
+    @Test
+    public void testFingerprintChangesWithTheRiskTrendVersion() {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.00002}""");
+        Document fingerprint = ConjunctionFingerprints.of(conjunction);
+        // An upstream writer changing an earlier entry in place increments the version
+        conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class).append(MongoKeys.RISK_TREND_VERSION, 1);
+
+        assertNotEquals(ConjunctionFingerprints.of(conjunction), fingerprint);
+    }
+
+    @Test
+    public void testExpressionHasTheSameShape() {
+        Document conjunction = ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001}""");
+        conjunction.get(MongoKeys.NEWEST_RISK_PREDICTION, Document.class).append(MongoKeys.RISK_TREND_VERSION, 1);
+
+        assertEquals(ConjunctionFingerprints.expression().keySet(), ConjunctionFingerprints.of(conjunction).keySet());
+    }
+
+    @Test
+    public void testMissingFieldsAreLeftOut() {
+        Document conjunction = Document.parse("""
+                {"newest_risk_estimation": {}, "newest_risk_prediction": {"risk_trend": [{}]}}""");
+
+        assertEquals(ConjunctionFingerprints.of(conjunction), Document.parse("""
+                {"size": 1}"""));
+        assertEquals(ConjunctionFingerprints.of(Document.parse("""
+                {"newest_risk_estimation": {}, "newest_risk_prediction": {}}""")), Document.parse("""
+                {"size": 0}"""));
+    }
+}
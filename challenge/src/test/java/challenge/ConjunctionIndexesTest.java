@@ -0,0 +1,107 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class ConjunctionIndexesTest {
+
+    private static final Document INDEX_SCAN_EXPLAIN = Document.parse("""
+            {"queryPlanner": {"winningPlan": {"queryPlan": {"stage": "FETCH",
+              "inputStage": {"stage": "IXSCAN", "indexName": "sweep_norad_ids"}}}}}""");
+
+    private static final Document COLLECTION_SCAN_EXPLAIN = Document.parse("""
+            {"queryPlanner": {"winningPlan": {"stage": "COLLSCAN"}}}""");
+
+    private static final Document AGGREGATION_INDEX_SCAN_EXPLAIN = Document.parse("""
+            {"stages": [{"$cursor": {"queryPlanner": {"winningPlan": {"stage": "FETCH",
+              "inputStage": {"stage": "IXSCAN", "indexName": "sweep_norad_ids"}},
+              "rejectedPlans": [{"stage": "COLLSCAN"}]}}}, {"$sort": {}}]}""");
+
+    private static final Document AGGREGATION_COLLECTION_SCAN_EXPLAIN = Document.parse("""
+            {"stages": [{"$cursor": {"queryPlanner": {"winningPlan": {"stage": "COLLSCAN"}}}}]}""");
+
+    private static final List<String> QUERY_SHAPES = List.of("sweep", "changed sweep", "conjunction id",
+            "conjunction ids", "partition split", "partition", "checkpoint chunk", "prefilter chunk",
+            "prioritized sweep", "prefilter", "changed prioritized prefilter");
+
+    @Test
+    public void testPartialIndexesOnTheSweepFilter() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockExplain(collection, INDEX_SCAN_EXPLAIN, AGGREGATION_INDEX_SCAN_EXPLAIN);
+
+        new ConjunctionIndexes(collection).prepare(true);
+
+        ArgumentCaptor<List<IndexModel>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).createIndexes(captor.capture());
+        for (IndexModel index : captor.getValue()) {
+            assertEquals(index.getOptions().getPartialFilterExpression().toBsonDocument(),
+                    ConjunctionFilters.sweepFilter().toBsonDocument());
+        }
+        assertEquals(captor.getValue().get(0).getKeys().toBsonDocument(),
+                Document.parse("{\"sat1_norad_id\": 1, \"sat2_norad_id\": 1}").toBsonDocument());
+        assertEquals(captor.getValue().get(1).getKeys().toBsonDocument(),
+                Document.parse("{\"conjunction_id\": 1}").toBsonDocument());
+    }
+
+    @Test
+    public void testCollectionScansAreReported() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockExplain(collection, COLLECTION_SCAN_EXPLAIN, AGGREGATION_COLLECTION_SCAN_EXPLAIN);
+        ConjunctionIndexes indexes = new ConjunctionIndexes(collection);
+
+        assertEquals(indexes.verifyQueryPlans(), QUERY_SHAPES);
+        assertThrows(IllegalStateException.class, () -> indexes.prepare(true));
+    }
+
+    @Test
+    public void testLeaseQueriesAreVerified() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockExplain(collection, INDEX_SCAN_EXPLAIN, AGGREGATION_INDEX_SCAN_EXPLAIN);
+        MongoCollection<Document> leaseCollection = mock(MongoCollection.class);
+        mockExplain(leaseCollection, COLLECTION_SCAN_EXPLAIN, AGGREGATION_COLLECTION_SCAN_EXPLAIN);
+        ConjunctionIndexes indexes = new ConjunctionIndexes(collection, leaseCollection);
+
+        assertEquals(indexes.verifyQueryPlans(), List.of("sweep leases", "claimable leases", "completed leases",
+                "owned lease"));
+        indexes.ensureIndexes();
+        ArgumentCaptor<List<IndexModel>> captor = ArgumentCaptor.forClass(List.class);
+        verify(leaseCollection).createIndexes(captor.capture());
+        assertEquals(captor.getValue().get(0).getKeys().toBsonDocument(),
+                Document.parse("{\"sweep\": 1, \"completed\": 1}").toBsonDocument());
+    }
+
+    @Test
+    public void testCollectionScansDoNotFailIfNotFailFast() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        mockExplain(collection, COLLECTION_SCAN_EXPLAIN, AGGREGATION_COLLECTION_SCAN_EXPLAIN);
+
+        new ConjunctionIndexes(collection).prepare(false);
+    }
+
+    private void mockExplain(MongoCollection<Document> collection, Document explain, Document aggregationExplain) {
+        FindIterable<Document> findIterable = mock(FindIterable.class);
+        when(collection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.sort(any())).thenReturn(findIterable);
+        when(findIterable.limit(anyInt())).thenReturn(findIterable);
+        when(findIterable.explain()).thenReturn(explain);
+        AggregateIterable<Document> aggregateIterable = mock(AggregateIterable.class);
+        when(collection.aggregate(anyList())).thenReturn(aggregateIterable);
+        when(aggregateIterable.explain()).thenReturn(aggregationExplain);
+        when(collection.createIndexes(anyList())).thenReturn(List.of(ConjunctionIndexes.SWEEP_INDEX_NAME,
+                ConjunctionIndexes.CONJUNCTION_ID_INDEX_NAME));
+    }
+}
@@ -0,0 +1,31 @@
+package challenge;
+
+import static org.testng.Assert.assertEquals;
+
+import org.bson.Document;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+/**
+ * Unit tests of ConjunctionPriorities
+ */
+public class ConjunctionPrioritiesTest {
+
+    @Test
+    public void testLatestTimeToTca() {
+        assertEquals(ConjunctionPriorities.latestTimeToTca(ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.000001},
+                {"time_to_tca": 3600, "collision_probability": 0.001}""")), 3600.0);
+        assertEquals(ConjunctionPriorities.latestTimeToTca(new Document(MongoKeys.LATEST_TIME_TO_TCA, 60)), 60.0);
+    }
+
+    @Test
+    public void testUnknownLatestTimeToTca() {
+        assertEquals(ConjunctionPriorities.latestTimeToTca(ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 3600, "collision_probability": 0.001},
+                {"time_to_tca": "60", "collision_probability": 0.001}""")), SweepReport.UNKNOWN_TIME_TO_TCA);
+        assertEquals(ConjunctionPriorities.latestTimeToTca(ChallengeClassAnalysisTest.getConjunction("")),
+                SweepReport.UNKNOWN_TIME_TO_TCA);
+        assertEquals(ConjunctionPriorities.latestTimeToTca(new Document()), SweepReport.UNKNOWN_TIME_TO_TCA);
+    }
+}
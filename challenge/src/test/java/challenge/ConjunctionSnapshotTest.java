@@ -0,0 +1,189 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import challenge.model.Conjunction;
+import challenge.model.RiskTrend;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import utils.StandInCalculationsStrategy;
+import utils.MongoKeys;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ConjunctionSnapshotTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ObjectId objectId = new ObjectId();
+        Conjunction first = getConjunction(objectId, 1e-6, 1e-3);
+        Conjunction second = new Conjunction();
+        second.setId("second");
+        RiskTrend riskTrend = new RiskTrend();
+        riskTrend.add(7200, 1e-5, true);
+        riskTrend.addInvalid();
+        second.setRiskTrend(riskTrend);
+        Path file = directory.resolve("conjunctions.snapshot");
+
+        try (ConjunctionSnapshotWriter writer = new ConjunctionSnapshotWriter(file)) {
+            writer.add(first);
+            writer.add(second);
+            assertEquals(writer.finish(), 2);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(files.toList(), List.of(file));
+        }
+        try (ConjunctionSnapshot snapshot = ConjunctionSnapshot.open(file)) {
+            assertEquals(snapshot.size(), 2);
+            assertEquals(snapshot.getEntryCount(), 4);
+            Conjunction read = snapshot.getConjunction(0);
+            assertEquals(read.getId(), objectId);
+            assertEquals(read.getSat1NoradId(), Integer.valueOf(25544));
+            assertEquals(read.getSat2NoradId(), Integer.valueOf(12345));
+            assertEquals(read.getSuggested(), Boolean.TRUE);
+            assertEquals(read.getCollisionProbability(), 1e-3);
+            assertEquals(read.getRiskTrend().size(), 2);
+            assertEquals(read.getRiskTrend().getTimeToTca(1), 3600d);
+            assertEquals(read.getRiskTrend().getCollisionProbability(1), 1e-3);
+
+            read = snapshot.getConjunction(1);
+            assertEquals(read.getId(), "second");
+            assertNull(read.getSat1NoradId());
+            assertNull(read.getSuggested());
+            assertNull(read.getCollisionProbability());
+            assertTrue(read.getRiskTrend().isValid(0));
+            assertFalse(read.getRiskTrend().isValid(1));
+        }
+    }
+
+    @Test
+    public void testExportAnalyzeAndApply() throws IOException {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        MongoCollection<Conjunction> typedCollection = mock(MongoCollection.class);
+        when(collection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(collection.withDocumentClass(Conjunction.class)).thenReturn(typedCollection);
+        when(typedCollection.withCodecRegistry(any())).thenReturn(typedCollection);
+        FindIterable<Conjunction> findIterable = mock(FindIterable.class);
+        when(typedCollection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenAnswer(i -> ChallengeClassSweepTest.mockCursor(List.of(
+                getConjunction(7, 1e-6, 1e-3), getConjunction(8, 1e-5, 9e-6)).iterator()));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenReturn(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()));
+        Path snapshotFile = directory.resolve("conjunctions.snapshot");
+        Path adjustmentsFile = directory.resolve("conjunctions.adjustments");
+
+        assertEquals(ConjunctionSnapshot.export(collection, snapshotFile), 2);
+        try (ConjunctionSnapshot snapshot = ConjunctionSnapshot.open(snapshotFile)) {
+            MongoCollection<Document> unusedCollection = mock(MongoCollection.class);
+            ChallengeClass challengeClass = new ChallengeClass(unusedCollection, SweepSettings.defaults(),
+                    new StandInCalculationsStrategy());
+            assertEquals(SnapshotAdjustments.analyze(challengeClass, snapshot, adjustmentsFile), 1);
+            verify(unusedCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        }
+        BulkWriteReport report = SnapshotAdjustments.apply(adjustmentsFile, collection, SweepSettings.defaults());
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(typedCollection).find(filter.capture());
+        assertEquals(filter.getValue().toBsonDocument(), ConjunctionFilters.sweepFilter().toBsonDocument());
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        assertEquals(captor.getValue().size(), 1);
+        UpdateOneModel<Document> model = (UpdateOneModel<Document>) captor.getValue().get(0);
+        // The adjustment only applies to the conjunction as it was in the snapshot
+        assertEquals(model.getFilter().toBsonDocument(), new Document(MongoKeys.ID, 7)
+                .append("newest_risk_prediction.risk_trend.2", new Document("$exists", false))
+                .append("newest_risk_prediction.risk_trend.1", new Document("$exists", true))
+                .append("newest_risk_prediction.risk_trend.0.time_to_tca", 7200d)
+                .append("newest_risk_prediction.risk_trend.0.collision_probability", 1e-6)
+                .append("newest_risk_prediction.risk_trend.1.time_to_tca", 3600d)
+                .append("newest_risk_prediction.risk_trend.1.collision_probability", 1e-3)
+                .append("newest_risk_prediction.collision_probability", 1e-3)
+                .append("newest_risk_estimation.suggested", true).toBsonDocument());
+        double adjustedValue = new StandInCalculationsStrategy().adjustCollisionProbability(7200, 1e-6, 3600, 1e-3);
+        assertEquals(model.getUpdate().toBsonDocument(), new Document("$set", new Document()
+                .append("newest_risk_prediction.risk_trend.1.collision_probability", adjustedValue)
+                .append("newest_risk_prediction.collision_probability", adjustedValue)
+                .append("newest_risk_estimation.suggested", false))
+                .append("$currentDate", new Document(MongoKeys.ADJUSTED_AT, true)).toBsonDocument());
+        assertEquals(report.getModifiedCount(), 1);
+    }
+
+    @Test
+    public void testGuardSkipsInvalidEntriesAndMissingValues() {
+        RiskTrend riskTrend = new RiskTrend();
+        riskTrend.add(7200, 1e-6, true);
+        riskTrend.addInvalid();
+
+        assertEquals(SnapshotAdjustments.guard(new Document(MongoKeys.ID, 7).toBsonDocument(), riskTrend, null, null),
+                new Document(MongoKeys.ID, 7)
+                        .append("newest_risk_prediction.risk_trend.2", new Document("$exists", false))
+                        .append("newest_risk_prediction.risk_trend.1", new Document("$exists", true))
+                        .append("newest_risk_prediction.risk_trend.0.time_to_tca", 7200d)
+                        .append("newest_risk_prediction.risk_trend.0.collision_probability", 1e-6).toBsonDocument());
+        assertEquals(SnapshotAdjustments.guard(new Document(MongoKeys.ID, 8).toBsonDocument(), null, null, null),
+                new Document(MongoKeys.ID, 8)
+                        .append("newest_risk_prediction.risk_trend.0", new Document("$exists", false))
+                        .toBsonDocument());
+    }
+
+    private static Conjunction getConjunction(Object id, double collisionProbability0, double collisionProbability1) {
+        Conjunction conjunction = new Conjunction();
+        conjunction.setId(id);
+        conjunction.setSat1NoradId(25544);
+        conjunction.setSat2NoradId(12345);
+        conjunction.setRiskEstimationPresent(true);
+        conjunction.setSuggested(true);
+        conjunction.setRiskPredictionPresent(true);
+        conjunction.setCollisionProbability(collisionProbability1);
+        RiskTrend riskTrend = new RiskTrend();
+        riskTrend.add(7200, collisionProbability0, true);
+        riskTrend.add(3600, collisionProbability1, true);
+        conjunction.setRiskTrend(riskTrend);
+        return conjunction;
+    }
+}
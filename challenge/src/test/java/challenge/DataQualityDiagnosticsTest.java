@@ -0,0 +1,63 @@
+package challenge;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import challenge.model.DataQualityIssue;
+import challenge.model.RiskTrend;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DataQualityDiagnosticsTest {
+
+    @Test
+    public void testIssuesAreAggregated() {
+        DataQualityDiagnostics diagnostics = new DataQualityDiagnostics();
+        ChallengeClass challengeClass = new ChallengeClass(mock(MongoCollection.class));
+        diagnostics.record(1, challengeClass.toRiskTrend(List.of(
+                Document.parse("{\"time_to_tca\": 7200, \"collision_probability\": 0.00001}"),
+                Document.parse("{\"time_to_tca\": \"3600\", \"collision_probability\": NaN}"),
+                Document.parse("{\"time_to_tca\": 1800}"))));
+        diagnostics.record(2, challengeClass.toRiskTrend(List.of(
+                Document.parse("{\"time_to_tca\": 7200, \"collision_probability\": 0.00001}"))));
+        DataQualityReport before = diagnostics.getReport();
+        diagnostics.record(3, challengeClass.toRiskTrend(List.of(
+                Document.parse("{\"time_to_tca\": 7200, \"collision_probability\": 0.00001}"),
+                Document.parse("{\"time_to_tca\": 3600, \"collision_probability\": 0.000009}"))));
+        diagnostics.record(4, new RiskTrend(0));
+
+        DataQualityReport report = diagnostics.getReport();
+        assertEquals(report.getAffectedCount(), 3);
+        assertEquals(report.getIssueCount(DataQualityIssue.MALFORMED_TREND), 1);
+        assertEquals(report.getIssueCount(DataQualityIssue.INVALID_TIME_TO_TCA), 1);
+        assertEquals(report.getIssueCount(DataQualityIssue.INVALID_COLLISION_PROBABILITY), 1);
+        assertEquals(report.getIssueCount(DataQualityIssue.TOO_FEW_TRENDS), 2);
+        DataQualityReport sinceBefore = report.minus(before);
+        assertEquals(sinceBefore.getAffectedCount(), 1);
+        assertEquals(sinceBefore.getIssueCount(DataQualityIssue.TOO_FEW_TRENDS), 1);
+        assertEquals(sinceBefore.getIssueCount(DataQualityIssue.MALFORMED_TREND), 0);
+        assertTrue(report.minus(report).isEmpty());
+    }
+
+    @Test
+    public void testSampleIsRateLimited() {
+        AtomicLong clock = new AtomicLong();
+        DataQualityDiagnostics diagnostics = new DataQualityDiagnostics(2, Duration.ofSeconds(1), clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            diagnostics.record(i, new RiskTrend(0));
+        }
+        assertEquals(diagnostics.getSuppressedCount(), 3);
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        diagnostics.record(5, new RiskTrend(0));
+        assertEquals(diagnostics.getSuppressedCount(), 0);
+        assertEquals(diagnostics.getReport().getAffectedCount(), 6);
+    }
+}
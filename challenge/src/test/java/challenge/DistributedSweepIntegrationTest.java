@@ -0,0 +1,125 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.eq;
+import static org.testng.Assert.*;
+
+import challenge.utils.MongoIntegrationUtils;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.StandInCalculationsStrategy;
+import utils.MongoCollectionNames;
+import utils.MongoKeys;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Integration tests of DistributedSweep, with several instances run on threads against the Mongo container
+ */
+public class DistributedSweepIntegrationTest {
+
+    private static final int CONJUNCTION_COUNT = 40;
+
+    private final MongoIntegrationUtils mongoIntegrationUtils = new MongoIntegrationUtils();
+    private MongoClient mongoClient;
+    private MongoCollection<Document> conjunctionsCollection;
+    private MongoCollection<Document> leaseCollection;
+    private ChallengeClass challengeClass;
+
+    @BeforeClass
+    public void setUp() {
+        mongoIntegrationUtils.startMongoContainer();
+        mongoClient = mongoIntegrationUtils.createMongoClient();
+        conjunctionsCollection = mongoIntegrationUtils.getMongoDatabase(mongoClient).getCollection(MongoCollectionNames.CONJUNCTIONS);
+        leaseCollection = mongoIntegrationUtils.getMongoDatabase(mongoClient).getCollection(MongoCollectionNames.SWEEP_LEASES);
+        challengeClass = new ChallengeClass(conjunctionsCollection, SweepSettings.builder().sweepPartitionCount(8).build(),
+                new StandInCalculationsStrategy());
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        conjunctionsCollection.deleteMany(new Document());
+        leaseCollection.deleteMany(new Document());
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+        mongoIntegrationUtils.mongoContainer.stop();
+    }
+
+    @Test
+    public void testInstancesShareTheSweep() throws Exception {
+        addConjunctions();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<SweepReport>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                DistributedSweep sweep = new DistributedSweep(challengeClass, conjunctionsCollection, leaseCollection,
+                        "shared", "node-" + i, Duration.ofSeconds(10));
+                futures.add(executor.submit(sweep::run));
+            }
+            long scannedCount = 0;
+            for (Future<SweepReport> future : futures) {
+                scannedCount += future.get().getScannedCount();
+            }
+
+            // Each conjunction has been swept by exactly one instance
+            assertEquals(scannedCount, CONJUNCTION_COUNT);
+            long leasedScannedCount = 0;
+            for (Document lease : leaseCollection.find(eq(MongoKeys.SWEEP, "sweep:shared"))) {
+                assertTrue(lease.getBoolean(MongoKeys.COMPLETED));
+                leasedScannedCount += lease.getLong(MongoKeys.SCANNED_COUNT);
+            }
+            assertEquals(leasedScannedCount, CONJUNCTION_COUNT);
+            for (Document conjunction : conjunctionsCollection.find()) {
+                assertFalse(conjunction.get(MongoKeys.NEWEST_RISK_ESTIMATION, Document.class)
+                        .getBoolean(MongoKeys.SUGGESTED));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpiredLeaseIsClaimedAgain() {
+        addConjunctions();
+        // A crashed instance left the only partition of the sweep leased
+        leaseCollection.insertOne(new Document(MongoKeys.ID, "sweep:crash").append(MongoKeys.PARTITIONS,
+                List.of(new Document(MongoKeys.LOWER_BOUND, null).append(MongoKeys.UPPER_BOUND, null))));
+        leaseCollection.insertOne(new Document(MongoKeys.ID, "sweep:crash:0").append(MongoKeys.SWEEP, "sweep:crash")
+                .append(MongoKeys.LOWER_BOUND, null).append(MongoKeys.UPPER_BOUND, null)
+                .append(MongoKeys.COMPLETED, false).append(MongoKeys.OWNER, "crashed")
+                .append(MongoKeys.LEASE_EXPIRES_AT, new Date(System.currentTimeMillis() + 1000)));
+
+        SweepReport report = new DistributedSweep(challengeClass, conjunctionsCollection, leaseCollection, "crash",
+                "node-0", Duration.ofSeconds(1)).run();
+
+        assertEquals(report.getScannedCount(), CONJUNCTION_COUNT);
+        Document lease = leaseCollection.find(eq(MongoKeys.ID, "sweep:crash:0")).first();
+        assertEquals(lease.getString(MongoKeys.OWNER), "node-0");
+        assertTrue(lease.getBoolean(MongoKeys.COMPLETED));
+    }
+
+    private void addConjunctions() {
+        List<Document> conjunctions = new ArrayList<>();
+        for (int i = 0; i < CONJUNCTION_COUNT; i++) {
+            conjunctions.add(ChallengeClassAnalysisTest.getConjunction("""
+                    {"time_to_tca": 7200, "collision_probability": 0.000001},
+                    {"time_to_tca": 3600, "collision_probability": 0.001}""").append(MongoKeys.ID, i));
+        }
+        conjunctionsCollection.insertMany(conjunctions);
+    }
+}
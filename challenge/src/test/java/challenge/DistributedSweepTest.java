@@ -0,0 +1,143 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gte;
+import static com.mongodb.client.model.Filters.lt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+
+public class DistributedSweepTest {
+
+    private static final SweepReport PARTITION_REPORT = new SweepReport(3, new BulkWriteReport(1, 1, 0));
+
+    @Test
+    public void testClaimedPartitionsAreSweptAndCompleted() {
+        MongoCollection<Document> leases = mockLeases(2,
+                new Document(MongoKeys.ID, "sweep:test:1").append(MongoKeys.LOWER_BOUND, 5)
+                        .append(MongoKeys.UPPER_BOUND, null),
+                new Document(MongoKeys.ID, "sweep:test:0").append(MongoKeys.LOWER_BOUND, null)
+                        .append(MongoKeys.UPPER_BOUND, 5));
+        ChallengeClass challengeClass = mockChallengeClass();
+
+        SweepReport report = new DistributedSweep(challengeClass, mock(MongoCollection.class), leases, "test", "node-1",
+                Duration.ofMinutes(1)).run();
+
+        Bson filter = ConjunctionFilters.sweepFilter();
+        ArgumentCaptor<Bson> swept = ArgumentCaptor.forClass(Bson.class);
+        verify(challengeClass, times(2)).sweep(swept.capture(), any());
+        assertEquals(swept.getAllValues().get(0).toBsonDocument(), and(filter, gte(MongoKeys.ID, 5)).toBsonDocument());
+        assertEquals(swept.getAllValues().get(1).toBsonDocument(), and(filter, lt(MongoKeys.ID, 5)).toBsonDocument());
+        assertEquals(report.getScannedCount(), 6);
+        ArgumentCaptor<Bson> completions = ArgumentCaptor.forClass(Bson.class);
+        verify(leases, times(2)).updateOne(completions.capture(), any(Bson.class));
+        assertEquals(completions.getAllValues().get(0).toBsonDocument(), and(eq(MongoKeys.ID, "sweep:test:1"),
+                eq(MongoKeys.OWNER, "node-1")).toBsonDocument());
+        verify(leases, never()).insertOne(any());
+        verify(leases, never()).insertMany(anyList(), any());
+    }
+
+    @Test
+    public void testCompletedSweepIsNotSweptAgain() {
+        MongoCollection<Document> leases = mockLeases(2);
+        ChallengeClass challengeClass = mockChallengeClass();
+
+        SweepReport report = new DistributedSweep(challengeClass, mock(MongoCollection.class), leases, "test", "node-1",
+                Duration.ofMinutes(1)).run();
+
+        verify(challengeClass, never()).sweep(any(), any());
+        assertEquals(report.getScannedCount(), 0);
+    }
+
+    @Test
+    public void testMissingLeasesAreSaved() {
+        MongoCollection<Document> leases = mockLeases(0);
+        when(leases.countDocuments(any(Bson.class))).thenReturn(0L, 2L);
+
+        new DistributedSweep(mockChallengeClass(), mock(MongoCollection.class), leases, "test", "node-1",
+                Duration.ofMinutes(1)).run();
+
+        ArgumentCaptor<List<Document>> captor = ArgumentCaptor.forClass(List.class);
+        verify(leases).insertMany(captor.capture(), any());
+        assertEquals(captor.getValue().size(), 2);
+        assertEquals(captor.getValue().get(1).get(MongoKeys.ID), "sweep:test:1");
+        assertEquals(captor.getValue().get(1).get(MongoKeys.LOWER_BOUND), 5);
+        assertFalse(captor.getValue().get(1).getBoolean(MongoKeys.COMPLETED));
+    }
+
+    @Test
+    public void testLostLeaseAbortsThePartitionAndLeavesOutItsReport() {
+        MongoCollection<Document> leases = mockLeases(2,
+                new Document(MongoKeys.ID, "sweep:test:0").append(MongoKeys.LOWER_BOUND, null)
+                        .append(MongoKeys.UPPER_BOUND, 5));
+        // Another instance owns the lease by the first renewal
+        when(leases.updateOne(any(Bson.class), anyList())).thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        ChallengeClass challengeClass = mockChallengeClass();
+        when(challengeClass.sweep(any(), any())).thenAnswer(i -> {
+            SweepDeadline deadline = i.getArgument(1);
+            long timeout = System.currentTimeMillis() + 10_000;
+            while (!deadline.isExpired() && System.currentTimeMillis() < timeout) {
+                Thread.sleep(5);
+            }
+            return PARTITION_REPORT;
+        });
+
+        SweepReport report = new DistributedSweep(challengeClass, mock(MongoCollection.class), leases, "test", "node-1",
+                Duration.ofMillis(300)).run();
+
+        assertEquals(report.getScannedCount(), 0);
+        verify(leases, never()).updateOne(any(Bson.class), any(Bson.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLeaseDurationMustBePositive() {
+        new DistributedSweep(mockChallengeClass(), mock(MongoCollection.class), mock(MongoCollection.class), "test",
+                "node-1", Duration.ZERO);
+    }
+
+    private ChallengeClass mockChallengeClass() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        when(challengeClass.getSweepFilter()).thenReturn(ConjunctionFilters.sweepFilter());
+        when(challengeClass.sweep(any(), any())).thenReturn(PARTITION_REPORT);
+        when(challengeClass.getDataQualityReport()).thenReturn(DataQualityReport.EMPTY);
+        return challengeClass;
+    }
+
+    /**
+     * @param leaseCount the number of leases and of completed partitions of the saved plan, split at _id 5
+     * @param claimed    the leases claimed in order
+     * @return the lease collection
+     */
+    private MongoCollection<Document> mockLeases(long leaseCount, Document... claimed) {
+        MongoCollection<Document> leases = mock(MongoCollection.class);
+        FindIterable<Document> findIterable = mock(FindIterable.class);
+        when(leases.find(any(Bson.class))).thenReturn(findIterable);
+        List<Document> bounds = List.of(
+                new Document(MongoKeys.LOWER_BOUND, null).append(MongoKeys.UPPER_BOUND, 5),
+                new Document(MongoKeys.LOWER_BOUND, 5).append(MongoKeys.UPPER_BOUND, null));
+        when(findIterable.first()).thenReturn(new Document(MongoKeys.ID, "sweep:test")
+                .append(MongoKeys.PARTITIONS, bounds));
+        when(leases.countDocuments(any(Bson.class))).thenReturn(leaseCount);
+        Iterator<Document> leasesToClaim = List.of(claimed).iterator();
+        when(leases.findOneAndUpdate(any(Bson.class), anyList(), any(FindOneAndUpdateOptions.class)))
+                .thenAnswer(i -> leasesToClaim.hasNext() ? leasesToClaim.next() : null);
+        when(leases.updateOne(any(Bson.class), any(Bson.class))).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        return leases;
+    }
+}
@@ -0,0 +1,58 @@
+package challenge;
+
+import static com.mongodb.client.model.Filters.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.util.List;
+
+public class IdRangePartitionTest {
+
+    @Test
+    public void testSplitCoversAllIds() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        AggregateIterable<Document> buckets = mock(AggregateIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(collection.aggregate(anyList())).thenReturn(buckets);
+        when(buckets.allowDiskUse(anyBoolean())).thenReturn(buckets);
+        when(buckets.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(getBucket(1, 10), getBucket(10, 20), getBucket(20, 30));
+
+        Bson filter = ConjunctionFilters.sweepFilter();
+        List<IdRangePartition> partitions = IdRangePartition.split(collection, filter, 3);
+
+        assertEquals(partitions.size(), 3);
+        assertEquals(partitions.get(0).restrict(filter).toBsonDocument(),
+                and(filter, lt(MongoKeys.ID, 10)).toBsonDocument());
+        assertEquals(partitions.get(1).restrict(filter).toBsonDocument(),
+                and(filter, gte(MongoKeys.ID, 10), lt(MongoKeys.ID, 20)).toBsonDocument());
+        assertEquals(partitions.get(2).restrict(filter).toBsonDocument(),
+                and(filter, gte(MongoKeys.ID, 20)).toBsonDocument());
+    }
+
+    @Test
+    public void testSinglePartitionIsUnbounded() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+
+        List<IdRangePartition> partitions = IdRangePartition.split(collection, ConjunctionFilters.sweepFilter(), 1);
+
+        assertEquals(partitions.size(), 1);
+        assertEquals(partitions.get(0).restrict(ConjunctionFilters.sweepFilter()), ConjunctionFilters.sweepFilter());
+        verifyNoInteractions(collection);
+    }
+
+    private Document getBucket(int min, int max) {
+        return new Document(MongoKeys.ID, new Document("min", min).append("max", max)).append("count", max - min);
+    }
+}
@@ -0,0 +1,128 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.testng.annotations.Test;
+import utils.MongoKeys;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unit tests of ParallelSweep, with the ChallengeClass and the $bucketAuto boundaries mocked
+ */
+public class ParallelSweepTest {
+
+    private static final SweepSettings SETTINGS = SweepSettings.builder().sweepParallelism(2).sweepPartitionCount(3)
+            .build();
+
+    @Test
+    public void testPartitionsCoverAllIdsOnce() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        List<BsonDocument> sweptFilters = Collections.synchronizedList(new ArrayList<>());
+        when(challengeClass.sweep(any(Bson.class), any(SweepDeadline.class))).thenAnswer(i -> {
+            sweptFilters.add(i.getArgument(0, Bson.class).toBsonDocument());
+            return SweepReport.EMPTY;
+        });
+
+        new ParallelSweep(challengeClass, getCollection(), SETTINGS)
+                .run(ConjunctionFilters.sweepFilter(), SweepDeadline.NONE);
+
+        assertEquals(sweptFilters.size(), 3);
+        for (int id = -100; id <= 100; id++) {
+            int matches = 0;
+            for (BsonDocument filter : sweptFilters) {
+                if (isInRange(filter, id)) {
+                    matches++;
+                }
+            }
+            assertEquals(matches, 1, "_id " + id);
+        }
+    }
+
+    @Test
+    public void testPartitionReportsAreSummed() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        when(challengeClass.sweep(any(Bson.class), any(SweepDeadline.class))).thenReturn(
+                new SweepReport(10, new BulkWriteReport(2, 2, 0)),
+                new SweepReport(20, new BulkWriteReport(3, 1, 1), 5, 7200),
+                new SweepReport(30, new BulkWriteReport(4, 4, 0), 1, 3600));
+
+        SweepReport report = new ParallelSweep(challengeClass, getCollection(), SETTINGS)
+                .run(ConjunctionFilters.sweepFilter(), SweepDeadline.NONE);
+
+        assertEquals(report.getScannedCount(), 60);
+        assertEquals(report.getWriteReport().getMatchedCount(), 9);
+        assertEquals(report.getWriteReport().getModifiedCount(), 7);
+        assertEquals(report.getWriteReport().getFailedCount(), 1);
+        assertEquals(report.getDeferredCount(), 6);
+        assertEquals(report.getFirstDeferredTimeToTca(), 3600d);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "partition failed")
+    public void testPartitionFailureIsPropagated() {
+        ChallengeClass challengeClass = mock(ChallengeClass.class);
+        when(challengeClass.sweep(any(Bson.class), any(SweepDeadline.class)))
+                .thenReturn(SweepReport.EMPTY)
+                .thenThrow(new IllegalStateException("partition failed"))
+                .thenReturn(SweepReport.EMPTY);
+
+        new ParallelSweep(challengeClass, getCollection(), SETTINGS)
+                .run(ConjunctionFilters.sweepFilter(), SweepDeadline.NONE);
+    }
+
+    /**
+     * @return a collection whose $bucketAuto splits the conjunctions into [1, 10), [10, 20) and [20, 30]
+     */
+    private static MongoCollection<Document> getCollection() {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        AggregateIterable<Document> buckets = mock(AggregateIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        when(collection.aggregate(anyList())).thenReturn(buckets);
+        when(buckets.allowDiskUse(anyBoolean())).thenReturn(buckets);
+        when(buckets.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(getBucket(1, 10), getBucket(10, 20), getBucket(20, 30));
+        return collection;
+    }
+
+    private static Document getBucket(int min, int max) {
+        return new Document(MongoKeys.ID, new Document("min", min).append("max", max)).append("count", max - min);
+    }
+
+    /**
+     * @param filter a filter restricted by an IdRangePartition
+     * @param id     an integer _id
+     * @return true if the _id bounds of the filter hold the given _id
+     */
+    private static boolean isInRange(BsonDocument filter, int id) {
+        if (!filter.containsKey("$and")) {
+            return true;
+        }
+        for (BsonValue clause : filter.getArray("$and")) {
+            BsonDocument idClause = clause.asDocument().getDocument(MongoKeys.ID, null);
+            if (idClause == null) {
+                continue;
+            }
+            if (idClause.containsKey("$gte") && id < idClause.getInt32("$gte").getValue()) {
+                return false;
+            }
+            if (idClause.containsKey("$lt") && id >= idClause.getInt32("$lt").getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package challenge;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.mockito.ArgumentCaptor;
+import org.reactivestreams.Subscriber;
+import org.testng.annotations.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import utils.StandInCalculationsStrategy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ReactiveConjunctionSweepTest {
+
+    @Test
+    public void testOutcomes() {
+        MongoCollection<Document> collection = mockCollection(List.of(problematicConjunction(1),
+                goodConjunction(2), problematicConjunction(3)));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> Mono.just(
+                BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.emptyList(), Collections.emptyList())));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(10).build();
+
+        List<ConjunctionOutcome> outcomes = sweep(collection, settings);
+
+        assertEquals(outcomes.toString(), "[1: UPDATED, 2: UNCHANGED, 3: UPDATED]");
+        ArgumentCaptor<List<WriteModel<Document>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collection).bulkWrite(captor.capture(), any(BulkWriteOptions.class));
+        assertEquals(captor.getValue().size(), 2);
+    }
+
+    @Test
+    public void testWriteErrorsFailOnlyTheirConjunctions() {
+        MongoCollection<Document> collection = mockCollection(List.of(problematicConjunction(1),
+                goodConjunction(2), problematicConjunction(3)));
+        MongoBulkWriteException exception = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 1, 0, 1, Collections.emptyList(), Collections.emptyList()),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null,
+                new ServerAddress(), Collections.emptySet());
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> Mono.error(exception));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(10).build();
+
+        List<ConjunctionOutcome> outcomes = sweep(collection, settings);
+
+        assertEquals(outcomes.toString(), "[1: UPDATED, 2: UNCHANGED, 3: FAILED]");
+    }
+
+    @Test
+    public void testInFlightWritesAreBounded() {
+        List<Document> conjunctions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            conjunctions.add(problematicConjunction(i));
+        }
+        MongoCollection<Document> collection = mockCollection(conjunctions);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> Mono.delay(
+                        Duration.ofMillis(5))
+                .doOnSubscribe(s -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doOnNext(d -> inFlight.decrementAndGet())
+                .map(d -> BulkWriteResult.acknowledged(0, 4, 0, 4, Collections.emptyList(), Collections.emptyList())));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(4).maxInFlightWrites(3).build();
+
+        List<ConjunctionOutcome> outcomes = sweep(collection, settings);
+
+        assertEquals(outcomes.size(), 40);
+        assertTrue(outcomes.stream().allMatch(o -> o.getStatus() == ConjunctionOutcome.Status.UPDATED));
+        assertTrue(maxInFlight.get() <= 3, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    public void testConjunctionsAreAnalyzedOffTheDriverThreads() {
+        MongoCollection<Document> collection = mockCollection(List.of(problematicConjunction(1),
+                problematicConjunction(2)));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> Mono.just(
+                BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.emptyList(), Collections.emptyList())));
+        Set<String> analysisThreads = ConcurrentHashMap.newKeySet();
+        ChallengeClass challengeClass = new ChallengeClass(mock(com.mongodb.client.MongoCollection.class),
+                SweepSettings.builder().bulkWriteBatchSize(10).build(), new StandInCalculationsStrategy() {
+            @Override
+            public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                       double collisionProbability1) {
+                analysisThreads.add(Thread.currentThread().getName());
+                return super.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+            }
+        });
+
+        Flux.from(new ReactiveConjunctionSweep(challengeClass, collection).adjustConjunctionsBasedOnTheta())
+                .collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(analysisThreads.size(), 1);
+        assertTrue(analysisThreads.iterator().next().startsWith("reactive-sweep"), analysisThreads.toString());
+    }
+
+    @Test
+    public void testPartialBatchIsWrittenAfterTheFlushInterval() {
+        MongoCollection<Document> collection = mockCollection(Flux.concat(Flux.just(problematicConjunction(1),
+                problematicConjunction(2)), Flux.never()));
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(i -> Mono.just(
+                BulkWriteResult.acknowledged(0, 2, 0, 2, Collections.emptyList(), Collections.emptyList())));
+        SweepSettings settings = SweepSettings.builder().bulkWriteBatchSize(10)
+                .bulkWriteFlushInterval(Duration.ofMillis(50)).build();
+        ChallengeClass challengeClass = new ChallengeClass(mock(com.mongodb.client.MongoCollection.class), settings,
+                new StandInCalculationsStrategy());
+
+        // The cursor never completes, the batch is only written by the flush interval
+        List<ConjunctionOutcome> outcomes = Flux.from(new ReactiveConjunctionSweep(challengeClass, collection)
+                .adjustConjunctionsBasedOnTheta()).take(2).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(outcomes.toString(), "[1: UPDATED, 2: UPDATED]");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTypedReadsAreRejected() {
+        new ReactiveConjunctionSweep(new ChallengeClass(mock(com.mongodb.client.MongoCollection.class,
+                RETURNS_DEEP_STUBS), SweepSettings.builder().typedReads(true).build()), mock(MongoCollection.class));
+    }
+
+    private static List<ConjunctionOutcome> sweep(MongoCollection<Document> collection, SweepSettings settings) {
+        ChallengeClass challengeClass = new ChallengeClass(mock(com.mongodb.client.MongoCollection.class), settings,
+                new StandInCalculationsStrategy());
+        return Flux.from(new ReactiveConjunctionSweep(challengeClass, collection).adjustConjunctionsBasedOnTheta())
+                .collectList().block(Duration.ofSeconds(10));
+    }
+
+    private static MongoCollection<Document> mockCollection(List<Document> conjunctions) {
+        return mockCollection(Flux.fromIterable(conjunctions));
+    }
+
+    private static MongoCollection<Document> mockCollection(Flux<Document> conjunctions) {
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindPublisher<Document> findPublisher = mock(FindPublisher.class);
+        when(collection.find(any(Bson.class))).thenReturn(findPublisher);
+        when(findPublisher.projection(any())).thenReturn(findPublisher);
+        when(findPublisher.batchSize(anyInt())).thenReturn(findPublisher);
+        doAnswer(i -> {
+            conjunctions.subscribe(i.<Subscriber<Document>>getArgument(0));
+            return null;
+        }).when(findPublisher).subscribe(any());
+        return collection;
+    }
+
+    private static Document problematicConjunction(int id) {
+        return ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.000001},
+                {"time_to_tca": 3600, "collision_probability": 0.001}""").append("_id", id);
+    }
+
+    private static Document goodConjunction(int id) {
+        return ChallengeClassAnalysisTest.getConjunction("""
+                {"time_to_tca": 7200, "collision_probability": 0.00001},
+                {"time_to_tca": 3600, "collision_probability": 0.000009}""").append("_id", id);
+    }
+}
@@ -0,0 +1,134 @@
+package challenge;
+
+import static org.testng.Assert.*;
+
+import challenge.model.RiskTrend;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import utils.Calculations;
+import utils.CalculationsStrategy;
+import utils.StandInCalculationsStrategy;
+import utils.StandInNativeCalculations;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Unit tests of RiskTrendAnalyzer
+ */
+public class RiskTrendAnalyzerTest {
+
+    private static final int TREND_LENGTH = 256;
+
+    /**
+     * The bytes the measured loop may allocate, leaving room for the bookkeeping of the allocation counter only
+     */
+    private static final long MAX_STEADY_STATE_ALLOCATED_BYTES = 1024;
+
+    @Test
+    public void testReusedResultIsReset() {
+        RiskTrendAnalyzer analyzer = new RiskTrendAnalyzer(new StandInCalculationsStrategy());
+        RiskTrendAnalysisResult result = analyzer.analyze(getRiskTrend(TREND_LENGTH));
+        assertFalse(result.isShouldBeSuggested());
+        assertTrue(result.hasLatestCollisionProbability());
+
+        RiskTrend riskTrend = new RiskTrend();
+        riskTrend.add(7200, 1e-5, true);
+        riskTrend.add(3600, 9e-6, true);
+        RiskTrendAnalysisResult reused = analyzer.analyze(riskTrend);
+
+        assertSame(reused, result);
+        assertTrue(reused.isShouldBeSuggested());
+        assertFalse(reused.hasLatestCollisionProbability());
+        assertEquals(reused.getAdjustedValues()[1], Calculations.NO_ADJUSTMENT);
+        assertNull(analyzer.analyze(new RiskTrend()).getAdjustedValues());
+    }
+
+    @Test
+    public void testReusedBuffersGiveTheSameResults() {
+        RiskTrendAnalyzer analyzer = new RiskTrendAnalyzer(new StandInCalculationsStrategy());
+        RiskTrend riskTrend = getRiskTrend(16);
+        double[] expected = analyzer.analyze(riskTrend).getAdjustedValues().clone();
+
+        // A longer risk trend leaves more series bounds and adjusted values behind
+        analyzer.analyze(getRiskTrend(TREND_LENGTH));
+        double[] adjustedValues = analyzer.analyze(riskTrend).getAdjustedValues();
+
+        for (int i = 0; i < riskTrend.size(); i++) {
+            assertEquals(adjustedValues[i], expected[i], "index " + i);
+        }
+    }
+
+    @Test
+    public void testAnalysisFromIndexMatchesTheFullAnalysis() {
+        RiskTrendAnalyzer analyzer = new RiskTrendAnalyzer(new StandInCalculationsStrategy());
+        RiskTrend riskTrend = getRiskTrend(64);
+        double[] expected = analyzer.analyze(riskTrend).getAdjustedValues().clone();
+        int fromIndex = 40;
+        // The entries before the index are left as adjusted by their own analysis
+        for (int i = 0; i < fromIndex; i++) {
+            if (expected[i] != Calculations.NO_ADJUSTMENT) {
+                riskTrend.setCollisionProbability(i, expected[i]);
+            }
+        }
+
+        RiskTrendAnalysisResult result = analyzer.analyze(riskTrend, fromIndex);
+
+        for (int i = 0; i < riskTrend.size(); i++) {
+            assertEquals(result.getAdjustedValues()[i], i < fromIndex ? Calculations.NO_ADJUSTMENT : expected[i],
+                    "index " + i);
+        }
+        assertFalse(result.isShouldBeSuggested());
+        assertTrue(analyzer.analyze(riskTrend, riskTrend.size()).isShouldBeSuggested());
+    }
+
+    /**
+     * @return the stand-in strategy, and the per-pair JNI calling convention production falls back to without a
+     * native analyze_risk_trend_series
+     */
+    @DataProvider
+    public Object[][] strategies() {
+        return new Object[][]{{new StandInCalculationsStrategy()}, {StandInNativeCalculations.newStrategy()}};
+    }
+
+    @Test(dataProvider = "strategies")
+    public void testSteadyStateAnalysisDoesNotAllocate(CalculationsStrategy strategy) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean)
+                || !threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            throw new SkipException("Thread allocation counters are not available");
+        }
+        RiskTrendAnalyzer analyzer = new RiskTrendAnalyzer(strategy);
+        RiskTrend riskTrend = getRiskTrend(TREND_LENGTH);
+        int iterations = 10_000;
+        for (int i = 0; i < iterations; i++) {
+            analyzer.analyze(riskTrend);
+        }
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            analyzer.analyze(riskTrend);
+        }
+        long allocatedBytes = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        // A single allocation per analysis would take at least 16 bytes per iteration
+        assertTrue(allocatedBytes <= MAX_STEADY_STATE_ALLOCATED_BYTES,
+                allocatedBytes + " bytes allocated by " + iterations + " analyses");
+    }
+
+    /**
+     * @param size the number of entries
+     * @return a risk trend whose every 10th entry is invalid and whose collision probability jumps every 7th entry and
+     * at the last one
+     */
+    private static RiskTrend getRiskTrend(int size) {
+        RiskTrend riskTrend = new RiskTrend(size);
+        for (int i = 0; i < size; i++) {
+            if (i % 10 == 9) {
+                riskTrend.addInvalid();
+            } else {
+                riskTrend.add((size - i) * 3600d, i % 7 == 6 || i == size - 1 ? 1e-3 : 1e-5, true);
+            }
+        }
+        return riskTrend;
+    }
+}
@@ -0,0 +1,52 @@
+package challenge.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.testng.annotations.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+public class JmxChallengeMetricsTest {
+
+    @Test
+    public void testRecordAndReset() {
+        JmxChallengeMetrics metrics = new JmxChallengeMetrics();
+        metrics.increment(CounterMetric.CONJUNCTIONS_SCANNED, 3);
+        metrics.increment(CounterMetric.CONJUNCTIONS_SCANNED, 2);
+        metrics.recordTime(TimerMetric.WRITE, 1_500_000);
+        metrics.recordTime(TimerMetric.WRITE, 500_000);
+
+        assertEquals(metrics.get(CounterMetric.CONJUNCTIONS_SCANNED), 5);
+        assertEquals(metrics.get(CounterMetric.TRENDS_INVALID), 0);
+        assertEquals(metrics.getTotalNanos(TimerMetric.WRITE), 2_000_000);
+        assertEquals((long) metrics.getTimerCounts().get(TimerMetric.WRITE.name()), 2);
+        assertEquals(metrics.getTimerTotalMillis().get(TimerMetric.WRITE.name()), 2.0);
+
+        metrics.reset();
+        assertEquals(metrics.get(CounterMetric.CONJUNCTIONS_SCANNED), 0);
+        assertEquals(metrics.getTotalNanos(TimerMetric.WRITE), 0);
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        JmxChallengeMetrics metrics = new JmxChallengeMetrics();
+        metrics.increment(CounterMetric.SUGGESTIONS_REVOKED, 4);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = metrics.register("conjunctions");
+            // Registering again replaces the previous metrics
+            assertEquals(new JmxChallengeMetrics().register("conjunctions"), objectName);
+            metrics.register("conjunctions");
+
+            ChallengeMetricsMXBean proxy = JMX.newMXBeanProxy(server, objectName, ChallengeMetricsMXBean.class);
+            assertEquals((long) proxy.getCounters().get(CounterMetric.SUGGESTIONS_REVOKED.name()), 4);
+        } finally {
+            JmxChallengeMetrics.unregister("conjunctions");
+        }
+        assertFalse(server.isRegistered(JmxChallengeMetrics.getObjectName("conjunctions")));
+    }
+}
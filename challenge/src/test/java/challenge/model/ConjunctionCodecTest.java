@@ -0,0 +1,79 @@
+package challenge.model;
+
+import static org.testng.Assert.*;
+
+import org.bson.BsonDocumentReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+import org.testng.annotations.Test;
+
+public class ConjunctionCodecTest {
+
+    private final ConjunctionCodec codec = new ConjunctionCodec();
+
+    @Test
+    public void testDecodesRiskTrendIntoArrays() {
+        ObjectId id = new ObjectId();
+        Document document = Document.parse("""
+                {
+                  "conjunction_id": "conjunction",
+                  "sat1_norad_id": 25544,
+                  "sat2_norad_id": 12345,
+                  "sat1_name": "skipped",
+                  "newest_risk_estimation": {"suggested": true, "miss_distance": 0.135, "sat1_state_at_tca": {"X": 1}},
+                  "newest_risk_prediction": {
+                    "collision_probability": 0.00001,
+                    "risk_trend": [
+                      {"time_to_tca": 7200, "collision_probability": 0.00001},
+                      {"time_to_tca": 3600},
+                      {"time_to_tca": null, "collision_probability": 0.000008},
+                      {"time_to_tca": 900, "collision_probability": NaN},
+                      "not a document",
+                      {"time_to_tca": {"$numberLong": "450"}, "collision_probability": {"$numberInt": "0"}, "extra": 1}
+                    ],
+                    "miss_distance": 0.135
+                  }
+                }""").append("_id", id);
+
+        Conjunction conjunction = codec.decode(new BsonDocumentReader(document.toBsonDocument()),
+                DecoderContext.builder().build());
+
+        assertEquals(conjunction.getId(), id);
+        assertEquals(conjunction.getConjunctionId(), "conjunction");
+        assertEquals(conjunction.getSat1NoradId(), Integer.valueOf(25544));
+        assertEquals(conjunction.getSat2NoradId(), Integer.valueOf(12345));
+        assertTrue(conjunction.isValid());
+        assertTrue(conjunction.canThetaBeCalculated());
+        assertEquals(conjunction.getSuggested(), Boolean.TRUE);
+        assertEquals(conjunction.getCollisionProbability(), 0.00001);
+
+        RiskTrend riskTrend = conjunction.getRiskTrend();
+        assertEquals(riskTrend.size(), 6);
+        boolean[] expectedValidity = {true, false, false, false, false, true};
+        for (int i = 0; i < expectedValidity.length; i++) {
+            assertEquals(riskTrend.isValid(i), expectedValidity[i], "validity of entry " + i);
+        }
+        assertEquals(riskTrend.getTimeToTca(0), 7200d);
+        assertEquals(riskTrend.getCollisionProbability(0), 0.00001);
+        assertEquals(riskTrend.getTimeToTca(5), 450d);
+        assertEquals(riskTrend.getCollisionProbability(5), 0d);
+        assertEquals(riskTrend.getIssueCount(DataQualityIssue.MALFORMED_TREND), 2);
+        assertEquals(riskTrend.getIssueCount(DataQualityIssue.INVALID_TIME_TO_TCA), 1);
+        assertEquals(riskTrend.getIssueCount(DataQualityIssue.INVALID_COLLISION_PROBABILITY), 1);
+    }
+
+    @Test
+    public void testRiskTrendGrowsBeyondItsCapacity() {
+        RiskTrend riskTrend = new RiskTrend(1);
+        for (int i = 0; i < 130; i++) {
+            riskTrend.add(i, i, i % 3 != 0);
+        }
+
+        assertEquals(riskTrend.size(), 130);
+        for (int i = 0; i < 130; i++) {
+            assertEquals(riskTrend.isValid(i), i % 3 != 0);
+            assertEquals(riskTrend.getTimeToTca(i), (double) i);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package utils;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CachingCalculationsStrategyTest {
+
+    private static final double[] TIME_TO_TCA = {14400, 10800, 7200, 3600};
+    private static final double[] COLLISION_PROBABILITY = {1e-6, 1e-3, 1e-2, 1e-2};
+
+    @Test
+    public void testCachedResultsMatchTheDelegate() {
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(new StandInCalculationsStrategy(), 100);
+
+        Series expected = Series.analyze(new StandInCalculationsStrategy(), 0, 4);
+        Series first = Series.analyze(cache, 0, 4);
+        Series second = Series.analyze(cache, 0, 4);
+
+        first.assertEquals(expected);
+        second.assertEquals(expected);
+        assertEquals(cache.getStats().getMissCount(), 3);
+        assertEquals(cache.getStats().getHitCount(), 3);
+        assertEquals(cache.getStats().getSize(), 3);
+    }
+
+    @Test
+    public void testOnlyTheRestOfASeriesAfterAMissIsCalculated() {
+        CountingStrategy delegate = new CountingStrategy();
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(delegate, 100);
+        Series.analyze(cache, 0, 2);
+        delegate.analyzedPairs = 0;
+
+        Series result = Series.analyze(cache, 0, 4);
+
+        result.assertEquals(Series.analyze(new StandInCalculationsStrategy(), 0, 4));
+        assertEquals(delegate.analyzedPairs, 2);
+        assertEquals(cache.getStats().getHitCount(), 1);
+    }
+
+    @Test
+    public void testPaddedBoundsAndLongerArrays() {
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(new StandInCalculationsStrategy(), 100);
+        double[] timeToTca = Arrays.copyOf(TIME_TO_TCA, 8);
+        double[] collisionProbability = Arrays.copyOf(COLLISION_PROBABILITY, 8);
+        double[] theta = new double[8];
+        boolean[] problematic = new boolean[8];
+        double[] adjustedValue = new double[8];
+        Arrays.fill(adjustedValue, Calculations.NO_ADJUSTMENT);
+
+        // The bounds of the series are followed by the empty (0, 0) series of the padding
+        cache.analyzeRiskTrendSeries(timeToTca, collisionProbability, new int[]{0, 4, 0, 0}, theta, problematic,
+                adjustedValue);
+
+        Series expected = Series.analyze(new StandInCalculationsStrategy(), 0, 4);
+        assertEquals(Arrays.copyOf(collisionProbability, 4), expected.collisionProbability());
+        assertEquals(Arrays.copyOf(theta, 4), expected.theta());
+        assertEquals(Arrays.copyOf(adjustedValue, 4), expected.adjustedValue());
+        assertEquals(Arrays.copyOfRange(adjustedValue, 4, 8), new double[]{Calculations.NO_ADJUSTMENT,
+                Calculations.NO_ADJUSTMENT, Calculations.NO_ADJUSTMENT, Calculations.NO_ADJUSTMENT});
+        assertEquals(cache.getStats().getMissCount(), 3);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResultsAreEvicted() {
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(new StandInCalculationsStrategy(), 2);
+
+        Series.analyze(cache, 0, 4);
+
+        assertEquals(cache.getStats().getSize(), 2);
+        assertEquals(cache.getStats().getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testMemoryCapBoundsTheSize() {
+        CachingCalculationsStrategy cache = CachingCalculationsStrategy.withMemoryCap(new StandInCalculationsStrategy(),
+                CachingCalculationsStrategy.ESTIMATED_ENTRY_BYTES);
+
+        Series.analyze(cache, 0, 4);
+
+        assertEquals(cache.getStats().getSize(), 1);
+        assertThrows(IllegalArgumentException.class, () -> CachingCalculationsStrategy.withMemoryCap(
+                new StandInCalculationsStrategy(), CachingCalculationsStrategy.ESTIMATED_ENTRY_BYTES - 1));
+    }
+
+    @Test
+    public void testSegmentsShareTheMaximumSize() {
+        int maximumSize = CachingCalculationsStrategy.MAXIMUM_SEGMENTS * CachingCalculationsStrategy.MINIMUM_SEGMENT_SIZE
+                + 5;
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(new StandInCalculationsStrategy(),
+                maximumSize);
+
+        for (int i = 0; i < 4 * maximumSize; i++) {
+            analyzePair(cache, i);
+        }
+
+        assertTrue(cache.getStats().getSize() <= maximumSize);
+        assertTrue(cache.getStats().getSize() > maximumSize / 2);
+        assertEquals(cache.getStats().getEvictionCount(), 4L * maximumSize - cache.getStats().getSize());
+    }
+
+    @Test
+    public void testConcurrentSeriesMatchTheDelegate() throws Exception {
+        CachingCalculationsStrategy cache = new CachingCalculationsStrategy(new StandInCalculationsStrategy(), 10_000);
+        Series expected = Series.analyze(new StandInCalculationsStrategy(), 0, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        Series.analyze(cache, 0, 4).assertEquals(expected);
+                        analyzePair(cache, i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ThetaCacheStats stats = cache.getStats();
+        assertEquals(stats.getHitCount() + stats.getMissCount(), 4 * 1000 * 4L);
+        assertEquals(stats.getSize(), 3 + 1000);
+    }
+
+    /**
+     * Analyzes a single pair of risk trends distinct for each given seed
+     */
+    private static void analyzePair(CalculationsStrategy strategy, int seed) {
+        double[] adjustedValue = {Calculations.NO_ADJUSTMENT, Calculations.NO_ADJUSTMENT};
+        strategy.analyzeRiskTrendSeries(new double[]{7200 + seed, 3600}, new double[]{1e-6, 1e-3}, new int[]{0, 2},
+                new double[2], new boolean[2], adjustedValue);
+    }
+
+    /**
+     * The results of the analysis of a series of the test risk trends
+     */
+    private record Series(double[] collisionProbability, double[] theta, boolean[] problematic, double[] adjustedValue) {
+
+        static Series analyze(CalculationsStrategy strategy, int start, int end) {
+            Series series = new Series(COLLISION_PROBABILITY.clone(), new double[4], new boolean[4], new double[4]);
+            Arrays.fill(series.adjustedValue, Calculations.NO_ADJUSTMENT);
+            strategy.analyzeRiskTrendSeries(TIME_TO_TCA, series.collisionProbability, new int[]{start, end},
+                    series.theta, series.problematic, series.adjustedValue);
+            return series;
+        }
+
+        void assertEquals(Series expected) {
+            org.testng.Assert.assertEquals(collisionProbability, expected.collisionProbability);
+            org.testng.Assert.assertEquals(theta, expected.theta);
+            org.testng.Assert.assertEquals(problematic, expected.problematic);
+            org.testng.Assert.assertEquals(adjustedValue, expected.adjustedValue);
+        }
+    }
+
+    /**
+     * StandInCalculationsStrategy counting the analyzed pairs
+     */
+    private static class CountingStrategy extends StandInCalculationsStrategy {
+
+        private int analyzedPairs;
+
+        @Override
+        public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                   double collisionProbability1) {
+            analyzedPairs++;
+            return super.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Equivalence harness between the native and the stand-in CalculationsStrategy. The native library is loaded from
+ * the system property "calculations.library" (e.g. -Dcalculations.library=calculations); the tests are skipped if it
+ * is not available
+ */
+public class CalculationsEquivalenceTest {
+
+    private static final String LIBRARY_PROPERTY = "calculations.library";
+    private static final double TOLERANCE = 1e-12;
+    private static final long SEED = 42;
+    private static final int PAIRS = 10000;
+
+    private final CalculationsStrategy expected = new NativeCalculationsStrategy();
+    private final CalculationsStrategy actual = new StandInCalculationsStrategy();
+
+    @BeforeClass
+    public void loadNativeLibrary() {
+        String library = System.getProperty(LIBRARY_PROPERTY);
+        if (library != null) {
+            System.loadLibrary(library);
+        }
+        if (!NativeCalculationsStrategy.isAvailable()) {
+            throw new SkipException("The native Calculations library is not available");
+        }
+    }
+
+    @Test
+    public void testPairEquivalence() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            double timeToTca0 = random.nextDouble() * 7 * 24 * 3600;
+            double timeToTca1 = timeToTca0 * random.nextDouble();
+            assertPairEquivalence(timeToTca0, randomCollisionProbability(random), timeToTca1,
+                    randomCollisionProbability(random));
+        }
+        assertPairEquivalence(3600, 0, 1800, 1e-5);
+        assertPairEquivalence(3600, 1e-5, 3600, 1e-5);
+        assertPairEquivalence(3600, 1e-5, 7200, 1e-4);
+        assertPairEquivalence(3600, 1e-5, 1800, Double.NaN);
+        assertPairEquivalence(3600, 1, 1800, 1);
+    }
+
+    private void assertPairEquivalence(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                       double collisionProbability1) {
+        double expectedTheta = expected.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+        double actualTheta = actual.analyzeTheta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+        assertClose(actualTheta, expectedTheta);
+        assertEquals(actual.checkTheta(actualTheta), expected.checkTheta(expectedTheta));
+        assertClose(actual.adjustCollisionProbability(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1),
+                expected.adjustCollisionProbability(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1));
+    }
+
+    @Test
+    public void testSeriesEquivalence() {
+        Random random = new Random(SEED);
+        int size = 1000;
+        double[] timeToTca = new double[size];
+        double[] collisionProbability = new double[size];
+        for (int i = 0; i < size; i++) {
+            timeToTca[i] = (size - i) * 900d;
+            collisionProbability[i] = randomCollisionProbability(random);
+        }
+        int[] seriesBounds = new int[]{0, 400, 401, 402, 410, size};
+
+        double[][] expectedResults = analyzeSeries(expected, timeToTca, collisionProbability, seriesBounds);
+        double[][] actualResults = analyzeSeries(actual, timeToTca, collisionProbability, seriesBounds);
+
+        for (int r = 0; r < expectedResults.length; r++) {
+            for (int i = 0; i < size; i++) {
+                assertClose(actualResults[r][i], expectedResults[r][i]);
+            }
+        }
+    }
+
+    private double[][] analyzeSeries(CalculationsStrategy strategy, double[] timeToTca, double[] collisionProbability,
+                                     int[] seriesBounds) {
+        int size = timeToTca.length;
+        double[] probabilities = collisionProbability.clone();
+        double[] theta = new double[size];
+        boolean[] problematic = new boolean[size];
+        double[] adjustedValue = new double[size];
+        Arrays.fill(adjustedValue, Calculations.NO_ADJUSTMENT);
+        strategy.analyzeRiskTrendSeries(timeToTca.clone(), probabilities, seriesBounds, theta, problematic, adjustedValue);
+        double[] problematicValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            problematicValues[i] = problematic[i] ? 1d : 0d;
+        }
+        return new double[][]{probabilities, theta, problematicValues, adjustedValue};
+    }
+
+    private static double randomCollisionProbability(Random random) {
+        return Math.pow(10, -10 * random.nextDouble());
+    }
+
+    private static void assertClose(double actual, double expected) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual), "expected NaN but found " + actual);
+        } else {
+            assertEquals(actual, expected, TOLERANCE * Math.max(1d, Math.abs(expected)));
+        }
+    }
+}
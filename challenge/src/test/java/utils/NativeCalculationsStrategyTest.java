@@ -0,0 +1,59 @@
+package utils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.testng.PowerMockTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests of NativeCalculationsStrategy against a native library that does not implement analyze_risk_trend_series
+ */
+@PrepareForTest(Calculations.class)
+public class NativeCalculationsStrategyTest extends PowerMockTestCase {
+
+    private static final double PROBLEMATIC_THETA = 1;
+    private static final double ADJUSTED_VALUE = 0.5;
+
+    @Test
+    public void testSeriesAreAnalyzedPairByPairWithoutTheBatchedMethod() throws Exception {
+        PowerMockito.mockStatic(Calculations.class);
+        PowerMockito.doThrow(new UnsatisfiedLinkError("analyze_risk_trend_series")).when(Calculations.class,
+                "analyze_risk_trend_series", any(), any(), any(), any(), any(), any());
+        // The theta of a pair is problematic if the collision probability grows
+        PowerMockito.doAnswer(i -> {
+            double[] collisionProbability0 = i.getArgument(1);
+            double[] collisionProbability1 = i.getArgument(3);
+            double[] theta = i.getArgument(4);
+            theta[0] = collisionProbability1[0] > collisionProbability0[0] ? PROBLEMATIC_THETA : 0;
+            return null;
+        }).when(Calculations.class, "analyze_theta", any(), any(), any(), any(), any());
+        PowerMockito.doAnswer(i -> ((double[]) i.getArgument(0))[0] == PROBLEMATIC_THETA)
+                .when(Calculations.class, "check_theta", any());
+        PowerMockito.doAnswer(i -> {
+            ((double[]) i.getArgument(4))[0] = ADJUSTED_VALUE;
+            return null;
+        }).when(Calculations.class, "adjust_coll_prob", any(), any(), any(), any(), any());
+
+        double[] timeToTca = {4, 3, 2, 1};
+        double[] collisionProbability = {0.1, 0.2, 0.1, 0.6};
+        boolean[] problematic = new boolean[4];
+        double[] adjustedValues = {Calculations.NO_ADJUSTMENT, Calculations.NO_ADJUSTMENT, Calculations.NO_ADJUSTMENT,
+                Calculations.NO_ADJUSTMENT};
+        NativeCalculationsStrategy strategy = new NativeCalculationsStrategy();
+        strategy.analyzeRiskTrendSeries(timeToTca, collisionProbability, new int[]{0, 4}, new double[4], problematic,
+                adjustedValues);
+
+        // The pair ending at index 2 is analyzed with the adjusted collision probability of index 1
+        assertTrue(problematic[1]);
+        assertFalse(problematic[2]);
+        assertTrue(problematic[3]);
+        assertEquals(adjustedValues, new double[]{Calculations.NO_ADJUSTMENT, ADJUSTED_VALUE,
+                Calculations.NO_ADJUSTMENT, ADJUSTED_VALUE});
+        assertEquals(collisionProbability, new double[]{0.1, ADJUSTED_VALUE, 0.1, ADJUSTED_VALUE});
+    }
+}
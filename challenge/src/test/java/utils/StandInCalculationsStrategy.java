@@ -0,0 +1,61 @@
+package utils;
+
+/**
+ * Stand-in CalculationsStrategy for the tests and the benchmarks, which needs no native library. Its formula is NOT
+ * derived from the native library, whose source is not part of this repository: it only has the same shape, so that
+ * the analysis, the sweeps and the load harness can run without it. It must not be used to adjust real conjunctions.
+ * <p>
+ * Theta is the angle, in radians, of the change of the decimal logarithm of the collision probability per hour the
+ * conjunction gets closer to its TCA. A theta is problematic if it is not a number or if its absolute value exceeds
+ * {@link #MAXIMUM_THETA}; the adjusted collision probability is the one the second risk trend would have with the
+ * steepest allowed theta. CalculationsEquivalenceTest compares it with the native library when one is loaded.
+ */
+public class StandInCalculationsStrategy implements CalculationsStrategy {
+
+    /**
+     * The maximum absolute theta that is not problematic: one decade of collision probability per hour
+     */
+    public static final double MAXIMUM_THETA = Math.PI / 4;
+
+    private static final double SECONDS_PER_HOUR = 3600d;
+    private static final double MAXIMUM_SLOPE = Math.tan(MAXIMUM_THETA);
+
+    @Override
+    public double analyzeTheta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                               double collisionProbability1) {
+        return theta(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+    }
+
+    @Override
+    public boolean checkTheta(double theta) {
+        return isProblematic(theta);
+    }
+
+    @Override
+    public double adjustCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                             double collisionProbability1) {
+        return adjustedCollisionProbability(timeToTca0, collisionProbability0, timeToTca1, collisionProbability1);
+    }
+
+    static double theta(double timeToTca0, double collisionProbability0, double timeToTca1,
+                        double collisionProbability1) {
+        double hours = (timeToTca0 - timeToTca1) / SECONDS_PER_HOUR;
+        return Math.atan2(Math.log10(collisionProbability1) - Math.log10(collisionProbability0), hours);
+    }
+
+    static boolean isProblematic(double theta) {
+        return Double.isNaN(theta) || Math.abs(theta) > MAXIMUM_THETA;
+    }
+
+    static double adjustedCollisionProbability(double timeToTca0, double collisionProbability0, double timeToTca1,
+                                               double collisionProbability1) {
+        double hours = (timeToTca0 - timeToTca1) / SECONDS_PER_HOUR;
+        if (!(hours > 0) || !(collisionProbability0 > 0) || Double.isNaN(collisionProbability1)) {
+            return Calculations.NO_ADJUSTMENT;
+        }
+        double maximumChange = MAXIMUM_SLOPE * hours;
+        double change = Math.log10(collisionProbability1) - Math.log10(collisionProbability0);
+        double adjustedChange = Math.max(-maximumChange, Math.min(maximumChange, change));
+        return Math.min(1d, collisionProbability0 * Math.pow(10d, adjustedChange));
+    }
+}
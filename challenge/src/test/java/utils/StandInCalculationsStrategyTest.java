@@ -0,0 +1,55 @@
+package utils;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+
+public class StandInCalculationsStrategyTest {
+
+    private final StandInCalculationsStrategy strategy = new StandInCalculationsStrategy();
+
+    @Test
+    public void testSteadyTrendIsNotProblematic() {
+        double theta = strategy.analyzeTheta(7200, 1e-5, 3600, 2e-5);
+
+        assertFalse(strategy.checkTheta(theta));
+    }
+
+    @Test
+    public void testSteepTrendIsProblematicAndAdjusted() {
+        double theta = strategy.analyzeTheta(7200, 1e-6, 3600, 1e-3);
+
+        assertTrue(strategy.checkTheta(theta));
+        assertEquals(strategy.adjustCollisionProbability(7200, 1e-6, 3600, 1e-3), 1e-5, 1e-15);
+    }
+
+    @Test
+    public void testInvalidValuesAreProblematicAndNotAdjusted() {
+        assertTrue(strategy.checkTheta(strategy.analyzeTheta(3600, 1e-5, 1800, Double.NaN)));
+        assertEquals(strategy.adjustCollisionProbability(3600, 1e-5, 1800, Double.NaN), Calculations.NO_ADJUSTMENT);
+        assertEquals(strategy.adjustCollisionProbability(3600, 0, 1800, 1e-5), Calculations.NO_ADJUSTMENT);
+        assertEquals(strategy.adjustCollisionProbability(3600, 1e-5, 3600, 1e-3), Calculations.NO_ADJUSTMENT);
+    }
+
+    @Test
+    public void testSeriesAdjustmentsAreChained() {
+        double[] timeToTca = {10800, 7200, 3600};
+        double[] collisionProbability = {1e-6, 1e-3, 1e-2};
+        double[] theta = new double[3];
+        boolean[] problematic = new boolean[3];
+        double[] adjustedValue = new double[3];
+        Arrays.fill(adjustedValue, Calculations.NO_ADJUSTMENT);
+
+        strategy.analyzeRiskTrendSeries(timeToTca, collisionProbability, new int[]{0, 3}, theta, problematic, adjustedValue);
+
+        assertFalse(problematic[0]);
+        assertTrue(problematic[1]);
+        assertTrue(problematic[2]);
+        assertEquals(adjustedValue[0], Calculations.NO_ADJUSTMENT);
+        assertEquals(adjustedValue[1], 1e-5, 1e-15);
+        assertEquals(adjustedValue[2], 1e-4, 1e-14);
+        assertEquals(collisionProbability[2], adjustedValue[2]);
+    }
+}
@@ -0,0 +1,45 @@
+package utils;
+
+/**
+ * NativeCalculations computing the formula of the {@link StandInCalculationsStrategy} through the one-element arrays
+ * of the JNI methods, like a native library that does not implement analyze_risk_trend_series. It lets the tests run
+ * the per-pair fallback of NativeCalculationsStrategy, which production takes, without the native library
+ */
+public final class StandInNativeCalculations implements NativeCalculations {
+
+    private StandInNativeCalculations() {
+    }
+
+    /**
+     * @return a NativeCalculationsStrategy calling the stand-in native methods
+     */
+    public static NativeCalculationsStrategy newStrategy() {
+        return new NativeCalculationsStrategy(new StandInNativeCalculations());
+    }
+
+    @Override
+    public void analyzeTheta(double[] timeToTca0, double[] collisionProbability0, double[] timeToTca1,
+                             double[] collisionProbability1, double[] resultTheta) {
+        resultTheta[0] = StandInCalculationsStrategy.theta(timeToTca0[0], collisionProbability0[0], timeToTca1[0],
+                collisionProbability1[0]);
+    }
+
+    @Override
+    public void adjustCollisionProbability(double[] timeToTca0, double[] collisionProbability0, double[] timeToTca1,
+                                           double[] collisionProbability1, double[] resultAdjustedValue) {
+        resultAdjustedValue[0] = StandInCalculationsStrategy.adjustedCollisionProbability(timeToTca0[0],
+                collisionProbability0[0], timeToTca1[0], collisionProbability1[0]);
+    }
+
+    @Override
+    public boolean checkTheta(double[] theta) {
+        return StandInCalculationsStrategy.isProblematic(theta[0]);
+    }
+
+    @Override
+    public void analyzeRiskTrendSeries(double[] timeToTca, double[] collisionProbability, int[] seriesBounds,
+                                       double[] resultTheta, boolean[] resultProblematic,
+                                       double[] resultAdjustedValue) {
+        throw new UnsatisfiedLinkError("analyze_risk_trend_series");
+    }
+}